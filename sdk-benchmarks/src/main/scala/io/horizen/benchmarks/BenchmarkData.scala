@@ -0,0 +1,25 @@
+package io.horizen.benchmarks
+
+import io.horizen.utils.BytesUtils
+
+import scala.io.Source
+import scala.util.Random
+
+object BenchmarkData {
+
+  // regression data files of the sdk tests, stored as a single hex line
+  def readHexResource(name: String): Array[Byte] = {
+    val source = Source.fromResource(name)
+    try {
+      BytesUtils.fromHexString(source.getLines().next().trim)
+    } finally {
+      source.close()
+    }
+  }
+
+  def randomBytes(random: Random, size: Int): Array[Byte] = {
+    val bytes = new Array[Byte](size)
+    random.nextBytes(bytes)
+    bytes
+  }
+}
@@ -0,0 +1,31 @@
+package io.horizen.benchmarks
+
+import org.openjdk.jmh.results.format.ResultFormatType
+import org.openjdk.jmh.runner.Runner
+import org.openjdk.jmh.runner.options.{CommandLineOptions, OptionsBuilder}
+
+/**
+ * Entry point of the benchmarks jar. It accepts the same command line options of the JMH runner,
+ * but unless a result format or file is given, the results are written as JSON to jmh-result.json,
+ * so that they can be compared between runs.
+ */
+object BenchmarksRunner {
+
+  val DefaultResultFile: String = "jmh-result.json"
+
+  def main(args: Array[String]): Unit = {
+    val cmdOptions = new CommandLineOptions(args: _*)
+    val runner = new Runner(new OptionsBuilder()
+      .parent(cmdOptions)
+      .resultFormat(cmdOptions.getResultFormat.orElse(ResultFormatType.JSON))
+      .result(cmdOptions.getResult.orElse(DefaultResultFile))
+      .build())
+
+    if (cmdOptions.shouldHelp())
+      cmdOptions.showHelp()
+    else if (cmdOptions.shouldList())
+      runner.list()
+    else
+      runner.run()
+  }
+}
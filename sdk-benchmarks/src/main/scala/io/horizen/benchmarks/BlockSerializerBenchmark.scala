@@ -0,0 +1,57 @@
+package io.horizen.benchmarks
+
+import io.horizen.SidechainTypes
+import io.horizen.account.block.{AccountBlock, AccountBlockSerializer}
+import io.horizen.account.fixtures.{AccountBlockFixture, EthereumTransactionFixture}
+import io.horizen.fixtures.{CompanionsFixture, SidechainBlockFixture}
+import io.horizen.utxo.block.{SidechainBlock, SidechainBlockSerializer}
+import org.openjdk.jmh.annotations._
+
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class BlockSerializerBenchmark extends CompanionsFixture with EthereumTransactionFixture {
+
+  // number of transactions of the account block
+  @Param(Array("10", "500"))
+  var transactionsCount: Int = _
+
+  private var accountBlockSerializer: AccountBlockSerializer = _
+  private var accountBlock: AccountBlock = _
+  private var accountBlockBytes: Array[Byte] = _
+
+  private var sidechainBlockSerializer: SidechainBlockSerializer = _
+  private var sidechainBlock: SidechainBlock = _
+  private var sidechainBlockBytes: Array[Byte] = _
+
+  @Setup
+  def setUp(): Unit = {
+    val accountCompanion = getDefaultAccountTransactionsCompanion
+    val transactions = createTransactions(transactionsCount / 10, 10).map(_.asInstanceOf[SidechainTypes#SCAT])
+    accountBlockSerializer = new AccountBlockSerializer(accountCompanion)
+    accountBlock = AccountBlockFixture.generateAccountBlock(accountCompanion, transactions = Some(transactions))
+    accountBlockBytes = accountBlockSerializer.toBytes(accountBlock)
+
+    val utxoCompanion = getDefaultTransactionsCompanion
+    sidechainBlockSerializer = new SidechainBlockSerializer(utxoCompanion)
+    sidechainBlock = SidechainBlockFixture.generateSidechainBlock(utxoCompanion)
+    sidechainBlockBytes = sidechainBlockSerializer.toBytes(sidechainBlock)
+  }
+
+  @Benchmark
+  def serializeAccountBlock(): Array[Byte] = accountBlockSerializer.toBytes(accountBlock)
+
+  @Benchmark
+  def parseAccountBlock(): AccountBlock = accountBlockSerializer.parseBytes(accountBlockBytes)
+
+  @Benchmark
+  def serializeSidechainBlock(): Array[Byte] = sidechainBlockSerializer.toBytes(sidechainBlock)
+
+  @Benchmark
+  def parseSidechainBlock(): SidechainBlock = sidechainBlockSerializer.parseBytes(sidechainBlockBytes)
+}
@@ -0,0 +1,54 @@
+package io.horizen.benchmarks
+
+import io.horizen.account.utils.Bloom
+import org.openjdk.jmh.annotations._
+import org.openjdk.jmh.infra.Blackhole
+
+import java.util.concurrent.TimeUnit
+import scala.util.Random
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class BloomBenchmark {
+
+  // number of addresses and topics added to the filter
+  @Param(Array("16", "256"))
+  var entriesCount: Int = _
+
+  private var entries: Array[Array[Byte]] = _
+  private var missingEntries: Array[Array[Byte]] = _
+  private var bloom: Bloom = _
+
+  @Setup
+  def setUp(): Unit = {
+    val random = new Random(42)
+    entries = Array.fill(entriesCount)(BenchmarkData.randomBytes(random, 32))
+    missingEntries = Array.fill(entriesCount)(BenchmarkData.randomBytes(random, 32))
+    bloom = new Bloom()
+    entries.foreach(bloom.add)
+  }
+
+  @Benchmark
+  def add(): Bloom = {
+    val newBloom = new Bloom()
+    entries.foreach(newBloom.add)
+    newBloom
+  }
+
+  @Benchmark
+  def testPresent(bh: Blackhole): Unit = entries.foreach(entry => bh.consume(bloom.test(entry)))
+
+  @Benchmark
+  def testMissing(bh: Blackhole): Unit = missingEntries.foreach(entry => bh.consume(bloom.test(entry)))
+
+  @Benchmark
+  def merge(): Bloom = {
+    val newBloom = new Bloom()
+    newBloom.merge(bloom)
+    newBloom
+  }
+}
@@ -0,0 +1,152 @@
+package io.horizen.benchmarks
+
+import io.horizen.account.fork.GasFeeFork.DefaultGasFeeFork
+import io.horizen.account.state._
+import io.horizen.account.storage.MsgProcessorMetadataStorageReader
+import io.horizen.account.utils.WellKnownAddresses.FORGER_STAKE_SMART_CONTRACT_ADDRESS
+import io.horizen.evm.{Address, Hash, MemoryDatabase, StateDB}
+import io.horizen.fork.{ForkManagerUtil, SimpleForkConfigurator}
+import io.horizen.params.NetworkParams
+import io.horizen.proposition.{PublicKey25519Proposition, VrfPublicKey}
+import io.horizen.utils.{BytesUtils, Ed25519}
+import org.openjdk.jmh.annotations._
+import org.openjdk.jmh.infra.Blackhole
+import org.scalatestplus.mockito.MockitoSugar
+
+import java.math.BigInteger
+import java.util.Optional
+import java.util.concurrent.TimeUnit
+import scala.util.Random
+
+/**
+ * Messages reading the forger stakes list through ForgerStakeMsgProcessor, applied as in a block: every message sets
+ * up its access list and the processor reads the stakes through a gas tracked view.
+ * The StateDB calls on storage slots (the native boundary crossings of the chunked values) are reported per
+ * iteration by the nativeCalls counters, with the number of messages applied.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class ChunkedStorageBenchmark extends MockitoSugar {
+
+  // number of stakes in the forger stakes list
+  @Param(Array("10", "100"))
+  var stakesCount: Int = _
+
+  // read through the chunked values cache of the view, or from the StateDB only
+  @Param(Array("true", "false"))
+  var cached: Boolean = _
+
+  // messages applied per invocation, as the transactions of a block
+  val MessagesCount: Int = 4
+
+  private val random = new Random(42)
+  private val sender = new Address(BenchmarkData.randomBytes(random, Address.LENGTH))
+  private val blockContext = new BlockContext(
+    Address.ZERO, 0, 0, DefaultGasFeeFork.blockGasLimit, 0, 0, 0, 1, MockedHistoryBlockHashProvider, Hash.ZERO)
+  private val metadata = mock[MsgProcessorMetadataStorageReader]
+  private var db: MemoryDatabase = _
+  private var stateDb: CountingStateDB = _
+  private var view: StateDbAccountStateView = _
+  private var nonce: BigInteger = _
+
+  @Setup
+  def setUp(): Unit = {
+    ForkManagerUtil.initializeForkManager(new SimpleForkConfigurator(), "regtest")
+    val processor = ForgerStakeMsgProcessor(mock[NetworkParams])
+    db = new MemoryDatabase()
+    stateDb = new CountingStateDB(db)
+    val chunkedStorageCache =
+      if (cached) new ChunkedStorageCache
+      else new ChunkedStorageCache {
+        override def put(address: Address, key: Array[Byte], value: Array[Byte], warm: Boolean): Unit = {}
+      }
+    view = new StateDbAccountStateView(stateDb, Seq(processor), chunkedStorageCache = chunkedStorageCache)
+    processor.init(view, 0)
+
+    // stakes delegated to a single forger, added as in the sidechain creation
+    val keyPair = Ed25519.createKeyPair(BenchmarkData.randomBytes(random, 32))
+    val forgerKeys = ForgerPublicKeys(
+      new PublicKey25519Proposition(keyPair.getValue),
+      new VrfPublicKey(BytesUtils.fromHexString("110000000000000000000000000000000000000000000000000000000000000011")))
+    (0 until stakesCount).foreach { _ =>
+      val owner = new Address(BenchmarkData.randomBytes(random, Address.LENGTH))
+      view.addBalance(owner, BigInteger.ONE)
+      processor.addScCreationForgerStake(view, owner, BigInteger.valueOf(10000000000L), AddNewStakeCmdInput(forgerKeys, owner))
+    }
+    view.addBalance(sender, BigInteger.ONE)
+    nonce = BigInteger.ZERO
+  }
+
+  @TearDown
+  def tearDown(): Unit = {
+    view.close()
+    db.close()
+  }
+
+  @Benchmark
+  def getListOfForgersStakes(nativeCalls: ChunkedStorageNativeCalls, bh: Blackhole): Unit = {
+    val callsBefore = stateDb.storageCalls
+    val blockGasPool = new GasPool(DefaultGasFeeFork.blockGasLimit)
+    (0 until MessagesCount).foreach { _ =>
+      val msg = new Message(
+        sender,
+        Optional.of(FORGER_STAKE_SMART_CONTRACT_ADDRESS),
+        BigInteger.ZERO,
+        BigInteger.ZERO,
+        BigInteger.ZERO,
+        BigInteger.valueOf(10000000),
+        BigInteger.ZERO,
+        nonce,
+        BytesUtils.fromHexString(ForgerStakeMsgProcessor.GetListOfForgersCmd),
+        false
+      )
+      bh.consume(view.applyMessage(msg, blockGasPool, blockContext, metadata))
+      nonce = nonce.add(BigInteger.ONE)
+    }
+    nativeCalls.storageCalls += stateDb.storageCalls - callsBefore
+    nativeCalls.messages += MessagesCount
+  }
+}
+
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+class ChunkedStorageNativeCalls {
+  // StateDB calls on storage slots
+  var storageCalls: Long = 0
+  var messages: Long = 0
+
+  @Setup(Level.Iteration)
+  def reset(): Unit = {
+    storageCalls = 0
+    messages = 0
+  }
+}
+
+// counts the StateDB calls on storage slots, each of them crossing the native boundary
+class CountingStateDB(db: MemoryDatabase) extends StateDB(db, Hash.ZERO) {
+  var storageCalls: Long = 0
+
+  override def getStorage(address: Address, key: Hash): Hash = {
+    storageCalls += 1
+    super.getStorage(address, key)
+  }
+
+  override def getCommittedStorage(address: Address, key: Hash): Hash = {
+    storageCalls += 1
+    super.getCommittedStorage(address, key)
+  }
+
+  override def setStorage(address: Address, key: Hash, value: Hash): Unit = {
+    storageCalls += 1
+    super.setStorage(address, key, value)
+  }
+
+  override def accessSlot(address: Address, slot: Hash): Boolean = {
+    storageCalls += 1
+    super.accessSlot(address, slot)
+  }
+}
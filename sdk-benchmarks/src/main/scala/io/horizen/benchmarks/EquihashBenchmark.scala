@@ -0,0 +1,54 @@
+package io.horizen.benchmarks
+
+import io.horizen.block.{Equihash, MainchainHeader}
+import io.horizen.params.MainNetParams
+import org.openjdk.jmh.annotations._
+
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class EquihashBenchmark {
+
+  // mainnet headers
+  @Param(Array("mcheader300001", "mcheader503014"))
+  var headerResource: String = _
+
+  private val params = MainNetParams()
+  private var equihash: Equihash = _
+  private var legacyEquihash: LegacyEquihash = _
+  private var headerBytes: Array[Byte] = _
+  private var header: MainchainHeader = _
+  private var msgLength: Int = _
+  private var msg: Array[Byte] = _
+
+  @Setup
+  def setUp(): Unit = {
+    equihash = Equihash(params.EquihashN, params.EquihashK)
+    legacyEquihash = new LegacyEquihash(params.EquihashN, params.EquihashK)
+    headerBytes = BenchmarkData.readHexResource(headerResource)
+    header = MainchainHeader.create(headerBytes, 0).get
+    msgLength = header.mainchainHeaderBytes.length - params.EquihashCompactSizeLength - params.EquihashSolutionLength
+    msg = header.mainchainHeaderBytes.slice(0, msgLength)
+    require(legacyEquihash.checkEquihashSolution(msg, header.solution) && verifySolution(), "Solution expected to be valid")
+  }
+
+  // verification of the solution, bypassing the verified headers cache
+  @Benchmark
+  def verifySolution(): Boolean = equihash.checkEquihashSolution(header.mainchainHeaderBytes, 0, msgLength, header.solution)
+
+  // same verification with the previous implementation, as a baseline
+  @Benchmark
+  def verifySolutionLegacy(): Boolean = legacyEquihash.checkEquihashSolution(msg, header.solution)
+
+  // header validation, where the solution check is skipped for the already verified headers
+  @Benchmark
+  def headerSemanticValidity(): Boolean = header.semanticValidity(params).isSuccess
+
+  @Benchmark
+  def parseHeader(): MainchainHeader = MainchainHeader.create(headerBytes, 0).get
+}
@@ -0,0 +1,94 @@
+package io.horizen.benchmarks
+
+import com.google.common.primitives.{Bytes, Ints}
+import io.horizen.block.Equihash
+import io.horizen.utils.BytesUtils
+import org.bouncycastle.crypto.digests.Blake2bDigest
+
+import java.nio.charset.StandardCharsets
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Previous Equihash verifier, kept as the baseline of EquihashBenchmark: it allocates a row object per index
+ * and new arrays on every merge step.
+ */
+class LegacyEquihash(val N: Int, val K: Int) {
+  val IndicesPerHashOutput: Int = 512 / N
+  val HashOutputLength: Int = IndicesPerHashOutput * N / 8
+  val CollisionBitLength: Int = N / (K + 1)
+  val CollisionByteLength: Int = (CollisionBitLength + 7) / 8
+  val HashLength: Int = (K + 1) * CollisionByteLength
+  val FinalFullWidth: Int = 2 * CollisionByteLength + 4 * (1 << K)
+
+  private class FullStepRow(val hash: Array[Byte]) {
+    def indicesBefore(other: FullStepRow, len: Int, lenIndices: Int): Boolean = {
+      var i = len
+      while (i < len + lenIndices) {
+        val current = BytesUtils.getInt(hash, i)
+        val before = BytesUtils.getInt(other.hash, i)
+        if (current < before) return true
+        else if (current > before) return false
+        i += 4
+      }
+      false
+    }
+  }
+
+  private def row(hashIn: Array[Byte], index: Int): FullStepRow = {
+    val hash = new Array[Byte](FinalFullWidth)
+    Array.copy(Equihash.expandArray(hashIn, HashLength, CollisionBitLength), 0, hash, 0, HashLength)
+    Array.copy(Ints.toByteArray(index), 0, hash, HashLength, 4)
+    new FullStepRow(hash)
+  }
+
+  private def merge(a: FullStepRow, b: FullStepRow, len: Int, lenIndices: Int, trim: Int): FullStepRow = {
+    val hash = a.hash.clone()
+    (trim until len).foreach(i => hash(i - trim) = (a.hash(i) ^ b.hash(i)).toByte)
+    val (first, second) = if (a.indicesBefore(b, len, lenIndices)) (a, b) else (b, a)
+    Array.copy(first.hash, len, hash, len - trim, lenIndices)
+    Array.copy(second.hash, len, hash, len - trim + lenIndices, lenIndices)
+    new FullStepRow(hash)
+  }
+
+  private def distinctIndices(a: FullStepRow, b: FullStepRow, len: Int, lenIndices: Int): Boolean = {
+    for (i <- 0 until lenIndices by 4; j <- 0 until lenIndices by 4)
+      if (BytesUtils.getInt(a.hash, len + i) == BytesUtils.getInt(b.hash, len + j))
+        return false
+    true
+  }
+
+  def checkEquihashSolution(msgBytes: Array[Byte], solution: Array[Byte]): Boolean = {
+    val b2digest = new Blake2bDigest(null, HashOutputLength, null,
+      Bytes.concat("ZcashPoW".getBytes(StandardCharsets.UTF_8), BytesUtils.reverseBytes(Ints.toByteArray(N)), BytesUtils.reverseBytes(Ints.toByteArray(K))))
+    b2digest.update(msgBytes, 0, msgBytes.length)
+
+    var X = new ArrayBuffer[FullStepRow](1 << K)
+    for (i <- Equihash.getIndicesFromMinimal(solution, CollisionBitLength)) {
+      val digest = new Blake2bDigest(b2digest)
+      digest.update(BytesUtils.reverseBytes(Ints.toByteArray(i / IndicesPerHashOutput)), 0, 4)
+      val hashOutput = new Array[Byte](HashOutputLength)
+      digest.doFinal(hashOutput, 0)
+      val inStartingPos = (i % IndicesPerHashOutput) * N / 8
+      X.append(row(hashOutput.slice(inStartingPos, inStartingPos + N / 8), i))
+    }
+
+    var hashLen = HashLength
+    var lenIndices = 4
+    while (X.size > 1) {
+      val Xc = new ArrayBuffer[FullStepRow]()
+      for (i <- X.indices by 2) {
+        if (!X(i).hash.take(CollisionByteLength).sameElements(X(i + 1).hash.take(CollisionByteLength)))
+          return false
+        if (X(i + 1).indicesBefore(X(i), hashLen, lenIndices))
+          return false
+        if (!distinctIndices(X(i), X(i + 1), hashLen, lenIndices))
+          return false
+        Xc.append(merge(X(i), X(i + 1), hashLen, lenIndices, CollisionByteLength))
+      }
+      X = Xc
+      hashLen -= CollisionByteLength
+      lenIndices *= 2
+    }
+    X(0).hash.take(hashLen).forall(_ == 0)
+  }
+}
@@ -0,0 +1,75 @@
+package io.horizen.benchmarks
+
+import io.horizen.account.fixtures.EthereumTransactionFixture
+import io.horizen.account.mempool.MempoolMap
+import io.horizen.account.state.{AccountStateReader, AccountStateReaderProvider, BaseStateReaderProvider}
+import io.horizen.evm.Address
+import io.horizen.state.BaseStateReader
+import io.horizen.{AccountMempoolSettings, SidechainTypes}
+import org.mockito.{ArgumentMatchers, Mockito}
+import org.openjdk.jmh.annotations._
+import org.openjdk.jmh.infra.Blackhole
+import org.scalatestplus.mockito.MockitoSugar
+
+import java.math.BigInteger
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class MempoolMapBenchmark extends EthereumTransactionFixture with MockitoSugar {
+
+  @Param(Array("10", "100"))
+  var accountsCount: Int = _
+
+  @Param(Array("10"))
+  var transactionsPerAccount: Int = _
+
+  var accountStateProvider: AccountStateReaderProvider = _
+  var baseStateProvider: BaseStateReaderProvider = _
+  var transactions: Seq[SidechainTypes#SCAT] = _
+
+  private var mempoolMap: MempoolMap = _
+
+  @Setup
+  def setUp(): Unit = {
+    val accountStateReader = mock[AccountStateReader]
+    Mockito.when(accountStateReader.getNonce(ArgumentMatchers.any[Address])).thenReturn(BigInteger.ZERO)
+    val baseStateReader = mock[BaseStateReader]
+    Mockito.when(baseStateReader.getNextBaseFee).thenReturn(BigInteger.ZERO)
+    accountStateProvider = () => accountStateReader
+    baseStateProvider = () => baseStateReader
+
+    transactions = createTransactions(accountsCount, transactionsPerAccount).map(_.asInstanceOf[SidechainTypes#SCAT])
+    mempoolMap = newMempoolMap()
+    transactions.foreach(tx => mempoolMap.add(tx).get)
+  }
+
+  def newMempoolMap(): MempoolMap = new MempoolMap(accountStateProvider, baseStateProvider, AccountMempoolSettings())
+
+  // adds all the transactions to an empty mempool
+  @Benchmark
+  def addTransactions(emptyMempool: EmptyMempoolMapState, bh: Blackhole): Unit =
+    transactions.foreach(tx => bh.consume(emptyMempool.mempoolMap.add(tx)))
+
+  // takes all the executable transactions, in the order used for forging
+  @Benchmark
+  def takeExecutableTxs(bh: Blackhole): Unit = {
+    val iter = mempoolMap.takeExecutableTxs().iterator
+    while (iter.hasNext)
+      bh.consume(iter.next())
+  }
+}
+
+@State(Scope.Thread)
+class EmptyMempoolMapState {
+  var mempoolMap: MempoolMap = _
+
+  @Setup(Level.Invocation)
+  def setUp(benchmark: MempoolMapBenchmark): Unit = {
+    mempoolMap = benchmark.newMempoolMap()
+  }
+}
@@ -0,0 +1,40 @@
+package io.horizen.benchmarks
+
+import io.horizen.utils.{ByteArrayWrapper, MerklePath, MerkleTree}
+import org.openjdk.jmh.annotations._
+
+import java.util.{List => JList, Map => JMap}
+import java.util.concurrent.TimeUnit
+import scala.collection.JavaConverters._
+import scala.util.Random
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class MerkleTreeBenchmark {
+
+  @Param(Array("64", "4096", "65536"))
+  var leavesCount: Int = _
+
+  private val random = new Random(42)
+  private var leaves: JList[Array[Byte]] = _
+  private var merkleTree: MerkleTree = _
+
+  @Setup
+  def setUp(): Unit = {
+    leaves = Seq.fill(leavesCount)(BenchmarkData.randomBytes(random, 32)).asJava
+    merkleTree = MerkleTree.createMerkleTree(leaves)
+  }
+
+  @Benchmark
+  def createMerkleTree(): Array[Byte] = MerkleTree.createMerkleTree(leaves).rootHash()
+
+  @Benchmark
+  def merklePathForLeaf(): MerklePath = merkleTree.getMerklePathForLeaf(random.nextInt(leavesCount))
+
+  @Benchmark
+  def merklePathsForAllLeaves(): JMap[ByteArrayWrapper, MerklePath] = merkleTree.getMerklePathsForLeaves(leaves)
+}
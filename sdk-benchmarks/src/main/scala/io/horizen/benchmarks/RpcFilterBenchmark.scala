@@ -0,0 +1,53 @@
+package io.horizen.benchmarks
+
+import io.horizen.account.api.rpc.service.{RpcFilter, RpcFilterDataMocks}
+import io.horizen.account.api.rpc.types.{EthereumLogView, FilterQuery}
+import io.horizen.account.state.AccountStateView
+import io.horizen.evm.{Address, Hash}
+import org.openjdk.jmh.annotations._
+
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class RpcFilterBenchmark {
+
+  private var dataMocks: RpcFilterDataMocks = _
+  private var stateView: AccountStateView = _
+
+  private var unfilteredQuery: FilterQuery = _
+  private var addressQuery: FilterQuery = _
+  private var topicsQuery: FilterQuery = _
+  // fails the block bloom test
+  private var unmatchedQuery: FilterQuery = _
+
+  @Setup
+  def setUp(): Unit = {
+    dataMocks = new RpcFilterDataMocks()
+    stateView = dataMocks.getNodeStateMock
+
+    unfilteredQuery = filterQuery(Array.empty, Array.empty)
+    addressQuery = filterQuery(Array(dataMocks.transactionAddress), Array.empty)
+    topicsQuery = filterQuery(Array.empty, Array(Array(dataMocks.transactionTopic0), Array(dataMocks.transactionTopic1)))
+    unmatchedQuery = filterQuery(Array(dataMocks.unusedTransactionAddress), Array.empty)
+  }
+
+  private def filterQuery(addresses: Array[Address], topics: Array[Array[Hash]]): FilterQuery =
+    new FilterQuery(null, null, null, addresses, topics)
+
+  @Benchmark
+  def getBlockLogsUnfiltered(): Seq[EthereumLogView] = RpcFilter.getBlockLogs(stateView, dataMocks.mockedBlock, unfilteredQuery)
+
+  @Benchmark
+  def getBlockLogsByAddress(): Seq[EthereumLogView] = RpcFilter.getBlockLogs(stateView, dataMocks.mockedBlock, addressQuery)
+
+  @Benchmark
+  def getBlockLogsByTopics(): Seq[EthereumLogView] = RpcFilter.getBlockLogs(stateView, dataMocks.mockedBlock, topicsQuery)
+
+  @Benchmark
+  def getBlockLogsUnmatched(): Seq[EthereumLogView] = RpcFilter.getBlockLogs(stateView, dataMocks.mockedBlock, unmatchedQuery)
+}
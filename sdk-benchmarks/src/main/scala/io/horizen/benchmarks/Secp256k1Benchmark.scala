@@ -0,0 +1,40 @@
+package io.horizen.benchmarks
+
+import io.horizen.account.utils.Secp256k1
+import org.openjdk.jmh.annotations._
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class Secp256k1Benchmark {
+
+  private var privateKey: Array[Byte] = _
+  private var address: Array[Byte] = _
+  private var message: Array[Byte] = _
+  private var signature: Secp256k1.Signature = _
+
+  @Setup
+  def setUp(): Unit = {
+    val keyPair = Secp256k1.createKeyPair("sdk-benchmarks".getBytes(StandardCharsets.UTF_8))
+    privateKey = keyPair.getKey
+    address = Secp256k1.getAddress(keyPair.getValue)
+    message = "message to sign".getBytes(StandardCharsets.UTF_8)
+    signature = Secp256k1.sign(privateKey, message)
+  }
+
+  @Benchmark
+  def sign(): Secp256k1.Signature = Secp256k1.sign(privateKey, message)
+
+  // public key recovery, as done for every transaction signature check
+  @Benchmark
+  def signedMessageToAddress(): Array[Byte] = Secp256k1.signedMessageToAddress(message, signature.v, signature.r, signature.s)
+
+  @Benchmark
+  def verify(): Boolean = Secp256k1.verify(message, signature.v, signature.r, signature.s, address)
+}
@@ -0,0 +1,40 @@
+package io.horizen.benchmarks
+
+import io.horizen.SidechainTypes
+import io.horizen.fixtures.{SecretFixture, TransactionFixture}
+import io.horizen.utxo.state.SidechainState
+import org.openjdk.jmh.annotations._
+import sparkz.core.transaction.state.BoxStateChanges
+
+import java.util.concurrent.TimeUnit
+import scala.collection.JavaConverters._
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class SidechainStateChangesBenchmark extends SecretFixture with TransactionFixture {
+
+  @Param(Array("10", "100", "500"))
+  var transactionsCount: Int = _
+
+  // inputs and outputs of each transaction
+  @Param(Array("10", "100"))
+  var boxesPerTransaction: Int = _
+
+  private var transactions: Seq[SidechainTypes#SCBT] = _
+
+  @Setup
+  def setUp(): Unit = {
+    val secrets = getPrivateKey25519List(boxesPerTransaction).asScala
+    val propositions = secrets.map(_.publicImage())
+    transactions = (1 to transactionsCount).map(_ =>
+      getRegularTransaction(secrets, propositions).asInstanceOf[SidechainTypes#SCBT])
+  }
+
+  @Benchmark
+  def boxStateChanges(): BoxStateChanges[SidechainTypes#SCP, SidechainTypes#SCB] =
+    SidechainState.boxStateChanges(transactions)
+}
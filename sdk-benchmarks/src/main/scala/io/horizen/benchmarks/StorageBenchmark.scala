@@ -0,0 +1,74 @@
+package io.horizen.benchmarks
+
+import io.horizen.storage.leveldb.VersionedLevelDbStorageAdapter
+import io.horizen.utils.{ByteArrayWrapper, Pair => JPair}
+import org.apache.commons.io.FileUtils
+import org.openjdk.jmh.annotations._
+
+import java.io.File
+import java.nio.file.Files
+import java.util.{Optional, List => JList}
+import java.util.concurrent.TimeUnit
+import scala.collection.JavaConverters._
+import scala.util.Random
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class StorageBenchmark {
+
+  // number of key-value pairs written by every version
+  @Param(Array("10", "1000"))
+  var pairsPerVersion: Int = _
+
+  val VersionsToKeep: Int = 100
+  val InitialVersions: Int = 100
+  val KeySize: Int = 32
+  val ValueSize: Int = 64
+
+  private val random = new Random(42)
+  private var storageDir: File = _
+  private var storage: VersionedLevelDbStorageAdapter = _
+  private var keys: Array[ByteArrayWrapper] = _
+
+  @Setup
+  def setUp(): Unit = {
+    storageDir = Files.createTempDirectory("sdk-benchmarks-storage").toFile
+    storage = new VersionedLevelDbStorageAdapter(storageDir, VersionsToKeep)
+    keys = Array.fill(InitialVersions * pairsPerVersion)(new ByteArrayWrapper(BenchmarkData.randomBytes(random, KeySize)))
+    keys.grouped(pairsPerVersion).foreach(versionKeys =>
+      storage.update(nextVersion(), versionKeys.map(key => new JPair(key, nextValue())).toSeq.asJava, Seq.empty[ByteArrayWrapper].asJava))
+  }
+
+  @TearDown
+  def tearDown(): Unit = {
+    storage.close()
+    FileUtils.deleteDirectory(storageDir)
+  }
+
+  private def nextVersion(): ByteArrayWrapper = new ByteArrayWrapper(BenchmarkData.randomBytes(random, 32))
+
+  private def nextValue(): ByteArrayWrapper = new ByteArrayWrapper(BenchmarkData.randomBytes(random, ValueSize))
+
+  // updates a random range of the existing keys
+  private def nextUpdate(): JList[JPair[ByteArrayWrapper, ByteArrayWrapper]] = {
+    val start = random.nextInt(keys.length - pairsPerVersion + 1)
+    keys.slice(start, start + pairsPerVersion).map(key => new JPair(key, nextValue())).toSeq.asJava
+  }
+
+  @Benchmark
+  def update(): Unit = storage.update(nextVersion(), nextUpdate(), Seq.empty[ByteArrayWrapper].asJava)
+
+  @Benchmark
+  def get(): Optional[ByteArrayWrapper] = storage.get(keys(random.nextInt(keys.length)))
+
+  @Benchmark
+  def updateAndRollback(): Unit = {
+    val lastVersion = storage.lastVersionID().get()
+    storage.update(nextVersion(), nextUpdate(), Seq.empty[ByteArrayWrapper].asJava)
+    storage.rollback(lastVersion)
+  }
+}
@@ -0,0 +1,51 @@
+package io.horizen.benchmarks
+
+import io.horizen.account.transaction.EthereumTransaction
+import io.horizen.account.utils.{EthereumTransactionDecoder, RlpStreamDecoder}
+import org.openjdk.jmh.annotations._
+import org.web3j.rlp.RlpList
+import sparkz.util.serialization.VLQByteBufferReader
+
+import java.nio.ByteBuffer
+import java.util.concurrent.TimeUnit
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class TransactionDecoderBenchmark {
+
+  @Param(Array(
+    "ethereumtransaction_eoa2eoa_legacy_signed_hex",
+    "ethereumtransaction_eoa2eoa_eip155_legacy_signed_hex",
+    "ethereumtransaction_eoa2eoa_eip1559_signed_hex",
+    "ethereumtransaction_contract_deployment_eip1559_hex"
+  ))
+  var transactionResource: String = _
+
+  private var transactionBytes: Array[Byte] = _
+  private var transaction: EthereumTransaction = _
+
+  @Setup
+  def setUp(): Unit = {
+    transactionBytes = BenchmarkData.readHexResource(transactionResource)
+    transaction = EthereumTransactionDecoder.decode(transactionBytes)
+  }
+
+  @Benchmark
+  def decodeTransaction(): EthereumTransaction = EthereumTransactionDecoder.decode(transactionBytes)
+
+  @Benchmark
+  def decodeRlp(): RlpList = {
+    val reader = new VLQByteBufferReader(ByteBuffer.wrap(transactionBytes))
+    // typed transactions have the type byte before the rlp list
+    if ((transactionBytes(0) & 0xff) <= 0x7f)
+      reader.getByte()
+    RlpStreamDecoder.decode(reader)
+  }
+
+  @Benchmark
+  def encodeTransaction(): Array[Byte] = transaction.bytes()
+}
@@ -2,6 +2,9 @@ package io.horizen.account.state;
 
 
 import io.horizen.account.storage.MsgProcessorMetadataStorageReader;
+import io.horizen.evm.Address;
+
+import java.util.Optional;
 
 // This interface models the entity which is responsible for handling the application of a transaction to a state view.
 // More in detail, a transaction is converted into a 'Message' object, which is processed
@@ -24,6 +27,13 @@ public interface MessageProcessor {
     // a fork point, therefore we pass along the consensus epoch number, which is not stored in stateDb
     boolean canProcess(Invocation invocation, BaseAccountStateView view, int consensusEpochNumber);
 
+    // Address the processor is bound to, if any. A processor declaring an address must never process invocations
+    // to other addresses: 'canProcess' is then called only for invocations to that address, sparing the probes of
+    // the processor for all the other invocations.
+    default Optional<Address> processedAddress() {
+        return Optional.empty();
+    }
+
     /**
      * Apply invocation to the given view. Possible results:
      * <ul>
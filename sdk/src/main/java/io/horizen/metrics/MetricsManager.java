@@ -27,6 +27,14 @@ public class MetricsManager {
     private Gauge forgeBlockCount;
     private Gauge forgeLotteryTime;
     private Gauge forgeBlockCreationTime;
+    private Gauge historyBlockCacheHitRate;
+    private Gauge historyBlockInfoCacheHitRate;
+    private Gauge certificateDataCollectionTime;
+    private Gauge certificateProofQueueDelay;
+    private Gauge certificateProofGenerationTime;
+    private Counter certificateProofGenerationCancelled;
+    private Gauge mainchainRequestTime;
+    private Gauge mainchainRequestsInFlight;
 
     private List<MetricsHelp> helps;
 
@@ -77,6 +85,30 @@ public class MetricsManager {
 
         forgeBlockCreationTime = Gauge.builder().name("forge_blockcreation_time").register();
         helps.add(new MetricsHelp(forgeBlockCreationTime.getPrometheusName(),  "Time to create a new forged block (calculated from the start timestamp of the slot it belongs to) (milliseconds)"));
+
+        historyBlockCacheHitRate = Gauge.builder().name("history_block_cache_hit_rate").register();
+        helps.add(new MetricsHelp(historyBlockCacheHitRate.getPrometheusName(), "Ratio of the block reads served by the history parsed blocks cache (since start of the node)"));
+
+        historyBlockInfoCacheHitRate = Gauge.builder().name("history_blockinfo_cache_hit_rate").register();
+        helps.add(new MetricsHelp(historyBlockInfoCacheHitRate.getPrometheusName(), "Ratio of the block info reads served by the history block infos cache (since start of the node)"));
+
+        certificateDataCollectionTime = Gauge.builder().name("cert_data_collection_time").register();
+        helps.add(new MetricsHelp(certificateDataCollectionTime.getPrometheusName(), "Time to collect the data of the last certificate from the node view (milliseconds)"));
+
+        certificateProofQueueDelay = Gauge.builder().name("cert_proof_queue_delay").register();
+        helps.add(new MetricsHelp(certificateProofQueueDelay.getPrometheusName(), "Time the last certificate proof generation waited for the prover to be available (milliseconds)"));
+
+        certificateProofGenerationTime = Gauge.builder().name("cert_proof_generation_time").register();
+        helps.add(new MetricsHelp(certificateProofGenerationTime.getPrometheusName(), "Time to generate the last certificate proof (milliseconds)"));
+
+        certificateProofGenerationCancelled = Counter.builder().name("cert_proof_generation_cancelled").register();
+        helps.add(new MetricsHelp(certificateProofGenerationCancelled.getPrometheusName(), "Number of certificate proof generations cancelled because of obsolete withdrawal epoch (absolute value since start of the node)"));
+
+        mainchainRequestTime = Gauge.builder().name("mc_request_time").labelNames("request_type").register();
+        helps.add(new MetricsHelp(mainchainRequestTime.getPrometheusName(), "Time to receive the response of the last request of each type sent to the mainchain node (milliseconds)"));
+
+        mainchainRequestsInFlight = Gauge.builder().name("mc_requests_inflight").register();
+        helps.add(new MetricsHelp(mainchainRequestsInFlight.getPrometheusName(), "Number of requests sent to the mainchain node and waiting for their response"));
     }
 
     public long currentMillis(){
@@ -107,6 +139,28 @@ public class MetricsManager {
     public void lotteryDone(long millis){
         forgeLotteryTime.set(millis);
     }
+    public void historyCacheHitRates(double blockCacheHitRate, double blockInfoCacheHitRate){
+        historyBlockCacheHitRate.set(blockCacheHitRate);
+        historyBlockInfoCacheHitRate.set(blockInfoCacheHitRate);
+    }
+    public void certificateDataCollected(long millis){
+        certificateDataCollectionTime.set(millis);
+    }
+    public void certificateProofStarted(long queueDelayMillis){
+        certificateProofQueueDelay.set(queueDelayMillis);
+    }
+    public void certificateProofGenerated(long millis){
+        certificateProofGenerationTime.set(millis);
+    }
+    public void certificateProofCancelled(){
+        certificateProofGenerationCancelled.inc();
+    }
+    public void mainchainRequestCompleted(String requestType, long millis){
+        mainchainRequestTime.labelValues(requestType).set(millis);
+    }
+    public void mainchainRequestsInFlight(int requests){
+        mainchainRequestsInFlight.set(requests);
+    }
 
 
 }
@@ -31,4 +31,11 @@ public interface Storage extends AutoCloseable {
     void close();
 
     StorageIterator getIterator();
+
+    // Bulk update: the versions updated after startBulkUpdate() are kept in memory, still visible to get(), and
+    // written to the disk at once by commitBulkUpdate(). Rollback and iteration are not allowed until then.
+    // Storages without such support write immediately.
+    default void startBulkUpdate() {}
+
+    default void commitBulkUpdate() {}
 }
@@ -2,22 +2,42 @@ package io.horizen.utils;
 
 import io.horizen.utils.Pair;
 
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 public final class MerkleTree
 {
 
     public static int ROOT_HASH_LENGTH = 32;
 
-    private int _leavesNumber;
-    private List<byte[]> _merkleTree;
-    private boolean _isMutated;
+    private static final int NODE_LENGTH = Utils.SHA256_LENGTH;
 
-    private MerkleTree(int leavesNumber, List<byte[]> merkleTree, boolean isMutated) {
+    // Levels with at least this number of pairs are hashed in parallel.
+    static final int PARALLEL_HASHING_THRESHOLD = 1024;
+
+    // Per-thread digest and buffers, so nodes are hashed without allocations.
+    private static final ThreadLocal<NodeHasher> hasher = ThreadLocal.withInitial(NodeHasher::new);
+
+    private final int _leavesNumber;
+    // All the nodes of the tree, level by level starting from the leaves, each one of NODE_LENGTH bytes.
+    private final byte[] _nodes;
+    private final int _nodesNumber;
+    private final boolean _isMutated;
+    private volatile Map<ByteArrayWrapper, Integer> _leavesIndexes;
+
+    private MerkleTree(int leavesNumber, byte[] nodes, int nodesNumber, boolean isMutated) {
         _leavesNumber = leavesNumber;
-        _merkleTree = merkleTree;
+        _nodes = nodes;
+        _nodesNumber = nodesNumber;
         _isMutated = isMutated;
     }
 
@@ -58,45 +78,72 @@ public final class MerkleTree
         if(leavesHashes == null || leavesHashes.size() == 0)
             throw new IllegalArgumentException("Non leaves provided. Merkle Tree can not be calculated.");
 
-        ArrayList<byte[]> merkleTree = new ArrayList<>(leavesHashes);
+        int leavesNumber = leavesHashes.size();
+        int nodesNumber = leavesNumber;
+        for(int levelSize = leavesNumber; levelSize > 1; levelSize = (levelSize + 1) / 2)
+            nodesNumber += (levelSize + 1) / 2;
+
+        byte[] nodes = new byte[nodesNumber * NODE_LENGTH];
+        int idx = 0;
+        for(byte[] leaf : leavesHashes) {
+            if(leaf == null || leaf.length != NODE_LENGTH)
+                throw new IllegalArgumentException("Leaves expected to be SHA256 hashes of length 32. Merkle Tree can not be calculated.");
+            System.arraycopy(leaf, 0, nodes, idx * NODE_LENGTH, NODE_LENGTH);
+            idx++;
+        }
 
         // Go through level nodes, calculate hashes for next level until get the root.
-        // offset in a merkleTree list.
+        // offset in a nodes list.
         int offset = 0;
         // number of nodes on current level.
-        int levelSize = merkleTree.size();
+        int levelSize = leavesNumber;
 
         // The flag that detect if we have duplicate at the end of some level.
         boolean isMutated = false;
 
         // Note: Root level size is 1
         while(levelSize > 1) {
-            for (int left = 0; left < levelSize; left += 2) {
-                // Right can be the same as left if we have an odd number of nodes on the level.
-                int right = Math.min(left + 1, levelSize - 1);
-                byte[] leftBytes = BytesUtils.reverseBytes(merkleTree.get(offset + left));
-                byte[] rightBytes = BytesUtils.reverseBytes(merkleTree.get(offset + right));
-
-                if(right == left + 1 && right + 1 == levelSize && Arrays.equals(leftBytes, rightBytes)) {
-                    // Two identical hashes at the end of the list at a particular level.
-                    isMutated = true;
-                }
-                merkleTree.add(BytesUtils.reverseBytes(Utils.doubleSHA256HashOfConcatenation(leftBytes, rightBytes)));
+            final int levelOffset = offset;
+            final int currentLevelSize = levelSize;
+            int pairsNumber = (levelSize + 1) / 2;
+
+            if(levelSize % 2 == 0 && Arrays.equals(
+                    nodes, (offset + levelSize - 2) * NODE_LENGTH, (offset + levelSize - 1) * NODE_LENGTH,
+                    nodes, (offset + levelSize - 1) * NODE_LENGTH, (offset + levelSize) * NODE_LENGTH)) {
+                // Two identical hashes at the end of the list at a particular level.
+                isMutated = true;
             }
+
+            if(pairsNumber >= PARALLEL_HASHING_THRESHOLD)
+                IntStream.range(0, pairsNumber).parallel()
+                        .forEach(pair -> hashPair(nodes, levelOffset, currentLevelSize, pair));
+            else
+                for(int pair = 0; pair < pairsNumber; pair++)
+                    hashPair(nodes, levelOffset, currentLevelSize, pair);
+
             offset += levelSize;
             // calculate next level size
-            levelSize = (levelSize + 1) / 2;
+            levelSize = pairsNumber;
         }
 
-        return new MerkleTree(leavesHashes.size(), merkleTree, isMutated);
+        return new MerkleTree(leavesNumber, nodes, nodesNumber, isMutated);
+    }
+
+    // Calculate the parent of the given pair of the level and put it at the corresponding position of the next level.
+    private static void hashPair(byte[] nodes, int levelOffset, int levelSize, int pair) {
+        int left = 2 * pair;
+        // Right can be the same as left if we have an odd number of nodes on the level.
+        int right = Math.min(left + 1, levelSize - 1);
+        hasher.get().hash(nodes, (levelOffset + left) * NODE_LENGTH, (levelOffset + right) * NODE_LENGTH,
+                (levelOffset + levelSize + pair) * NODE_LENGTH);
     }
 
     public byte[] rootHash() {
-        return _merkleTree.get(_merkleTree.size() - 1);
+        return node(_nodesNumber - 1);
     }
 
     public List<byte[]> toList() {
-        return _merkleTree;
+        return nodesList(_nodesNumber);
     }
 
     public int leavesNumber() {
@@ -104,14 +151,35 @@ public final class MerkleTree
     }
 
     public List<byte[]> leaves() {
-        return _merkleTree.subList(0, _leavesNumber);
+        return nodesList(_leavesNumber);
+    }
+
+    private byte[] node(int idx) {
+        return Arrays.copyOfRange(_nodes, idx * NODE_LENGTH, (idx + 1) * NODE_LENGTH);
+    }
+
+    // Read-only view on the first nodes of the tree, each node is copied out of the buffer on access.
+    private List<byte[]> nodesList(int size) {
+        return new AbstractList<byte[]>() {
+            @Override
+            public byte[] get(int index) {
+                if(index < 0 || index >= size)
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                return node(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
     public MerklePath getMerklePathForLeaf(int leafIdx) {
         if(leafIdx < 0 || leafIdx >= _leavesNumber)
             throw new IllegalArgumentException("Leaf index is out of bound. Merkle Path can not be calculated.");
 
-        // offset in a merkleTree list.
+        // offset in a nodes list.
         int offset = 0;
         // number of nodes on current level.
         int levelSize = _leavesNumber;
@@ -124,11 +192,11 @@ public final class MerkleTree
         while(levelSize > 1) {
             boolean isOdd = levelSize % 2 == 1;
             if(isOdd && idxOnLevel == levelSize - 1) // last element on level with odd number of elements -> concatenate with itself
-                merklePath.add(new Pair<>((byte)1, _merkleTree.get(offset + idxOnLevel)));
+                merklePath.add(new Pair<>((byte)1, node(offset + idxOnLevel)));
             else if(idxOnLevel % 2 == 1) // right child
-                merklePath.add(new Pair<>((byte)0, _merkleTree.get(offset + idxOnLevel - 1)));
+                merklePath.add(new Pair<>((byte)0, node(offset + idxOnLevel - 1)));
             else // left child
-                merklePath.add(new Pair<>((byte)1, _merkleTree.get(offset + idxOnLevel + 1)));
+                merklePath.add(new Pair<>((byte)1, node(offset + idxOnLevel + 1)));
 
             offset += levelSize;
             // calculate next level size
@@ -139,6 +207,35 @@ public final class MerkleTree
         return new MerklePath(merklePath);
     }
 
+    // Index of the first leaf equal to the given one, or -1 if there is no such leaf.
+    public int getLeafIndex(byte[] leaf) {
+        Integer idx = leavesIndexes().get(new ByteArrayWrapper(leaf));
+        return idx == null ? -1 : idx;
+    }
+
+    // Merkle paths of the given leaves, leaves that are not in the tree are skipped.
+    public Map<ByteArrayWrapper, MerklePath> getMerklePathsForLeaves(Collection<byte[]> leaves) {
+        Map<ByteArrayWrapper, MerklePath> paths = new HashMap<>();
+        for(byte[] leaf : leaves) {
+            ByteArrayWrapper key = new ByteArrayWrapper(leaf);
+            Integer idx = leavesIndexes().get(key);
+            if(idx != null && !paths.containsKey(key))
+                paths.put(key, getMerklePathForLeaf(idx));
+        }
+        return paths;
+    }
+
+    private Map<ByteArrayWrapper, Integer> leavesIndexes() {
+        Map<ByteArrayWrapper, Integer> indexes = _leavesIndexes;
+        if(indexes == null) {
+            indexes = new HashMap<>(_leavesNumber * 2);
+            for(int i = 0; i < _leavesNumber; i++)
+                indexes.putIfAbsent(new ByteArrayWrapper(node(i)), i);
+            _leavesIndexes = indexes;
+        }
+        return indexes;
+    }
+
     public boolean validateMerklePath(byte[] leaf, MerklePath merklePath) {
         return Arrays.equals(rootHash(), merklePath.apply(leaf));
     }
@@ -146,4 +243,37 @@ public final class MerkleTree
     public boolean isMutated() {
         return _isMutated;
     }
+
+    // Double SHA256 of the concatenation of two nodes. Nodes are stored byte-reversed with respect to the hash output,
+    // so both inputs and output are reversed while copied.
+    private static final class NodeHasher {
+        private final MessageDigest digest;
+        private final byte[] input = new byte[2 * NODE_LENGTH];
+        private final byte[] output = new byte[NODE_LENGTH];
+
+        NodeHasher() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);  // Cannot happen.
+            }
+        }
+
+        void hash(byte[] nodes, int leftOffset, int rightOffset, int resultOffset) {
+            for(int i = 0; i < NODE_LENGTH; i++) {
+                input[i] = nodes[leftOffset + NODE_LENGTH - 1 - i];
+                input[NODE_LENGTH + i] = nodes[rightOffset + NODE_LENGTH - 1 - i];
+            }
+            try {
+                digest.update(input, 0, input.length);
+                digest.digest(output, 0, NODE_LENGTH);
+                digest.update(output, 0, NODE_LENGTH);
+                digest.digest(output, 0, NODE_LENGTH);
+            } catch (DigestException e) {
+                throw new RuntimeException(e);  // Cannot happen.
+            }
+            for(int i = 0; i < NODE_LENGTH; i++)
+                nodes[resultOffset + i] = output[NODE_LENGTH - 1 - i];
+        }
+    }
 }
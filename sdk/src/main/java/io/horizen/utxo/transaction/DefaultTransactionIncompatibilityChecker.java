@@ -15,6 +15,16 @@ public class DefaultTransactionIncompatibilityChecker
         if(newTx == null || currentTxs == null)
             throw new IllegalArgumentException("Parameters can't be null.");
 
+        if(currentTxs instanceof SpentBoxesIndexedTransactions) {
+            // Algorithm difficulty is O(n), where n - number of spent boxes in newTx
+            SpentBoxesIndexedTransactions<?> spentBoxesIndex = (SpentBoxesIndexedTransactions<?>) currentTxs;
+            for(BoxUnlocker unlocker : (List<BoxUnlocker>)newTx.unlockers()) {
+                if(spentBoxesIndex.getTransactionSpendingBox(new ByteArrayWrapper(unlocker.closedBoxId())).isPresent())
+                    return false;
+            }
+            return true;
+        }
+
         // Check intersections between spent boxes of newTx and currentTxs
         // Algorithm difficulty is O(n+m), where n - number of spent boxes in newTx, m - number of currentTxs
         // Note: .boxIdsToOpen() and .unlockers() expected to be optimized (lazy calculated)
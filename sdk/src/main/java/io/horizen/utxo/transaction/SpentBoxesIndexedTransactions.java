@@ -0,0 +1,15 @@
+package io.horizen.utxo.transaction;
+
+import io.horizen.utils.ByteArrayWrapper;
+
+import java.util.Optional;
+
+/**
+ * Set of transactions indexed by the ids of the boxes they spend.
+ * The list of transactions given to the TransactionIncompatibilityChecker by the memory pool implements it, so that
+ * checkers can find the transaction spending a box without iterating the whole list.
+ */
+public interface SpentBoxesIndexedTransactions<T extends BoxTransaction> {
+
+    Optional<T> getTransactionSpendingBox(ByteArrayWrapper boxId);
+}
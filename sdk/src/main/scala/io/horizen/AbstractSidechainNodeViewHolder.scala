@@ -6,11 +6,12 @@ import io.horizen.consensus.{FullConsensusEpochInfo, StakeConsensusEpochInfo, bl
 import io.horizen.history.AbstractHistory
 import io.horizen.history.validation._
 import io.horizen.metrics.MetricsManager
+import io.horizen.network.SyncStatusActor.{NotifySyncStart, NotifySyncStop}
 import io.horizen.params.NetworkParams
 import io.horizen.secret.{Secret, SecretCreator}
-import io.horizen.storage.{AbstractHistoryStorage, SidechainStorageInfo}
+import io.horizen.storage.{AbstractHistoryStorage, BulkSyncJournal, BulkUpdatableStorage, SidechainStorageInfo}
 import io.horizen.transaction.Transaction
-import io.horizen.utils.{BytesUtils, TimeToEpochUtils}
+import io.horizen.utils.{ByteArrayWrapper, BytesUtils, TimeToEpochUtils}
 import io.horizen.wallet.AbstractWallet
 import sparkz.core.NodeViewHolder.ReceivableMessages.LocallyGeneratedTransaction
 import sparkz.core.block.Block.Timestamp
@@ -21,6 +22,7 @@ import sparkz.core.transaction.state.TransactionValidation
 import sparkz.core.utils.NetworkTimeProvider
 import sparkz.core.{ModifiersCache, idToVersion}
 
+import java.io.File
 import java.util.concurrent.TimeUnit
 import scala.util.{Failure, Success, Try}
 
@@ -66,6 +68,25 @@ abstract class AbstractSidechainNodeViewHolder[
 
   override val sparksSettings: SparkzSettings = sidechainSettings.sparkzSettings
 
+  /**
+   * Storages updated in bulk while the node is syncing, listed in the order they must be flushed.
+   * State and wallet storages are flushed while the bulk sync journal exists, so that a partially flushed group
+   * can be rolled back at the restart. History and consensus storages are flushed after the journal is removed:
+   * history best block is the last thing to be persisted, like in the normal block application.
+   */
+  protected def bulkSyncStateAndWalletStorages: Seq[BulkUpdatableStorage] = Seq()
+  protected def bulkSyncHistoryStorages: Seq[BulkUpdatableStorage] = Seq()
+
+  protected lazy val bulkSyncJournal: BulkSyncJournal =
+    new BulkSyncJournal(new File(sidechainSettings.sparkzSettings.dataDir, BulkSyncJournal.FileName))
+
+  // all the blocks of a group must stay rollback-able, so the group can't exceed the max history rewriting length
+  private lazy val maxBlocksPerBulkSyncGroup: Int =
+    Math.max(1, Math.min(sidechainSettings.bulkSync.maxBlocksPerBatch, networkParams.maxHistoryRewritingLength - 1))
+
+  private var bulkSyncEnabled: Boolean = false
+  private var bulkSyncGroupSize: Option[Int] = None
+
   protected def semanticBlockValidators(params: NetworkParams): Seq[SemanticBlockValidator[PMOD]] = Seq(new SidechainBlockSemanticValidator[TX, PMOD](params))
 
   protected def historyBlockValidators(params: NetworkParams): Seq[HistoryBlockValidator[TX, H, PMOD, FPI, HSTOR, HIS]] = Seq(
@@ -97,8 +118,15 @@ abstract class AbstractSidechainNodeViewHolder[
     x.getStorageName -> x.lastVersionId.map(value => BytesUtils.toHexString(value.data())).getOrElse("")
   }).toMap
 
+  override def preStart(): Unit = {
+    super.preStart()
+    context.system.eventStream.subscribe(self, classOf[NotifySyncStart])
+    context.system.eventStream.subscribe(self, NotifySyncStop.getClass)
+  }
+
   override def receive: Receive = {
-    applyFunctionOnNodeView orElse
+    processSyncEvents orElse
+      applyFunctionOnNodeView orElse
       applyBiFunctionOnNodeView orElse
       getCurrentSidechainNodeViewInfo orElse
       processLocallyGeneratedSecret orElse
@@ -238,6 +266,38 @@ abstract class AbstractSidechainNodeViewHolder[
       }
   }
 
+  protected def processSyncEvents: Receive = {
+    case _: NotifySyncStart =>
+      if (sidechainSettings.bulkSync.enabled && bulkSyncStateAndWalletStorages.nonEmpty) {
+        log.info(s"Sync started, applying blocks in groups of $maxBlocksPerBulkSyncGroup")
+        bulkSyncEnabled = true
+      }
+    case NotifySyncStop =>
+      if (bulkSyncEnabled) {
+        log.info("Sync stopped, leaving bulk sync mode")
+        commitBulkSyncGroup()
+        bulkSyncEnabled = false
+      }
+  }
+
+  protected def startBulkSyncGroup(): Unit = {
+    if (bulkSyncEnabled && bulkSyncGroupSize.isEmpty) {
+      bulkSyncJournal.open(new ByteArrayWrapper(BytesUtils.fromHexString(minimalState().version)))
+      (bulkSyncStateAndWalletStorages ++ bulkSyncHistoryStorages).foreach(_.startBulkUpdate())
+      bulkSyncGroupSize = Some(0)
+    }
+  }
+
+  protected def commitBulkSyncGroup(): Unit = {
+    bulkSyncGroupSize.foreach { groupSize =>
+      log.debug(s"Committing bulk sync group of $groupSize blocks")
+      bulkSyncStateAndWalletStorages.foreach(_.commitBulkUpdate())
+      bulkSyncJournal.close()
+      bulkSyncHistoryStorages.foreach(_.commitBulkUpdate())
+      bulkSyncGroupSize = None
+    }
+  }
+
   def processGetStorageVersions: Receive = {
     case AbstractSidechainNodeViewHolder.ReceivableMessages.GetStorageVersions =>
       sender() ! getStorageVersions
@@ -280,6 +340,7 @@ abstract class AbstractSidechainNodeViewHolder[
   override protected def pmodModify(pmod: PMOD): Unit = {
     val startTime = metricsManager.currentMillis()
     if (!history().contains(pmod.id)) {
+      startBulkSyncGroup()
       context.system.eventStream.publish(StartingPersistentModifierApplication(pmod))
 
       log.info(s"Apply modifier ${pmod.encodedId} of type ${pmod.modifierTypeId} to nodeViewHolder" +
@@ -310,6 +371,7 @@ abstract class AbstractSidechainNodeViewHolder[
                   endTime- startTime,
                   endTime - (pmod.timestamp * 1000)
                 );
+                metricsManager.historyCacheHitRates(newHistory.blockCacheHitRate, newHistory.blockInfoCacheHitRate)
 
               // TODO FOR MERGE: usedSizeKBytes()/usedPercentage() should be moved into sparkz.core.transaction.MemoryPool
               //                 or a new AbstractMemoryPool class should be created between MP and the concrete classes
@@ -328,6 +390,13 @@ abstract class AbstractSidechainNodeViewHolder[
           metricsManager.appliedBlockKo();
           context.system.eventStream.publish(SyntacticallyFailedModification(pmod, e))
       }
+
+      bulkSyncGroupSize.foreach { groupSize =>
+        if (groupSize + 1 >= maxBlocksPerBulkSyncGroup)
+          commitBulkSyncGroup()
+        else
+          bulkSyncGroupSize = Some(groupSize + 1)
+      }
     } else {
       log.warn(s"Trying to apply modifier ${pmod.encodedId} that's already in history")
     }
@@ -347,6 +416,8 @@ abstract class AbstractSidechainNodeViewHolder[
       val branchingPoint = progressInfo.branchPoint.get
       if (state.version != branchingPoint) {
         log.debug(s"chain reorg needed, rolling back state and wallet to branching point: $branchingPoint")
+        // rollback works on persisted versions only
+        commitBulkSyncGroup()
         (
           wallet.rollback(idToVersion(branchingPoint)),
           state.rollbackTo(idToVersion(branchingPoint)),
@@ -515,6 +586,7 @@ abstract class AbstractSidechainNodeViewHolder[
 
   override def postStop(): Unit = {
     log.info(s"${getClass.getSimpleName} actor is stopping...")
+    commitBulkSyncGroup()
     super.postStop()
   }
 }
@@ -89,6 +89,11 @@ case class WalletSettings(
 case class CeasedSidechainWithdrawalSettings(
     cswProvingKeyFilePath: String,
     cswVerificationKeyFilePath: String,
+    /*
+       Max number of CSW proofs generated in parallel (up to the number of available processors).
+       Every proof generation allocates its own prover memory, so it should fit the memory available to the node.
+     */
+    maxConcurrentProofs: Int = 1,
 ) extends SensitiveStringer
 
 case class LogInfoSettings(
@@ -160,6 +165,17 @@ case class HistorySettings(
     resetModifiersStatus: Boolean = false,
 )
 
+case class BulkSyncSettings(
+    /**
+     * If true, while the node is syncing the storages accumulate the changes of several blocks in memory
+     * and write them with a single batch
+     */
+    enabled: Boolean = false,
+    maxBlocksPerBatch: Int = 50,
+) {
+  require(maxBlocksPerBatch > 0, s"Bulk sync max blocks per batch must be positive: $maxBlocksPerBatch")
+}
+
 
 case class MetricsApiSettings(
                            enabled: Boolean,
@@ -193,7 +209,8 @@ case class SidechainSettings(
     accountMempool: AccountMempoolSettings,
     apiRateLimiter: ApiRateLimiterSettings,
     history: HistorySettings,
-    evmStateDump: EvmStateDump
+    evmStateDump: EvmStateDump,
+    bulkSync: BulkSyncSettings
 ){
   require(sparkzSettings.network.handlingTransactionsEnabled || !forger.automaticForging,
     s"Node that does not support transaction handling cannot be a forger node: " +
@@ -51,10 +51,11 @@ object SidechainSettingsReader
     val apiRateLimiterSettings = config.as[ApiRateLimiterSettings]("sparkz.apiRateLimiter")
     val historySettings = config.as[HistorySettings]("sparkz.history")
     val evmStateDumpSettings = config.as[EvmStateDump]("sparkz.evmStateDump")
+    val bulkSyncSettings = config.as[BulkSyncSettings]("sparkz.bulkSync")
 
     SidechainSettings(sparkzSettings, metricsSettings, genesisSettings, webSocketClientSettings, webSocketServerSettings, certificateSettings,
       remoteKeysManagerSettings, mempoolSettings, walletSettings, forgerSettings, cswSettings, logInfoSettings,
-      ethServiceSettings, accountMempoolSettings, apiRateLimiterSettings, historySettings, evmStateDumpSettings)
+      ethServiceSettings, accountMempoolSettings, apiRateLimiterSettings, historySettings, evmStateDumpSettings, bulkSyncSettings)
   }
 
   def readConfigFromPath(userConfigPath: String, applicationConfigPath: Option[String]): Config = {
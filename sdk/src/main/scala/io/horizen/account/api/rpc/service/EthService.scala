@@ -1154,13 +1154,15 @@ class EthService(
             }
 
             var resultCount = 0
+            // hash the address and topic queries once for all the blocks in the range
+            val bloomQuery = RpcFilter.BloomQuery(query)
             // get the logs from all blocks in the range into one flat list
             (start to end).flatMap(blockNumber => {
               val logs = nodeView.history
                 .blockIdByHeight(blockNumber)
                 .map(ModifierId(_))
                 .flatMap(nodeView.history.getStorageBlockById)
-                .map(RpcFilter.getBlockLogs(stateView, _, query))
+                .map(RpcFilter.getBlockLogs(stateView, _, query, bloomQuery))
                 .getOrElse(Seq.empty)
 
               resultCount += logs.length
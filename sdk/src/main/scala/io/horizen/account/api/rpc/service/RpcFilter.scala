@@ -4,9 +4,22 @@ import io.horizen.account.api.rpc.types.{EthereumLogView, FilterQuery}
 import io.horizen.evm.{Address, Hash}
 import io.horizen.account.block.AccountBlock
 import io.horizen.account.state.AccountStateView
-import io.horizen.account.utils.Bloom
+import io.horizen.account.utils.{Bloom, BloomMask}
 
 object RpcFilter {
+  /**
+   * Bloom masks of the address and topic queries of a filter, computed once and tested against the blooms of any
+   * number of blocks.
+   */
+  case class BloomQuery(addresses: Array[BloomMask], topics: Array[Array[BloomMask]])
+
+  object BloomQuery {
+    def apply(query: FilterQuery): BloomQuery = apply(query.address, query.topics)
+
+    def apply(addresses: Array[Address], topics: Array[Array[Hash]]): BloomQuery =
+      BloomQuery(addresses.map(address => BloomMask(address.toBytes)), topics.map(_.map(topic => BloomMask(topic.toBytes))))
+  }
+
   /**
    * Get all logs of a block matching the given query. Replication of the original implementation in GETH, see:
    * github.com/ethereum/go-ethereum@v1.10.26/eth/filters/filter.go:227
@@ -15,9 +28,20 @@ object RpcFilter {
                     stateView: AccountStateView,
                     block: AccountBlock,
                     query: FilterQuery
+                  ): Seq[EthereumLogView] = getBlockLogs(stateView, block, query, BloomQuery(query))
+
+  /**
+   * Get all logs of a block matching the given query, using the bloom masks of the query already computed, e.g. once
+   * for a range of blocks.
+   */
+  def getBlockLogs(
+                    stateView: AccountStateView,
+                    block: AccountBlock,
+                    query: FilterQuery,
+                    bloomQuery: BloomQuery
                   ): Seq[EthereumLogView] = {
     val filtered = query.address.length > 0 || query.topics.length > 0
-    if (filtered && !testBloom(block.header.logsBloom, query.address, query.topics)) {
+    if (filtered && !testBloom(block.header.logsBloom, bloomQuery)) {
       // bail out if address or topic queries are given, but they fail the bloom filter test
       return Seq.empty
     }
@@ -46,14 +70,20 @@ object RpcFilter {
    * Tests if a bloom filter matches the given address and topic queries. Replication of the original implementation in
    * GETH, see: github.com/ethereum/go-ethereum@v1.10.26/eth/filters/filter.go:328
    */
-  def testBloom(bloom: Bloom, addresses: Array[Address], topics: Array[Array[Hash]]): Boolean = {
+  def testBloom(bloom: Bloom, addresses: Array[Address], topics: Array[Array[Hash]]): Boolean =
+    testBloom(bloom, BloomQuery(addresses, topics))
+
+  /**
+   * Tests if a bloom filter matches the given bloom masks of address and topic queries, see testBloom above.
+   */
+  def testBloom(bloom: Bloom, bloomQuery: BloomQuery): Boolean = {
     // bail out if an address filter is given and none of the addresses are contained in the bloom filter
-    if (addresses.length > 0 && !addresses.map(_.toBytes).exists(bloom.test)) {
+    if (bloomQuery.addresses.length > 0 && !bloomQuery.addresses.exists(bloom.test)) {
       false
     } else {
-      topics.forall(sub => {
+      bloomQuery.topics.forall(sub => {
         // empty rule set == wildcard, otherwise test if at least one of the given topics is contained
-        sub.length == 0 || sub.map(_.toBytes).exists(bloom.test)
+        sub.length == 0 || sub.exists(bloom.test)
       })
     }
   }
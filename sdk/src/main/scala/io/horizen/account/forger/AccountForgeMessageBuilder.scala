@@ -448,17 +448,17 @@ class AccountForgeMessageBuilder(
 
     // 4. prepare merkle tree of all forger stakes and extract path info of mine (what is left after 3)
     val forgingStakeInfoTree = MerkleTree.createMerkleTree(forgingStakeInfoSeq.map(info => info.hash).asJava)
-    val merkleTreeLeaves = forgingStakeInfoTree.leaves().asScala.map(leaf => new ByteArrayWrapper(leaf))
+    val merklePaths = forgingStakeInfoTree.getMerklePathsForLeaves(filteredForgingStakeInfoSeq.map(info => info.hash).asJava)
 
     // Calculate merkle path for all delegated forger stakes
     val forgingStakeMerklePathInfoSeq: Seq[ForgingStakeMerklePathInfo] =
       filteredForgingStakeInfoSeq.flatMap(forgingStakeInfo => {
-        merkleTreeLeaves.indexOf(new ByteArrayWrapper(forgingStakeInfo.hash)) match {
-          case -1 =>
+        Option(merklePaths.get(new ByteArrayWrapper(forgingStakeInfo.hash))) match {
+          case None =>
             log.warn(s"ForgingStakeInfo not a leaf in merkle tree: should never happen: $forgingStakeInfo ")
             None
-          case index =>
-            Some(ForgingStakeMerklePathInfo(forgingStakeInfo, forgingStakeInfoTree.getMerklePathForLeaf(index)))
+          case Some(merklePath) =>
+            Some(ForgingStakeMerklePathInfo(forgingStakeInfo, merklePath))
         }
       })
 
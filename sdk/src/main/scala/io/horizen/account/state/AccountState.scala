@@ -252,6 +252,11 @@ class AccountState(
 
       stateView.commit(idToVersion(mod.id))
 
+      // the stakes read at the parent state root are updated with the changes of the block, unless the block
+      // modified them in a way that was not recorded
+      stateView.forgerStakesIndexRef.filterNot(_.stakesModified).foreach(ref =>
+        ForgerStakesIndex.inherit(ref.stateRoot, stateMetadataStorage.getAccountStateRoot, ref.stakesChanges))
+
       new AccountState(
         params,
         timeProvider,
@@ -366,17 +371,18 @@ class AccountState(
   // View
   override def getView: AccountStateView = {
     // get state root
-    val stateRoot = new Hash(stateMetadataStorage.getAccountStateRoot)
-    val statedb = new StateDB(stateDbStorage, stateRoot)
+    val stateRootBytes = stateMetadataStorage.getAccountStateRoot
+    val statedb = new StateDB(stateDbStorage, new Hash(stateRootBytes))
 
-    new AccountStateView(stateMetadataStorage.getView, statedb, messageProcessors)
+    new AccountStateView(stateMetadataStorage.getView, statedb, messageProcessors, Some(new ForgerStakesIndexRef(stateRootBytes)))
   }
 
   // get a view over state db which is built with the given state root
   def getStateDbViewFromRoot(stateRoot: Array[Byte]): StateDbAccountStateView =
     new StateDbAccountStateView(
       new StateDB(stateDbStorage, new Hash(stateRoot)),
-      messageProcessors
+      messageProcessors,
+      forgerStakesIndexRef = Some(new ForgerStakesIndexRef(stateRoot))
     )
 
   // Base getters
@@ -25,11 +25,15 @@ class AccountStateView(
   metadataStorageView: AccountStateMetadataStorageView,
   stateDb: StateDB,
   messageProcessors: Seq[MessageProcessor],
-) extends StateDbAccountStateView(stateDb, messageProcessors)
+  forgerStakesIndexRef: Option[ForgerStakesIndexRef]
+) extends StateDbAccountStateView(stateDb, messageProcessors, forgerStakesIndexRef = forgerStakesIndexRef)
     with MsgProcessorMetadataStorageReader
     with StateView[SidechainTypes#SCAT]
     with SparkzLogging {
 
+  def this(metadataStorageView: AccountStateMetadataStorageView, stateDb: StateDB, messageProcessors: Seq[MessageProcessor]) =
+    this(metadataStorageView, stateDb, messageProcessors, None)
+
   def addTopQualityCertificates(refData: MainchainBlockReferenceData, blockId: ModifierId): Unit = {
     refData.topQualityCertificate.foreach(cert => {
       log.debug(s"adding top quality cert to state: $cert.")
@@ -0,0 +1,72 @@
+package io.horizen.account.state
+
+import io.horizen.evm.Address
+import io.horizen.utils.{ByteArrayWrapper, LruCache}
+
+/**
+ * Cache of the values stored in chunks via StateDbAccountStateView.updateAccountStorageBytes.
+ * Reading a chunked value from the StateDB costs a native call for its length plus one for every 32 bytes chunk, and
+ * the native smart contracts read the same values (e.g. the forger stakes) many times.
+ * A cache is owned by a view and shared with the gas tracked views derived from it: any write to a storage key drops
+ * the cached value of that key, reverts drop all the values.
+ * Each value records whether its storage slots are known to be in the access list of the current message (warm), so
+ * that the gas tracked views can charge the cached reads as the StateDB reads they replace.
+ */
+class ChunkedStorageCache {
+  import ChunkedStorageCache.CachedValue
+
+  private val values = new LruCache[(Address, ByteArrayWrapper), CachedValue](ChunkedStorageCache.MaxValues)
+
+  // callers must not modify the returned value
+  def get(address: Address, key: Array[Byte]): Option[CachedValue] =
+    values.synchronized(Option(values.get((address, new ByteArrayWrapper(key)))))
+
+  def put(address: Address, key: Array[Byte], value: Array[Byte], warm: Boolean): Unit =
+    values.synchronized(values.put((address, new ByteArrayWrapper(key.clone())), CachedValue(value.clone(), warm)))
+
+  // the storage slots of the value were added to the access list
+  def setWarm(address: Address, key: Array[Byte]): Unit = values.synchronized {
+    val cacheKey = (address, new ByteArrayWrapper(key))
+    Option(values.get(cacheKey)).foreach(cached => values.put(cacheKey, cached.copy(warm = true)))
+  }
+
+  // a new access list was set up: none of the storage slots of the values is warm anymore
+  def setCold(): Unit = values.synchronized(values.replaceAll((_, cached) => cached.copy(warm = false)))
+
+  def invalidate(address: Address, key: Array[Byte]): Unit =
+    values.synchronized(values.remove((address, new ByteArrayWrapper(key))))
+
+  def clear(): Unit = values.synchronized(values.clear())
+
+  def size: Int = values.synchronized(values.size())
+}
+
+object ChunkedStorageCache {
+
+  case class CachedValue(value: Array[Byte], warm: Boolean)
+
+  val MaxValues: Int = 16384
+
+  val MaxChunkKeys: Int = 16384
+
+  // the chunk keys depend only on the storage key, so they are computed once for all the views
+  private val chunkKeys = new LruCache[ByteArrayWrapper, Array[Array[Byte]]](MaxChunkKeys)
+
+  /**
+   * Keys of the first chunksCount chunks of a value stored at the given key.
+   * The returned array might contain more keys than the requested ones.
+   */
+  def getChunkKeys(key: Array[Byte], chunksCount: Int)(chunkKey: Int => Array[Byte]): Array[Array[Byte]] = {
+    val cacheKey = new ByteArrayWrapper(key.clone())
+    val known = chunkKeys.synchronized(Option(chunkKeys.get(cacheKey))).getOrElse(Array.empty[Array[Byte]])
+    if (known.length >= chunksCount) {
+      known
+    } else {
+      val keys = known ++ (known.length until chunksCount).map(chunkKey)
+      chunkKeys.synchronized(chunkKeys.put(cacheKey, keys))
+      keys
+    }
+  }
+
+  private[state] def clearChunkKeys(): Unit = chunkKeys.synchronized(chunkKeys.clear())
+}
@@ -5,6 +5,7 @@ import io.horizen.account.proposition.AddressProposition
 import io.horizen.account.state.ForgerStakeLinkedList.{addNewNode, getStakeListItem, getStakeListSize, linkedListNodeRefIsNull, removeNode}
 import io.horizen.account.state.ForgerStakeStorage.saveStorageVersion
 import io.horizen.account.state.ForgerStakeStorageVersion.ForgerStakeStorageVersion
+import io.horizen.account.state.ForgerStakesIndex.{StakeAdded, StakeRemoved}
 import io.horizen.account.state.NativeSmartContractMsgProcessor.NULL_HEX_STRING_32
 import io.horizen.account.state.WithdrawalMsgProcessor.calculateKey
 import io.horizen.account.utils.BigIntegerUtil
@@ -113,15 +114,17 @@ object ForgerStakeStorageV1 extends ForgerStakeStorage {
                      ownerPublicKey: Address,
                      stakedAmount: BigInteger): Unit = {
 
-    // add a new node to the linked list pointing to this forger stake data
-    addNewNode(view, stakeId, FORGER_STAKE_SMART_CONTRACT_ADDRESS)
-
     val forgerStakeData = ForgerStakeData(
       ForgerPublicKeys(blockSignProposition, vrfPublicKey), new AddressProposition(ownerPublicKey), stakedAmount)
 
-    // store the forger stake data
-    view.updateAccountStorageBytes(FORGER_STAKE_SMART_CONTRACT_ADDRESS, stakeId,
-      ForgerStakeDataSerializer.toBytes(forgerStakeData))
+    ForgerStakesIndex.recordChange(view, StakeAdded(ForgerStakeStorageVersion.VERSION_1, AccountForgingStakeInfo(stakeId, forgerStakeData))) {
+      // add a new node to the linked list pointing to this forger stake data
+      addNewNode(view, stakeId, FORGER_STAKE_SMART_CONTRACT_ADDRESS)
+
+      // store the forger stake data
+      view.updateAccountStorageBytes(FORGER_STAKE_SMART_CONTRACT_ADDRESS, stakeId,
+        ForgerStakeDataSerializer.toBytes(forgerStakeData))
+    }
   }
 
   override def findForgerStakeStorageElem(view: BaseAccountStateView, stakeId: Array[Byte]): Option[ForgerStakeStorageElem] = {
@@ -129,11 +132,13 @@ object ForgerStakeStorageV1 extends ForgerStakeStorage {
   }
 
   override def removeForgerStake(view: BaseAccountStateView, stakeId: Array[Byte], stake: ForgerStakeStorageElem): Unit = {
-    // remove the data from the linked list
-    removeNode(view, stakeId, FORGER_STAKE_SMART_CONTRACT_ADDRESS)
+    ForgerStakesIndex.recordChange(view, StakeRemoved(ForgerStakeStorageVersion.VERSION_1, stakeId)) {
+      // remove the data from the linked list
+      removeNode(view, stakeId, FORGER_STAKE_SMART_CONTRACT_ADDRESS)
 
-    // remove the stake
-    view.removeAccountStorageBytes(FORGER_STAKE_SMART_CONTRACT_ADDRESS, stakeId)
+      // remove the stake
+      view.removeAccountStorageBytes(FORGER_STAKE_SMART_CONTRACT_ADDRESS, stakeId)
+    }
   }
 
   override def isForgerStakeAvailable(view: BaseAccountStateView): Boolean = {
@@ -173,8 +178,20 @@ object ForgerStakeStorageV2 extends ForgerStakeStorage {
 
 
   override def getPagedListOfForgersStakes(view: BaseAccountStateView, startPos: Int, pageSize: Int): (Int, Seq[AccountForgingStakeInfo]) = {
+    getPageOfForgersStakes(forgerStakeArray.getSize(view), startPos, pageSize, (startPos, endPos) =>
+      (startPos until endPos).map(index => {
+        val currentStakeId = forgerStakeArray.getValue(view, index)
+        val stakeData = ForgerStakeDataSerializer.parseBytes(view.getAccountStorageBytes(FORGER_STAKE_SMART_CONTRACT_ADDRESS, currentStakeId))
+        AccountForgingStakeInfo(
+          currentStakeId,
+          stakeData
+        )
+      })
+    )
+  }
 
-    val stakeListSize = forgerStakeArray.getSize(view)
+  // getStakes is called only for the stakes array positions of the requested page, from startPos until endPos
+  def getPageOfForgersStakes(stakeListSize: Int, startPos: Int, pageSize: Int, getStakes: (Int, Int) => Seq[AccountForgingStakeInfo]): (Int, Seq[AccountForgingStakeInfo]) = {
     if (startPos < 0)
       throw new IllegalArgumentException(s"Invalid startPos input: $startPos can not be negative")
     if (startPos > stakeListSize-1)
@@ -186,14 +203,7 @@ object ForgerStakeStorageV2 extends ForgerStakeStorage {
     if (endPos > stakeListSize)
       endPos = stakeListSize
 
-    val stakeList = (startPos until endPos).map(index => {
-      val currentStakeId = forgerStakeArray.getValue(view, index)
-      val stakeData = ForgerStakeDataSerializer.parseBytes(view.getAccountStorageBytes(FORGER_STAKE_SMART_CONTRACT_ADDRESS, currentStakeId))
-      AccountForgingStakeInfo(
-        currentStakeId,
-        stakeData
-      )
-    })
+    val stakeList = getStakes(startPos, endPos)
 
     if (endPos == stakeListSize) {
       // tell the caller we are done with the array
@@ -211,21 +221,25 @@ object ForgerStakeStorageV2 extends ForgerStakeStorage {
                               ownerPublicKey: Address,
                               stakedAmount: BigInteger): Unit = {
 
+    val ownerAddressProposition = new AddressProposition(ownerPublicKey)
+    val stake = AccountForgingStakeInfo(stakeId,
+      ForgerStakeData(ForgerPublicKeys(blockSignProposition, vrfPublicKey), ownerAddressProposition, stakedAmount))
 
-    val forgerListIndex: Int = forgerStakeArray.append(view, stakeId)
+    ForgerStakesIndex.recordChange(view, StakeAdded(ForgerStakeStorageVersion.VERSION_2, stake)) {
+      val forgerListIndex: Int = forgerStakeArray.append(view, stakeId)
 
-    val ownerAddressProposition = new AddressProposition(ownerPublicKey)
-    val ownerInfo = OwnerStakeInfo(ownerAddressProposition)
-    val ownerListIndex: Int = ownerInfo.append(view, stakeId)
+      val ownerInfo = OwnerStakeInfo(ownerAddressProposition)
+      val ownerListIndex: Int = ownerInfo.append(view, stakeId)
 
-    ownerInfo.addOwnerStake(view, stakedAmount)
+      ownerInfo.addOwnerStake(view, stakedAmount)
 
-    val forgerStakeData = ForgerStakeStorageElemV2(
-      ForgerPublicKeys(blockSignProposition, vrfPublicKey), ownerAddressProposition, stakedAmount, forgerListIndex, ownerListIndex)
+      val forgerStakeData = ForgerStakeStorageElemV2(
+        ForgerPublicKeys(blockSignProposition, vrfPublicKey), ownerAddressProposition, stakedAmount, forgerListIndex, ownerListIndex)
 
-    // store the forger stake data
-    view.updateAccountStorageBytes(FORGER_STAKE_SMART_CONTRACT_ADDRESS, stakeId,
-      ForgerStakeStorageElemV2Serializer.toBytes(forgerStakeData))
+      // store the forger stake data
+      view.updateAccountStorageBytes(FORGER_STAKE_SMART_CONTRACT_ADDRESS, stakeId,
+        ForgerStakeStorageElemV2Serializer.toBytes(forgerStakeData))
+    }
   }
 
   def getOwnerStake(view: BaseAccountStateView, owner: AddressProposition): BigInteger = {
@@ -252,21 +266,23 @@ object ForgerStakeStorageV2 extends ForgerStakeStorage {
   override def removeForgerStake(view: BaseAccountStateView, stakeId: Array[Byte], stake: ForgerStakeStorageElem): Unit = {
     val stakeToRemove = stake.asInstanceOf[ForgerStakeStorageElemV2]
 
-    val stakeListIndex = stakeToRemove.stakeListIndex
-    val stakeIdToMove = forgerStakeArray.removeAndRearrange(view, stakeListIndex)
-    if (!stakeIdToMove.sameElements(stakeId))
-      updateStake(view, stakeIdToMove, stake => {stake.stakeListIndex = stakeListIndex; stake})
+    ForgerStakesIndex.recordChange(view, StakeRemoved(ForgerStakeStorageVersion.VERSION_2, stakeId)) {
+      val stakeListIndex = stakeToRemove.stakeListIndex
+      val stakeIdToMove = forgerStakeArray.removeAndRearrange(view, stakeListIndex)
+      if (!stakeIdToMove.sameElements(stakeId))
+        updateStake(view, stakeIdToMove, stake => {stake.stakeListIndex = stakeListIndex; stake})
 
-    val ownerStakeInfo = OwnerStakeInfo(stakeToRemove.ownerPublicKey)
-    val ownerStakeListIndex = stakeToRemove.ownerListIndex
-    val stakeIdToMoveFromOwnerList = ownerStakeInfo.removeAndRearrange(view, ownerStakeListIndex)
-    if (!stakeIdToMoveFromOwnerList.sameElements(stakeId))
-      updateStake(view, stakeIdToMoveFromOwnerList, stake => {stake.ownerListIndex = ownerStakeListIndex; stake})
+      val ownerStakeInfo = OwnerStakeInfo(stakeToRemove.ownerPublicKey)
+      val ownerStakeListIndex = stakeToRemove.ownerListIndex
+      val stakeIdToMoveFromOwnerList = ownerStakeInfo.removeAndRearrange(view, ownerStakeListIndex)
+      if (!stakeIdToMoveFromOwnerList.sameElements(stakeId))
+        updateStake(view, stakeIdToMoveFromOwnerList, stake => {stake.ownerListIndex = ownerStakeListIndex; stake})
 
-    ownerStakeInfo.subOwnerStake(view, stake.stakedAmount)
+      ownerStakeInfo.subOwnerStake(view, stake.stakedAmount)
 
-    // remove the stake
-    view.removeAccountStorageBytes(FORGER_STAKE_SMART_CONTRACT_ADDRESS, stakeId)
+      // remove the stake
+      view.removeAccountStorageBytes(FORGER_STAKE_SMART_CONTRACT_ADDRESS, stakeId)
+    }
   }
 
   private def updateStake(view: BaseAccountStateView, stakeId: Array[Byte], fun: ForgerStakeStorageElemV2 => ForgerStakeStorageElemV2): Unit = {
@@ -0,0 +1,299 @@
+package io.horizen.account.state
+
+import io.horizen.account.network.ForgerInfo
+import io.horizen.account.proposition.AddressProposition
+import io.horizen.account.state.ForgerStakeStorageVersion.ForgerStakeStorageVersion
+import io.horizen.account.state.nativescdata.forgerstakev2.{PagedStakesByDelegatorResponse, PagedStakesByForgerResponse, StakeDataDelegator, StakeDataForger}
+import io.horizen.account.utils.ZenWeiConverter
+import io.horizen.consensus.ForgingStakeInfo
+import io.horizen.evm.Address
+import io.horizen.utils.{ByteArrayWrapper, LruCache}
+
+import java.math.BigInteger
+import scala.collection.concurrent.TrieMap
+import scala.collection.mutable
+
+/**
+ * In-memory index of the forger stakes, keyed by state root.
+ * Reading the stakes from the StateDB costs several native calls per stake, but the stakes change only when the
+ * stake smart contracts storage is modified. Since a state root identifies the whole state content, the stakes read
+ * for a root can be reused by every view opened on it. The entry of a root produced by a block is the entry of its
+ * parent root with the stakes changes of the block applied.
+ */
+object ForgerStakesIndex {
+
+  val MaxStateRoots: Int = 32
+
+  // stakes read from the StateDB, kept up to date by applying the stakes changes
+  case class StakesOfStorage(storageVersion: ForgerStakeStorageVersion)
+  case object StakeStorageVersion
+  case object StakesV2
+
+  // results computed from the stakes, computed again for every entry
+  case object ListOfForgersStakesV2
+  case class OrderedForgingStakes(stateEpochNumber: Int)
+
+  // changes of the stakes, recorded by the storage of the stake smart contracts
+  sealed trait StakesChange
+  case class StakeAdded(storageVersion: ForgerStakeStorageVersion, stake: AccountForgingStakeInfo) extends StakesChange
+  case class StakeRemoved(storageVersion: ForgerStakeStorageVersion, stakeId: Array[Byte]) extends StakesChange
+  case class ForgerAdded(forger: ForgerInfo, delegator: Address, stakedAmount: BigInteger) extends StakesChange
+  case class ForgerUpdated(forger: ForgerInfo) extends StakesChange
+  case class DelegatorStakeAdded(forger: ForgerPublicKeys, delegator: Address, stakedAmount: BigInteger) extends StakesChange
+  case class DelegatorStakeRemoved(forger: ForgerPublicKeys, delegator: Address, stakedAmount: BigInteger) extends StakesChange
+
+  private val entries = new LruCache[ByteArrayWrapper, ForgerStakesIndexEntry](MaxStateRoots)
+
+  def entry(stateRoot: Array[Byte]): ForgerStakesIndexEntry = entries.synchronized {
+    val key = new ByteArrayWrapper(stateRoot)
+    Option(entries.get(key)).getOrElse {
+      val newEntry = new ForgerStakesIndexEntry
+      entries.put(key, newEntry)
+      newEntry
+    }
+  }
+
+  // the stakes at stateRoot are the ones of parentStateRoot with the given changes applied
+  def inherit(parentStateRoot: Array[Byte], stateRoot: Array[Byte], changes: Seq[StakesChange] = Seq.empty): Unit =
+    entries.synchronized {
+      Option(entries.get(new ByteArrayWrapper(parentStateRoot)))
+        .foreach(parentEntry => entries.put(new ByteArrayWrapper(stateRoot), parentEntry.applyChanges(changes)))
+    }
+
+  /**
+   * Apply a write to the storage of a stake smart contract, recording it as the given change of the stakes.
+   * Writes to the stakes storage done without a change make the index unusable for the view.
+   */
+  def recordChange[T](view: BaseAccountStateView, change: StakesChange)(write: => T): T = view match {
+    case stateDbView: StateDbAccountStateView if stateDbView.forgerStakesIndexRef.isDefined =>
+      stateDbView.forgerStakesIndexRef.get.recordChange(change)(write)
+    case _ => write
+  }
+
+  private[state] def clear(): Unit = entries.synchronized(entries.clear())
+
+  private[state] def applyChanges(key: Any, stakes: AnyRef, changes: Seq[StakesChange]): AnyRef = key match {
+    case StakesOfStorage(storageVersion) =>
+      changes.foldLeft(stakes.asInstanceOf[Vector[AccountForgingStakeInfo]]) {
+        case (list, StakeAdded(`storageVersion`, stake)) => list :+ stake
+        case (list, StakeRemoved(`storageVersion`, stakeId)) =>
+          val index = list.indexWhere(_.stakeId.sameElements(stakeId))
+          if (index == -1) list
+          else if (storageVersion == ForgerStakeStorageVersion.VERSION_1) list.patch(index, Nil, 1)
+          // the stakes array moves its last element to the position of the removed one
+          else list.updated(index, list.last).init
+        case (list, _) => list
+      }
+    case StakesV2 => changes.foldLeft(stakes.asInstanceOf[IndexedForgerStakesV2])(_.applyChange(_))
+    case _ => stakes
+  }
+}
+
+class ForgerStakesIndexEntry private (stakes: TrieMap[Any, AnyRef]) {
+  private val results = TrieMap.empty[Any, AnyRef]
+
+  def this() = this(TrieMap.empty[Any, AnyRef])
+
+  def getStakes[T <: AnyRef](key: Any)(read: => T): T =
+    stakes.getOrElseUpdate(key, read).asInstanceOf[T]
+
+  def getOrElseUpdate[T <: AnyRef](query: Any)(compute: => T): T =
+    results.getOrElseUpdate(query, compute).asInstanceOf[T]
+
+  // the stakes not read yet in this entry are left to be read from the StateDB
+  def applyChanges(changes: Seq[ForgerStakesIndex.StakesChange]): ForgerStakesIndexEntry = {
+    if (changes.isEmpty)
+      this
+    else {
+      val newStakes = TrieMap.empty[Any, AnyRef]
+      stakes.foreach { case (key, value) => newStakes.put(key, ForgerStakesIndex.applyChanges(key, value, changes)) }
+      new ForgerStakesIndexEntry(newStakes)
+    }
+  }
+}
+
+/**
+ * Stakes of the forger stakes v2 smart contract: the forgers in registration order, the delegators of each forger in
+ * the order they first staked and the forgers of each delegator in the order the delegator first staked to them.
+ */
+case class IndexedForgerStakesV2(forgers: Vector[ForgerInfo],
+                                 forgerIndexes: Map[ForgerPublicKeys, Int],
+                                 delegatorsOfForger: Map[ForgerPublicKeys, Vector[Address]],
+                                 forgersOfDelegator: Map[Address, Vector[ForgerPublicKeys]],
+                                 stakedAmounts: Map[(ForgerPublicKeys, Address), BigInteger]) {
+  import ForgerStakesIndex._
+
+  def applyChange(change: StakesChange): IndexedForgerStakesV2 = change match {
+    case ForgerAdded(forger, delegator, stakedAmount) =>
+      val forgerKeys = forger.forgerPublicKeys
+      copy(
+        forgers = forgers :+ forger,
+        forgerIndexes = forgerIndexes.updated(forgerKeys, forgers.size)
+      ).addDelegator(forgerKeys, delegator, stakedAmount)
+    case ForgerUpdated(forger) =>
+      forgerIndexes.get(forger.forgerPublicKeys).map(index => copy(forgers = forgers.updated(index, forger))).getOrElse(this)
+    case DelegatorStakeAdded(forgerKeys, delegator, stakedAmount) =>
+      stakedAmounts.get((forgerKeys, delegator)) match {
+        case Some(amount) => copy(stakedAmounts = stakedAmounts.updated((forgerKeys, delegator), amount.add(stakedAmount)))
+        case None => addDelegator(forgerKeys, delegator, stakedAmount)
+      }
+    case DelegatorStakeRemoved(forgerKeys, delegator, stakedAmount) =>
+      copy(stakedAmounts = stakedAmounts.updated((forgerKeys, delegator), amountOf(forgerKeys, delegator).subtract(stakedAmount)))
+    case _ => this
+  }
+
+  private def addDelegator(forgerKeys: ForgerPublicKeys, delegator: Address, stakedAmount: BigInteger): IndexedForgerStakesV2 =
+    copy(
+      delegatorsOfForger = delegatorsOfForger.updated(forgerKeys, delegatorsOf(forgerKeys) :+ delegator),
+      forgersOfDelegator = forgersOfDelegator.updated(delegator, forgersOf(delegator) :+ forgerKeys),
+      stakedAmounts = stakedAmounts.updated((forgerKeys, delegator), stakedAmount)
+    )
+
+  private def delegatorsOf(forgerKeys: ForgerPublicKeys): Vector[Address] =
+    delegatorsOfForger.getOrElse(forgerKeys, Vector.empty)
+
+  private def forgersOf(delegator: Address): Vector[ForgerPublicKeys] =
+    forgersOfDelegator.getOrElse(delegator, Vector.empty)
+
+  private def amountOf(forgerKeys: ForgerPublicKeys, delegator: Address): BigInteger =
+    stakedAmounts.getOrElse((forgerKeys, delegator), BigInteger.ZERO)
+
+  def getForgingStakes: Seq[ForgingStakeInfo] = forgers.map { forger =>
+    val forgerKeys = forger.forgerPublicKeys
+    val amount = delegatorsOf(forgerKeys).foldLeft(BigInteger.ZERO)((total, delegator) => total.add(amountOf(forgerKeys, delegator)))
+    ForgingStakeInfo(forgerKeys.blockSignPublicKey, forgerKeys.vrfPublicKey, ZenWeiConverter.convertWeiToZennies(amount))
+  }
+
+  def getAllForgerStakes: Seq[ForgerStakeData] = forgers.flatMap { forger =>
+    val forgerKeys = forger.forgerPublicKeys
+    delegatorsOf(forgerKeys).map(delegator => (delegator, amountOf(forgerKeys, delegator)))
+      .collect { case (delegator, amount) if amount.signum() == 1 =>
+        ForgerStakeData(forgerKeys, new AddressProposition(delegator), amount)
+      }
+  }
+
+  // same paging of StakeStorage.getPagedForgersStakesByForger, on the delegators of the forger
+  def getPagedForgersStakesByForger(forger: ForgerPublicKeys, startPos: Int, pageSize: Int): PagedStakesByForgerResponse = {
+    if (startPos < 0)
+      throw new IllegalArgumentException(s"Negative start position: $startPos can not be negative")
+    if (pageSize <= 0)
+      throw new IllegalArgumentException(s"Invalid page size $pageSize, must be positive")
+
+    val delegators = delegatorsOf(forger)
+    val numOfDelegators = delegators.size
+    if (startPos == 0 && numOfDelegators == 0)
+      return PagedStakesByForgerResponse(-1, Seq())
+
+    if (startPos > numOfDelegators - 1)
+      throw new IllegalArgumentException(s"Invalid start position reading list of delegators: $startPos, delegators array size: $numOfDelegators")
+
+    val endPos = Math.min(startPos + pageSize, numOfDelegators)
+    val resultList = delegators.slice(startPos, endPos)
+      .map(delegator => StakeDataDelegator(new AddressProposition(delegator), amountOf(forger, delegator)))
+      .filter(_.stakedAmount.signum() > 0)
+      .toList
+
+    // tell the caller if we are done with the array
+    PagedStakesByForgerResponse(if (endPos == numOfDelegators) -1 else endPos, resultList)
+  }
+
+  // same paging of StakeStorage.getPagedForgersStakesByDelegator, on the forgers of the delegator
+  def getPagedForgersStakesByDelegator(delegator: Address, startPos: Int, pageSize: Int): PagedStakesByDelegatorResponse = {
+    if (startPos < 0)
+      throw new IllegalArgumentException(s"Negative start position: $startPos")
+    if (pageSize <= 0)
+      throw new IllegalArgumentException(s"Invalid page size $pageSize, must be positive")
+
+    val forgerKeys = forgersOf(delegator)
+    val numOfForgers = forgerKeys.size
+    if (startPos == 0 && numOfForgers == 0)
+      return PagedStakesByDelegatorResponse(-1, Seq())
+
+    if (startPos > numOfForgers - 1)
+      throw new IllegalArgumentException(s"Invalid start position reading list of forgers: $startPos, forgers array size: $numOfForgers")
+
+    val endPos = Math.min(startPos + pageSize, numOfForgers)
+    val resultList = forgerKeys.slice(startPos, endPos)
+      .map(forger => StakeDataForger(forger, amountOf(forger, delegator)))
+      .filter(_.stakedAmount.signum() > 0)
+      .toList
+
+    // tell the caller if we are done with the array
+    PagedStakesByDelegatorResponse(if (endPos == numOfForgers) -1 else endPos, resultList)
+  }
+}
+
+/**
+ * Link between a view and the index entry of the state root the view was opened at.
+ * It is shared with the gas tracked views derived from it: the stakes changes made through them are recorded, so that
+ * the index can still be used by the view and the entry of the resulting state root can be derived from the entry of
+ * the parent root. Any other write to the stake contracts storage stops the usage of the index.
+ */
+class ForgerStakesIndexRef(val stateRoot: Array[Byte]) {
+  @volatile private var modified: Boolean = false
+
+  // the stakes changes made through the view, in order
+  private val changes = mutable.ArrayBuffer.empty[ForgerStakesIndex.StakesChange]
+  // number of changes when each StateDB snapshot was taken
+  private val snapshots = mutable.Map.empty[Int, Int]
+  // number of changes ever recorded, reverted ones included
+  private var recordedChanges: Long = 0
+  private var recording: Boolean = false
+  // entry of the view state: the entry of the state root with the changes applied
+  private var changedEntry: Option[ForgerStakesIndexEntry] = None
+
+  def setStakesModified(): Unit = modified = true
+
+  def stakesModified: Boolean = modified
+
+  def stakesChanges: Seq[ForgerStakesIndex.StakesChange] = changes.toList
+
+  def changesCount: Long = recordedChanges
+
+  // a write to the storage of a stake smart contract, that is not part of a recorded change
+  def stakesWritten(): Unit = if (!recording) setStakesModified()
+
+  // if the write fails the StateDB snapshot of the message is reverted, together with the writes already done
+  def recordChange[T](change: ForgerStakesIndex.StakesChange)(write: => T): T = {
+    if (recording)
+      write
+    else {
+      recording = true
+      try {
+        val result = write
+        changes += change
+        recordedChanges += 1
+        changedEntry = None
+        result
+      } finally {
+        recording = false
+      }
+    }
+  }
+
+  def snapshot(revisionId: Int): Unit = snapshots.put(revisionId, changes.size)
+
+  def revertToSnapshot(revisionId: Int): Unit = snapshots.get(revisionId) match {
+    case Some(changesSize) =>
+      if (changesSize < changes.size) {
+        changes.reduceToSize(changesSize)
+        changedEntry = None
+      }
+      snapshots.retain((id, _) => id < revisionId)
+    case None =>
+      // reverted to a snapshot not taken by the view: the changes that were reverted are unknown
+      setStakesModified()
+  }
+
+  def entry: Option[ForgerStakesIndexEntry] = {
+    if (modified)
+      None
+    else if (changes.isEmpty)
+      Some(ForgerStakesIndex.entry(stateRoot))
+    else {
+      if (changedEntry.isEmpty)
+        changedEntry = Some(ForgerStakesIndex.entry(stateRoot).applyChanges(changes))
+      changedEntry
+    }
+  }
+}
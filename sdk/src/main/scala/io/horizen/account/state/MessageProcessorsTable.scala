@@ -0,0 +1,39 @@
+package io.horizen.account.state
+
+import io.horizen.evm.Address
+
+import scala.compat.java8.OptionConverters._
+
+/**
+ * Selection of the message processor of an invocation.
+ * The processors bound to an address (see MessageProcessor.processedAddress) are probed only for the invocations to
+ * that address, while the others (e.g. Eoa and Evm processors) are probed for every invocation.
+ * Candidates keep the order of the given sequence, so the selected processor is the same a scan of the whole sequence
+ * would give.
+ */
+class MessageProcessorsTable(messageProcessors: Seq[MessageProcessor]) {
+
+  private val processedAddresses: Seq[(MessageProcessor, Option[Address])] =
+    messageProcessors.map(processor => (processor, processor.processedAddress().asScala))
+
+  private val unboundProcessors: Seq[MessageProcessor] = processedAddresses.collect {
+    case (processor, None) => processor
+  }
+
+  private val processorsByAddress: Map[Address, Seq[MessageProcessor]] = processedAddresses
+    .flatMap(_._2)
+    .distinct
+    .map(address =>
+      address -> processedAddresses.collect {
+        case (processor, processedAddress) if processedAddress.forall(_ == address) => processor
+      }
+    )
+    .toMap
+
+  // processors that could handle an invocation to the given callee, in their original order
+  def candidates(callee: Option[Address]): Seq[MessageProcessor] =
+    callee.flatMap(processorsByAddress.get).getOrElse(unboundProcessors)
+
+  def find(invocation: Invocation, view: BaseAccountStateView, consensusEpochNumber: Int): Option[MessageProcessor] =
+    candidates(invocation.callee).find(_.canProcess(invocation, view, consensusEpochNumber))
+}
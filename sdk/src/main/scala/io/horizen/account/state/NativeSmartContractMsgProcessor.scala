@@ -7,6 +7,8 @@ import io.horizen.evm.Address
 import sparkz.crypto.hash.Keccak256
 import sparkz.util.SparkzLogging
 
+import java.util.Optional
+
 abstract class NativeSmartContractMsgProcessor extends MessageProcessor with SparkzLogging {
 
   val contractAddress: Address
@@ -27,6 +29,8 @@ abstract class NativeSmartContractMsgProcessor extends MessageProcessor with Spa
 
   override def customTracing(): Boolean = false
 
+  override def processedAddress(): Optional[Address] = Optional.of(contractAddress)
+
   override def canProcess(invocation: Invocation, view: BaseAccountStateView, consensusEpochNumber: Int): Boolean = {
     // we rely on the condition that init() has already been called at this point
     invocation.callee.exists(contractAddress.equals(_))
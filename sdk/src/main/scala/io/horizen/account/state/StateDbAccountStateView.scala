@@ -4,12 +4,14 @@ import io.horizen.SidechainTypes
 import io.horizen.account.fork.{Version1_3_0Fork, Version1_4_0Fork}
 import io.horizen.account.network.ForgerInfo
 import io.horizen.account.proposition.AddressProposition
-import io.horizen.account.state.nativescdata.forgerstakev2.{PagedStakesByDelegatorResponse, PagedStakesByForgerResponse}
+import io.horizen.account.state.ForgerStakeStorageVersion.ForgerStakeStorageVersion
+import io.horizen.account.state.nativescdata.forgerstakev2.{PagedStakesByDelegatorResponse, PagedStakesByForgerResponse, StakeStorage}
 import io.horizen.account.state.receipt.EthereumConsensusDataReceipt.ReceiptStatus
 import io.horizen.account.state.receipt.{EthereumConsensusDataLog, EthereumConsensusDataReceipt}
 import io.horizen.account.storage.MsgProcessorMetadataStorageReader
 import io.horizen.account.transaction.EthereumTransaction
 import io.horizen.account.utils.{BigIntegerUtil, MainchainTxCrosschainOutputAddressUtil, ZenWeiConverter}
+import io.horizen.account.utils.WellKnownAddresses.{FORGER_STAKE_SMART_CONTRACT_ADDRESS, FORGER_STAKE_V2_SMART_CONTRACT_ADDRESS}
 import io.horizen.block.{MainchainBlockReferenceData, MainchainTxForwardTransferCrosschainOutput, MainchainTxSidechainCreationCrosschainOutput}
 import io.horizen.certificatesubmitter.keys.{CertifiersKeys, KeyRotationProof, KeyRotationProofTypes}
 import io.horizen.consensus.{ForgingStakeInfo, minForgerStake}
@@ -28,7 +30,9 @@ import scala.util.Try
 class StateDbAccountStateView(
     stateDb: StateDB,
     messageProcessors: Seq[MessageProcessor],
-    var readOnly: Boolean = false
+    var readOnly: Boolean = false,
+    val forgerStakesIndexRef: Option[ForgerStakesIndexRef] = None,
+    val chunkedStorageCache: ChunkedStorageCache = new ChunkedStorageCache
 ) extends BaseAccountStateView
       with AutoCloseable
       with SparkzLogging {
@@ -71,27 +75,80 @@ class StateDbAccountStateView(
     forgerStakesProvider.isForgerStakeAvailable(this, isForkV1_3Active)
   }
 
+  // views whose reads are charged must always read from the StateDB
+  protected def useForgerStakesIndex: Boolean = true
+
+  // views whose reads are charged must charge the chunked values read from the cache as the StateDB reads they replace
+  protected def chargesStorageReads: Boolean = false
+
+  // charge the read of a storage slot of a cached chunked value, warm if the slot is known to be in the access list
+  protected def chargeCachedStorageRead(address: Address, slot: Array[Byte], warm: Boolean): Unit = {}
+
+  // the index entry of the view state, as long as the stakes were modified by this view only through recorded changes
+  private def forgerStakesIndexEntry: Option[ForgerStakesIndexEntry] =
+    forgerStakesIndexRef.filter(_ => useForgerStakesIndex).flatMap(_.entry)
+
+  private def indexedStakesOfStorage(entry: ForgerStakesIndexEntry, storageVersion: ForgerStakeStorageVersion): Vector[AccountForgingStakeInfo] =
+    entry.getStakes(ForgerStakesIndex.StakesOfStorage(storageVersion)) {
+      ForgerStakeStorage(storageVersion).getListOfForgersStakes(this).toVector
+    }
+
+  private def indexedStakesV2(entry: ForgerStakesIndexEntry): IndexedForgerStakesV2 =
+    entry.getStakes(ForgerStakesIndex.StakesV2)(StakeStorage.getIndexedForgerStakes(this))
+
   override def getListOfForgersStakes(isForkV1_3Active: Boolean, isForkV1_4Active: Boolean): Seq[AccountForgingStakeInfo] = {
     if (isForkV1_4Active && forgerStakesV2IsActive) {
-      forgerStakesV2Provider.getListOfForgersStakes(this)
-        .map(AccountForgingStakeInfo(null, _))
+      forgerStakesIndexEntry match {
+        case Some(entry) =>
+          entry.getOrElseUpdate(ForgerStakesIndex.ListOfForgersStakesV2) {
+            indexedStakesV2(entry).getAllForgerStakes.map(AccountForgingStakeInfo(null, _))
+          }
+        case None =>
+          forgerStakesV2Provider.getListOfForgersStakes(this).map(AccountForgingStakeInfo(null, _))
+      }
     } else {
-      forgerStakesProvider.getListOfForgersStakes(this, isForkV1_3Active)
+      forgerStakesIndexEntry match {
+        case Some(entry) =>
+          val storageVersion =
+            if (isForkV1_3Active) entry.getStakes(ForgerStakesIndex.StakeStorageVersion)(ForgerStakeStorage.getStorageVersionFromDb(this))
+            else ForgerStakeStorageVersion.VERSION_1
+          indexedStakesOfStorage(entry, storageVersion)
+        case None =>
+          forgerStakesProvider.getListOfForgersStakes(this, isForkV1_3Active)
+      }
     }
   }
 
   override def getPagedListOfForgersStakes(startPos: Int, pageSize: Int): (Int, Seq[AccountForgingStakeInfo]) = {
-    forgerStakesProvider.getPagedListOfForgersStakes(this, startPos, pageSize)
+    forgerStakesIndexEntry match {
+      case Some(entry) =>
+        val stakes = indexedStakesOfStorage(entry, ForgerStakeStorageVersion.VERSION_2)
+        ForgerStakeStorageV2.getPageOfForgersStakes(stakes.size, startPos, pageSize, stakes.slice(_, _))
+      case None =>
+        forgerStakesProvider.getPagedListOfForgersStakes(this, startPos, pageSize)
+    }
   }
 
-  override def getPagedForgersStakesByForger(forger: ForgerPublicKeys, startPos: Int, pageSize: Int): PagedStakesByForgerResponse =
-    forgerStakesV2Provider.getPagedForgersStakesByForger(this, forger, startPos, pageSize)
+  override def getPagedForgersStakesByForger(forger: ForgerPublicKeys, startPos: Int, pageSize: Int): PagedStakesByForgerResponse = {
+    forgerStakesIndexEntry match {
+      case Some(entry) if forgerStakesV2IsActive =>
+        indexedStakesV2(entry).getPagedForgersStakesByForger(forger, startPos, pageSize)
+      case _ =>
+        forgerStakesV2Provider.getPagedForgersStakesByForger(this, forger, startPos, pageSize)
+    }
+  }
 
   def isForgerStakeV1SmartContractDisabled(isForkV1_4Active: Boolean): Boolean =
     forgerStakesProvider.isForgerStakeV1SmartContractDisabled(this, isForkV1_4Active)
 
-  override def getPagedForgersStakesByDelegator(delegator: Address, startPos: Int, pageSize: Int): PagedStakesByDelegatorResponse =
-    forgerStakesV2Provider.getPagedForgersStakesByDelegator(this, delegator, startPos, pageSize)
+  override def getPagedForgersStakesByDelegator(delegator: Address, startPos: Int, pageSize: Int): PagedStakesByDelegatorResponse = {
+    forgerStakesIndexEntry match {
+      case Some(entry) if forgerStakesV2IsActive =>
+        indexedStakesV2(entry).getPagedForgersStakesByDelegator(delegator, startPos, pageSize)
+      case _ =>
+        forgerStakesV2Provider.getPagedForgersStakesByDelegator(this, delegator, startPos, pageSize)
+    }
+  }
 
   override def getForgerInfo(forger: ForgerPublicKeys): Option[ForgerInfo] = {
     forgerStakesV2Provider.getForgerInfo(this, forger)
@@ -163,7 +220,17 @@ class StateDbAccountStateView(
     })
   }
 
-  def getOrderedForgingStakesInfoSeq(stateEpochNumber: Int): Seq[ForgingStakeInfo] = {
+  def getOrderedForgingStakesInfoSeq(stateEpochNumber: Int): Seq[ForgingStakeInfo] =
+    forgerStakesIndexEntry match {
+      case Some(entry) =>
+        entry.getOrElseUpdate(ForgerStakesIndex.OrderedForgingStakes(stateEpochNumber)) {
+          readOrderedForgingStakesInfoSeq(stateEpochNumber)
+        }
+      case None =>
+        readOrderedForgingStakesInfoSeq(stateEpochNumber)
+    }
+
+  private def readOrderedForgingStakesInfoSeq(stateEpochNumber: Int): Seq[ForgingStakeInfo] = {
     val forkV1_4Active = Version1_4_0Fork.get(stateEpochNumber).active
     val minStakeFilter: ForgingStakeInfo => Boolean = if (forkV1_4Active) {
       fsi => fsi.stakeAmount >= minForgerStake
@@ -173,11 +240,11 @@ class StateDbAccountStateView(
 
     if (forkV1_4Active && forgerStakesV2IsActive) {
       // V2 Stake storage provides stakes per forger
-      forgerStakesV2Provider.getForgingStakes(this)
+      forgerStakesIndexEntry.map(indexedStakesV2(_).getForgingStakes).getOrElse(forgerStakesV2Provider.getForgingStakes(this))
     } else {
       // get forger stakes list view (scala lazy collection)
       val isForkV1_3Active = Version1_3_0Fork.get(stateEpochNumber).active
-      forgerStakesProvider.getListOfForgersStakes(this, isForkV1_3Active).view
+      getListOfForgersStakes(isForkV1_3Active, isForkV1_4Active = false).view
         // group delegation stakes by blockSignPublicKey/vrfPublicKey pairs
         .groupBy(stake =>
           (stake.forgerStakeData.forgerPublicKeys.blockSignPublicKey, stake.forgerStakeData.forgerPublicKeys.vrfPublicKey)
@@ -330,6 +397,9 @@ class StateDbAccountStateView(
 
   override def updateAccountStorage(address: Address, key: Array[Byte], value: Array[Byte]): Unit = {
     if (readOnly) throw new WriteProtectionException("invalid write access to storage")
+    if (address == FORGER_STAKE_SMART_CONTRACT_ADDRESS || address == FORGER_STAKE_V2_SMART_CONTRACT_ADDRESS)
+      forgerStakesIndexRef.foreach(_.stakesWritten())
+    chunkedStorageCache.invalidate(address, key)
     stateDb.setStorage(address, new Hash(key), new Hash(value))
   }
 
@@ -346,11 +416,34 @@ class StateDbAccountStateView(
   private def getChunkKey(key: Array[Byte], chunkIndex: Int): Array[Byte] =
     Keccak256.hash(chunkKeySalt, key, BigIntegerUtil.toUint256Bytes(BigInteger.valueOf(chunkIndex)))
 
+  private def getChunkKeys(key: Array[Byte], chunksCount: Int): Array[Array[Byte]] =
+    ChunkedStorageCache.getChunkKeys(key, chunksCount)(getChunkKey(key, _))
+
   final override def getAccountStorageBytes(address: Address, key: Array[Byte]): Array[Byte] = {
+    chunkedStorageCache.get(address, key) match {
+      case Some(cached) =>
+        if (chargesStorageReads) {
+          // the slots read by readAccountStorageBytes: the length of the value, then its chunks
+          val chunksCount = (cached.value.length + Hash.LENGTH - 1) / Hash.LENGTH
+          chargeCachedStorageRead(address, key, cached.warm)
+          getChunkKeys(key, chunksCount).take(chunksCount).foreach(chargeCachedStorageRead(address, _, cached.warm))
+          if (!cached.warm) chunkedStorageCache.setWarm(address, key)
+        }
+        cached.value.clone()
+      case None =>
+        val value = readAccountStorageBytes(address, key)
+        chunkedStorageCache.put(address, key, value, warm = chargesStorageReads)
+        value
+    }
+  }
+
+  private def readAccountStorageBytes(address: Address, key: Array[Byte]): Array[Byte] = {
     val length = new BigInteger(1, getAccountStorage(address, key)).intValueExact()
     val data = new Array[Byte](length)
-    for (chunkIndex <- 0 until (length + Hash.LENGTH - 1) / Hash.LENGTH) {
-      getAccountStorage(address, getChunkKey(key, chunkIndex)).copyToArray(data, chunkIndex * Hash.LENGTH)
+    val chunksCount = (length + Hash.LENGTH - 1) / Hash.LENGTH
+    val chunkKeys = getChunkKeys(key, chunksCount)
+    for (chunkIndex <- 0 until chunksCount) {
+      getAccountStorage(address, chunkKeys(chunkIndex)).copyToArray(data, chunkIndex * Hash.LENGTH)
     }
     data
   }
@@ -364,9 +457,10 @@ class StateDbAccountStateView(
     val newLength = value.length
     // if the new value is empty remove all key-value pairs, including the one holding the value length
     updateAccountStorage(address, key, BigIntegerUtil.toUint256Bytes(BigInteger.valueOf(newLength)))
+    val chunkKeys = getChunkKeys(key, (Math.max(newLength, oldLength) + Hash.LENGTH - 1) / Hash.LENGTH)
     for (start <- 0 until Math.max(newLength, oldLength) by Hash.LENGTH) {
       val chunkIndex = start / Hash.LENGTH
-      val chunkKey = getChunkKey(key, chunkIndex)
+      val chunkKey = chunkKeys(chunkIndex)
       if (start < newLength) {
         // (over-)write chunks
         updateAccountStorage(address, chunkKey, value.slice(start, start + Hash.LENGTH).padTo(Hash.LENGTH, 0.toByte))
@@ -375,6 +469,8 @@ class StateDbAccountStateView(
         removeAccountStorage(address, chunkKey)
       }
     }
+    // write-through: the StateDB is always updated, so that the gas charged for the writes is not affected
+    chunkedStorageCache.put(address, key, value, warm = chargesStorageReads)
   }
 
   final override def removeAccountStorageBytes(address: Address, key: Array[Byte]): Unit =
@@ -412,19 +508,32 @@ class StateDbAccountStateView(
   def setupTxContext(txHash: Array[Byte], idx: Integer): Unit = stateDb.setTxContext(new Hash(txHash), idx)
 
   // reset and prepare account access list
-  def setupAccessList(msg: Message, forgerAddress: Address, rules: ForkRules): Unit =
+  def setupAccessList(msg: Message, forgerAddress: Address, rules: ForkRules): Unit = {
+    chunkedStorageCache.setCold()
     stateDb.accessSetup(msg.getFrom, msg.getTo.orElse(Address.ZERO), forgerAddress, rules)
+  }
 
   def getRefund: BigInteger = stateDb.getRefund
 
-  def snapshot: Int = stateDb.snapshot()
+  def snapshot: Int = {
+    val revisionId = stateDb.snapshot()
+    forgerStakesIndexRef.foreach(_.snapshot(revisionId))
+    revisionId
+  }
 
   def finalizeChanges(): Unit = stateDb.finalizeChanges()
 
-  def revertToSnapshot(revisionId: Int): Unit = stateDb.revertToSnapshot(revisionId)
+  // the StateDB was changed without passing through the view, e.g. reverted by the EVM
+  private[state] def clearChunkedStorageCache(): Unit = chunkedStorageCache.clear()
+
+  def revertToSnapshot(revisionId: Int): Unit = {
+    chunkedStorageCache.clear()
+    forgerStakesIndexRef.foreach(_.revertToSnapshot(revisionId))
+    stateDb.revertToSnapshot(revisionId)
+  }
 
   override def getGasTrackedView(gas: GasPool): BaseAccountStateView =
-    new StateDbAccountStateViewGasTracked(stateDb, messageProcessors, readOnly, gas)
+    new StateDbAccountStateViewGasTracked(stateDb, messageProcessors, readOnly, gas, forgerStakesIndexRef, chunkedStorageCache)
 
   /**
    * Prevent write access to account storage, balance, nonce and code. While write protection is enabled invalid access
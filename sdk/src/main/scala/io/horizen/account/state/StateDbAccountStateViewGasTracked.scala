@@ -9,13 +9,28 @@ import java.math.BigInteger
  * Extension to help with tracking gas consumption.
  * @param gas
  *   GasPool instance to deduct gas from
+ * @param forgerStakesIndexRef
+ *   index reference of the parent view, to track the stakes modifications
+ * @param chunkedStorageCache
+ *   chunked values cache of the parent view, its reads are charged as the StateDB reads they replace
  */
 class StateDbAccountStateViewGasTracked(
     stateDb: StateDB,
     messageProcessors: Seq[MessageProcessor],
     readOnly: Boolean,
-    gas: GasPool
-) extends StateDbAccountStateView(stateDb, messageProcessors, readOnly) {
+    gas: GasPool,
+    forgerStakesIndexRef: Option[ForgerStakesIndexRef] = None,
+    chunkedStorageCache: ChunkedStorageCache = new ChunkedStorageCache
+) extends StateDbAccountStateView(stateDb, messageProcessors, readOnly, forgerStakesIndexRef, chunkedStorageCache) {
+
+  // reads must be charged
+  override protected def useForgerStakesIndex: Boolean = false
+
+  override protected def chargesStorageReads: Boolean = true
+
+  @throws(classOf[OutOfGasException])
+  override protected def chargeCachedStorageRead(address: Address, slot: Array[Byte], warm: Boolean): Unit =
+    if (warm) gas.subGas(GasUtil.WarmStorageReadCostEIP2929) else storageAccess(address, slot)
 
   /**
    * Consume gas for account access:
@@ -20,6 +20,9 @@ class StateTransition(
     metadata: MsgProcessorMetadataStorageReader
   ) extends SparkzLogging with ExecutionContext {
 
+  // selection of the message processor of each invocation
+  private val processorsTable = new MessageProcessorsTable(messageProcessors)
+
   // the current stack of invocations
   private val invocationStack = new ListBuffer[Invocation]
 
@@ -30,6 +33,9 @@ class StateTransition(
   // e.g. multiple internal calls withing the EVM
   var depth = 0
 
+  // number of EVM invocations on the stack
+  private var evmDepth = 0
+
   /**
    * Perform a state transition by applying the given message to the current state view. Afterwards, the state will
    * always be in a consistent state, possible outcomes are:
@@ -181,7 +187,7 @@ class StateTransition(
         throw new WriteProtectionException("invalid value transfer during read-only invocation")
       }
       // find and execute the first matching processor
-      messageProcessors.find(_.canProcess(invocation, view, blockContext.consensusEpochNumber)) match {
+      processorsTable.find(invocation, view, blockContext.consensusEpochNumber) match {
         case None =>
           log.error(s"No message processor found for invocation: $invocation")
           throw new IllegalArgumentException("Unable to execute invocation.")
@@ -242,8 +248,20 @@ class StateTransition(
     depth += 1
     // create a snapshot before any changes are made by the processor
     val revert = view.snapshot
+    // the EVM reverts its call frames without passing through the view: the cached chunked values are dropped when
+    // the EVM calls back into a nested invocation and when the EVM returns, and the stakes changes recorded by nested
+    // invocations can't be trusted anymore
+    val evmInvocation = processor.isInstanceOf[EvmMessageProcessor]
+    val stakesChanges = view.forgerStakesIndexRef.map(_.changesCount)
+    if (evmDepth > 0) view.clearChunkedStorageCache()
+    if (evmInvocation) evmDepth += 1
     // execute the message processor
     val result = Try.apply(processor.process(invocation, view, metadata, this))
+    if (evmInvocation) {
+      evmDepth -= 1
+      view.clearChunkedStorageCache()
+      view.forgerStakesIndexRef.filter(ref => !stakesChanges.contains(ref.changesCount)).foreach(_.setStakesModified())
+    }
     // handle errors
     result match {
       // if the processor throws ExecutionRevertedException we revert changes
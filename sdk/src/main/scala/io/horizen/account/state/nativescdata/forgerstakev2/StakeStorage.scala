@@ -3,6 +3,7 @@ package io.horizen.account.state.nativescdata.forgerstakev2
 import com.google.common.primitives.Bytes
 import io.horizen.account.network.{ForgerInfo, ForgerInfoSerializer}
 import io.horizen.account.proposition.{AddressProposition, AddressPropositionSerializer}
+import io.horizen.account.state.ForgerStakesIndex.{DelegatorStakeAdded, DelegatorStakeRemoved, ForgerAdded, ForgerUpdated}
 import io.horizen.account.state.NativeSmartContractMsgProcessor.NULL_HEX_STRING_32
 import io.horizen.account.state._
 import io.horizen.account.state.nativescdata.forgerstakev2.StakeStorage.{ACCOUNT, ForgerKey}
@@ -51,17 +52,19 @@ object StakeStorage {
     if (ForgerMap.existsForger(view, forgerKey))
       throw new ExecutionRevertedException(s"Forger already registered.")
 
-    ForgerMap.addForger(view, forgerKey, blockSignProposition, vrfPublicKey, rewardShare, rewardAddress)
+    val forger = ForgerInfo(ForgerPublicKeys(blockSignProposition, vrfPublicKey), rewardShare, new AddressProposition(rewardAddress))
+    ForgerStakesIndex.recordChange(view, ForgerAdded(forger, delegatorPublicKey, stakedAmount)) {
+      ForgerMap.addForger(view, forgerKey, blockSignProposition, vrfPublicKey, rewardShare, rewardAddress)
 
-    val forgerHistory = ForgerStakeHistory(forgerKey)
-    forgerHistory.addCheckpoint(view, epochNumber, stakedAmount)
+      val forgerHistory = ForgerStakeHistory(forgerKey)
+      forgerHistory.addCheckpoint(view, epochNumber, stakedAmount)
 
-    val delegatorChkSumAddress = DelegatorKey(delegatorPublicKey)
-    val stakeHistory = StakeHistory(forgerKey, delegatorChkSumAddress)
-    stakeHistory.addCheckpoint(view, epochNumber, stakedAmount)
-
-    addNewDelegator(view, forgerKey, delegatorChkSumAddress)
+      val delegatorChkSumAddress = DelegatorKey(delegatorPublicKey)
+      val stakeHistory = StakeHistory(forgerKey, delegatorChkSumAddress)
+      stakeHistory.addCheckpoint(view, epochNumber, stakedAmount)
 
+      addNewDelegator(view, forgerKey, delegatorChkSumAddress)
+    }
   }
 
   def updateForger(view: BaseAccountStateView, blockSignProposition: PublicKey25519Proposition, vrfPublicKey: VrfPublicKey, rewardShare: Int, rewardAddress: Address): Unit = {
@@ -69,7 +72,10 @@ object StakeStorage {
     val forger = ForgerMap.getForgerOption(view, forgerKey).getOrElse(throw new ExecutionRevertedException("Forger doesn't exist."))
     if ((forger.rewardShare > 0) || (forger.rewardAddress.address() != Address.ZERO))
       throw new ExecutionRevertedException("Forger has already set reward share and reward address.")
-    ForgerMap.updateForger(view, forgerKey, blockSignProposition, vrfPublicKey, rewardShare, rewardAddress)
+    val updatedForger = ForgerInfo(forger.forgerPublicKeys, rewardShare, new AddressProposition(rewardAddress))
+    ForgerStakesIndex.recordChange(view, ForgerUpdated(updatedForger)) {
+      ForgerMap.updateForger(view, forgerKey, blockSignProposition, vrfPublicKey, rewardShare, rewardAddress)
+    }
   }
 
   private def addNewDelegator(view: BaseAccountStateView, forgerKey: ForgerKey, delegator: DelegatorKey): Unit = {
@@ -102,14 +108,16 @@ object StakeStorage {
       throw new ExecutionRevertedException(s"Forger doesn't exist.")
 
     val addToStake = (latestStake: BigInteger) => latestStake.add(stakedAmount)
-    forgerHistory.updateOrAddCheckpoint(view, forgerHistorySize, epochNumber, addToStake)
-
-    val delegatorChkSumAddress = DelegatorKey(delegatorPublicKey)
-    val stakeHistory = StakeHistory(forgerKey, delegatorChkSumAddress)
-    val stakeHistorySize = stakeHistory.getSize(view)
-    stakeHistory.updateOrAddCheckpoint(view, stakeHistorySize, epochNumber, addToStake)
-    if (stakeHistorySize == 0)
-      addNewDelegator(view, forgerKey, delegatorChkSumAddress)
+    ForgerStakesIndex.recordChange(view, DelegatorStakeAdded(ForgerPublicKeys(signKey, vrfPublicKey), delegatorPublicKey, stakedAmount)) {
+      forgerHistory.updateOrAddCheckpoint(view, forgerHistorySize, epochNumber, addToStake)
+
+      val delegatorChkSumAddress = DelegatorKey(delegatorPublicKey)
+      val stakeHistory = StakeHistory(forgerKey, delegatorChkSumAddress)
+      val stakeHistorySize = stakeHistory.getSize(view)
+      stakeHistory.updateOrAddCheckpoint(view, stakeHistorySize, epochNumber, addToStake)
+      if (stakeHistorySize == 0)
+        addNewDelegator(view, forgerKey, delegatorChkSumAddress)
+    }
   }
 
   def removeStake(view: BaseAccountStateView,
@@ -137,8 +145,10 @@ object StakeStorage {
       newAmount
     }
 
-    stakeHistory.updateOrAddCheckpoint(view, stakeHistorySize, epochNumber, subtractStake)
-    forgerHistory.updateOrAddCheckpoint(view, forgerHistorySize, epochNumber, subtractStake)
+    ForgerStakesIndex.recordChange(view, DelegatorStakeRemoved(ForgerPublicKeys(blockSignProposition, vrfPublicKey), delegatorPublicKey, stakedAmount)) {
+      stakeHistory.updateOrAddCheckpoint(view, stakeHistorySize, epochNumber, subtractStake)
+      forgerHistory.updateOrAddCheckpoint(view, forgerHistorySize, epochNumber, subtractStake)
+    }
   }
 
   def getForgingStakes(view: BaseAccountStateView): Seq[ForgingStakeInfo] = {
@@ -169,6 +179,26 @@ object StakeStorage {
     }
   }
 
+  // all the stakes, as kept by the forger stakes index
+  def getIndexedForgerStakes(view: BaseAccountStateView): IndexedForgerStakesV2 = {
+    val listOfForgerKeys = ForgerMap.getForgerKeys(view)
+    val forgers = listOfForgerKeys.map(ForgerMap.getForger(view, _)).toVector
+    val forgerPublicKeys = listOfForgerKeys.zip(forgers.map(_.forgerPublicKeys)).toMap
+    val delegatorsOfForger = listOfForgerKeys.map { forgerKey =>
+      val delegatorList = DelegatorList(forgerKey)
+      forgerPublicKeys(forgerKey) -> (0 until delegatorList.getSize(view)).map(idx => delegatorList.getDelegatorAt(view, idx).address).toVector
+    }.toMap
+    val stakedAmounts = listOfForgerKeys.flatMap { forgerKey =>
+      delegatorsOfForger(forgerPublicKeys(forgerKey)).map(delegator =>
+        (forgerPublicKeys(forgerKey), delegator) -> StakeHistory(forgerKey, DelegatorKey(delegator)).getLatestAmount(view))
+    }.toMap
+    val forgersOfDelegator = delegatorsOfForger.values.flatten.toSet.map { delegator: Address =>
+      val listOfForgers = DelegatorListOfForgerKeys(DelegatorKey(delegator))
+      delegator -> (0 until listOfForgers.getSize(view)).map(idx => forgerPublicKeys(listOfForgers.getForgerKey(view, idx))).toVector
+    }.toMap
+    IndexedForgerStakesV2(forgers, forgers.map(_.forgerPublicKeys).zipWithIndex.toMap, delegatorsOfForger, forgersOfDelegator, stakedAmounts)
+  }
+
   def getStakeStart(view: BaseAccountStateView, forgerKeys: ForgerPublicKeys, delegator: Address): StakeStartCmdOutput = {
     val forgerKey = ForgerKey(forgerKeys.blockSignPublicKey, forgerKeys.vrfPublicKey)
     val delegatorKey = DelegatorKey(delegator)
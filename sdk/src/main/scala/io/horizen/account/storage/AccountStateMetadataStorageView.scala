@@ -18,6 +18,7 @@ import sparkz.util.{ModifierId, SparkzLogging, bytesToId, idToBytes}
 import java.math.BigInteger
 import java.nio.charset.StandardCharsets
 import java.util.{ArrayList => JArrayList}
+import scala.collection.JavaConverters._
 import scala.collection.mutable.ListBuffer
 import scala.compat.java8.OptionConverters._
 import scala.util.{Failure, Success, Try}
@@ -44,7 +45,9 @@ class AccountStateMetadataStorageView(storage: Storage) extends AccountStateMeta
   private[horizen] var lastCertificateSidechainBlockIdOpt: Option[ModifierId] = None
   private[horizen] var blockFeeInfoOpt: Option[AccountBlockFeeInfo] = None
   private[horizen] var consensusEpochOpt: Option[ConsensusEpochNumber] = None
+  // Block counters of the forgers updated in this view, and if the stored counters have been reset before them
   private[horizen] var forgerBlockCountersOpt: Option[Map[ForgerIdentifier, Long]] = None
+  private[horizen] var forgerBlockCountersReset: Boolean = false
   private[horizen] var mcForgerPoolRewardsOpt: Option[Map[ForgerIdentifier, BigInteger]] = None
   private[horizen] var accountStateRootOpt: Option[Array[Byte]] = None
   private[horizen] var receiptsOpt: Option[Seq[EthereumReceipt]] = None
@@ -274,6 +277,7 @@ class AccountStateMetadataStorageView(storage: Storage) extends AccountStateMeta
     blockFeeInfoOpt = None
     consensusEpochOpt = None
     forgerBlockCountersOpt = None
+    forgerBlockCountersReset = false
     mcForgerPoolRewardsOpt = None
     accountStateRootOpt = None
     receiptsOpt = None
@@ -329,9 +333,7 @@ class AccountStateMetadataStorageView(storage: Storage) extends AccountStateMeta
     })
 
     // Update Forger Block Counters
-    forgerBlockCountersOpt.foreach(forgerBlockCounters => {
-      updateList.add(new JPair(getForgerBlockCountersKey, new ByteArrayWrapper(ForgerBlockCountersSerializer.toBytes(forgerBlockCounters))))
-    })
+    updateForgerBlockCountersInStorage(updateList, removeList)
 
     // Update MC Forger Pool Rewards
     mcForgerPoolRewardsOpt.foreach(forgerPoolRewards => {
@@ -397,6 +399,52 @@ class AccountStateMetadataStorageView(storage: Storage) extends AccountStateMeta
 
   }
 
+  // Every forger counter is stored under its own key, so a block writes only the counter of its forger. The keys of the
+  // counters are indexed, as the block fee infos, to iterate the counters at the end of the withdrawal epoch.
+  // Counters stored by older versions as a single map are moved to the indexed layout the first time one is updated.
+  private def updateForgerBlockCountersInStorage(updateList: JArrayList[JPair[ByteArrayWrapper, ByteArrayWrapper]],
+                                                 removeList: JArrayList[ByteArrayWrapper]): Unit = {
+    val legacyCountersOpt = getLegacyForgerBlockCountersFromStorage
+    var updatedCounters = forgerBlockCountersOpt.getOrElse(Map.empty[ForgerIdentifier, Long])
+    var countersSize = getForgerBlockCountersSize
+    val countersToRemove = new JArrayList[ByteArrayWrapper]()
+
+    if (forgerBlockCountersReset) {
+      (0 until countersSize).foreach(index => {
+        val indexKey = getForgerBlockCountersIndexKey(index)
+        storage.get(indexKey).asScala.foreach(counterKey => countersToRemove.add(counterKey))
+        countersToRemove.add(indexKey)
+      })
+      if (countersSize > 0)
+        countersToRemove.add(getForgerBlockCountersSizeKey)
+      legacyCountersOpt.foreach(_ => countersToRemove.add(getForgerBlockCountersKey))
+      countersSize = 0
+    } else if (updatedCounters.nonEmpty) {
+      legacyCountersOpt.foreach(legacyCounters => {
+        updatedCounters = legacyCounters ++ updatedCounters
+        countersToRemove.add(getForgerBlockCountersKey)
+      })
+    }
+
+    val previousCountersSize = countersSize
+    updatedCounters.foreach {
+      case (forgerIdentifier, counter) =>
+        val counterKey = getForgerBlockCounterKey(forgerIdentifier)
+        if (forgerBlockCountersReset || !storage.get(counterKey).isPresent) {
+          updateList.add(new JPair(getForgerBlockCountersIndexKey(countersSize), counterKey))
+          countersSize += 1
+        }
+        updateList.add(new JPair(counterKey,
+          new ByteArrayWrapper(ForgerBlockCountersSerializer.toBytes(Map(forgerIdentifier -> counter)))))
+    }
+    if (countersSize != previousCountersSize)
+      updateList.add(new JPair(getForgerBlockCountersSizeKey, new ByteArrayWrapper(Ints.toByteArray(countersSize))))
+
+    // keys written again after a reset must not be removed
+    val updatedKeys = updateList.asScala.map(_.getKey).toSet
+    countersToRemove.asScala.filterNot(updatedKeys.contains).foreach(key => removeList.add(key))
+  }
+
   private[storage] def getOldTopCertificatesToBeRemoved(epochInfo: WithdrawalEpochInfo): Option[ByteArrayWrapper] = {
     val certEpochNumberToRemove: Int = epochInfo.epoch - 4
     // We only clean up the storage if the certEpochNumberToRemove has already been used as previous certificate hash
@@ -424,8 +472,12 @@ class AccountStateMetadataStorageView(storage: Storage) extends AccountStateMeta
   }
 
   def updateForgerBlockCounter(forgerPublicKey: ForgerIdentifier): Unit = {
-    val counters: Map[ForgerIdentifier, Long] = getForgerBlockCounters
-    val existingCount: Long = counters.getOrElse(forgerPublicKey, 0)
+    val counters: Map[ForgerIdentifier, Long] = forgerBlockCountersOpt.getOrElse(Map.empty[ForgerIdentifier, Long])
+    val existingCount: Long = counters.get(forgerPublicKey) match {
+      case Some(count) => count
+      case None if forgerBlockCountersReset => 0
+      case None => getForgerBlockCounterFromStorage(forgerPublicKey)
+    }
     forgerBlockCountersOpt = Some(counters.updated(forgerPublicKey, existingCount + 1))
   }
 
@@ -434,22 +486,51 @@ class AccountStateMetadataStorageView(storage: Storage) extends AccountStateMeta
   }
 
   override def getForgerBlockCounters: Map[ForgerIdentifier, Long] = {
-    forgerBlockCountersOpt.getOrElse(getForgerBlockCountersFromStorage)
+    val storedCounters = if (forgerBlockCountersReset) Map.empty[ForgerIdentifier, Long] else getForgerBlockCountersFromStorage
+    storedCounters ++ forgerBlockCountersOpt.getOrElse(Map.empty[ForgerIdentifier, Long])
   }
 
   private[horizen] def getForgerBlockCountersFromStorage: Map[ForgerIdentifier, Long] = {
-    storage.get(getForgerBlockCountersKey).asScala match {
-      case Some(baw) =>
-        ForgerBlockCountersSerializer.parseBytesTry(baw.data) match {
-          case Success(counters) => counters
-          case Failure(e) =>
-            log.error("Failed to parse forger block counters from storage", e)
-            Map.empty[ForgerIdentifier, Long]
-        }
-      case _ => Map.empty[ForgerIdentifier, Long]
+    val legacyCounters = getLegacyForgerBlockCountersFromStorage.getOrElse(Map.empty[ForgerIdentifier, Long])
+    legacyCounters ++ (0 until getForgerBlockCountersSize).flatMap(index =>
+      storage.get(getForgerBlockCountersIndexKey(index)).asScala.flatMap(parseForgerBlockCounter)
+    )
+  }
+
+  private def getForgerBlockCounterFromStorage(forgerIdentifier: ForgerIdentifier): Long = {
+    parseForgerBlockCounter(getForgerBlockCounterKey(forgerIdentifier)) match {
+      case Some((_, counter)) => counter
+      case None => getLegacyForgerBlockCountersFromStorage.flatMap(_.get(forgerIdentifier)).getOrElse(0L)
     }
   }
 
+  private def parseForgerBlockCounter(counterKey: ByteArrayWrapper): Option[(ForgerIdentifier, Long)] = {
+    storage.get(counterKey).asScala.flatMap(baw =>
+      ForgerBlockCountersSerializer.parseBytesTry(baw.data) match {
+        case Success(counter) => counter.headOption
+        case Failure(e) =>
+          log.error("Failed to parse forger block counter from storage", e)
+          None
+      }
+    )
+  }
+
+  private def getForgerBlockCountersSize: Int = {
+    storage.get(getForgerBlockCountersSizeKey).asScala.map(baw => Ints.fromByteArray(baw.data)).getOrElse(0)
+  }
+
+  // Forger block counters stored as a single map by older versions
+  private def getLegacyForgerBlockCountersFromStorage: Option[Map[ForgerIdentifier, Long]] = {
+    storage.get(getForgerBlockCountersKey).asScala.map(baw =>
+      ForgerBlockCountersSerializer.parseBytesTry(baw.data) match {
+        case Success(counters) => counters
+        case Failure(e) =>
+          log.error("Failed to parse forger block counters from storage", e)
+          Map.empty[ForgerIdentifier, Long]
+      }
+    )
+  }
+
   override def getMcForgerPoolRewards: Map[ForgerIdentifier, BigInteger] = {
     mcForgerPoolRewardsOpt.getOrElse(getMcForgerPoolRewardsFromStorage)
   }
@@ -502,7 +583,8 @@ class AccountStateMetadataStorageView(storage: Storage) extends AccountStateMeta
   }
 
   def resetForgerBlockCounters(): Unit = {
-    forgerBlockCountersOpt = Some(Map.empty[ForgerIdentifier, Long])
+    forgerBlockCountersOpt = None
+    forgerBlockCountersReset = true
   }
 
   private[horizen] def getForgerRewardsKey(forgerKeys: ForgerPublicKeys, consensusEpochNumber: Int): ByteArrayWrapper = {
@@ -530,6 +612,21 @@ class AccountStateMetadataStorageView(storage: Storage) extends AccountStateMeta
     calculateKey(Bytes.concat("receipt".getBytes(StandardCharsets.UTF_8), txHash))
   }
 
+  private[horizen] def getForgerBlockCounterKey(forgerIdentifier: ForgerIdentifier): ByteArrayWrapper = {
+    val forgerKeysBytes = forgerIdentifier.getForgerKeys match {
+      case Some(keys) => Bytes.concat(keys.blockSignPublicKey.bytes(), keys.vrfPublicKey.bytes())
+      case None => Array.emptyByteArray
+    }
+    calculateKey(Bytes.concat("forgerBlockCounter".getBytes(StandardCharsets.UTF_8), forgerIdentifier.getAddress.pubKeyBytes(), forgerKeysBytes))
+  }
+
+  private[horizen] def getForgerBlockCountersIndexKey(index: Int): ByteArrayWrapper = {
+    calculateKey(Bytes.concat("forgerBlockCountersIndex".getBytes(StandardCharsets.UTF_8), Ints.toByteArray(index)))
+  }
+
+  private[horizen] val getForgerBlockCountersSizeKey: ByteArrayWrapper = calculateKey("forgerBlockCountersSize".getBytes(StandardCharsets.UTF_8))
+
+  // Key of the forger block counters stored as a single map by older versions
   private[horizen] val getForgerBlockCountersKey: ByteArrayWrapper = calculateKey("forgerBlockCounters".getBytes(StandardCharsets.UTF_8))
 
   private[horizen] val getMcForgerPoolRewardsKey: ByteArrayWrapper = calculateKey("mcForgerPoolRewards".getBytes(StandardCharsets.UTF_8))
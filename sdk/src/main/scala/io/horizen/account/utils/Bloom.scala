@@ -2,36 +2,53 @@ package io.horizen.account.utils
 
 import com.fasterxml.jackson.annotation.JsonView
 import io.horizen.account.state.receipt.{EthereumConsensusDataLog, EthereumConsensusDataReceipt}
-import io.horizen.account.utils.Bloom.BLOOM_BYTE_LENGTH
+import io.horizen.account.utils.Bloom.{BLOOM_BYTE_LENGTH, BLOOM_WORD_LENGTH}
 import io.horizen.json.Views
 import io.horizen.utils.BytesUtils
 import sparkz.core.serialization.{BytesSerializable, SparkzSerializer}
 import sparkz.crypto.hash.Keccak256
 import sparkz.util.serialization.{Reader, Writer}
 
+import java.nio.ByteBuffer
 import java.util
 
 /**
  * Bloom represents a 2048 bit bloom filter.
+ * The filter is kept as 32 big-endian 64 bit words, so adding, merging and testing values work on words instead of
+ * single bytes.
  */
 @JsonView(Array(classOf[Views.Default]))
-class Bloom(private val filter: Array[Byte]) extends BytesSerializable {
-  require(filter.length == BLOOM_BYTE_LENGTH)
+class Bloom private (private val words: Array[Long]) extends BytesSerializable {
+  require(words.length == BLOOM_WORD_LENGTH)
 
   override type M = Bloom
   override def serializer: SparkzSerializer[Bloom] = BloomSerializer
 
+  /**
+   * Create a bloom filter from the given raw 256 bytes bitmask.
+   * @param filter
+   *   raw 256 bytes bitmask of a bloom filter
+   */
+  def this(filter: Array[Byte]) = this(Bloom.toWords(filter))
+
   // this is essentially a default value for the constructor argument, but this also works in Java
-  def this() = this(Array.fill[Byte](BLOOM_BYTE_LENGTH)(0))
+  def this() = this(new Array[Long](BLOOM_WORD_LENGTH))
 
   /**
    * Add given data to the bloom filter.
    * @param data
    *   raw data to hash and add to the filter
    */
-  def add(data: Array[Byte]): Unit = {
-    for ((value, index) <- getBloomValues(data)) {
-      filter(index) = (filter(index) | value).toByte
+  def add(data: Array[Byte]): Unit = add(BloomMask(data))
+
+  /**
+   * Add the data of the given mask to the bloom filter.
+   * @param mask
+   *   bits of the hashed data
+   */
+  def add(mask: BloomMask): Unit = {
+    for (i <- mask.wordIndices.indices) {
+      words(mask.wordIndices(i)) |= mask.wordBits(i)
     }
   }
 
@@ -41,11 +58,24 @@ class Bloom(private val filter: Array[Byte]) extends BytesSerializable {
    *   instance of another bloom filter.
    */
   def merge(bloom: Bloom): Unit = {
-    for ((value, index) <- bloom.filter.zipWithIndex) {
-      filter(index) = (filter(index) | value).toByte
+    for (i <- words.indices) {
+      words(i) |= bloom.words(i)
     }
   }
 
+  /**
+   * Union of this bloom filter and the given one, this filter is not changed.
+   * @param bloom
+   *   instance of another bloom filter.
+   * @return
+   *   new bloom filter with the bits of both filters
+   */
+  def or(bloom: Bloom): Bloom = {
+    val result = new Bloom(words.clone())
+    result.merge(bloom)
+    result
+  }
+
   /**
    * Checks if the given data is present in the bloom filter.
    * @note
@@ -56,29 +86,23 @@ class Bloom(private val filter: Array[Byte]) extends BytesSerializable {
    * @return
    *   false if data is not present in the filter, true if it likely is, see note
    */
-  def test(data: Array[Byte]): Boolean = {
-    getBloomValues(data)
-      .exists({ case (value, index) =>
-        (filter(index) & value) == value
-      })
-  }
-
-  private def getBloomValues(data: Array[Byte]): Array[(Int, Int)] = {
-    val hashBuffer = Keccak256.hash(data)
+  def test(data: Array[Byte]): Boolean = test(BloomMask(data))
 
-    val values = Array(
-      1 << (hashBuffer(1) & 0x7),
-      1 << (hashBuffer(3) & 0x7),
-      1 << (hashBuffer(5) & 0x7)
-    )
-
-    val indices = Array(
-      BLOOM_BYTE_LENGTH - ((BytesUtils.getShort(hashBuffer, 0) & 0x7ff) >> 3) - 1,
-      BLOOM_BYTE_LENGTH - ((BytesUtils.getShort(hashBuffer, 2) & 0x7ff) >> 3) - 1,
-      BLOOM_BYTE_LENGTH - ((BytesUtils.getShort(hashBuffer, 4) & 0x7ff) >> 3) - 1
-    )
-
-    values.zip(indices)
+  /**
+   * Checks if the data of the given mask is present in the bloom filter, see test(data).
+   * @param mask
+   *   bits of the hashed data
+   * @return
+   *   false if data is not present in the filter, true if it likely is
+   */
+  def test(mask: BloomMask): Boolean = {
+    var i = 0
+    while (i < mask.wordIndices.length) {
+      if ((words(mask.wordIndices(i)) & mask.wordBits(i)) != mask.wordBits(i))
+        return false
+      i += 1
+    }
+    true
   }
 
   /**
@@ -87,24 +111,51 @@ class Bloom(private val filter: Array[Byte]) extends BytesSerializable {
    *   256 bytes bitmask
    */
   def getBytes: Array[Byte] = {
-    filter.clone()
+    val buffer = ByteBuffer.allocate(BLOOM_BYTE_LENGTH)
+    words.foreach(buffer.putLong)
+    buffer.array()
   }
 
   override def equals(obj: Any): Boolean = {
     obj match {
-      case other: Bloom => filter.sameElements(other.filter)
+      case other: Bloom => words.sameElements(other.words)
       case _ => false
     }
   }
 
   override def hashCode(): Int = {
-    util.Arrays.hashCode(filter)
+    util.Arrays.hashCode(words)
+  }
+}
+
+/**
+ * Bits set in a bloom filter by a value: the three bits selected by the Keccak-256 hash of the value, as indices of
+ * the filter words and bits of each word.
+ * Values tested against many filters (e.g. the addresses and topics of a logs filter tested against the blocks
+ * headers) can be hashed once and tested with a few AND operations.
+ */
+class BloomMask private (private[utils] val wordIndices: Array[Int], private[utils] val wordBits: Array[Long])
+
+object BloomMask {
+  def apply(data: Array[Byte]): BloomMask = {
+    val hashBuffer = Keccak256.hash(data)
+    // bit positions counted from the least significant bit of the filter, the last one of its big-endian bytes
+    val bitPositions = Array(
+      BytesUtils.getShort(hashBuffer, 0) & 0x7ff,
+      BytesUtils.getShort(hashBuffer, 2) & 0x7ff,
+      BytesUtils.getShort(hashBuffer, 4) & 0x7ff
+    )
+    new BloomMask(
+      bitPositions.map(position => Bloom.BLOOM_WORD_LENGTH - 1 - (position >> 6)),
+      bitPositions.map(position => 1L << (position & 0x3f))
+    )
   }
 }
 
 object Bloom {
   val BLOOM_BYTE_LENGTH: Int = 256
   val BLOOM_BIT_LENGTH: Int = 8 * BLOOM_BYTE_LENGTH
+  val BLOOM_WORD_LENGTH: Int = BLOOM_BYTE_LENGTH / java.lang.Long.BYTES
 
   /**
    * Create a bloom filter from the given byte array.
@@ -113,7 +164,13 @@ object Bloom {
    *   raw 256 bytes bitmask of a bloom filter
    */
   def apply(filter: Array[Byte]): Bloom = {
-    new Bloom(filter.clone())
+    new Bloom(filter)
+  }
+
+  private def toWords(filter: Array[Byte]): Array[Long] = {
+    require(filter.length == BLOOM_BYTE_LENGTH)
+    val buffer = ByteBuffer.wrap(filter)
+    Array.fill(BLOOM_WORD_LENGTH)(buffer.getLong)
   }
 
   def fromLogs(logs: Seq[EthereumConsensusDataLog]): Bloom = {
@@ -129,7 +186,7 @@ object Bloom {
 
   def fromReceipts(receipts: Seq[EthereumConsensusDataReceipt]): Bloom = {
     val filter = new Bloom()
-    receipts.map(_.logsBloom).foreach(filter.merge)
+    receipts.foreach(receipt => filter.merge(receipt.logsBloom))
     filter
   }
 }
@@ -1,12 +1,12 @@
 package io.horizen.block
 
 import java.math.BigInteger
+import java.util.concurrent.ConcurrentHashMap
 import com.google.common.primitives.{Bytes, Ints}
-import io.horizen.utils.BytesUtils
+import io.horizen.utils.{ByteArrayWrapper, BytesUtils, LruCache}
 import org.bouncycastle.crypto.digests.Blake2bDigest
 
 import java.nio.charset.StandardCharsets
-import scala.collection.mutable.ArrayBuffer
 
 // For MainNet and TestNet N = 200, K = 9
 // For RegTest N = 48, K = 5
@@ -21,85 +21,82 @@ class Equihash(val N: Int, val K: Int) {
   val SolutionWidth: Int = (1 << K) * (CollisionBitLength + 1) / 8
   val FinalFullWidth: Int = 2 * CollisionByteLength + 4 * (1 << K)
 
-
-  private class FullStepRow {
-    var hash: Array[Byte] = new Array[Byte](FinalFullWidth)
-
-    def this(hashIn: Array[Byte], hashOutLen: Int, bitLen: Int, index: Int) {
-      this()
-      assert(hashOutLen + 3 <= FinalFullWidth)
-
-      Array.copy(Equihash.expandArray(hashIn, hashOutLen, bitLen), 0, hash, 0, hashOutLen)
-      val indexBytes: Array[Byte] = Ints.toByteArray(index)
-      Array.copy(indexBytes, 0, hash, hashOutLen, 4)
+  private val RowsCount: Int = 1 << K
+
+  private val personalization: Array[Byte] = Bytes.concat("ZcashPoW".getBytes(StandardCharsets.UTF_8),
+    BytesUtils.reverseBytes(Ints.toByteArray(N)), BytesUtils.reverseBytes(Ints.toByteArray(K)))
+
+  // Rows are packed with the width of the current step: the (partially collided) hash followed by the big-endian indices.
+  // Every step halves the rows and trims CollisionByteLength bytes of hash, while indices double, so the first step
+  // is the largest one: about 17 KB for N = 200, K = 9, instead of 1 MB with rows of FinalFullWidth.
+  private val RowsBufferSize: Int = RowsCount * (HashLength + 4)
+
+  // Preallocated buffers used by a single verification, kept per thread (2 * RowsBufferSize bytes each).
+  // Rows of the current step are read from `rows`, the merged rows of the next step are written to `mergedRows`.
+  private class Workspace {
+    val indices: Array[Int] = new Array[Int](RowsCount)
+    val hashOutput: Array[Byte] = new Array[Byte](HashOutputLength)
+    val indexBytes: Array[Byte] = new Array[Byte](4)
+    var rows: Array[Byte] = new Array[Byte](RowsBufferSize)
+    var mergedRows: Array[Byte] = new Array[Byte](RowsBufferSize)
+
+    def swapRows(): Unit = {
+      val tmp = rows
+      rows = mergedRows
+      mergedRows = tmp
     }
+  }
 
-    def this(a: FullStepRow, b: FullStepRow, len: Int, lenIndices: Int, trim: Int) {
-      this()
-      hash = a.hash.clone()
-
-      assert(len + lenIndices <= FinalFullWidth)
-      assert(len - trim + (2 * lenIndices) <= FinalFullWidth)
-
-      var i: Int = trim
-      while (i < len) {
-        hash(i - trim) = (a.hash(i) ^ b.hash(i)).toByte
-        i += 1
-      }
+  private val workspace: ThreadLocal[Workspace] = ThreadLocal.withInitial[Workspace](() => new Workspace)
 
-      if (a.indicesBefore(b, len, lenIndices)) {
-        Array.copy(a.hash, len, hash, len - trim, lenIndices)
-        Array.copy(b.hash, len, hash, len - trim + lenIndices, lenIndices)
-      } else {
-        Array.copy(b.hash, len, hash, len - trim, lenIndices)
-        Array.copy(a.hash, len, hash, len - trim + lenIndices, lenIndices)
-      }
-    }
+  // Ids of the MC headers which solution was already verified. Solution verification depends only on the header bytes,
+  // so there is no need to repeat it when the same header comes again (as ommer, during resync, etc.)
+  private val verifiedSolutions: LruCache[ByteArrayWrapper, java.lang.Boolean] =
+    new LruCache[ByteArrayWrapper, java.lang.Boolean](Equihash.VerifiedSolutionsCacheSize)
 
-    def indicesBefore(fullStepRow: FullStepRow, len: Int, lenIndices: Int): Boolean = {
-      var i: Int = len
-      while (i < len + lenIndices) {
-        val current = BytesUtils.getInt(hash, i)
-        val before = BytesUtils.getInt(fullStepRow.hash, i)
-        if (current < before)
-          return true
-        else if (current > before) {
-          return false
-        }
-        i += 4
-      }
-      false
-    }
+  def isSolutionVerified(id: Array[Byte]): Boolean = verifiedSolutions.synchronized {
+    verifiedSolutions.containsKey(new ByteArrayWrapper(id))
+  }
 
-    def isZero(len: Int): Boolean = {
-      var i: Int = 0
-      while (i < len) {
-        if (hash(i) != 0)
-          return false
-        i += 1
-      }
-      true
-    }
+  def markSolutionVerified(id: Array[Byte]): Unit = verifiedSolutions.synchronized {
+    verifiedSolutions.put(new ByteArrayWrapper(id), java.lang.Boolean.TRUE)
   }
 
-  // Сhecks if first 'len' bytes of hash are equal
-  private def hasCollision(a: FullStepRow, b: FullStepRow, len: Int): Boolean = {
+  // Сhecks if first 'len' bytes of rows hash are equal
+  private def hasCollision(rows: Array[Byte], a: Int, b: Int, len: Int): Boolean = {
     var i: Int = 0
     while (i < len) {
-      if (a.hash(i) != b.hash(i))
+      if (rows(a + i) != rows(b + i))
         return false
       i += 1
     }
     true
   }
 
+  // Checks if the indices of row 'a' go before the indices of row 'b'
+  private def indicesBefore(rows: Array[Byte], a: Int, b: Int, len: Int, lenIndices: Int): Boolean = {
+    var i: Int = len
+    while (i < len + lenIndices) {
+      val current = Equihash.getInt(rows, a + i)
+      val before = Equihash.getInt(rows, b + i)
+      if (current < before)
+        return true
+      else if (current > before) {
+        return false
+      }
+      i += 4
+    }
+    false
+  }
+
   // Checks if the intersection of a.indices and b.indices is empty
-  private def distinctIndices(a: FullStepRow, b: FullStepRow, len: Int, lenIndices: Int): Boolean = {
+  private def distinctIndices(rows: Array[Byte], a: Int, b: Int, len: Int, lenIndices: Int): Boolean = {
     var i: Int = 0
     while (i < lenIndices) {
+      val index = Equihash.getInt(rows, a + len + i)
       var j: Int = 0
       while (j < lenIndices) {
-        if (BytesUtils.getInt(a.hash, len + i) == BytesUtils.getInt(b.hash, len + j))
+        if (index == Equihash.getInt(rows, b + len + j))
           return false
         j += 4
       }
@@ -108,11 +105,42 @@ class Equihash(val N: Int, val K: Int) {
     true
   }
 
+  // Writes to 'out' row the xor of 'a' and 'b' hashes without first 'trim' bytes followed by their ordered indices
+  private def mergeRows(rows: Array[Byte], a: Int, b: Int, out: Array[Byte], outPos: Int, len: Int, lenIndices: Int, trim: Int): Unit = {
+    var i: Int = trim
+    while (i < len) {
+      out(outPos + i - trim) = (rows(a + i) ^ rows(b + i)).toByte
+      i += 1
+    }
+
+    if (indicesBefore(rows, a, b, len, lenIndices)) {
+      System.arraycopy(rows, a + len, out, outPos + len - trim, lenIndices)
+      System.arraycopy(rows, b + len, out, outPos + len - trim + lenIndices, lenIndices)
+    } else {
+      System.arraycopy(rows, b + len, out, outPos + len - trim, lenIndices)
+      System.arraycopy(rows, a + len, out, outPos + len - trim + lenIndices, lenIndices)
+    }
+  }
+
+  private def isZero(rows: Array[Byte], pos: Int, len: Int): Boolean = {
+    var i: Int = 0
+    while (i < len) {
+      if (rows(pos + i) != 0)
+        return false
+      i += 1
+    }
+    true
+  }
+
   // Generates base digest state with Horizen Mainchain personalization bytes and updates with msg (usually header bytes without solution)
   def checkEquihashSolution(msgBytes: Array[Byte], solution: Array[Byte]): Boolean = {
-    val b2digest: Blake2bDigest = new Blake2bDigest(null, HashOutputLength, null,
-      Bytes.concat("ZcashPoW".getBytes(StandardCharsets.UTF_8), BytesUtils.reverseBytes(Ints.toByteArray(N)), BytesUtils.reverseBytes(Ints.toByteArray(K))))
-    b2digest.update(msgBytes, 0, msgBytes.length)
+    checkEquihashSolution(msgBytes, 0, msgBytes.length, solution)
+  }
+
+  // Same as above, but takes the msg as a range of bytes, so no copy of the header bytes is needed
+  def checkEquihashSolution(msgBytes: Array[Byte], msgOffset: Int, msgLength: Int, solution: Array[Byte]): Boolean = {
+    val b2digest: Blake2bDigest = new Blake2bDigest(null, HashOutputLength, null, personalization)
+    b2digest.update(msgBytes, msgOffset, msgLength)
 
     checkEquihashSolution(b2digest, solution)
   }
@@ -122,58 +150,100 @@ class Equihash(val N: Int, val K: Int) {
       throw new IllegalArgumentException("Invalid parameters!")
     if (solution.length != SolutionWidth)
       return false
-
-    var X: ArrayBuffer[FullStepRow] = new ArrayBuffer[FullStepRow](1 << K)
-
-    for (i: Int <- Equihash.getIndicesFromMinimal(solution, CollisionBitLength)) {
-      var hashOutput: Array[Byte] = Equihash.generateHash(b2digest, i / IndicesPerHashOutput, HashOutputLength)
-      val inStartingPos: Int = (i % IndicesPerHashOutput) * N / 8
-      X.append(new FullStepRow(hashOutput.slice(inStartingPos, inStartingPos + N / 8), HashLength, CollisionBitLength, i))
+    if(b2digest.getDigestSize != HashOutputLength)
+      throw new IllegalArgumentException("Blake2bDigest instance has wrong dagest size(%d), expected (%d)".format(b2digest.getDigestSize, HashOutputLength))
+
+    val ws: Workspace = workspace.get()
+    Equihash.getIndicesFromMinimal(solution, CollisionBitLength, ws.indices)
+
+    var hashIndex: Int = -1
+    var row: Int = 0
+    while (row < RowsCount) {
+      val index: Int = ws.indices(row)
+      // Neighbour indices often belong to the same hash output, so don't recalculate it
+      if (index / IndicesPerHashOutput != hashIndex) {
+        hashIndex = index / IndicesPerHashOutput
+        Equihash.generateHash(b2digest, hashIndex, ws.hashOutput, ws.indexBytes)
+      }
+      val inStartingPos: Int = (index % IndicesPerHashOutput) * N / 8
+      val rowPos: Int = row * (HashLength + 4)
+      Equihash.expandArray(ws.hashOutput, inStartingPos, N / 8, ws.rows, rowPos, CollisionBitLength, 0)
+      Equihash.putInt(ws.rows, rowPos + HashLength, index)
+      row += 1
     }
 
+    var rowsCount: Int = RowsCount
     var hashLen: Int = HashLength
     var lenIndices: Int = 4 // size of Int
-    while (X.size > 1) {
-      var Xc: ArrayBuffer[FullStepRow] = new ArrayBuffer[FullStepRow]()
+    while (rowsCount > 1) {
+      val rows: Array[Byte] = ws.rows
+      val rowWidth: Int = hashLen + lenIndices
+      val mergedRowWidth: Int = hashLen - CollisionByteLength + 2 * lenIndices
       var i: Int = 0
-      while (i < X.size) {
-        if (!hasCollision(X(i), X(i + 1), CollisionByteLength))
+      while (i < rowsCount) {
+        val a: Int = i * rowWidth
+        val b: Int = a + rowWidth
+        if (!hasCollision(rows, a, b, CollisionByteLength))
           return false
-        if (X(i + 1).indicesBefore(X(i), hashLen, lenIndices))
+        if (indicesBefore(rows, b, a, hashLen, lenIndices))
           return false
-        if (!distinctIndices(X(i), X(i + 1), hashLen, lenIndices))
+        if (!distinctIndices(rows, a, b, hashLen, lenIndices))
           return false
 
-        Xc.append(new FullStepRow(X(i), X(i + 1), hashLen, lenIndices, CollisionByteLength))
+        mergeRows(rows, a, b, ws.mergedRows, (i / 2) * mergedRowWidth, hashLen, lenIndices, CollisionByteLength)
         i += 2
       }
 
-      X = Xc
+      ws.swapRows()
+      rowsCount /= 2
       hashLen -= CollisionByteLength
       lenIndices *= 2
     }
 
-    assert(X.size == 1)
-    X(0).isZero(hashLen)
+    isZero(ws.rows, 0, hashLen)
   }
 }
 
 
 object Equihash {
 
+  val VerifiedSolutionsCacheSize: Int = 4096
+
+  private val WordMask: Long = 0xFFFFFFFFL
+
+  private val instances: ConcurrentHashMap[java.lang.Long, Equihash] = new ConcurrentHashMap[java.lang.Long, Equihash]()
+
+  // Returns the shared verifier for the given params, so its buffers and verified solutions are reused across the calls.
+  def apply(N: Int, K: Int): Equihash = {
+    instances.computeIfAbsent(java.lang.Long.valueOf((N.toLong << 32) | K), _ => new Equihash(N, K))
+  }
+
   def getIndicesFromMinimal(minimal: Array[Byte], collisionBitLength: Int): Array[Int] = {
     assert(((collisionBitLength+1)+7)/8 <= 4)
-    val lenIndices: Int = 8*4*minimal.length/(collisionBitLength+1)
-    val bytePad: Int = 4 - ((collisionBitLength+1)+7)/8
-    var arr: Array[Byte] = expandArray(minimal, lenIndices, collisionBitLength+1, bytePad)
+    val res: Array[Int] = new Array[Int](8*minimal.length/(collisionBitLength+1))
+    getIndicesFromMinimal(minimal, collisionBitLength, res)
+    res
+  }
+
+  // Reads the (collisionBitLength + 1)-bit big-endian indices directly into 'out' without intermediate expanded array
+  private def getIndicesFromMinimal(minimal: Array[Byte], collisionBitLength: Int, out: Array[Int]): Unit = {
+    val bitLen: Int = collisionBitLength + 1
+    val bitLenMask: Long = (1L << bitLen) - 1
 
-    var res: ArrayBuffer[Int] = new ArrayBuffer[Int](lenIndices/4)
+    var accBits: Int = 0
+    var accValue: Long = 0
     var i: Int = 0
-    while(i < lenIndices) {
-      res.append(BytesUtils.getInt(arr, i))
-      i += 4
+    var j: Int = 0
+    while (i < minimal.length && j < out.length) {
+      accValue = ((accValue << 8) & WordMask) | (minimal(i) & 0xFF)
+      accBits += 8
+      if (accBits >= bitLen) {
+        accBits -= bitLen
+        out(j) = ((accValue >>> accBits) & bitLenMask).toInt
+        j += 1
+      }
+      i += 1
     }
-    res.toArray
   }
 
   def getMinimalFromIndices(indices: Array[Int], colissionBitLength: Int): Array[Byte] = {
@@ -193,22 +263,30 @@ object Equihash {
   def expandArray(in: Array[Byte], outLen: Int, bitLen: Int, bytePad: Int = 0): Array[Byte] = {
     assert(bitLen >= 8)
     assert(8*4 >= 7+bitLen)
-    val wordMask = BigInteger.ONE.shiftLeft(8*4).subtract(BigInteger.ONE)
 
     val outWidth: Int = (bitLen+7)/8 + bytePad
     assert(outLen == 8*outWidth*in.length/bitLen)
     val out = new Array[Byte](outLen)
 
-    val bitLenMask: BigInteger = BigInteger.valueOf((1 << bitLen) - 1)
+    expandArray(in, 0, in.length, out, 0, bitLen, bytePad)
+    out
+  }
+
+  // Expands 'inLength' bytes of 'in' starting from 'inOffset' into 'out' starting from 'outOffset'.
+  // Note: 8*4 >= 7+bitLen, so the accumulator never exceeds 32 bits and fits a Long.
+  private def expandArray(in: Array[Byte], inOffset: Int, inLength: Int, out: Array[Byte], outOffset: Int, bitLen: Int, bytePad: Int): Unit = {
+    val outWidth: Int = (bitLen+7)/8 + bytePad
+    val bitLenMask: Long = (1L << bitLen) - 1
 
     // The acc_bits least-significant bits of acc_value represent a bit sequence
     // in big-endian order.
     var accBits: Int = 0
-    var accValue: BigInteger = BigInteger.ZERO
+    var accValue: Long = 0
 
-    var j: Int = 0
-    for (i <- in.indices) {
-      accValue = accValue.shiftLeft(8).and(wordMask).or(BigInteger.valueOf((in(i) & 0xFF).toLong))
+    var j: Int = outOffset
+    var i: Int = inOffset
+    while (i < inOffset + inLength) {
+      accValue = ((accValue << 8) & WordMask) | (in(i) & 0xFF)
       accBits += 8
 
       // When we have bitLen or more bits in the accumulator, write the next
@@ -216,15 +294,20 @@ object Equihash {
       if (accBits >= bitLen) {
         accBits -= bitLen
 
-        for(x <- bytePad until outWidth) {
-          val left: BigInteger = accValue.shiftRight(accBits+(8*(outWidth-x-1)))
-          val right: BigInteger = bitLenMask.shiftRight(8*(outWidth-x-1)).and(BigInteger.valueOf(0xFF))
-          out(j+x) = left.and(right).byteValue()
+        var x: Int = 0
+        while (x < bytePad) {
+          out(j + x) = 0
+          x += 1
+        }
+        while (x < outWidth) {
+          val shift: Int = 8 * (outWidth - x - 1)
+          out(j + x) = ((accValue >>> (accBits + shift)) & ((bitLenMask >>> shift) & 0xFF)).toByte
+          x += 1
         }
         j += outWidth
       }
+      i += 1
     }
-    out
   }
 
   def compressArray(in: Array[Byte], outLen: Int, bitLen: Int, bytePad: Int = 0): Array[Byte] = {
@@ -262,14 +345,27 @@ object Equihash {
     out
   }
 
-  private def generateHash(baseDigest: Blake2bDigest, index: Int, hashOutputLength: Int): Array[Byte] = {
-    if(baseDigest.getDigestSize != hashOutputLength)
-      throw new IllegalArgumentException("Blake2bDigest instance has wrong dagest size(%d), expected (%d)".format(baseDigest.getDigestSize, hashOutputLength))
-
+  // Calculates the hash output for the given index into 'out'. 'indexBytes' is a 4 bytes buffer to be reused.
+  // Note: the base digest state is copied, so it remains untouched and can be used for the next index.
+  private def generateHash(baseDigest: Blake2bDigest, index: Int, out: Array[Byte], indexBytes: Array[Byte]): Unit = {
     val digest: Blake2bDigest = new Blake2bDigest(baseDigest)
-    digest.update(BytesUtils.reverseBytes(Ints.toByteArray(index)), 0, 4)
-    var hash: Array[Byte] = new Array[Byte](hashOutputLength)
-    digest.doFinal(hash, 0)
-    hash
+    // index is hashed in little-endian
+    indexBytes(0) = index.toByte
+    indexBytes(1) = (index >>> 8).toByte
+    indexBytes(2) = (index >>> 16).toByte
+    indexBytes(3) = (index >>> 24).toByte
+    digest.update(indexBytes, 0, 4)
+    digest.doFinal(out, 0)
+  }
+
+  private def getInt(bytes: Array[Byte], offset: Int): Int = {
+    (bytes(offset) << 24) | ((bytes(offset + 1) & 0xFF) << 16) | ((bytes(offset + 2) & 0xFF) << 8) | (bytes(offset + 3) & 0xFF)
+  }
+
+  private def putInt(bytes: Array[Byte], offset: Int, value: Int): Unit = {
+    bytes(offset) = (value >>> 24).toByte
+    bytes(offset + 1) = (value >>> 16).toByte
+    bytes(offset + 2) = (value >>> 8).toByte
+    bytes(offset + 3) = value.toByte
   }
 }
@@ -32,6 +32,11 @@ class MainchainHeader(
 
   lazy val hashHex: String = BytesUtils.toHexString(hash)
 
+  // Check if the solution is the one at the end of the header bytes
+  private lazy val isSolutionSerialized: Boolean = solution != null && mainchainHeaderBytes.length >= solution.length &&
+    java.util.Arrays.equals(mainchainHeaderBytes, mainchainHeaderBytes.length - solution.length, mainchainHeaderBytes.length,
+      solution, 0, solution.length)
+
   override type M = MainchainHeader
 
   override def serializer: SparkzSerializer[MainchainHeader] = MainchainHeaderSerializer
@@ -52,11 +57,17 @@ class MainchainHeader(
       throw new InvalidMainchainHeaderException(s"MainchainHeader $hashHex PoW is invalid.")
 
     // check equihash for header bytes without solution part
-    if (!new Equihash(params.EquihashN, params.EquihashK).checkEquihashSolution(
-      mainchainHeaderBytes.slice(0, mainchainHeaderBytes.length - params.EquihashCompactSizeLength - params.EquihashSolutionLength),
-      solution)
-    )
-      throw new InvalidMainchainHeaderException(s"MainchainHeader $hashHex Equihash solution is invalid.")
+    // Note: the result is cached by header hash only if the solution is the one included in the header bytes,
+    // otherwise the hash doesn't commit to the solution being checked.
+    val equihash: Equihash = Equihash(params.EquihashN, params.EquihashK)
+    if (!(isSolutionSerialized && equihash.isSolutionVerified(hash))) {
+      if (!equihash.checkEquihashSolution(mainchainHeaderBytes, 0,
+        Math.max(0, mainchainHeaderBytes.length - params.EquihashCompactSizeLength - params.EquihashSolutionLength), solution)
+      )
+        throw new InvalidMainchainHeaderException(s"MainchainHeader $hashHex Equihash solution is invalid.")
+      if (isSolutionSerialized)
+        equihash.markSolutionVerified(hash)
+    }
 
     // Check if timestamp is not too far in the future
     if (time > Instant.now.getEpochSecond + 2 * 60 * 60) // 2 * 60 * 60 like in Horizen
@@ -1,12 +1,12 @@
 package io.horizen.block
 
 import com.fasterxml.jackson.annotation.JsonView
-import io.horizen.history.validation.InvalidOmmerDataException
+import io.horizen.history.validation.{InvalidOmmerDataException, OmmersVerification}
 import io.horizen.params.NetworkParams
 import io.horizen.json.Views
 import io.horizen.utils.TimeToEpochUtils
 
-import scala.util.{Failure, Success, Try}
+import scala.util.{Success, Try}
 
 @JsonView(Array(classOf[Views.Default]))
 trait OmmersContainer[H <: SidechainBlockHeaderBase] {
@@ -67,11 +67,6 @@ trait OmmersContainer[H <: SidechainBlockHeaderBase] {
       throw new InvalidOmmerDataException(s"OmmerContainer contains less MainchainHeader than in Ommers.")
 
     // Verify that each Ommer contains valid data.
-    for (ommer <- ommers) {
-      ommer.verifyData(params) match {
-        case Success(_) =>
-        case Failure(e) => throw e
-      }
-    }
+    OmmersVerification.verifyData(ommers, params)
   }
 }
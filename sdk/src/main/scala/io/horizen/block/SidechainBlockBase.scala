@@ -2,7 +2,7 @@ package io.horizen.block
 
 
 import com.fasterxml.jackson.annotation.JsonProperty
-import io.horizen.history.validation.{InconsistentSidechainBlockDataException, InvalidSidechainBlockDataException}
+import io.horizen.history.validation.{InconsistentSidechainBlockDataException, InvalidSidechainBlockDataException, OmmersVerification}
 import io.horizen.params.NetworkParams
 import io.horizen.utils.{MerkleTree, Utils}
 import io.horizen.transaction.Transaction
@@ -177,6 +177,9 @@ abstract class SidechainBlockBase[TX <: Transaction, H <: SidechainBlockHeaderBa
       case Success(_) =>
       case Failure(e) => throw e
     }
+
+    // The block data is a superset of the data of its ommer: no need to verify it again when included as ommer.
+    OmmersVerification.setVerified(header.id, params)
   }
 
   def checkTxSemanticValidity(params: NetworkParams): Unit = {
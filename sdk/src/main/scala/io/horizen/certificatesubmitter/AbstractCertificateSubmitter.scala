@@ -3,6 +3,7 @@ package io.horizen.certificatesubmitter
 import akka.actor.{Actor, ActorRef, Timers}
 import akka.pattern.ask
 import akka.util.Timeout
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import io.horizen._
 import io.horizen.api.http.client.SecureEnclaveApiClient
 import io.horizen.block.{MainchainBlockReference, SidechainBlockBase, SidechainBlockHeaderBase}
@@ -17,6 +18,7 @@ import io.horizen.cryptolibprovider.utils.FieldElementUtils
 import io.horizen.fork.ForkManager
 import io.horizen.history.AbstractHistory
 import io.horizen.mainchain.api.{CertificateRequestCreator, MainchainNodeCertificateApi, SendCertificateRequest}
+import io.horizen.metrics.MetricsManager
 import io.horizen.params.NetworkParams
 import io.horizen.proof.SchnorrProof
 import io.horizen.proposition.SchnorrProposition
@@ -34,11 +36,13 @@ import sparkz.util.SparkzLogging
 
 import java.io.File
 import java.util
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
 import scala.collection.mutable.ArrayBuffer
 import scala.compat.Platform.EOL
 import scala.compat.java8.OptionConverters._
 import scala.concurrent.duration.{FiniteDuration, SECONDS}
-import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.concurrent.{Await, ExecutionContext, ExecutionContextExecutorService, Future}
 import scala.language.postfixOps
 import scala.reflect.ClassTag
 import scala.util.{Failure, Random, Success, Try}
@@ -83,6 +87,9 @@ abstract class AbstractCertificateSubmitter[
   protected[horizen] var signaturesStatus: Option[SignaturesStatus] = None
 
   protected[horizen] var certGenerationState: Boolean = false
+  // Cancellation flag of the last started certificate proof generation, set when its withdrawal epoch becomes obsolete.
+  private var proofGenerationCancellation: Option[AtomicBoolean] = None
+  private val metricsManager: MetricsManager = MetricsManager.getInstance()
   protected val certificateFee: Option[String] = if (settings.withdrawalEpochCertificateSettings.certificateAutomaticFeeComputation) None else Some(settings.withdrawalEpochCertificateSettings.certificateFee)
 
   override def preStart(): Unit = {
@@ -106,6 +113,7 @@ abstract class AbstractCertificateSubmitter[
   override def postStop(): Unit = {
     log.debug("Certificate Submitter actor is stopping...")
     super.postStop()
+    cancelProofGeneration()
     if(timers.isTimerActive(CertificateGenerationTimer)) {
       context.system.eventStream.publish(CertificateSubmissionStopped)
     }
@@ -217,6 +225,8 @@ abstract class AbstractCertificateSubmitter[
             signaturesStatus match {
               case Some(status) if status.referencedEpoch == submissionWindowStatus.referencedWithdrawalEpochNumber => // Nothing changes -> do nothing
               case _ =>
+                // Certificate for the previous withdrawal epoch is obsolete
+                cancelProofGeneration()
                 val referencedWithdrawalEpochNumber = submissionWindowStatus.referencedWithdrawalEpochNumber
                 getMessageToSignAndPublicKeys(referencedWithdrawalEpochNumber) match {
                   case Success((messageToSign, signersPublicKeys)) =>
@@ -245,6 +255,7 @@ abstract class AbstractCertificateSubmitter[
               log.info("Cancel the scheduled Certificate generation due to the Submission Window end")
               context.system.eventStream.publish(CertificateSubmissionStopped)
             }
+            cancelProofGeneration()
             signaturesStatus = None
           }
 
@@ -386,57 +397,28 @@ abstract class AbstractCertificateSubmitter[
         case Some(status) =>
           // Check quality again, in case better Certificate appeared.
           if (submissionStrategy.checkQuality(status)) {
-
-            val dataForProofGeneration = Await.result(sidechainNodeViewHolderRef ? GetDataFromCurrentView((view: View) => keyRotationStrategy.buildCertificateData(view.history, view.state, status)), timeoutDuration)
-              .asInstanceOf[T]
-            log.debug(s"Retrieved data for certificate proof calculation: $dataForProofGeneration")
-
-            // Run the time consuming part of proof generation and certificate submission in a background
-            // to unlock the Actor message queue for another requests.
-            new Thread(new Runnable() {
-              override def run(): Unit = {
-                var proofWithQuality: io.horizen.utils.Pair[Array[Byte], java.lang.Long] = null
-                try {
-                  proofWithQuality = keyRotationStrategy.generateProof(dataForProofGeneration, provingFileAbsolutePath)
-                } catch {
-                  case e: Exception =>
-                    log.error("Proof creation failed.", e)
-                    context.system.eventStream.publish(CertificateSubmissionStopped)
-                    return
+            val cancellation = new AtomicBoolean(false)
+            proofGenerationCancellation = Some(cancellation)
+            val eventStream = context.system.eventStream
+
+            // Collect the data without blocking the Actor, then run the time consuming part of proof generation
+            // and certificate submission on the proof generation pool.
+            val dataCollectionStart = metricsManager.currentMillis()
+            (sidechainNodeViewHolderRef ? GetDataFromCurrentView((view: View) => keyRotationStrategy.buildCertificateData(view.history, view.state, status)))
+              .flatMap { data =>
+                val dataForProofGeneration = data.asInstanceOf[T]
+                val queuedAt = metricsManager.currentMillis()
+                metricsManager.certificateDataCollected(queuedAt - dataCollectionStart)
+                log.debug(s"Retrieved data for certificate proof calculation: $dataForProofGeneration")
+                Future(generateAndSendCertificate(dataForProofGeneration, status, cancellation, queuedAt))(proofGenerationContext)
+              }
+              .onComplete { result =>
+                result match {
+                  case Success(_) =>
+                  case Failure(exception) => log.error("Certificate creation failed.", exception)
                 }
-                val certificateRequest: SendCertificateRequest = CertificateRequestCreator.create(
-                  params.sidechainId,
-                  dataForProofGeneration.referencedEpochNumber,
-                  dataForProofGeneration.endEpochCumCommTreeHash,
-                  proofWithQuality.getKey,
-                  proofWithQuality.getValue,
-                  dataForProofGeneration.backwardTransfers,
-                  dataForProofGeneration.ftMinAmount,
-                  dataForProofGeneration.btrFee,
-                  dataForProofGeneration.getCustomFields,
-                  certificateFee,
-                  params)
-
-                log.info(s"Backward transfer certificate request was successfully created for epoch number ${
-                  certificateRequest.epochNumber
-                }, with proof ${
-                  BytesUtils.toHexString(proofWithQuality.getKey)
-                } with quality ${
-                  proofWithQuality.getValue
-                } try to send it to mainchain")
-
-                if (submissionStrategy.checkQuality(status))
-                  mainchainChannel.sendCertificate(certificateRequest) match {
-                    case Success(certificate) =>
-                      log.info(s"Backward transfer certificate response had been received. Cert hash = " + BytesUtils.toHexString(certificate.certificateId))
-
-                    case Failure(ex) =>
-                      log.error("Creation of backward transfer certificate had been failed.", ex)
-                  }
-
-                context.system.eventStream.publish(CertificateSubmissionStopped)
+                eventStream.publish(CertificateSubmissionStopped)
               }
-            }).start()
           } else {
             context.system.eventStream.publish(CertificateSubmissionStopped)
           }
@@ -452,6 +434,70 @@ abstract class AbstractCertificateSubmitter[
     }
   }
 
+  // Runs on the proof generation pool. The cancellation is checked before and after the proof generation, because
+  // the native prover itself can't be interrupted.
+  private def generateAndSendCertificate(dataForProofGeneration: T, status: SignaturesStatus, cancellation: AtomicBoolean, queuedAt: Long): Unit = {
+    val provingStart = metricsManager.currentMillis()
+    metricsManager.certificateProofStarted(provingStart - queuedAt)
+    if (isCancelled(dataForProofGeneration, cancellation))
+      return
+
+    val proofWithQuality: io.horizen.utils.Pair[Array[Byte], java.lang.Long] = try {
+      keyRotationStrategy.generateProof(dataForProofGeneration, provingFileAbsolutePath)
+    } catch {
+      case e: Exception =>
+        log.error("Proof creation failed.", e)
+        return
+    }
+    metricsManager.certificateProofGenerated(metricsManager.currentMillis() - provingStart)
+    if (isCancelled(dataForProofGeneration, cancellation))
+      return
+
+    val certificateRequest: SendCertificateRequest = CertificateRequestCreator.create(
+      params.sidechainId,
+      dataForProofGeneration.referencedEpochNumber,
+      dataForProofGeneration.endEpochCumCommTreeHash,
+      proofWithQuality.getKey,
+      proofWithQuality.getValue,
+      dataForProofGeneration.backwardTransfers,
+      dataForProofGeneration.ftMinAmount,
+      dataForProofGeneration.btrFee,
+      dataForProofGeneration.getCustomFields,
+      certificateFee,
+      params)
+
+    log.info(s"Backward transfer certificate request was successfully created for epoch number ${
+      certificateRequest.epochNumber
+    }, with proof ${
+      BytesUtils.toHexString(proofWithQuality.getKey)
+    } with quality ${
+      proofWithQuality.getValue
+    } try to send it to mainchain")
+
+    if (submissionStrategy.checkQuality(status))
+      mainchainChannel.sendCertificate(certificateRequest) match {
+        case Success(certificate) =>
+          log.info(s"Backward transfer certificate response had been received. Cert hash = " + BytesUtils.toHexString(certificate.certificateId))
+
+        case Failure(ex) =>
+          log.error("Creation of backward transfer certificate had been failed.", ex)
+      }
+  }
+
+  private def isCancelled(dataForProofGeneration: T, cancellation: AtomicBoolean): Boolean = {
+    if (cancellation.get()) {
+      log.info(s"Certificate proof generation for the withdrawal epoch ${dataForProofGeneration.referencedEpochNumber} was cancelled: the epoch is obsolete.")
+      metricsManager.certificateProofCancelled()
+    }
+    cancellation.get()
+  }
+
+  // Cancels the certificate proof generation in progress, if any.
+  private def cancelProofGeneration(): Unit = {
+    proofGenerationCancellation.foreach(_.set(true))
+    proofGenerationCancellation = None
+  }
+
   def submitterStatus: Receive = {
     case EnableSubmitter =>
       if (!submitterEnabled) {
@@ -517,6 +563,10 @@ object AbstractCertificateSubmitter {
   case class ObsoleteWithdrawalEpochException(message: String = "", cause: Option[Throwable] = None)
     extends RuntimeException(message, cause.orNull)
 
+  // Single slot pool for the certificate proofs generation: the native prover memory is allocated for one proof at a time.
+  private lazy val proofGenerationContext: ExecutionContextExecutorService = ExecutionContext.fromExecutorService(
+    Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("sc-certificate-proof-generation-%d").setDaemon(true).build()))
+
   // Internal interface
   protected[horizen] object Timers {
     object CertificateGenerationTimer
@@ -14,6 +14,7 @@ import sparkz.util.{ModifierId, SparkzLogging}
 
 import java.nio.charset.StandardCharsets
 import java.security.MessageDigest
+import java.util.{WeakHashMap => JWeakHashMap}
 import scala.compat.java8.OptionConverters._
 
 trait ConsensusDataProvider {
@@ -129,19 +130,52 @@ trait ConsensusDataProvider {
         digest.update(vrfOutput.bytes())
     }
 
-    var nextBlockId = initialBlockId
-    var nextBlockInfo = initialBlockInfo
-    var nextBlockSlot = TimeToEpochUtils.timeStampToSlotNumber(params.sidechainGenesisBlockTimestamp, initialBlockInfo.timestamp)
-    while (nextBlockId != initialBlockInfo.lastBlockInPreviousConsensusEpoch && nextBlockSlot >= eligibleSlotsRangeStart) {
-      if (eligibleSlotsRangeEnd >= nextBlockSlot) {
-        digest.update(nextBlockInfo.vrfOutputOpt.getOrElse(throw new IllegalStateException("Try to calculate nonce by using block with incorrect Vrf proof")).bytes())
+    getNonceAccumulator(initialBlockId, initialBlockInfo).vrfOutputs.iterator
+      .takeWhile { case (_, slotNumber) => slotNumber >= eligibleSlotsRangeStart }
+      .foreach { case (vrfOutputOpt, slotNumber) =>
+        if (eligibleSlotsRangeEnd >= slotNumber) {
+          digest.update(vrfOutputOpt.getOrElse(throw new IllegalStateException("Try to calculate nonce by using block with incorrect Vrf proof")).bytes())
+        }
       }
+
+    digest
+  }
+
+  // Nonce accumulator of the given block: the walk back to the first block of the epoch stops at the first ancestor
+  // with a known accumulator, then the accumulators of the walked blocks are cached too.
+  private[horizen] def getNonceAccumulator(blockId: ModifierId, blockInfo: SidechainBlockInfo): NonceAccumulator = {
+    var blocksToAccumulate: List[(ModifierId, SidechainBlockInfo)] = List()
+    var accumulator: Option[NonceAccumulator] = ConsensusDataProvider.getCachedNonceAccumulator(storage, blockId)
+    var nextBlockId = blockId
+    var nextBlockInfo = blockInfo
+    while (accumulator.isEmpty && nextBlockId != blockInfo.lastBlockInPreviousConsensusEpoch) {
+      blocksToAccumulate = (nextBlockId, nextBlockInfo) :: blocksToAccumulate
       nextBlockId = nextBlockInfo.parentId
-      nextBlockInfo = storage.blockInfoById(nextBlockId)
-      nextBlockSlot = TimeToEpochUtils.timeStampToSlotNumber(params.sidechainGenesisBlockTimestamp, nextBlockInfo.timestamp)
+      if (nextBlockId != blockInfo.lastBlockInPreviousConsensusEpoch) {
+        accumulator = ConsensusDataProvider.getCachedNonceAccumulator(storage, nextBlockId)
+        if (accumulator.isEmpty)
+          nextBlockInfo = storage.blockInfoById(nextBlockId)
+      }
     }
 
-    digest
+    blocksToAccumulate.foldLeft(accumulator.getOrElse(NonceAccumulator.empty)) { case (parentAccumulator, (id, info)) =>
+      val slotNumber = TimeToEpochUtils.timeStampToSlotNumber(params.sidechainGenesisBlockTimestamp, info.timestamp)
+      val blockAccumulator = parentAccumulator.append(info.vrfOutputOpt, slotNumber)
+      ConsensusDataProvider.cacheNonceAccumulator(storage, id, blockAccumulator)
+      blockAccumulator
+    }
+  }
+
+  // Folds the block into the accumulator of its parent, if known, so the epoch switch finds the accumulator of the
+  // last block of the epoch ready.
+  def appendToNonceAccumulator(blockId: ModifierId, blockInfo: SidechainBlockInfo): Unit = {
+    val parentAccumulator =
+      if (blockInfo.parentId == blockInfo.lastBlockInPreviousConsensusEpoch) Some(NonceAccumulator.empty)
+      else ConsensusDataProvider.getCachedNonceAccumulator(storage, blockInfo.parentId)
+    parentAccumulator.foreach { accumulator =>
+      val slotNumber = TimeToEpochUtils.timeStampToSlotNumber(params.sidechainGenesisBlockTimestamp, blockInfo.timestamp)
+      ConsensusDataProvider.cacheNonceAccumulator(storage, blockId, accumulator.append(blockInfo.vrfOutputOpt, slotNumber))
+    }
   }
 
   def getLastBlockInPreviousConsensusEpoch(blockTimestamp: Block.Timestamp, parentId: ModifierId): ModifierId = {
@@ -160,15 +194,15 @@ trait ConsensusDataProvider {
   def getVrfOutput(blockHeader: SidechainBlockHeaderBase, nonceConsensusEpochInfo: NonceConsensusEpochInfo): Option[VrfOutput] = {
     //try to get cached value, if no in cache then calculate
     val key = ConsensusDataProvider.blockIdAndNonceToKey(blockHeader.id, nonceConsensusEpochInfo)
-    val cachedValue = ConsensusDataProvider.vrfOutputCache.get(key)
-    if (cachedValue == null) {
-      calculateVrfOutput(blockHeader, nonceConsensusEpochInfo).map{vrfOutput =>
-        ConsensusDataProvider.vrfOutputCache.put(key, vrfOutput)
-        vrfOutput
-      }
-    }
-    else {
-      Some(cachedValue)
+    val epochNumber = TimeToEpochUtils.timeStampToEpochNumber(params.sidechainGenesisBlockTimestamp, blockHeader.timestamp)
+    ConsensusDataProvider.vrfOutputCache.get(epochNumber, key) match {
+      case None =>
+        calculateVrfOutput(blockHeader, nonceConsensusEpochInfo).map{vrfOutput =>
+          val retainedEpochs = VrfOutputCache.retainedEpochs(params.maxHistoryRewritingLength, ConsensusParamsUtil.getConsensusSlotsPerEpoch(epochNumber))
+          ConsensusDataProvider.vrfOutputCache.put(epochNumber, key, vrfOutput, retainedEpochs)
+          vrfOutput
+        }
+      case cachedValue => cachedValue
     }
   }
 
@@ -185,7 +219,22 @@ object ConsensusDataProvider {
     new ByteArrayWrapper(Utils.doubleSHA256HashOfConcatenation(blockId.getBytes(StandardCharsets.UTF_8), nonceConsensusEpochInfo.consensusNonce))
   }
 
-  private val vrfOutputCache: LruCache[ByteArrayWrapper, VrfOutput] = new LruCache[ByteArrayWrapper, VrfOutput](32) //check cache size
+  private[horizen] val vrfOutputCache: VrfOutputCache = new VrfOutputCache
+
+  // Accumulators of the recently appended blocks of every block info storage, enough for a few epochs of the default
+  // length. Accumulators are immutable and bound to the block id, so they stay valid on forks and after rollbacks.
+  val NonceAccumulatorCacheSize: Int = 4096
+
+  private val nonceAccumulatorCaches = new JWeakHashMap[SidechainBlockInfoProvider, LruCache[ModifierId, NonceAccumulator]]()
+
+  private def getCachedNonceAccumulator(storage: SidechainBlockInfoProvider, blockId: ModifierId): Option[NonceAccumulator] =
+    nonceAccumulatorCaches.synchronized(Option(nonceAccumulatorCaches.get(storage)).flatMap(cache => Option(cache.get(blockId))))
+
+  private def cacheNonceAccumulator(storage: SidechainBlockInfoProvider, blockId: ModifierId, accumulator: NonceAccumulator): Unit =
+    nonceAccumulatorCaches.synchronized(
+      nonceAccumulatorCaches.computeIfAbsent(storage, _ => new LruCache[ModifierId, NonceAccumulator](NonceAccumulatorCacheSize))
+        .put(blockId, accumulator)
+    )
 
   def calculateNonceForGenesisBlock(params: NetworkParams): NonceConsensusEpochInfo = {
     NonceConsensusEpochInfo(ConsensusNonce(Longs.toByteArray(params.sidechainGenesisBlockTimestamp)))
@@ -1,7 +1,7 @@
 package io.horizen.consensus
 
 import java.util.{ArrayList => JArrayList}
-import io.horizen.storage.{SidechainStorageInfo, Storage}
+import io.horizen.storage.{BulkUpdatableStorage, SidechainStorageInfo, Storage}
 import io.horizen.utils.{ByteArrayWrapper, Pair => JPair}
 import io.horizen.utils.Utils
 import sparkz.crypto.hash.Blake2b256
@@ -11,7 +11,8 @@ import scala.compat.java8.OptionConverters._
 
 class ConsensusDataStorage(consensusEpochInfoStorage: Storage)
   extends SparkzLogging
-  with SidechainStorageInfo {
+  with SidechainStorageInfo
+  with BulkUpdatableStorage {
   def addStakeConsensusEpochInfo(epochId: ConsensusEpochId, stakeEpochInfo: StakeConsensusEpochInfo): Unit = {
     log.info(s"Storage with id:${this.hashCode()} -- Add stake to consensus data storage: for epochId ${epochId} stake info: ${stakeEpochInfo}")
 
@@ -59,6 +60,10 @@ class ConsensusDataStorage(consensusEpochInfoStorage: Storage)
     log.debug("Consensus data storage updated with version: " + version)
   }
 
+  override def startBulkUpdate(): Unit = consensusEpochInfoStorage.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = consensusEpochInfoStorage.commitBulkUpdate()
+
   override def lastVersionId: Option[ByteArrayWrapper] = {
     consensusEpochInfoStorage.lastVersionID().asScala
   }
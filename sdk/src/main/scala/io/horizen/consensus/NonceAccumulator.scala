@@ -0,0 +1,19 @@
+package io.horizen.consensus
+
+import io.horizen.vrf.VrfOutput
+
+/**
+ * VRF outputs and slots of the blocks of a consensus epoch, from a block back to the first block of the epoch in its
+ * branch, i.e. in the same order they are hashed by the epoch nonce calculation.
+ * Outputs are kept in an immutable list, so the accumulators of the blocks of an epoch, including the ones of the
+ * forks branching inside the epoch, share the outputs of their common ancestors.
+ */
+case class NonceAccumulator(vrfOutputs: List[(Option[VrfOutput], ConsensusSlotNumber)]) {
+
+  def append(vrfOutputOpt: Option[VrfOutput], slotNumber: ConsensusSlotNumber): NonceAccumulator =
+    NonceAccumulator((vrfOutputOpt, slotNumber) :: vrfOutputs)
+}
+
+object NonceAccumulator {
+  val empty: NonceAccumulator = NonceAccumulator(List())
+}
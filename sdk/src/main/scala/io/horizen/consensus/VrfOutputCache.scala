@@ -0,0 +1,46 @@
+package io.horizen.consensus
+
+import io.horizen.utils.{ByteArrayWrapper, LruCache}
+import io.horizen.vrf.VrfOutput
+
+import java.util.{TreeMap => JTreeMap}
+
+/**
+ * Cache of the VRF outputs of the blocks, partitioned by the consensus epoch of the block.
+ * Nonce calculation, block and ommers validation and forging request the outputs of the blocks of the same epochs,
+ * so every epoch gets a partition sized to hold the blocks of all its slots.
+ * Only the partitions of the newest epochs are kept: the older ones are dropped as soon as they leave the rollback
+ * window, given in number of epochs (see VrfOutputCache.retainedEpochs).
+ */
+class VrfOutputCache {
+
+  private val epochs = new JTreeMap[Integer, LruCache[ByteArrayWrapper, VrfOutput]]()
+
+  def get(epochNumber: ConsensusEpochNumber, key: ByteArrayWrapper): Option[VrfOutput] = synchronized {
+    Option(epochs.get(Integer.valueOf(epochNumber))).flatMap(epochCache => Option(epochCache.get(key)))
+  }
+
+  def put(epochNumber: ConsensusEpochNumber, key: ByteArrayWrapper, vrfOutput: VrfOutput, retainedEpochs: Int): Unit = synchronized {
+    require(retainedEpochs > 0, "At least one epoch must be retained")
+    epochs.computeIfAbsent(Integer.valueOf(epochNumber), epoch => new LruCache[ByteArrayWrapper, VrfOutput](ConsensusParamsUtil.getConsensusSlotsPerEpoch(epoch)))
+      .put(key, vrfOutput)
+    // drop the epochs out of the rollback window, possibly the given one as well
+    epochs.headMap(Integer.valueOf(epochs.lastKey - retainedEpochs + 1)).clear()
+  }
+
+  def epochsCount: Int = synchronized(epochs.size())
+
+  def size: Int = synchronized(epochs.values().stream().mapToInt(_.size()).sum())
+
+  def clear(): Unit = synchronized(epochs.clear())
+}
+
+object VrfOutputCache {
+  /**
+   * Number of epochs spanned by the rollback window: its blocks can belong to the current epoch and to as many previous
+   * ones as needed to contain maxHistoryRewritingLength blocks, and never less than the previous one, used by the
+   * nonce calculation and by the ommers validation.
+   */
+  def retainedEpochs(maxHistoryRewritingLength: Int, consensusSlotsInEpoch: Int): Int =
+    Math.max(2, 1 + (maxHistoryRewritingLength + consensusSlotsInEpoch - 1) / consensusSlotsInEpoch)
+}
@@ -49,6 +49,9 @@ abstract class AbstractForgeMessageBuilder[
 
   val metricsManager:MetricsManager = MetricsManager.getInstance()
 
+  // lottery proofs of the owned forger keys, computed ahead for the slots of the current epoch
+  protected val lotterySchedule: VrfLotterySchedule = new VrfLotterySchedule()
+
   def buildForgeMessageForEpochAndSlot(consensusEpochNumber: ConsensusEpochNumber, consensusSlotNumber: ConsensusSlotNumber, mcRefDataRetrievalTimeout: Timeout, forcedTx: Iterable[TX]): ForgeMessageType = {
     val forgingFunctionForEpochAndSlot: View => ForgeResult = tryToForgeNextBlock(consensusEpochNumber, consensusSlotNumber, mcRefDataRetrievalTimeout, forcedTx)
 
@@ -95,6 +98,12 @@ abstract class AbstractForgeMessageBuilder[
     if (forgingStakeMerklePathInfoSeq.isEmpty) {
       NoOwnedForgingStake
     } else {
+      // the nonce of the epoch is known, so the following slots can be proved in background
+      val vrfSecrets: Seq[VrfSecretKey] = forgingStakeMerklePathInfoSeq.map(_.forgingStakeInfo.vrfPublicKey).distinct
+        .flatMap(vrfPublicKey => nodeView.vault.secret(vrfPublicKey).asInstanceOf[Option[VrfSecretKey]])
+      lotterySchedule.schedule(nextConsensusEpochNumber, nextConsensusSlotNumber,
+        ConsensusParamsUtil.getConsensusSlotsPerEpoch(nextConsensusEpochNumber), consensusInfo.nonceConsensusEpochInfo, vrfSecrets)
+
       val ownedForgingDataView: Seq[(ForgingStakeMerklePathInfo, PrivateKey25519, VrfProof, VrfOutput)]
       = forgingStakeMerklePathInfoSeq.view.flatMap(forgingStakeMerklePathInfo => getSecretsAndProof(nodeView.vault, vrfMessage, forgingStakeMerklePathInfo))
 
@@ -147,7 +156,7 @@ abstract class AbstractForgeMessageBuilder[
     for {
       blockSignPrivateKey <- wallet.secret(forgingStakeMerklePathInfo.forgingStakeInfo.blockSignPublicKey).asInstanceOf[Option[PrivateKey25519]]
       vrfSecret <- wallet.secret(forgingStakeMerklePathInfo.forgingStakeInfo.vrfPublicKey).asInstanceOf[Option[VrfSecretKey]]
-      vrfProofAndHash <- Some(vrfSecret.prove(vrfMessage))
+      vrfProofAndHash <- Some(lotterySchedule.prove(vrfSecret, vrfMessage))
     } yield {
       val vrfProof = vrfProofAndHash.getKey
       val vrfOutput = vrfProofAndHash.getValue
@@ -307,26 +316,28 @@ abstract class AbstractForgeMessageBuilder[
     val mainchainReferenceData: ArrayBuffer[MainchainBlockReferenceData] = ArrayBuffer()
     // Collect MainchainRefData considering the actor message processing timeout
     // Note: We may do a lot of websocket `getMainchainBlockReference` operations that are a bit slow,
-    // because they are processed one by one, so we limit requests in time.
+    // so the next references are requested while the current one is processed, and we limit requests in time.
     val startTime: Long = System.currentTimeMillis()
-    mainchainBlockReferenceDataToRetrieve.takeWhile(hash => {
-      mainchainSynchronizer.getMainchainBlockReference(hash) match {
+    val mainchainBlockReferences = mainchainSynchronizer.getMainchainBlockReferencesIterator(mainchainBlockReferenceDataToRetrieve)
+    var collectingReferenceData = true
+    while (collectingReferenceData && mainchainBlockReferences.hasNext) {
+      mainchainBlockReferences.next() match {
         case Success(ref) =>
           val refDataSize = ref.data.bytes.length + 4 // placeholder for MainchainReferenceData length
           if (blockSize + refDataSize > getMaxBlockOverheadSize) {
             log.info(s"Block size would exceed limit, stopping mc ref data collection. Block size $blockSize, Data collected so far: ${mainchainReferenceData.length}, refData skipped size: $refDataSize")
-            false // stop data collection
+            collectingReferenceData = false // stop data collection
           } else {
             mainchainReferenceData.append(ref.data)
             blockSize += refDataSize
             // Note: temporary solution because of the delays on MC Websocket server part.
             // Can be after MC Websocket performance optimization.
             val isTimeout: Boolean = System.currentTimeMillis() - startTime >= mcRefDataRetrievalTimeout.duration.toMillis
-            !isTimeout // continue data collection
+            collectingReferenceData = !isTimeout // continue data collection
           }
         case Failure(ex) => return ForgeFailed(ex)
       }
-    })
+    }
 
     // if we have no mc block ref, we must ensure we are not creating too long a chain without mc ref blocks
     val consensusEpochNumber = TimeToEpochUtils.timeStampToEpochNumber(params.sidechainGenesisBlockTimestamp, timestamp)
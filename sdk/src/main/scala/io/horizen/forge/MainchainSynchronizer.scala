@@ -8,7 +8,10 @@ import io.horizen.utils.BytesUtils
 import io.horizen.utils._
 import io.horizen.websocket.client.MainchainNodeChannel
 
+import scala.collection.mutable
 import scala.collection.mutable.ListBuffer
+import scala.concurrent.{Await, Future}
+import scala.concurrent.duration.Duration
 import scala.util.{Failure, Success, Try}
 
 class MainchainSynchronizer(mainchainNodeChannel: MainchainNodeChannel) {
@@ -48,34 +51,57 @@ class MainchainSynchronizer(mainchainNodeChannel: MainchainNodeChannel) {
     }
   }
 
-  def getMainchainBlockReference(hash: MainchainHeaderHash): Try[MainchainBlockReference] = Try {
-    mainchainNodeChannel.getBlockByHash(BytesUtils.toHexString(hash)) match {
-      case Success(ref) =>
-        ref
-      case Failure(ex) =>
-        throw new IllegalStateException(s"Can't retrieve MainchainBlockReference for hash $hash. Connection error.", ex)
+  def getMainchainBlockReference(hash: MainchainHeaderHash): Try[MainchainBlockReference] = {
+    awaitMainchainBlockReference(hash, mainchainNodeChannel.getBlockByHashAsync(BytesUtils.toHexString(hash.data)))
+  }
+
+  // References of the given hashes, in order. While a reference is consumed, the requests of the next
+  // REFERENCES_PREFETCH_LIMIT ones are already in flight, so their round trips to the MC node overlap.
+  def getMainchainBlockReferencesIterator(hashes: Seq[MainchainHeaderHash]): Iterator[Try[MainchainBlockReference]] = {
+    new Iterator[Try[MainchainBlockReference]] {
+      private val requests = hashes.iterator.map(hash => (hash, mainchainNodeChannel.getBlockByHashAsync(BytesUtils.toHexString(hash.data))))
+      private val inFlight = mutable.Queue[(MainchainHeaderHash, Future[MainchainBlockReference])]()
+
+      private def sendRequests(): Unit = {
+        while (inFlight.size < MainchainSynchronizer.REFERENCES_PREFETCH_LIMIT && requests.hasNext)
+          inFlight.enqueue(requests.next())
+      }
+
+      override def hasNext: Boolean = {
+        sendRequests()
+        inFlight.nonEmpty
+      }
+
+      override def next(): Try[MainchainBlockReference] = {
+        sendRequests()
+        val (hash, reference) = inFlight.dequeue()
+        sendRequests()
+        awaitMainchainBlockReference(hash, reference)
+      }
     }
   }
 
   def getMainchainBlockReferences(hashes: Seq[MainchainHeaderHash]): Try[Seq[MainchainBlockReference]] = Try {
-    val references = ListBuffer[MainchainBlockReference]()
-    for(hash <- hashes) {
-      mainchainNodeChannel.getBlockByHash(BytesUtils.toHexString(hash.data)) match {
-        case Success(ref) =>
-          references.append(ref)
-        case Failure(ex) =>
-          throw new IllegalStateException(s"Can't retrieve MainchainBlockReference for hash ${hash.data}. Connection error.", ex)
-      }
+    getMainchainBlockReferencesIterator(hashes).map(_.get).toList
+  }
+
+  private def awaitMainchainBlockReference(hash: MainchainHeaderHash, reference: Future[MainchainBlockReference]): Try[MainchainBlockReference] = Try {
+    // The channel fails the request by itself if the response doesn't arrive in time.
+    Try(Await.result(reference, Duration.Inf)) match {
+      case Success(ref) =>
+        ref
+      case Failure(ex) =>
+        throw new IllegalStateException(s"Can't retrieve MainchainBlockReference for hash ${BytesUtils.toHexString(hash.data)}. Connection error.", ex)
     }
-    references
   }
 
   def getMainchainBlockHeaders(hashes: Seq[MainchainHeaderHash]): Try[Seq[MainchainHeader]] = Try {
     val strHashes: Seq[String] = hashes.map(hash => BytesUtils.toHexString(hash.data))
+    val groups = strHashes.grouped(MainchainSynchronizer.HEADERS_REQUEST_LIMIT).map(mainchainNodeChannel.getBlockHeadersAsync).toList
     var headers : Seq[MainchainHeader] = ListBuffer()
 
-    for(group <- strHashes.grouped(MainchainSynchronizer.HEADERS_REQUEST_LIMIT)) {
-      mainchainNodeChannel.getBlockHeaders(group) match {
+    for(group <- groups) {
+      Try(Await.result(group, Duration.Inf)) match {
         case Success(received_headers) => headers ++= received_headers
         case Failure(ex) => throw new IllegalStateException(s"Can't retrieve group of headers for specified hashes. Reason: ${ex.getMessage}", ex)
       }
@@ -87,6 +113,7 @@ class MainchainSynchronizer(mainchainNodeChannel: MainchainNodeChannel) {
 
 object MainchainSynchronizer {
   val MAX_BLOCKS_REQUEST: Int = 50
+  val REFERENCES_PREFETCH_LIMIT: Int = 8
   val HEADERS_REQUEST_LIMIT:Int = 25 // TODO Change this value to 50(as described in doc and implemented in MC) when forger be able to request more than 50 blocks.
                                      // HEADERS_REQUEST_LIMIT was reduced to 25 in order to keep track of correctness of multiple header requests.
                                      // At this moment forger doesn't request more than 50 headers.
@@ -0,0 +1,87 @@
+package io.horizen.forge
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import io.horizen.consensus.{ConsensusEpochNumber, ConsensusSlotNumber, NonceConsensusEpochInfo, buildVrfMessage, intToConsensusSlotNumber}
+import io.horizen.proof.VrfProof
+import io.horizen.proposition.VrfPublicKey
+import io.horizen.secret.VrfSecretKey
+import io.horizen.utils.{ByteArrayWrapper, Pair => JPair}
+import io.horizen.vrf.VrfOutput
+import sparkz.util.SparkzLogging
+
+import java.util.concurrent.{ConcurrentHashMap, Executors}
+import scala.concurrent.{ExecutionContext, Future}
+import scala.util.{Failure, Success}
+
+/**
+ * Lottery VRF proofs of the forger keys, computed ahead for the slots of a consensus epoch.
+ * The VRF message of a slot depends only on the slot number and on the epoch nonce, so once the nonce is known
+ * (i.e. at the first forging attempt of the epoch) the proofs of all the following slots of the epoch are computed
+ * in background, and the forging attempts of those slots only look them up instead of calling the native prover.
+ * Proofs are keyed by VRF message and key, so a schedule computed for a nonce that is not the one of the forged
+ * branch is never used; the proofs of a previous epoch are dropped when the next one is scheduled.
+ * @param executionContext - context running the proving jobs
+ */
+class VrfLotterySchedule(executionContext: ExecutionContext = VrfLotterySchedule.lotteryContext) extends SparkzLogging {
+
+  private case class ProofKey(vrfMessage: ByteArrayWrapper, vrfPublicKey: VrfPublicKey)
+
+  private val proofs = new ConcurrentHashMap[ProofKey, JPair[VrfProof, VrfOutput]]()
+
+  // epoch, nonce and keys of the last scheduled job
+  private var scheduledEpoch: Option[(ConsensusEpochNumber, ByteArrayWrapper)] = None
+  private var scheduledKeys: Set[VrfPublicKey] = Set()
+  // incremented when an epoch is scheduled, the jobs of the previous ones stop when they see it changed
+  @volatile private var generation: Long = 0
+
+  /**
+   * Schedules the proving of the slots following the given one until the end of the epoch, for the keys not scheduled
+   * yet with the same epoch and nonce.
+   */
+  def schedule(epochNumber: ConsensusEpochNumber,
+               currentSlot: ConsensusSlotNumber,
+               slotsInEpoch: Int,
+               nonce: NonceConsensusEpochInfo,
+               vrfSecrets: Seq[VrfSecretKey]): Unit = synchronized {
+    val epoch = Some((epochNumber, new ByteArrayWrapper(nonce.consensusNonce)))
+    if (scheduledEpoch != epoch) {
+      generation += 1
+      proofs.clear()
+      scheduledEpoch = epoch
+      scheduledKeys = Set()
+    }
+    val secretsToSchedule = vrfSecrets.filterNot(secret => scheduledKeys.contains(secret.publicImage())).distinct
+    if (secretsToSchedule.nonEmpty && currentSlot < slotsInEpoch) {
+      scheduledKeys ++= secretsToSchedule.map(_.publicImage())
+      val jobGeneration = generation
+      Future {
+        (currentSlot + 1 to slotsInEpoch).iterator
+          .takeWhile(_ => generation == jobGeneration)
+          .foreach(slot => {
+            val vrfMessage = buildVrfMessage(intToConsensusSlotNumber(slot), nonce)
+            secretsToSchedule.foreach(secret =>
+              proofs.computeIfAbsent(ProofKey(new ByteArrayWrapper(vrfMessage), secret.publicImage()), _ => secret.prove(vrfMessage)))
+          })
+      }(executionContext).onComplete {
+        case Success(_) => log.debug(s"Lottery of epoch $epochNumber computed for ${secretsToSchedule.size} keys")
+        case Failure(ex) => log.warn(s"Failed to compute the lottery of epoch $epochNumber", ex)
+      }(executionContext)
+    }
+  }
+
+  /**
+   * VRF proof and output of the given key for the message, taken from the schedule if already computed.
+   */
+  def prove(vrfSecret: VrfSecretKey, vrfMessage: Array[Byte]): JPair[VrfProof, VrfOutput] =
+    proofs.computeIfAbsent(ProofKey(new ByteArrayWrapper(vrfMessage), vrfSecret.publicImage()), _ => vrfSecret.prove(vrfMessage))
+
+  def size: Int = proofs.size()
+}
+
+object VrfLotterySchedule {
+
+  // Single thread, the lottery of an epoch has plenty of time to be computed while the forger uses the current slot.
+  private lazy val lotteryContext: ExecutionContext = ExecutionContext.fromExecutorService(
+    Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder().setNameFormat("forger-vrf-lottery-%d").setDaemon(true).build()))
+}
@@ -60,6 +60,10 @@ abstract class AbstractHistory[
 
   def bestBlockInfo: SidechainBlockInfo = storage.bestBlockInfo
 
+  def blockCacheHitRate: Double = storage.blockCacheHitRate
+
+  def blockInfoCacheHitRate: Double = storage.blockInfoCacheHitRate
+
   override def append(block: PM): Try[(HT, ProgressInfo[PM])] = Try {
     for(validator <- semanticBlockValidators)
       validator.validate(block).get
@@ -82,6 +86,7 @@ abstract class AbstractHistory[
       else {
         val parentBlockInfo = parentBlockInfoOption.get
         val blockInfo: SidechainBlockInfo = calculateBlockInfo(block, parentBlockInfo)
+        appendToNonceAccumulator(block.id, blockInfo)
         // Check if we retrieved the next block of best chain
         if (block.parentId.equals(bestBlockId)) {
           (
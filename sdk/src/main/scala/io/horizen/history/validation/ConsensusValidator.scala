@@ -1,7 +1,7 @@
 package io.horizen.history.validation
 
 import io.horizen.account.block.AccountBlock
-import io.horizen.block.{OmmersContainer, SidechainBlockBase, SidechainBlockHeaderBase}
+import io.horizen.block.{Ommer, OmmersContainer, SidechainBlockBase, SidechainBlockHeaderBase}
 import io.horizen.chain.{AbstractFeePaymentsInfo, SidechainBlockInfo}
 import io.horizen.consensus._
 import io.horizen.fork.{ActiveSlotCoefficientFork, ForkManager}
@@ -77,6 +77,7 @@ class ConsensusValidator[
 
     val lastBlockInPreviousConsensusEpochInfo: SidechainBlockInfo = history.blockInfoById(history.getLastBlockInPreviousConsensusEpoch(verifiedBlock.timestamp, verifiedBlock.parentId))
     val previousFullConsensusEpochInfo: FullConsensusEpochInfo = history.getFullConsensusEpochInfoForBlock(lastBlockInPreviousConsensusEpochInfo.timestamp, lastBlockInPreviousConsensusEpochInfo.parentId)
+    prefetchOmmersVrfOutputs(verifiedBlock, currentConsensusEpochInfo, previousFullConsensusEpochInfo, history)
     verifyOmmers(verifiedBlock, currentConsensusEpochInfo, Some(previousFullConsensusEpochInfo), verifiedBlock.parentId, parentBlockInfo, history, Seq())
 
     verifyTimestampInFuture(verifiedBlock.timestamp, history)
@@ -102,6 +103,27 @@ class ConsensusValidator[
       throw new SidechainBlockSlotInFutureException("Block had been generated in the future")
   }
 
+  // Calculates concurrently the VRF outputs of the ommers (and subommers) of the block, against the nonce of their epoch,
+  // so that verifyOmmers finds them in the VRF outputs cache. Nothing is verified here: verifyOmmers reports the failures
+  // and calculates the outputs depending on the nonce recalculated with the ommers switching the epoch.
+  private def prefetchOmmersVrfOutputs(block: PMOD,
+                                       currentFullConsensusEpochInfo: FullConsensusEpochInfo,
+                                       previousFullConsensusEpochInfo: FullConsensusEpochInfo,
+                                       history: HT): Unit = {
+    def allOmmers(ommersContainer: OmmersContainer[H]): Seq[Ommer[H]] =
+      ommersContainer.ommers.flatMap(ommer => ommer +: allOmmers(ommer))
+
+    val ommers = allOmmers(block)
+    if (ommers.size > 1) {
+      val blockEpochNumber = TimeToEpochUtils.timeStampToEpochNumber(history.params.sidechainGenesisBlockTimestamp, block.timestamp)
+      OmmersVerification.runAll(ommers.map(ommer => () => {
+        val ommerEpochNumber = TimeToEpochUtils.timeStampToEpochNumber(history.params.sidechainGenesisBlockTimestamp, ommer.header.timestamp)
+        val ommerFullConsensusEpochInfo = if (ommerEpochNumber < blockEpochNumber) previousFullConsensusEpochInfo else currentFullConsensusEpochInfo
+        history.getVrfOutput(ommer.header, ommerFullConsensusEpochInfo.nonceConsensusEpochInfo)
+      }))
+    }
+  }
+
   /*
       Visual schema for possible cases:
       You can assume on different length of Consensus Epoch. For example, 7 or 9.
@@ -0,0 +1,71 @@
+package io.horizen.history.validation
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import io.horizen.block.{Ommer, SidechainBlockHeaderBase}
+import io.horizen.params.NetworkParams
+import io.horizen.utils.LruCache
+import sparkz.util.ModifierId
+
+import java.util.concurrent.Executors
+import java.util.{WeakHashMap => JWeakHashMap}
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, ExecutionContext, ExecutionContextExecutorService, Future}
+import scala.util.{Failure, Success, Try}
+
+/**
+ * Verification of the ommers of the blocks.
+ * Ommers of the same container don't depend on each other, so their verifications run concurrently on a bounded pool.
+ * Ids of the ommers with verified data are remembered, so the ommers included again by other blocks (e.g. by the
+ * competing blocks of a fork, or after a fork resolution) are not verified twice. An ommer id is the id of its header,
+ * that is bound to the ommer MainchainHeaders and subommers by the data consistency checks.
+ */
+object OmmersVerification {
+  // Max number of verified ommers ids remembered for each network params.
+  private[horizen] val VerifiedOmmersCacheSize: Int = 1024
+
+  // Verified ommers ids, by the network params they have been verified with.
+  private val verifiedOmmers = new JWeakHashMap[NetworkParams, LruCache[ModifierId, java.lang.Boolean]]()
+
+  // Set in the pool threads: nested verifications (e.g. of subommers) run in the thread of their parent task.
+  private val insideVerificationTask = new ThreadLocal[Boolean] {
+    override def initialValue(): Boolean = false
+  }
+
+  // Bounded pool used for the ommers verification.
+  private lazy val ommersVerificationContext: ExecutionContextExecutorService = ExecutionContext.fromExecutorService(
+    Executors.newFixedThreadPool(Runtime.getRuntime.availableProcessors(),
+      new ThreadFactoryBuilder().setNameFormat("sc-ommers-verification-%d").setDaemon(true).build()))
+
+  def isVerified(ommerId: ModifierId, params: NetworkParams): Boolean = verifiedOmmers.synchronized {
+    Option(verifiedOmmers.get(params)).exists(_.containsKey(ommerId))
+  }
+
+  def setVerified(ommerId: ModifierId, params: NetworkParams): Unit = verifiedOmmers.synchronized {
+    verifiedOmmers.computeIfAbsent(params, _ => new LruCache[ModifierId, java.lang.Boolean](VerifiedOmmersCacheSize))
+      .put(ommerId, java.lang.Boolean.TRUE)
+  }
+
+  // Verifies the data of the given ommers not verified yet, throws the failure of the first invalid one.
+  def verifyData[H <: SidechainBlockHeaderBase](ommers: Seq[Ommer[H]], params: NetworkParams): Unit = {
+    val toVerify = ommers.filterNot(ommer => isVerified(ommer.header.id, params))
+    runAll(toVerify.map(ommer => () => ommer.verifyData(params).get)).zip(toVerify).foreach {
+      case (Success(_), ommer) => setVerified(ommer.header.id, params)
+      case (Failure(e), _) => throw e
+    }
+  }
+
+  // Runs the given tasks, concurrently on the ommers verification pool if more than one.
+  // The results are in the same order of the tasks.
+  private[horizen] def runAll[T](tasks: Seq[() => T]): Seq[Try[T]] = {
+    if (tasks.size < 2 || insideVerificationTask.get()) {
+      tasks.map(task => Try(task()))
+    } else {
+      implicit val ec: ExecutionContext = ommersVerificationContext
+      val results = tasks.map(task => Future {
+        insideVerificationTask.set(true)
+        try Try(task()) finally insideVerificationTask.set(false)
+      })
+      Await.result(Future.sequence(results), Duration.Inf)
+    }
+  }
+}
@@ -2,12 +2,19 @@ package io.horizen.mainchain.api
 
 import io.horizen.websocket.client.TopQualityCertificates
 
+import scala.concurrent.Future
 import scala.util.Try
 
 trait MainchainNodeCertificateApi {
   def sendCertificate(certificateRequest: SendCertificateRequest): Try[SendCertificateResponse]
 
+  // Asynchronous sendCertificate.
+  def sendCertificateAsync(certificateRequest: SendCertificateRequest): Future[SendCertificateResponse]
+
   // Get information about best certificates in mempool and chain
   // scId must be send in BE format
   def getTopQualityCertificates(scId: String): Try[TopQualityCertificates]
+
+  // Asynchronous getTopQualityCertificates.
+  def getTopQualityCertificatesAsync(scId: String): Future[TopQualityCertificates]
 }
@@ -34,6 +34,7 @@ abstract class AbstractHistoryStorage[
   )
   extends SidechainBlockInfoProvider
     with SidechainStorageInfo
+    with BulkUpdatableStorage
     with SparkzLogging {
   this: S =>
   // Version - RandomBytes(32)
@@ -44,6 +45,11 @@ abstract class AbstractHistoryStorage[
 
   private val bestBlockIdKey: ByteArrayWrapper = new ByteArrayWrapper(Array.fill(32)(-1: Byte))
 
+  // Parsed blocks and block infos read from the storage, weighted by their serialized size.
+  // Blocks never change once stored, block infos are dropped when updated.
+  private val blockCache = new WeightedLruCache[ModifierId, PM](AbstractHistoryStorage.BlockCacheMaxBytes)
+  private val blockInfoCache = new WeightedLruCache[ModifierId, SidechainBlockInfo](AbstractHistoryStorage.BlockInfoCacheMaxBytes)
+
   private val activeChain: ActiveChain = loadActiveChain()
 
   private def loadActiveChain(): ActiveChain = {
@@ -92,13 +98,13 @@ abstract class AbstractHistoryStorage[
     blockInfoById(bestBlockId)
   }
 
-  def blockById(blockId: ModifierId): Option[PM] = {
+  def blockById(blockId: ModifierId): Option[PM] = blockCache.getOrElseUpdate(blockId) {
     val blockIdBytes = new ByteArrayWrapper(idToBytes(blockId))
     val baw = storage.get(blockIdBytes).asScala
     baw match {
       case Some(value) =>
         blockSerializer.parseBytesTry(value.data()) match {
-          case Success(block) => Option(block)
+          case Success(block) => Option((block, value.data().length.toLong))
           case Failure(exception) =>
             log.error("Error while sidechain block parsing.", exception)
             Option.empty
@@ -122,10 +128,17 @@ abstract class AbstractHistoryStorage[
     isInActiveChain(blockId) || blockInfoOptionByIdFromStorage(blockId).nonEmpty
   }
 
-  private def blockInfoOptionByIdFromStorage(blockId: ModifierId): Option[SidechainBlockInfo] = {
-    storage.get(blockInfoKey(blockId)).asScala.flatMap(baw => SidechainBlockInfoSerializer.parseBytesTry(baw.data).toOption)
+  private def blockInfoOptionByIdFromStorage(blockId: ModifierId): Option[SidechainBlockInfo] = blockInfoCache.getOrElseUpdate(blockId) {
+    storage.get(blockInfoKey(blockId)).asScala.flatMap(baw =>
+      SidechainBlockInfoSerializer.parseBytesTry(baw.data).toOption.map(info => (info, baw.data.length.toLong)))
   }
 
+  // ratio of the block reads served by the parsed blocks cache
+  def blockCacheHitRate: Double = blockCache.hitRate
+
+  // ratio of the block info reads (of the blocks out of the active chain) served by the block infos cache
+  def blockInfoCacheHitRate: Double = blockInfoCache.hitRate
+
   private def blockInfoByIdFromStorage(blockId: ModifierId): SidechainBlockInfo = {
     blockInfoOptionByIdFromStorage(blockId).getOrElse(throw new IllegalArgumentException(s"No blockInfo in storage for blockId $blockId"))
   }
@@ -291,6 +304,7 @@ abstract class AbstractHistoryStorage[
       new ByteArrayWrapper(Utils.nextVersion),
       toUpdate,
       new JArrayList[ByteArrayWrapper]())
+    blockInfoCache.remove(block.id)
 
     this
   }
@@ -324,6 +338,7 @@ abstract class AbstractHistoryStorage[
       java.util.Arrays.asList(new JPair(new ByteArrayWrapper(blockInfoKey(block.id)), new ByteArrayWrapper(blockInfo.bytes))),
       new JArrayList()
     )
+    blockInfoCache.remove(block.id)
     this
   }
 
@@ -341,7 +356,19 @@ abstract class AbstractHistoryStorage[
 
   def isEmpty: Boolean = storage.isEmpty
 
+  override def startBulkUpdate(): Unit = storage.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = storage.commitBulkUpdate()
+
   override def lastVersionId : Option[ByteArrayWrapper] = {
     storage.lastVersionID().asScala
   }
 }
+
+object AbstractHistoryStorage {
+  // Max total size of the parsed blocks kept in memory, enough for the recent blocks of the tip and its forks.
+  val BlockCacheMaxBytes: Long = 64 * 1024 * 1024
+
+  // Max total size of the parsed block infos kept in memory, the active chain ones are in memory anyway.
+  val BlockInfoCacheMaxBytes: Long = 8 * 1024 * 1024
+}
@@ -0,0 +1,38 @@
+package io.horizen.storage
+
+import io.horizen.utils.{ByteArrayWrapper, BytesUtils}
+
+import java.io.{File, FileOutputStream}
+import java.nio.file.Files
+
+/**
+ * Marker file written while a group of blocks applied in bulk sync mode is being flushed to the storages.
+ * It contains the version the node view had before the group was applied: if the node is stopped while the
+ * journal exists, state and wallet storages might be partially flushed and must be rolled back to that version.
+ */
+class BulkSyncJournal(val file: File) {
+
+  def groupStartVersion: Option[ByteArrayWrapper] = {
+    if (file.exists())
+      Some(new ByteArrayWrapper(BytesUtils.fromHexString(new String(Files.readAllBytes(file.toPath)).trim)))
+    else
+      None
+  }
+
+  def open(version: ByteArrayWrapper): Unit = {
+    file.getParentFile.mkdirs()
+    val out = new FileOutputStream(file)
+    try {
+      out.write(BytesUtils.toHexString(version.data()).getBytes)
+      out.getFD.sync()
+    } finally {
+      out.close()
+    }
+  }
+
+  def close(): Unit = Files.deleteIfExists(file.toPath)
+}
+
+object BulkSyncJournal {
+  val FileName: String = "bulkSync.journal"
+}
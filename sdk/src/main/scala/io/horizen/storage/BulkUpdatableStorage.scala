@@ -0,0 +1,9 @@
+package io.horizen.storage
+
+// Storage whose updates can be grouped in memory and written at once during the bulk sync.
+// See Storage.startBulkUpdate/commitBulkUpdate.
+trait BulkUpdatableStorage {
+  def startBulkUpdate(): Unit
+
+  def commitBulkUpdate(): Unit
+}
@@ -53,6 +53,11 @@ class SidechainSecretStorage(storage: Storage, sidechainSecretsCompanion: Sidech
 
   def getAll: List[SidechainTypes#SCS] = secrets.values.toList
 
+  // Proposition keyed lookup: true if the secret stored for the proposition has exactly the proposition as public image.
+  // It gives the same result of SingleSecretProofOfKnowledgeProposition.canBeProvedBy(getAll) without scanning the secrets.
+  def containsSecretFor(proposition: SidechainTypes#SCP): Boolean =
+    secrets.get(calculateKey(proposition)).exists(_.publicImage().equals(proposition))
+
   def add (secret: SidechainTypes#SCS): Try[SidechainSecretStorage] = Try {
     require(secret != null, "Can not add to storage: Secret must be NOT NULL.")
 
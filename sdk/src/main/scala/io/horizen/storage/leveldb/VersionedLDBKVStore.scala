@@ -4,6 +4,8 @@ import io.horizen.storage.StorageIterator
 import io.horizen.utils.ByteArrayWrapper
 import org.iq80.leveldb.{DB, ReadOptions}
 
+import java.util.concurrent.ConcurrentHashMap
+import scala.collection.JavaConverters._
 import scala.collection.mutable
 import scala.util.{Failure, Success, Try}
 
@@ -21,6 +23,72 @@ final class VersionedLDBKVStore(protected val db: DB, val keepVersions: Int) ext
 
   val ChangeSetPrefix: Byte = 0x16
 
+  /**
+    * Versions applied during the bulk update and not written to the db yet.
+    * @param versions - pending versions, the newest first. Readers on other threads take the current immutable list,
+    *                 while the updater replaces it
+    * @param values - pending values (None for removed keys), including the change sets stored under the version ids
+    */
+  private class PendingUpdate {
+    @volatile var versions: List[VersionId] = List()
+    val values: ConcurrentHashMap[ByteArrayWrapper, Option[V]] = new ConcurrentHashMap[ByteArrayWrapper, Option[V]]()
+  }
+
+  @volatile private var pendingUpdate: Option[PendingUpdate] = None
+
+  override def get(key: K): Option[V] = {
+    pendingUpdate.flatMap(pending => Option(pending.values.get(new ByteArrayWrapper(key)))) match {
+      case Some(pendingValue) => pendingValue
+      case None => super.get(key)
+    }
+  }
+
+  override def getAll(cond: (K, V) => Boolean): Seq[(K, V)] = pendingUpdate match {
+    case Some(pending) =>
+      // merge the pending values into the persisted ones, keeping the db key ordering
+      val pendingValues = pending.values.asScala.toMap
+      val persisted = super.getAll((k, v) => !pendingValues.contains(new ByteArrayWrapper(k)) && cond(k, v))
+      val inserted = pendingValues.collect { case (k, Some(v)) if cond(k.data, v) => k.data -> v }
+      (persisted ++ inserted).sortWith((a, b) => ByteArrayWrapper.compare(a._1, b._1) < 0)
+    case None =>
+      super.getAll(cond)
+  }
+
+  /**
+    * Starts the bulk update: the following versions are kept in memory (and visible to the readers)
+    * until commitBulkUpdate is called, so all of them are written with a single db batch.
+    */
+  def startBulkUpdate(): Unit = {
+    if (pendingUpdate.isEmpty)
+      pendingUpdate = Some(new PendingUpdate)
+  }
+
+  def isBulkUpdateInProgress: Boolean = pendingUpdate.isDefined
+
+  /**
+    * Writes all the pending versions with a single db batch and stops the bulk update.
+    * Change sets of the versions that exceed keepVersions are not written at all.
+    */
+  def commitBulkUpdate(): Unit = pendingUpdate.foreach { pending =>
+    val persistedVersions = Option(db.get(VersionsKey)).getOrElse(Array.emptyByteArray)
+    val (updatedVersions, versionsToShrink) = (pending.versions.flatten.toArray ++ persistedVersions) // newer version first
+      .splitAt(Constants.HashLength * keepVersions) // shrink old versions
+
+    val batch = db.createWriteBatch()
+    try {
+      pending.values.asScala.foreach {
+        case (k, Some(value)) => batch.put(k.data, value)
+        case (k, None) => batch.delete(k.data)
+      }
+      batch.put(VersionsKey, updatedVersions)
+      versionsToShrink.grouped(Constants.HashLength).foreach(batch.delete)
+      db.write(batch)
+    } finally {
+      batch.close()
+    }
+    pendingUpdate = None
+  }
+
   /**
     * Performs versioned update.
     * @param toInsert - key, value pairs to be inserted/updated
@@ -28,6 +96,32 @@ final class VersionedLDBKVStore(protected val db: DB, val keepVersions: Int) ext
     */
   def update(toInsert: Seq[(K, V)], toRemove: Seq[K])(version: VersionId): Unit = {
     require(version.length == Constants.HashLength, "Illegal version id size")
+    pendingUpdate match {
+      case Some(pending) => updatePending(pending, toInsert, toRemove, version)
+      case None => updatePersisted(toInsert, toRemove, version)
+    }
+  }
+
+  private def updatePending(pending: PendingUpdate, toInsert: Seq[(K, V)], toRemove: Seq[K], version: VersionId): Unit = {
+    require(get(version).isEmpty, "Version id is already used")
+
+    val insertedKeys = mutable.ArrayBuffer.empty[K]
+    val altered = mutable.ArrayBuffer.empty[(K, V)]
+    toInsert.foreach(x => get(x._1)
+      .fold[Unit](insertedKeys += x._1)(oldValue => altered += (x._1 -> oldValue)))
+
+    val removed = toRemove.flatMap { k =>
+      get(k).map(k -> _)
+    }
+
+    val changeSet = ChangeSet(insertedKeys, removed, altered)
+    pending.values.put(new ByteArrayWrapper(version), Some(ChangeSetPrefix +: ChangeSetSerializer.toBytes(changeSet)))
+    toInsert.foreach { case (k, v) => pending.values.put(new ByteArrayWrapper(k), Some(v)) }
+    toRemove.foreach(k => pending.values.put(new ByteArrayWrapper(k), None))
+    pending.versions = version :: pending.versions
+  }
+
+  private def updatePersisted(toInsert: Seq[(K, V)], toRemove: Seq[K], version: VersionId): Unit = {
     val ro = new ReadOptions()
     ro.snapshot(db.getSnapshot)
 
@@ -73,6 +167,8 @@ final class VersionedLDBKVStore(protected val db: DB, val keepVersions: Int) ext
     * @param versionId - version id to roll back to
     */
   def rollbackTo(versionId: VersionId): Try[Unit] = {
+    // the bulk update must be committed by its owner, that journals it, before rolling back
+    require(!isBulkUpdateInProgress, "Rollback is not allowed during a bulk update")
     val ro = new ReadOptions()
     ro.snapshot(db.getSnapshot)
     Option(db.get(VersionsKey)) match {
@@ -125,17 +221,62 @@ final class VersionedLDBKVStore(protected val db: DB, val keepVersions: Int) ext
     }
   }
 
-  def versions: Seq[VersionId] = Option(db.get(VersionsKey))
-    .toSeq
-    .flatMap(_.grouped(Constants.HashLength))
+  def versions: Seq[VersionId] = pendingUpdate.map(_.versions).getOrElse(Seq.empty) ++
+    Option(db.get(VersionsKey))
+      .toSeq
+      .flatMap(_.grouped(Constants.HashLength))
 
   def versionIdExists(versionId: VersionId): Boolean =
     versions.exists(new ByteArrayWrapper(_) == new ByteArrayWrapper(versionId))
 
   def getIterator: StorageIterator = {
+    require(!isBulkUpdateInProgress, "Iteration is not allowed during a bulk update")
     new DatabaseIterator(db.iterator())
   }
 
+  /**
+    * Iterator on the storage content at the given version, read from a consistent db snapshot.
+    * The changes of the newer versions are reverted on the fly, so that only the keys they touched are kept in
+    * memory and the storage itself is not modified, unlike rollbackTo.
+    * @param versionId - version id to iterate at
+    */
+  def getIteratorAt(versionId: VersionId): Try[StorageIterator] = Try {
+    require(!isBulkUpdateInProgress, "Iteration is not allowed during a bulk update")
+    val ro = new ReadOptions()
+    ro.snapshot(db.getSnapshot)
+    try {
+      val versionIds = Option(db.get(VersionsKey, ro)).toSeq.flatMap(_.grouped(Constants.HashLength)).map(new ByteArrayWrapper(_))
+      val wrappedVersionId = new ByteArrayWrapper(versionId)
+      require(versionIds.contains(wrappedVersionId), s"Version ${Algos.encode(versionId)} not found")
+
+      // values at versionId of the keys changed by the newer versions (None for the keys not existing at versionId)
+      val revertedValues = new java.util.TreeMap[ByteArrayWrapper, Option[V]]()
+      val versionsToRevert = versionIds.takeWhile(_ != wrappedVersionId)
+      versionsToRevert.foreach { verId => // from newest version to the targeted one, older change sets override
+        val changeSet = Option(db.get(verId.data, ro))
+          .flatMap(changeSetBytes => ChangeSetSerializer.parseBytesTry(changeSetBytes.tail).toOption)
+          .getOrElse(throw new IllegalStateException("Inconsistent versioned storage state"))
+        changeSet.insertedKeys.foreach(k => revertedValues.put(new ByteArrayWrapper(k), None))
+        changeSet.removed.foreach { case (k, v) => revertedValues.put(new ByteArrayWrapper(k), Some(v)) }
+        changeSet.altered.foreach { case (k, oldV) => revertedValues.put(new ByteArrayWrapper(k), Some(oldV)) }
+        revertedValues.put(verId, None)
+      }
+      revertedValues.put(new ByteArrayWrapper(VersionsKey),
+        Some(versionIds.drop(versionsToRevert.size).flatMap(_.data).toArray))
+
+      new VersionedSnapshotIterator(db.iterator(ro), ro.snapshot(), revertedValues)
+    } catch {
+      case e: Throwable =>
+        ro.snapshot().close()
+        throw e
+    }
+  }
+
+  override def close(): Unit = {
+    commitBulkUpdate()
+    super.close()
+  }
+
 }
 
 object VersionedLDBKVStore {
@@ -89,6 +89,10 @@ class VersionedLevelDbStorageAdapter(pathToDB: File, versionsToKeep: Int) extend
     dataBase.versions.slice(0,maxNumberOfItems).map(byteArrayToWrapper).asJava
   }
 
+  override def startBulkUpdate(): Unit = dataBase.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = dataBase.commitBulkUpdate()
+
   override def close(): Unit = dataBase.close()
 
   private def createDb(path: File): VersionedLDBKVStore = {
@@ -106,4 +110,14 @@ class VersionedLevelDbStorageAdapter(pathToDB: File, versionsToKeep: Int) extend
     dataBase.getIterator
   }
 
+  // iterator on the storage content at the given version, without rolling the storage back
+  def getIteratorAt(versionID: ByteArrayWrapper): StorageIterator = {
+    if (isVersionExist(versionID)) {
+      dataBase.getIteratorAt(versionID).get
+    }
+    else {
+      throw new IllegalArgumentException("Iterator at non exist version")
+    }
+  }
+
 }
@@ -0,0 +1,84 @@
+package io.horizen.storage.leveldb
+
+import io.horizen.storage.StorageIterator
+import io.horizen.utils.ByteArrayWrapper
+import org.iq80.leveldb.{DBIterator, Snapshot}
+
+import java.util.{AbstractMap, Map => JMap, TreeMap => JTreeMap}
+
+/**
+  * Iterator on a db snapshot, merged with the values of the keys changed after the iterated version.
+  * Keys are returned in the db order, the keys with a None reverted value are skipped.
+  * Closing the iterator releases the snapshot too.
+  * @param iterator - iterator on the db snapshot
+  * @param snapshot - the db snapshot
+  * @param revertedValues - values of the changed keys at the iterated version
+  */
+class VersionedSnapshotIterator(iterator: DBIterator,
+                                snapshot: Snapshot,
+                                revertedValues: JTreeMap[ByteArrayWrapper, Option[Array[Byte]]]) extends StorageIterator {
+
+  private var revertedIterator = revertedValues.entrySet().iterator()
+  private var nextDbEntry: Option[JMap.Entry[Array[Byte], Array[Byte]]] = None
+  private var nextRevertedEntry: Option[JMap.Entry[ByteArrayWrapper, Option[Array[Byte]]]] = None
+  private var nextEntry: Option[JMap.Entry[Array[Byte], Array[Byte]]] = None
+
+  seekToFirst()
+
+  override def seek(key: Array[Byte]): Unit = {
+    iterator.seek(key)
+    revertedIterator = revertedValues.tailMap(new ByteArrayWrapper(key), true).entrySet().iterator()
+    reset()
+  }
+
+  override def seekToFirst(): Unit = {
+    iterator.seekToFirst()
+    revertedIterator = revertedValues.entrySet().iterator()
+    reset()
+  }
+
+  private def reset(): Unit = {
+    nextDbEntry = None
+    nextRevertedEntry = None
+    nextEntry = None
+    advance()
+  }
+
+  // moves nextEntry to the following key existing at the iterated version
+  private def advance(): Unit = {
+    nextEntry = None
+    while (nextEntry.isEmpty && (nextDbEntry.isDefined || nextRevertedEntry.isDefined || iterator.hasNext || revertedIterator.hasNext)) {
+      if (nextDbEntry.isEmpty && iterator.hasNext) nextDbEntry = Some(iterator.next())
+      if (nextRevertedEntry.isEmpty && revertedIterator.hasNext) nextRevertedEntry = Some(revertedIterator.next())
+
+      val comparison = (nextDbEntry, nextRevertedEntry) match {
+        case (Some(dbEntry), Some(revertedEntry)) => ByteArrayWrapper.compare(dbEntry.getKey, revertedEntry.getKey.data)
+        case (Some(_), None) => -1
+        case _ => 1
+      }
+      if (comparison < 0) {
+        nextEntry = nextDbEntry
+        nextDbEntry = None
+      } else {
+        // the reverted value replaces the db one, if any
+        if (comparison == 0) nextDbEntry = None
+        nextRevertedEntry.foreach(revertedEntry =>
+          nextEntry = revertedEntry.getValue.map(value => new AbstractMap.SimpleImmutableEntry(revertedEntry.getKey.data, value)))
+        nextRevertedEntry = None
+      }
+    }
+  }
+
+  override def hasNext: Boolean = nextEntry.isDefined
+
+  override def next(): JMap.Entry[Array[Byte], Array[Byte]] = {
+    val entry = nextEntry.getOrElse(throw new NoSuchElementException)
+    advance()
+    entry
+  }
+
+  override def close(): Unit = {
+    iterator.close()
+    snapshot.close()
+  }
+}
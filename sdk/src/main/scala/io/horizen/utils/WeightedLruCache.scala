@@ -0,0 +1,78 @@
+package io.horizen.utils
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.{LinkedHashMap => JLinkedHashMap}
+
+/**
+ * Least recently used cache bounded by the total weight of its values (e.g. their serialized size) instead of by
+ * their number. The least recently used values are evicted until the total weight fits maxWeight, a value heavier than
+ * maxWeight is not cached at all.
+ * Hits and misses of getOrElseUpdate are counted, see hitRate.
+ */
+class WeightedLruCache[K, V](val maxWeight: Long) {
+  require(maxWeight > 0, "Max weight must be positive")
+
+  private case class WeightedValue(value: V, weight: Long)
+
+  // access order, so the eldest entry is the least recently used one
+  private val values = new JLinkedHashMap[K, WeightedValue](16, 0.75f, true)
+  private var totalWeight: Long = 0
+
+  private val hitsCounter = new AtomicLong()
+  private val missesCounter = new AtomicLong()
+
+  def get(key: K): Option[V] = synchronized(Option(values.get(key)).map(_.value))
+
+  /**
+   * Cached value of the key, if any, otherwise the value (with its weight) computed by load, that is cached when defined.
+   */
+  def getOrElseUpdate(key: K)(load: => Option[(V, Long)]): Option[V] = {
+    get(key) match {
+      case cached@Some(_) =>
+        hitsCounter.incrementAndGet()
+        cached
+      case None =>
+        missesCounter.incrementAndGet()
+        load.map { case (value, weight) =>
+          put(key, value, weight)
+          value
+        }
+    }
+  }
+
+  def put(key: K, value: V, weight: Long): Unit = synchronized {
+    remove(key)
+    if (weight <= maxWeight) {
+      values.put(key, WeightedValue(value, weight))
+      totalWeight += weight
+      val iterator = values.values().iterator()
+      while (totalWeight > maxWeight && iterator.hasNext) {
+        totalWeight -= iterator.next().weight
+        iterator.remove()
+      }
+    }
+  }
+
+  def remove(key: K): Unit = synchronized {
+    Option(values.remove(key)).foreach(removed => totalWeight -= removed.weight)
+  }
+
+  def clear(): Unit = synchronized {
+    values.clear()
+    totalWeight = 0
+  }
+
+  def size: Int = synchronized(values.size())
+
+  def weight: Long = synchronized(totalWeight)
+
+  def hits: Long = hitsCounter.get()
+
+  def misses: Long = missesCounter.get()
+
+  // ratio of the getOrElseUpdate calls served by the cache, 0 if none
+  def hitRate: Double = {
+    val requests = hits + misses
+    if (requests == 0) 0.0 else hits.toDouble / requests
+  }
+}
@@ -16,7 +16,7 @@ import io.horizen.utxo.storage._
 import io.horizen.utxo.wallet.{ApplicationWallet, SidechainWallet, SidechainWalletCswDataProvider}
 import sparkz.core.network.NodeViewSynchronizer.ReceivableMessages._
 import sparkz.core.utils.NetworkTimeProvider
-import sparkz.core.{idToVersion, versionToId}
+import sparkz.core.{bytesToVersion, idToVersion, versionToId}
 import sparkz.util.ModifierId
 
 import java.nio.charset.StandardCharsets
@@ -55,6 +55,14 @@ class SidechainNodeViewHolder(sidechainSettings: SidechainSettings,
     utxoMerkleTreeProvider, stateStorage, forgerBoxStorage,
     secretStorage, walletBoxStorage, walletTransactionStorage, forgingBoxesInfoStorage, cswDataProvider)
 
+  // same order of the update procedure: state --> wallet --> history
+  override protected lazy val bulkSyncStateAndWalletStorages: Seq[BulkUpdatableStorage] = Seq[BulkUpdatableStorage](
+    stateStorage, forgerBoxStorage, utxoMerkleTreeProvider,
+    walletBoxStorage, walletTransactionStorage, forgingBoxesInfoStorage, cswDataProvider)
+
+  override protected lazy val bulkSyncHistoryStorages: Seq[BulkUpdatableStorage] = Seq[BulkUpdatableStorage](
+    consensusDataStorage, historyStorage)
+
   // this method is called at the startup after the load of the storages from the persistent db. It might happen that the node was not
   // stopped gracefully and therefore the consistency among storages might not be ensured. This method tries to recover this situation
   override def checkAndRecoverStorages(restoredData: Option[(SidechainHistory, SidechainState, SidechainWallet, SidechainMemoryPool)]):
@@ -67,10 +75,31 @@ class SidechainNodeViewHolder(sidechainSettings: SidechainSettings,
         log.info("Checking state consistency...")
 
         val restoredHistory = dataOpt._1
-        val restoredState = dataOpt._2
-        val restoredWallet = dataOpt._3
         val restoredMempool = dataOpt._4
 
+        // if the node was stopped while flushing a bulk sync group, state and wallet storages might have been
+        // partially updated: roll them back to the version they had before the group, that history still points to
+        val (restoredState, restoredWallet) = bulkSyncJournal.groupStartVersion match {
+          case Some(groupStartVersion) =>
+            log.warn(s"Bulk sync group was not completely flushed, rolling back state and wallet to $groupStartVersion")
+            val version = bytesToVersion(groupStartVersion.data())
+            (dataOpt._2.rollbackTo(version), dataOpt._3.rollback(version)) match {
+              case (Success(s), Success(w)) =>
+                bulkSyncJournal.close()
+                (s, w)
+              case (Failure(e), _) =>
+                log.error("State roll back failed: ", e)
+                context.system.eventStream.publish(RollbackFailed)
+                return None
+              case (_, Failure(e)) =>
+                log.error("Wallet roll back failed: ", e)
+                context.system.eventStream.publish(RollbackFailed)
+                return None
+            }
+          case None =>
+            (dataOpt._2, dataOpt._3)
+        }
+
         // best block id is updated in history storage as very last step
         val historyVersion = idToVersion(restoredHistory.bestBlockId)
 
@@ -3,6 +3,7 @@ package io.horizen.utxo.csw
 import akka.actor.{Actor, ActorRef, ActorSystem, Props}
 import akka.pattern.ask
 import akka.util.Timeout
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import com.fasterxml.jackson.annotation.JsonView
 import com.fasterxml.jackson.databind.annotation.JsonSerialize
 import io.horizen.cryptolibprovider.CryptoLibProvider
@@ -26,11 +27,12 @@ import sparkz.core.NodeViewHolder.ReceivableMessages.GetDataFromCurrentView
 import sparkz.core.network.NodeViewSynchronizer.ReceivableMessages.ChangedState
 import sparkz.util.SparkzLogging
 
+import java.util.concurrent.Executors
 import scala.collection.JavaConverters._
 import scala.collection.mutable
 import scala.compat.java8.OptionConverters._
 import scala.concurrent.duration.FiniteDuration
-import scala.concurrent.{Await, ExecutionContext, Future}
+import scala.concurrent.{Await, ExecutionContext, ExecutionContextExecutorService, Future}
 import scala.util.{Failure, Success, Try}
 
 class CswManager(settings: SidechainSettings,
@@ -47,10 +49,18 @@ class CswManager(settings: SidechainSettings,
   var hasSidechainCeased: Boolean = false
   var cswWitnessHolderOpt: Option[CswWitnessHolder] = None
 
+  // Max number of proofs generated in parallel, each one allocating its own native prover memory.
+  val maxConcurrentProofs: Int = Math.max(1, Math.min(settings.csw.maxConcurrentProofs, Runtime.getRuntime.availableProcessors()))
+
+  // Proofs waiting for generation, in the order of their requests.
   val proofsInQueue: mutable.ListBuffer[ProofInQueue] = mutable.ListBuffer()
-  var proofInProcessOpt: Option[ProofInProcess] = None
+  val proofsInProcess: mutable.Map[ByteArrayWrapper, ProofInProcess] = mutable.Map()
   val generatedProofsMap: mutable.Map[ByteArrayWrapper, CswProofInfo] = mutable.Map()
 
+  private val proofGenerationContext: ExecutionContextExecutorService = ExecutionContext.fromExecutorService(
+    Executors.newFixedThreadPool(maxConcurrentProofs,
+      new ThreadFactoryBuilder().setNameFormat("sc-csw-proof-generation-%d").setDaemon(true).build()))
+
   override def preStart(): Unit = {
     context.system.eventStream.subscribe(self, classOf[ChangedState[SidechainState]])
     context.become(initialization)
@@ -58,6 +68,7 @@ class CswManager(settings: SidechainSettings,
 
   override def postStop(): Unit = {
     log.debug("CSW Manager actor is stopping...")
+    proofGenerationContext.shutdown()
     super.postStop()
   }
 
@@ -119,9 +130,7 @@ class CswManager(settings: SidechainSettings,
           cswWitnessHolderOpt = None
           proofsInQueue.clear()
           generatedProofsMap.clear()
-          proofInProcessOpt.foreach(inProcess => {
-            proofInProcessOpt = Some(ProofInProcess(inProcess.boxId, inProcess.receiverAddress, isCancelled = true))
-          })
+          proofsInProcess.transform((_, inProcess) => inProcess.copy(isCancelled = true))
         }
       }
   }
@@ -230,74 +239,78 @@ class CswManager(settings: SidechainSettings,
 
   private def tryScheduleProofGeneration: Receive = {
     case TryToScheduleProofGeneration =>
-      // Emit next proof generation only in case no other one in process
-      if(cswWitnessHolderOpt.nonEmpty && proofInProcessOpt.isEmpty && proofsInQueue.nonEmpty) {
-        val cswWitnessHolder = cswWitnessHolderOpt.get
-        val inQueue = proofsInQueue.remove(0)
-        findCswData(inQueue.boxId.data) match {
-          case Some(data) =>
-            val pkOpt = getCswOwner(data)
-            pkOpt.foreach(pk => {
-              proofInProcessOpt = Some(ProofInProcess(inQueue.boxId, inQueue.receiverAddress))
-              val receiverPubKeyHash = BytesUtils.fromHorizenMcTransparentAddress(inQueue.receiverAddress, params)
-              // Run the time consuming part of proof generation in a background
-              // to unlock the Actor message queue for another requests.
-              new Thread(new Runnable() {
-                override def run(): Unit = {
-                  Try {
-                    log.debug(s"CSW proof generation started for $data")
-                    data match {
-                      case ft: ForwardTransferCswData =>
-                        CryptoLibProvider.cswCircuitFunctions.ftCreateProof(ft, cswWitnessHolder.lastActiveCertOpt.asJava,
-                          cswWitnessHolder.mcbScTxsCumComStart, cswWitnessHolder.scTxsComHashes.asJava,
-                          cswWitnessHolder.mcbScTxsCumComEnd, receiverPubKeyHash, pk, params.withdrawalEpochLength,
-                          params.calculatedSysDataConstant, params.sidechainId, params.cswProvingKeyFilePath, true, true,
-                          params.sidechainCreationVersion);
-                      case utxo: UtxoCswData =>
-                        CryptoLibProvider.cswCircuitFunctions.utxoCreateProof(utxo, cswWitnessHolder.lastActiveCertOpt.get,
-                          cswWitnessHolder.mcbScTxsCumComEnd, receiverPubKeyHash, pk, params.withdrawalEpochLength,
-                          params.calculatedSysDataConstant, params.sidechainId, params.cswProvingKeyFilePath, true, true,
-                          params.sidechainCreationVersion);
-                    }
-                  } match {
-                    case Success(proof) =>
-                      if(proof != null) { // Note: proof creation may return null in case of error
-                        log.debug(s"CSW proof generation finished successfully for $data")
-                        self ! CswProofSuccessfullyGenerated(proof)
-                      }
-                      else {
-                        log.error(s"CSW proof generation failed for CSW $data, because of null proof.")
-                        self ! CswProofFailed
-                      }
-                    case Failure(ex) =>
-                      log.error(s"Csw proof generation failed for CSW $data, due to: $ex")
-                      self ! CswProofFailed
-                  }
+      // Emit the next proof generations, in the order of their requests, while there are free workers
+      cswWitnessHolderOpt.foreach(cswWitnessHolder => {
+        var nextIdx = nextProofInQueueIndex()
+        while (proofsInProcess.size < maxConcurrentProofs && nextIdx != -1) {
+          startProofGeneration(proofsInQueue.remove(nextIdx), cswWitnessHolder)
+          nextIdx = nextProofInQueueIndex()
+        }
+      })
+  }
 
+  // The proof of a box is not generated while a cancelled proof generation of the same box is still in process.
+  private def nextProofInQueueIndex(): Int = proofsInQueue.indexWhere(inQueue => !proofsInProcess.contains(inQueue.boxId))
+
+  private def startProofGeneration(inQueue: ProofInQueue, cswWitnessHolder: CswWitnessHolder): Unit = {
+    findCswData(inQueue.boxId.data) match {
+      case Some(data) =>
+        val pkOpt = getCswOwner(data)
+        pkOpt.foreach(pk => {
+          proofsInProcess(inQueue.boxId) = ProofInProcess(inQueue.boxId, inQueue.receiverAddress)
+          val receiverPubKeyHash = BytesUtils.fromHorizenMcTransparentAddress(inQueue.receiverAddress, params)
+          // Run the time consuming part of proof generation on the proof generation pool
+          // to unlock the Actor message queue for another requests.
+          Future {
+            Try {
+              log.debug(s"CSW proof generation started for $data")
+              data match {
+                case ft: ForwardTransferCswData =>
+                  CryptoLibProvider.cswCircuitFunctions.ftCreateProof(ft, cswWitnessHolder.lastActiveCertOpt.asJava,
+                    cswWitnessHolder.mcbScTxsCumComStart, cswWitnessHolder.scTxsComHashes.asJava,
+                    cswWitnessHolder.mcbScTxsCumComEnd, receiverPubKeyHash, pk, params.withdrawalEpochLength,
+                    params.calculatedSysDataConstant, params.sidechainId, params.cswProvingKeyFilePath, true, true,
+                    params.sidechainCreationVersion);
+                case utxo: UtxoCswData =>
+                  CryptoLibProvider.cswCircuitFunctions.utxoCreateProof(utxo, cswWitnessHolder.lastActiveCertOpt.get,
+                    cswWitnessHolder.mcbScTxsCumComEnd, receiverPubKeyHash, pk, params.withdrawalEpochLength,
+                    params.calculatedSysDataConstant, params.sidechainId, params.cswProvingKeyFilePath, true, true,
+                    params.sidechainCreationVersion);
+              }
+            } match {
+              case Success(proof) =>
+                if(proof != null) { // Note: proof creation may return null in case of error
+                  log.debug(s"CSW proof generation finished successfully for $data")
+                  self ! CswProofSuccessfullyGenerated(inQueue.boxId, proof)
                 }
-              }).start()
-            })
-          case None =>
-            log.error("CswManager: Can't find CSW witness for proof generation.")
-            self ! TryToScheduleProofGeneration
-        }
-      }
+                else {
+                  log.error(s"CSW proof generation failed for CSW $data, because of null proof.")
+                  self ! CswProofFailed(inQueue.boxId)
+                }
+              case Failure(ex) =>
+                log.error(s"Csw proof generation failed for CSW $data, due to: $ex")
+                self ! CswProofFailed(inQueue.boxId)
+            }
+          }(proofGenerationContext)
+        })
+      case None =>
+        log.error("CswManager: Can't find CSW witness for proof generation.")
+    }
   }
 
   private def processProofGenerationResults: Receive = {
-    case CswProofSuccessfullyGenerated(proof: Array[Byte]) =>
-      proofInProcessOpt match {
+    case CswProofSuccessfullyGenerated(boxId: ByteArrayWrapper, proof: Array[Byte]) =>
+      proofsInProcess.remove(boxId) match {
         case Some(proofInProcess) =>
           if (!proofInProcess.isCancelled)
-            generatedProofsMap(new ByteArrayWrapper(proofInProcess.boxId)) = CswProofInfo(Generated, Some(proof), Some(proofInProcess.receiverAddress))
-          proofInProcessOpt = None
+            generatedProofsMap(boxId) = CswProofInfo(Generated, Some(proof), Some(proofInProcess.receiverAddress))
         case None =>
           log.error("CswManager: inconsistent proof in process state.")
       }
       self ! TryToScheduleProofGeneration
 
-    case CswProofFailed =>
-      proofInProcessOpt = None
+    case CswProofFailed(boxId: ByteArrayWrapper) =>
+      proofsInProcess.remove(boxId)
       self ! TryToScheduleProofGeneration
   }
 
@@ -317,9 +330,8 @@ class CswManager(settings: SidechainSettings,
       return CswProofInfo(InQueue, None, Some(entry.receiverAddress))
     })
 
-    proofInProcessOpt.foreach(inProcess => {
-      if (id.equals(inProcess.boxId))
-        return CswProofInfo(InProcess, None, Some(inProcess.receiverAddress))
+    proofsInProcess.get(id).foreach(inProcess => {
+      return CswProofInfo(InProcess, None, Some(inProcess.receiverAddress))
     })
 
     CswProofInfo(Absent, None, None)
@@ -334,9 +346,8 @@ class CswManager(settings: SidechainSettings,
       proofsInQueue.remove(idxToRemove)
 
     // Mark proof generation cancelled if boxId has matched.
-    proofInProcessOpt.foreach(inProcess => {
-      if(id.equals(inProcess.boxId))
-        proofInProcessOpt = Some(ProofInProcess(inProcess.boxId, inProcess.receiverAddress, isCancelled = true))
+    proofsInProcess.get(id).foreach(inProcess => {
+      proofsInProcess(id) = inProcess.copy(isCancelled = true)
     })
   }
 
@@ -483,8 +494,8 @@ object CswManager {
   // Private interface
   private object InternalReceivableMessages {
     case object TryToScheduleProofGeneration
-    case class CswProofSuccessfullyGenerated(proof: Array[Byte])
-    case object CswProofFailed
+    case class CswProofSuccessfullyGenerated(boxId: ByteArrayWrapper, proof: Array[Byte])
+    case class CswProofFailed(boxId: ByteArrayWrapper)
   }
 
   // Responses interface
@@ -1,31 +1,45 @@
 package io.horizen.utxo.mempool
 
+import io.horizen.SidechainTypes
+import io.horizen.utils.ByteArrayWrapper
+
+import java.util.concurrent.ConcurrentSkipListSet
+import java.util.{List => JList}
+import scala.collection.JavaConverters._
 import scala.collection.concurrent.TrieMap
 
 
 /**
- * Map of SidechainMemoryPoolEntry, with additional data structures to keep the order by feeRate and the total bytes
- * of all the transactions contained.
+ * Map of SidechainMemoryPoolEntry, with additional data structures to keep the order by feeRate and by fee, the total
+ * bytes of all the transactions contained and the transactions by spent box id.
+ * The ordered indexes are updated on every add/remove, so the entries can be iterated from both ends without sorting.
  */
 class MempoolMap(initialValues: Iterable[SidechainMemoryPoolEntry])  {
 
   private val map = new TrieMap[String, SidechainMemoryPoolEntry]()
   private var usedPoolSizeBytes = 0L
-  private var idsSortedByFeeRate =  scala.collection.SortedSet[MempoolMapKey]()
+  private val idsSortedByFeeRate = new ConcurrentSkipListSet[MempoolMapKey]()
+  private val idsSortedByFee = new ConcurrentSkipListSet[MempoolMapKey]()
+  private val spentBoxesIndex = new SpentBoxesIndex()
 
   for (ele <- initialValues) {
-    idsSortedByFeeRate = idsSortedByFeeRate + MempoolMapKey(ele.getUnconfirmedTx().id(), ele.feeRate.getFeeRate())
-    usedPoolSizeBytes += ele.feeRate.getSize()
-    map.put(ele.getUnconfirmedTx().id(), ele)
+    add(ele)
   }
 
+  private def feeRateKey(entry: SidechainMemoryPoolEntry): MempoolMapKey =
+    MempoolMapKey(entry.getUnconfirmedTx().id(), entry.feeRate.getFeeRate())
+
+  private def feeKey(entry: SidechainMemoryPoolEntry): MempoolMapKey =
+    MempoolMapKey(entry.getUnconfirmedTx().id(), entry.getUnconfirmedTx().fee())
 
   def add(entry: SidechainMemoryPoolEntry) : Option[SidechainMemoryPoolEntry] = {
     map.put(entry.getUnconfirmedTx().id(), entry) match {
       case Some(e) => Some(e)
       case None => {
-        idsSortedByFeeRate = idsSortedByFeeRate + MempoolMapKey(entry.getUnconfirmedTx().id(), entry.feeRate.getFeeRate())
+        idsSortedByFeeRate.add(feeRateKey(entry))
+        idsSortedByFee.add(feeKey(entry))
         usedPoolSizeBytes += entry.feeRate.getSize()
+        spentBoxesIndex.add(entry.getUnconfirmedTx())
         None
       }
     }
@@ -34,8 +48,10 @@ class MempoolMap(initialValues: Iterable[SidechainMemoryPoolEntry])  {
   def remove(id: String) : Option[SidechainMemoryPoolEntry]  = {
     map.remove(id) match  {
       case Some(entry) => {
-        idsSortedByFeeRate = idsSortedByFeeRate.filter(_.txid != id)
+        idsSortedByFeeRate.remove(feeRateKey(entry))
+        idsSortedByFee.remove(feeKey(entry))
         usedPoolSizeBytes -= entry.feeRate.getSize()
+        spentBoxesIndex.remove(entry.getUnconfirmedTx())
         Some(entry)
       }
       case None => None
@@ -63,32 +79,67 @@ class MempoolMap(initialValues: Iterable[SidechainMemoryPoolEntry])  {
     map.contains(id)
   }
 
+  def getTransactionSpendingBox(boxId: ByteArrayWrapper): Option[SidechainTypes#SCBT] = {
+    spentBoxesIndex.getTransactionSpendingBox(boxId)
+  }
+
+  /**
+   * All the transactions, as a list backed by the spent boxes index (see SpentBoxesIndexedTransactions)
+   */
+  def transactionsView: JList[SidechainTypes#SCBT] = {
+    spentBoxesIndex.transactionsView(map.values.map(_.getUnconfirmedTx()))
+  }
+
   /**
    * Take the tx with lowest feeRate
    */
   def headOption() : Option[SidechainMemoryPoolEntry]  = {
-    idsSortedByFeeRate.headOption match {
-      case Some(value) => map.get(value.txid)
-      case None => None
-    }
+    lowestFeeRateIterator.take(1).toList.headOption
   }
 
   /**
    * Take n lowest entries sorted by feeRate (ascending)
    */
   def takeLowest(n: Int) : Seq[SidechainMemoryPoolEntry]   = {
-    idsSortedByFeeRate.toList.take(n).map(item => map.get(item.txid).get)
+    lowestFeeRateIterator.take(n).toList
   }
 
   /**
    * Take n highest entries sorted by feeRate (descending)
    */
   def takeHighest(n: Int) : Seq[SidechainMemoryPoolEntry]   = {
-    idsSortedByFeeRate.toList.takeRight(n).map(item => map.get(item.txid).get).reverse
+    highestFeeRateIterator.take(n).toList
+  }
+
+  /**
+   * Entries sorted by feeRate (ascending), read lazily from the index
+   */
+  def lowestFeeRateIterator: Iterator[SidechainMemoryPoolEntry] = {
+    entriesIterator(idsSortedByFeeRate.iterator().asScala)
+  }
+
+  /**
+   * Entries sorted by feeRate (descending), read lazily from the index
+   */
+  def highestFeeRateIterator: Iterator[SidechainMemoryPoolEntry] = {
+    entriesIterator(idsSortedByFeeRate.descendingIterator().asScala)
+  }
+
+  /**
+   * Entries sorted by fee (descending), read lazily from the index
+   */
+  def highestFeeIterator: Iterator[SidechainMemoryPoolEntry] = {
+    entriesIterator(idsSortedByFee.descendingIterator().asScala)
+  }
+
+  // the index iterators are weakly consistent: skip the keys of the entries removed in the meantime
+  private def entriesIterator(keys: Iterator[MempoolMapKey]): Iterator[SidechainMemoryPoolEntry] = {
+    keys.flatMap(key => map.get(key.txid))
   }
 
 }
 
+// key of the ordered indexes: feeRate is the value the entries are sorted by (the fee rate or the absolute fee)
 case class MempoolMapKey(txid: String, feeRate: Long) extends Ordered[MempoolMapKey]{
 
   override def compare(that: MempoolMapKey): Int = {
@@ -45,7 +45,7 @@ class SidechainMemoryPool private(unconfirmed: MempoolMap, mempoolSettings: Memp
   }
 
   override def getTransactionsSortedByFee(limit: Int): JList[SidechainTypes#SCBT] = {
-    unconfirmed.values.toList.sortBy(-_.getUnconfirmedTx().fee).take(limit).map(tx => tx.getUnconfirmedTx()).asJava
+    unconfirmed.highestFeeIterator.take(limit).map(tx => tx.getUnconfirmedTx()).toList.asJava
   }
 
   override def getTransactionsSortedByFeeRate(limit: Int): JList[SidechainTypes#SCBT] = {
@@ -64,7 +64,7 @@ class SidechainMemoryPool private(unconfirmed: MempoolMap, mempoolSettings: Memp
   def takeWithWithdrawalBoxesLimit(allowedWithdrawalBoxes: Int): Iterable[SidechainTypes#SCBT] = {
     val filteredTxs: JArrayList[SidechainTypes#SCBT] = new JArrayList[SidechainTypes#SCBT]()
     var newWithdrawalBoxes = 0
-    take(size).foreach( tx => {
+    unconfirmed.highestFeeRateIterator.map(_.getUnconfirmedTx()).foreach( tx => {
       val txWithdrawalBoxes = tx.newBoxes().asScala.count(box => box.isInstanceOf[WithdrawalRequestBox])
       if( txWithdrawalBoxes + newWithdrawalBoxes <= allowedWithdrawalBoxes) {
         newWithdrawalBoxes += txWithdrawalBoxes
@@ -103,7 +103,7 @@ class SidechainMemoryPool private(unconfirmed: MempoolMap, mempoolSettings: Memp
     if (entry.feeRate.getFeeRate() < minFeeRate) {
        Failure(new IllegalArgumentException("Transaction fee is less than mempool.minFeeRate - " + tx))
     } else if (tx.incompatibilityChecker().isMemoryPoolCompatible &&
-        tx.incompatibilityChecker().isTransactionCompatible(tx, unconfirmed.values.toList.map(t => t.getUnconfirmedTx()).asJava)) {
+        tx.incompatibilityChecker().isTransactionCompatible(tx, unconfirmed.transactionsView)) {
       if (addWithSizeCheck(entry))
         Success[SidechainMemoryPool](this)
       else
@@ -117,14 +117,13 @@ class SidechainMemoryPool private(unconfirmed: MempoolMap, mempoolSettings: Memp
   override def put(txs: Iterable[SidechainTypes#SCBT]): Try[SidechainMemoryPool] = {
     // for each tx in txs call "put"
     // rollback to initial state if "put(tx)" failed
-    for (t <- txs.tails) {
-      if (t != Nil &&
-          (!t.head.incompatibilityChecker().isMemoryPoolCompatible ||
-           !t.head.incompatibilityChecker().isTransactionCompatible(t.head, t.tail.toList.asJava)))
-        return Failure(new IllegalArgumentException("There is incompatible transaction - " + t.head))
+    forEachWithFollowingTxs(txs) { (t, followingTxs) =>
+      if (!t.incompatibilityChecker().isMemoryPoolCompatible ||
+          !t.incompatibilityChecker().isTransactionCompatible(t, followingTxs))
+        return Failure(new IllegalArgumentException("There is incompatible transaction - " + t))
     }
 
-    val currentUnconfimed = unconfirmed.values.toList.map(t => t.getUnconfirmedTx()).asJava
+    val currentUnconfimed = unconfirmed.transactionsView
     for (t <- txs) {
       if (!t.incompatibilityChecker().isTransactionCompatible(t, currentUnconfimed))
         return Failure(new IllegalArgumentException("There is incompatible transaction - " + t))
@@ -146,27 +145,28 @@ class SidechainMemoryPool private(unconfirmed: MempoolMap, mempoolSettings: Memp
    */
   def addWithSizeCheck(entry: SidechainMemoryPoolEntry): Boolean = {
     var removingEntriesSize: Long = 0
-    var removingEntriesNum = 0
-    val mempoolEntries = unconfirmed.takeLowest(unconfirmed.size)
+    val removingEntries = ListBuffer[SidechainMemoryPoolEntry]()
+    // the lowest fee-rate entries are read from the index only if there is not enough space
+    val mempoolEntries = unconfirmed.lowestFeeRateIterator
 
     while (unconfirmed.usedSizeBytes - removingEntriesSize + entry.feeRate.getSize() > maxPoolSizeBytes) {
-      removingEntriesNum += 1
-
-      if (removingEntriesNum > unconfirmed.size) {
+      if (!mempoolEntries.hasNext) {
         // all entries were processed and there is still not enough space in the mempool
         return false
       }
 
-      if (mempoolEntries(removingEntriesNum - 1).feeRate.getFeeRate() > entry.feeRate.getFeeRate()) {
+      val lowestEntry = mempoolEntries.next()
+      if (lowestEntry.feeRate.getFeeRate() > entry.feeRate.getFeeRate()) {
         //the pool is full, and the entry we are trying to add has feerate lower than the miminum in pool
         //insert will fail
         return false
       }
 
-      removingEntriesSize += mempoolEntries(removingEntriesNum - 1).getUnconfirmedTx().size()
+      removingEntries += lowestEntry
+      removingEntriesSize += lowestEntry.getUnconfirmedTx().size()
     }
 
-    mempoolEntries.take(removingEntriesNum).foreach(lsEntry => unconfirmed.remove(lsEntry.getUnconfirmedTx().id()))
+    removingEntries.foreach(lsEntry => unconfirmed.remove(lsEntry.getUnconfirmedTx().id()))
     unconfirmed.add(entry)
     true
   }
@@ -176,22 +176,23 @@ class SidechainMemoryPool private(unconfirmed: MempoolMap, mempoolSettings: Memp
   // Probably, we need to do a Global check inside for both new and existing transactions.
   override def putWithoutCheck(txs: Iterable[SidechainTypes#SCBT]): SidechainMemoryPool = {
     // TODO Transaction with less fee rate should be removed.
-    val txToRemove = ListBuffer[SidechainTypes#SCBT]()
-    for (t <- txs.tails) {
-      if (t != Nil && !t.head.incompatibilityChecker().isTransactionCompatible(t.head, t.tail.toList.asJava))
-        txToRemove += t.head
+    val txToRemove = mutable.HashSet[ModifierId]()
+    forEachWithFollowingTxs(txs) { (t, followingTxs) =>
+      if (!t.incompatibilityChecker().isTransactionCompatible(t, followingTxs))
+        txToRemove += t.id
     }
 
-    var compatibleTxs = txs.filter(t => !txToRemove.contains(t))
+    var compatibleTxs = txs.filter(t => !txToRemove.contains(t.id))
 
     txToRemove.clear()
 
+    val currentUnconfirmed = unconfirmed.transactionsView
     for (t <- compatibleTxs) {
-      if (!t.incompatibilityChecker().isTransactionCompatible(t, unconfirmed.values.toList.map(t => t.getUnconfirmedTx()).asJava))
-        txToRemove += t
+      if (!t.incompatibilityChecker().isTransactionCompatible(t, currentUnconfirmed))
+        txToRemove += t.id
     }
 
-    compatibleTxs = compatibleTxs.filter(t => !txToRemove.contains(t))
+    compatibleTxs = compatibleTxs.filter(t => !txToRemove.contains(t.id))
 
     for (t <- compatibleTxs) {
       val entry = SidechainMemoryPoolEntry(t)
@@ -203,6 +204,21 @@ class SidechainMemoryPool private(unconfirmed: MempoolMap, mempoolSettings: Memp
     this
   }
 
+  /**
+   * Calls f for every tx with the list of the txs following it, backed by a spent boxes index.
+   * Txs are visited from the last one, so that the index is built incrementally.
+   */
+  private def forEachWithFollowingTxs(txs: Iterable[SidechainTypes#SCBT])(f: (SidechainTypes#SCBT, JList[SidechainTypes#SCBT]) => Unit): Unit = {
+    val followingTxsIndex = new SpentBoxesIndex()
+    var followingTxs = List[SidechainTypes#SCBT]()
+    for (t <- txs.toIndexedSeq.reverseIterator) {
+      val currentFollowingTxs = followingTxs
+      f(t, followingTxsIndex.transactionsView(currentFollowingTxs))
+      followingTxsIndex.add(t)
+      followingTxs = t :: followingTxs
+    }
+  }
+
   override def remove(tx: SidechainTypes#SCBT): SidechainMemoryPool = {
     unconfirmed.remove(tx.id)
     this
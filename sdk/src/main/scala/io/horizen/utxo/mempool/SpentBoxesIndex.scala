@@ -0,0 +1,50 @@
+package io.horizen.utxo.mempool
+
+import io.horizen.SidechainTypes
+import io.horizen.utils.ByteArrayWrapper
+import io.horizen.utxo.transaction.SpentBoxesIndexedTransactions
+
+import java.util.{AbstractList, Optional, List => JList}
+import scala.collection.JavaConverters._
+import scala.collection.mutable
+import scala.compat.java8.OptionConverters._
+
+/**
+ * Index of the transactions by the ids of the boxes they spend, used for the mempool conflicts detection.
+ * In case of more transactions spending the same box, only the last added one is kept.
+ */
+class SpentBoxesIndex {
+
+  private val transactionBySpentBox = mutable.HashMap[ByteArrayWrapper, SidechainTypes#SCBT]()
+
+  def add(tx: SidechainTypes#SCBT): Unit = {
+    tx.boxIdsToOpen().asScala.foreach(boxId => transactionBySpentBox.put(boxId, tx))
+  }
+
+  def remove(tx: SidechainTypes#SCBT): Unit = {
+    tx.boxIdsToOpen().asScala.foreach(boxId =>
+      if (transactionBySpentBox.get(boxId).exists(_.id == tx.id))
+        transactionBySpentBox.remove(boxId)
+    )
+  }
+
+  def getTransactionSpendingBox(boxId: ByteArrayWrapper): Option[SidechainTypes#SCBT] = transactionBySpentBox.get(boxId)
+
+  /**
+   * List of the given transactions to be passed to the TransactionIncompatibilityChecker.
+   * The spent boxes lookups are served by this index, while the transactions are collected only if a checker iterates
+   * the list.
+   * @param transactions - the indexed transactions
+   */
+  def transactionsView(transactions: => Iterable[SidechainTypes#SCBT]): JList[SidechainTypes#SCBT] =
+    new AbstractList[SidechainTypes#SCBT] with SpentBoxesIndexedTransactions[SidechainTypes#SCBT] {
+      private lazy val txs = transactions.toIndexedSeq
+
+      override def get(index: Int): SidechainTypes#SCBT = txs(index)
+
+      override def size(): Int = txs.size
+
+      override def getTransactionSpendingBox(boxId: ByteArrayWrapper): Optional[SidechainTypes#SCBT] =
+        SpentBoxesIndex.this.getTransactionSpendingBox(boxId).asJava
+    }
+}
@@ -11,13 +11,12 @@ import io.horizen.utxo.backup.BoxIterator
 import io.horizen.utxo.box.BoxSerializer
 import io.horizen.utxo.companion.SidechainBoxesCompanion
 import io.horizen.utxo.storage.{BackupStorage, BoxBackupInterface, SidechainStateStorage}
-import org.apache.commons.io.FileUtils
 import sparkz.util.SparkzLogging
 
 import java.io._
 import java.lang.{Byte => JByte}
 import java.util.{HashMap => JHashMap}
-import scala.util.{Failure, Success}
+import scala.util.{Failure, Success, Try}
 
 class SidechainBackup @Inject()
   (@Named("CustomBoxSerializers") val customBoxSerializers: JHashMap[JByte, BoxSerializer[SidechainTypes#SCB]],
@@ -30,44 +29,44 @@ class SidechainBackup @Inject()
     protected val backupStorage = new BackupStorage(backUpStorage, sidechainBoxesCompanion)
 
 
+    /**
+     * Writes the boxes of the state storage at the given version to the backup storage, through the application backUpper.
+     * @param stateStoragePath - path of the state storage
+     * @param sidechainBlockIdToRollback - version of the state storage to backup
+     * @param copyStateStorage - if true the state storage is left unmodified: it is read at the given version from a
+     *                           consistent snapshot, without copying it. Otherwise it is rolled back to the given version.
+     */
     def createBackup(stateStoragePath: String, sidechainBlockIdToRollback: String, copyStateStorage: Boolean): Unit = {
-      var storagePath = stateStoragePath
-
-      if (copyStateStorage) {
-        val stateStorage: File = new File(stateStoragePath)
-        val stateStorageBackup: File = new File(stateStoragePath+"_copy_for_backup")
-
-        try {
-          FileUtils.copyDirectory(stateStorage, stateStorageBackup)
-          storagePath = stateStoragePath+"_copy_for_backup"
-        } catch {
-          case t: Throwable =>
-            log.error("Error during the copy of the StateStorage: ",t.getMessage)
-            throw new RuntimeException("Error during the copy of the StateStorage: "+t.getMessage)
+      val storage = new VersionedLevelDbStorageAdapter(new File(stateStoragePath))
+      try {
+        stateIteratorAt(storage, new ByteArrayWrapper(BytesUtils.fromHexString(sidechainBlockIdToRollback)), copyStateStorage) match {
+          case Success(stateIterator) =>
+            log.info(s"SidechainStateStorage at version $sidechainBlockIdToRollback opened successfully!")
+            //Perform the backup in the application level
+            try {
+              backUpper.backup(new BoxIterator(stateIterator, sidechainBoxesCompanion), backupStorage)
+              //Write the boxes added and not written yet by the application
+              backupStorage.flush().get
+              log.info(s"Backup generation completed successfully!")
+            } catch {
+              case t: Throwable =>
+                log.error("Error during the Backup generation: ",t.getMessage)
+                throw new RuntimeException("Error during the Backup generation: "+t.getMessage)
+            } finally {
+              stateIterator.close()
+            }
+          case Failure(e) =>
+            log.info(s"Rollback of the SidechainStateStorage couldn't end successfully...", e.getMessage)
         }
+      } finally {
+        storage.close()
       }
-      val storage = new VersionedLevelDbStorageAdapter(new File(storagePath))
-      val sidechainStateStorage = new SidechainStateStorage(storage, sidechainBoxesCompanion, params)
-      sidechainStateStorage.rollback(new ByteArrayWrapper(BytesUtils.fromHexString(sidechainBlockIdToRollback))) match {
-        case Success(stateStorage) =>
-          log.info(s"Rollback of the SidechainStateStorage completed successfully!")
-
-          //Take an iterator on the sidechainStateStorage
-          val stateIterator: StorageIterator = stateStorage.getIterator
-          stateIterator.seekToFirst()
+    }
 
-          //Perform the backup in the application level
-          try {
-            backUpper.backup(new BoxIterator(stateIterator, sidechainBoxesCompanion), backupStorage)
-            storage.close()
-          } catch {
-            case t: Throwable =>
-              storage.close()
-              log.error("Error during the Backup generation: ",t.getMessage)
-              throw new RuntimeException("Error during the Backup generation: "+t.getMessage)
-          }
-        case Failure(e) =>
-          log.info(s"Rollback of the SidechainStateStorage couldn't end successfully...", e.getMessage)
-      }
+    private def stateIteratorAt(storage: VersionedLevelDbStorageAdapter, version: ByteArrayWrapper, keepStateStorage: Boolean): Try[StorageIterator] = {
+      if (keepStateStorage)
+        Try(storage.getIteratorAt(version))
+      else
+        new SidechainStateStorage(storage, sidechainBoxesCompanion, params).rollback(version).map(_.getIterator)
     }
   }
@@ -1,6 +1,7 @@
 package io.horizen.utxo.state
 
 import com.google.common.primitives.{Bytes, Ints}
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import io.horizen.block.WithdrawalEpochCertificate
 import io.horizen.certificatesubmitter.keys.KeyRotationProofTypes.{KeyRotationProofType, MasterKeyRotationProofType, SigningKeyRotationProofType}
 import io.horizen.certificatesubmitter.keys.{CertifiersKeys, KeyRotationProof}
@@ -13,7 +14,7 @@ import io.horizen.params.{NetworkParams, NetworkParamsUtils}
 import io.horizen.proposition.{Proposition, PublicKey25519Proposition, SchnorrProposition, VrfPublicKey}
 import io.horizen.transaction.MC2SCAggregatedTransaction
 import io.horizen.transaction.exception.TransactionSemanticValidityException
-import io.horizen.utils.{ByteArrayWrapper, BytesUtils, MerkleTree, TimeToEpochUtils, WithdrawalEpochInfo, WithdrawalEpochUtils}
+import io.horizen.utils.{ByteArrayWrapper, BytesUtils, LruCache, MerkleTree, TimeToEpochUtils, WithdrawalEpochInfo, WithdrawalEpochUtils}
 import io.horizen.utxo.backup.BoxIterator
 import io.horizen.utxo.block.{SidechainBlock, SidechainBlockHeader}
 import io.horizen.utxo.box._
@@ -32,9 +33,12 @@ import sparkz.util.{ModifierId, SparkzLogging, bytesToId}
 import java.io.File
 import java.math.{BigDecimal, MathContext}
 import java.util
+import java.util.concurrent.Executors
 import java.util.{ArrayList => JArrayList, HashMap => JHashMap, Optional => JOptional}
 import scala.collection.JavaConverters._
 import scala.collection.mutable.ListBuffer
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, ExecutionContext, ExecutionContextExecutorService, Future}
 import scala.util.{Failure, Success, Try}
 
 
@@ -176,7 +180,8 @@ class SidechainState private[horizen] (stateStorage: SidechainStateStorage,
     val modWithdrawalEpochInfo = WithdrawalEpochUtils.getWithdrawalEpochInfo(mod.mainchainBlockReferencesData.size, currentWithdrawalEpochInfo, params)
 
     validateBlockTransactionsMutuality(mod)
-    mod.transactions.foreach(tx => validate(tx, consensusEpochNumber, modWithdrawalEpochInfo.epoch).get)
+    val verifiedUnlockers = verifyUnlockers(mod.transactions)
+    mod.transactions.foreach(tx => validate(tx, consensusEpochNumber, modWithdrawalEpochInfo.epoch, verifiedUnlockers).get)
 
     if(params.isNonCeasing) {
       // For non-ceasing sidechains certificate must be validated just when it has been received.
@@ -423,7 +428,36 @@ class SidechainState private[horizen] (stateStorage: SidechainStateStorage,
   // 2) check if for each B, that is instance of CoinBox interface, that total sum is equal to new CoinBox'es sum minus tx.fee
   // 3) if it's a Sidechain custom Transaction (not known) -> emit applicationState.validate(tx)
   // TO DO: put validateAgainstModifier logic inside validate(mod)
-  private def validate(tx: SidechainTypes#SCBT, consensusEpochNumber: ConsensusEpochNumber, withdrawalEpoch: Int): Try[Unit] = Try {
+  // Loads with a single multi-get the boxes closed by the transactions and verifies their unlocking proofs on the
+  // proofs verification pool: the proofs are independent of each other once the boxes are loaded.
+  // Returns the closed box and the proof verification result of each unlocker, by transaction id and unlocker index.
+  // Note: boxes not found in the state storage are not included, they are looked up again during the transaction validation.
+  private def verifyUnlockers(transactions: Seq[SidechainTypes#SCBT]): Map[(String, Int), (SidechainTypes#SCB, Try[Boolean])] = {
+    val txs = transactions.filterNot(_.isInstanceOf[MC2SCAggregatedTransaction])
+    val closedBoxes: Map[ByteArrayWrapper, SidechainTypes#SCB] = stateStorage
+      .getBoxes(txs.flatMap(_.unlockers().asScala.map(_.closedBoxId())))
+      .map(box => new ByteArrayWrapper(box.id()) -> box)
+      .toMap
+
+    val unlockers = txs.flatMap { tx =>
+      lazy val messageToSign = tx.messageToSign()
+      tx.unlockers().asScala.zipWithIndex.flatMap { case (u, index) =>
+        closedBoxes.get(new ByteArrayWrapper(u.closedBoxId()))
+          .map(box => ((tx.id(), index), box, () => u.boxKey().isValid(box.proposition(), messageToSign)))
+      }
+    }
+
+    val proofsVerification = SidechainState.verifyProofs(unlockers.map(_._3))
+    unlockers.zip(proofsVerification).map { case ((key, box, _), isValid) => key -> (box, isValid) }.toMap
+  }
+
+  private def validate(tx: SidechainTypes#SCBT, consensusEpochNumber: ConsensusEpochNumber, withdrawalEpoch: Int): Try[Unit] =
+    validate(tx, consensusEpochNumber, withdrawalEpoch, Map())
+
+  private def validate(tx: SidechainTypes#SCBT,
+                       consensusEpochNumber: ConsensusEpochNumber,
+                       withdrawalEpoch: Int,
+                       verifiedUnlockers: Map[(String, Int), (SidechainTypes#SCB, Try[Boolean])]): Try[Unit] = Try {
     semanticValidity(tx).get
 
     var closedCoinsBoxesAmount : Long = 0L
@@ -462,17 +496,18 @@ class SidechainState private[horizen] (stateStorage: SidechainStateStorage,
         }
       }
 
-      for (u <- tx.unlockers().asScala) {
-        closedBox(u.closedBoxId()) match {
-          case Some(box) => {
-            val boxKey = u.boxKey()
-            if (!boxKey.isValid(box.proposition(), tx.messageToSign()))
-              throw new Exception("Box unlocking proof is invalid.")
-            if (box.isInstanceOf[CoinsBox[_ <: PublicKey25519Proposition]])
-              closedCoinsBoxesAmount += box.value()
+      for ((u, index) <- tx.unlockers().asScala.zipWithIndex) {
+        val (box, isProofValid) = verifiedUnlockers.get((tx.id(), index)) match {
+          case Some((verifiedBox, proofVerification)) => (verifiedBox, proofVerification.get)
+          case None => closedBox(u.closedBoxId()) match {
+            case Some(box) => (box, u.boxKey().isValid(box.proposition(), tx.messageToSign()))
+            case None => throw new Exception(s"Box ${u.closedBoxId()} is not found in state")
           }
-          case None => throw new Exception(s"Box ${u.closedBoxId()} is not found in state")
         }
+        if (!isProofValid)
+          throw new Exception("Box unlocking proof is invalid.")
+        if (box.isInstanceOf[CoinsBox[_ <: PublicKey25519Proposition]])
+          closedCoinsBoxesAmount += box.value()
       }
 
       validateWithWithdrawalEpoch(tx, withdrawalEpoch).get
@@ -850,29 +885,69 @@ class SidechainState private[horizen] (stateStorage: SidechainStateStorage,
 
 object SidechainState
 {
-  def changes(mod: SidechainBlock) : Try[BoxStateChanges[SidechainTypes#SCP, SidechainTypes#SCB]] = Try {
-    val initial = (Seq(): Seq[Array[Byte]], Seq(): Seq[SidechainTypes#SCB], 0L)
+  // Number of unlocking proofs verified by a single task of the proofs verification pool.
+  private[horizen] val ProofsVerificationChunkSize: Int = 32
 
-    val (toRemove: Seq[Array[Byte]], toAdd: Seq[SidechainTypes#SCB], reward) =
-      mod.transactions.foldLeft(initial){ case ((sr, sa, f), tx) =>
-        (sr ++ tx.unlockers().asScala.map(_.closedBoxId()), sa ++ tx.newBoxes().asScala, f + tx.fee())
-      }
+  // Bounded pool used for the unlocking proofs verification of the blocks.
+  private lazy val proofsVerificationContext: ExecutionContextExecutorService = ExecutionContext.fromExecutorService(
+    Executors.newFixedThreadPool(Runtime.getRuntime.availableProcessors(),
+      new ThreadFactoryBuilder().setNameFormat("sc-proofs-verification-%d").setDaemon(true).build()))
 
-    // calculate list of ID of unlockers' boxes -> toRemove
-    // calculate list of new boxes -> toAppend
-    // calculate the rewards for Miner/Forger -> create another regular tx OR Forger need to add his Reward during block creation
-    @SuppressWarnings(Array("org.wartremover.warts.Product","org.wartremover.warts.Serializable"))
-    val ops: Seq[BoxStateChangeOperation[SidechainTypes#SCP, SidechainTypes#SCB]] =
-    toRemove.map(id => Removal[SidechainTypes#SCP, SidechainTypes#SCB](sparkz.crypto.authds.ADKey(id))) ++
-      toAdd.map(b => Insertion[SidechainTypes#SCP, SidechainTypes#SCB](b))
+  // Runs the given proofs verifications, in chunks on the proofs verification pool if they don't fit a single chunk.
+  // The results are in the same order of the verifications.
+  private[horizen] def verifyProofs(verifications: Seq[() => Boolean]): Seq[Try[Boolean]] = {
+    def verifyChunk(chunk: Seq[() => Boolean]): Seq[Try[Boolean]] = chunk.map(verify => Try(verify()))
+
+    if (verifications.size <= ProofsVerificationChunkSize) {
+      verifyChunk(verifications)
+    } else {
+      implicit val ec: ExecutionContext = proofsVerificationContext
+      val chunks = verifications.grouped(ProofsVerificationChunkSize).map(chunk => Future(verifyChunk(chunk))).toList
+      Await.result(Future.sequence(chunks), Duration.Inf).flatten
+    }
+  }
+
+  // Number of blocks which changes are remembered.
+  private[horizen] val BlockChangesCacheSize: Int = 8
+
+  // Changes of the last blocks, by block id, with the transactions they have been computed from.
+  // Validation, applyModifier and the wallet scan of the same block share them.
+  private val blockChangesCache =
+    new LruCache[ModifierId, (Seq[SidechainTypes#SCBT], BoxStateChanges[SidechainTypes#SCP, SidechainTypes#SCB])](BlockChangesCacheSize)
 
-    BoxStateChanges[SidechainTypes#SCP, SidechainTypes#SCB](ops)
+  def changes(mod: SidechainBlock) : Try[BoxStateChanges[SidechainTypes#SCP, SidechainTypes#SCB]] = Try {
+    val transactions = mod.transactions
+    blockChangesCache.synchronized(Option(blockChangesCache.get(mod.id))) match {
+      // the changes are bound to the transactions instance they were computed from
+      case Some((cachedTransactions, cachedChanges)) if cachedTransactions eq transactions =>
+        cachedChanges
+      case _ =>
+        val blockChanges = boxStateChanges(transactions)
+        blockChangesCache.synchronized(blockChangesCache.put(mod.id, (transactions, blockChanges)))
+        blockChanges
+    }
 
     // Q: Do we need to call some static method of ApplicationState?
     // A: Probably yes. To remove some out of date boxes, like VoretBallotRight box for previous voting epoch.
     // Note: we need to implement a lot of limitation for changes from ApplicationState (only deletion, only non coin related boxes, etc.)
   }
 
+  // calculate list of ID of unlockers' boxes -> Removal operations
+  // calculate list of new boxes -> Insertion operations
+  // Note: built in a single pass over the transactions, all the removals come before the insertions
+  private[horizen] def boxStateChanges(transactions: Seq[SidechainTypes#SCBT]): BoxStateChanges[SidechainTypes#SCP, SidechainTypes#SCB] = {
+    @SuppressWarnings(Array("org.wartremover.warts.Product","org.wartremover.warts.Serializable"))
+    val removals = Vector.newBuilder[BoxStateChangeOperation[SidechainTypes#SCP, SidechainTypes#SCB]]
+    val insertions = Vector.newBuilder[BoxStateChangeOperation[SidechainTypes#SCP, SidechainTypes#SCB]]
+
+    transactions.foreach { tx =>
+      tx.unlockers().asScala.foreach(unlocker => removals += Removal[SidechainTypes#SCP, SidechainTypes#SCB](sparkz.crypto.authds.ADKey(unlocker.closedBoxId())))
+      tx.newBoxes().asScala.foreach(box => insertions += Insertion[SidechainTypes#SCP, SidechainTypes#SCB](box))
+    }
+
+    BoxStateChanges[SidechainTypes#SCP, SidechainTypes#SCB](removals.result() ++ insertions.result())
+  }
+
   private[horizen] def restoreState(stateStorage: SidechainStateStorage,
                                     forgerBoxStorage: SidechainStateForgerBoxStorage,
                                     utxoMerkleTreeProvider: SidechainStateUtxoMerkleTreeProvider,
@@ -2,14 +2,14 @@ package io.horizen.utxo.state
 
 import io.horizen.SidechainTypes
 import io.horizen.proposition.PublicKey25519Proposition
-import io.horizen.storage.SidechainStorageInfo
+import io.horizen.storage.{BulkUpdatableStorage, SidechainStorageInfo}
 import io.horizen.utils.ByteArrayWrapper
 import io.horizen.utxo.box.CoinsBox
 import io.horizen.utxo.storage.SidechainStateUtxoMerkleTreeStorage
 
 import scala.util.Try
 
-trait SidechainStateUtxoMerkleTreeProvider extends SidechainStorageInfo {
+trait SidechainStateUtxoMerkleTreeProvider extends SidechainStorageInfo with BulkUpdatableStorage {
   def rollback(version: ByteArrayWrapper): Try[SidechainStateUtxoMerkleTreeProvider]
 
   def getMerklePath(boxId: Array[Byte]): Option[Array[Byte]]
@@ -30,6 +30,10 @@ case class SidechainUtxoMerkleTreeProviderCSWEnabled(private val utxoMerkleTreeS
     SidechainUtxoMerkleTreeProviderCSWEnabled(utxoMerkleTreeStorage.rollback(version).get)
   }
 
+  override def startBulkUpdate(): Unit = utxoMerkleTreeStorage.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = utxoMerkleTreeStorage.commitBulkUpdate()
+
   override def lastVersionId: Option[ByteArrayWrapper] = {
     utxoMerkleTreeStorage.lastVersionId
   }
@@ -57,6 +61,10 @@ case class SidechainUtxoMerkleTreeProviderCSWDisabled() extends SidechainStateUt
     this
   }
 
+  override def startBulkUpdate(): Unit = {}
+
+  override def commitBulkUpdate(): Unit = {}
+
   override def lastVersionId: Option[ByteArrayWrapper] = None
 
   override def getMerklePath(boxId: Array[Byte]): Option[Array[Byte]] = None
@@ -1,14 +1,16 @@
 package io.horizen.utxo.storage
 
 import io.horizen.storage.Storage
-import io.horizen.utils.{ByteArrayWrapper, Pair => JPair}
-import io.horizen.utxo.backup.BoxIterator
+import io.horizen.storage.leveldb
+import io.horizen.utils.{ByteArrayWrapper, Utils, Pair => JPair}
+import io.horizen.utxo.backup.{BackupBox, BoxIterator}
 import io.horizen.utxo.companion.SidechainBoxesCompanion
+import sparkz.util.SparkzLogging
 
 import java.util.{ArrayList => JArrayList}
 import scala.util.Try
 
-class BackupStorage (storage : Storage, val sidechainBoxesCompanion: SidechainBoxesCompanion) {
+class BackupStorage (storage : Storage, val sidechainBoxesCompanion: SidechainBoxesCompanion) extends SparkzLogging {
   // Version - random number
   // Key - byte array box Id
   // No remove operation
@@ -30,6 +32,39 @@ class BackupStorage (storage : Storage, val sidechainBoxesCompanion: SidechainBo
     this
   }
 
+  // boxes added and not written yet
+  private val pendingBoxes = new JArrayList[JPair[ByteArrayWrapper, ByteArrayWrapper]]()
+  private var writtenBoxes: Long = 0
+
+  /**
+   * Adds a box to the backup. The added boxes are written in batches of leveldb.Constants.BatchSize, each one with a
+   * new version, so that the backup of a big state is never held in memory.
+   * flush must be called after the last box is added.
+   */
+  def add(boxKey: ByteArrayWrapper, boxValue: ByteArrayWrapper): Try[BackupStorage] = Try {
+    pendingBoxes.add(new JPair(boxKey, boxValue))
+    if (pendingBoxes.size() >= leveldb.Constants.BatchSize)
+      writePendingBoxes()
+    this
+  }
+
+  def add(backupBox: BackupBox): Try[BackupStorage] =
+    add(new ByteArrayWrapper(backupBox.getBoxKey), new ByteArrayWrapper(backupBox.getBoxValue))
+
+  // writes the boxes added since the last batch
+  def flush(): Try[BackupStorage] = Try {
+    if (!pendingBoxes.isEmpty)
+      writePendingBoxes()
+    this
+  }
+
+  private def writePendingBoxes(): Unit = {
+    update(new ByteArrayWrapper(Utils.nextVersion), pendingBoxes).get
+    writtenBoxes += pendingBoxes.size()
+    pendingBoxes.clear()
+    log.info(s"Backup in progress: $writtenBoxes boxes written")
+  }
+
   def getBoxIterator: BoxIterator = new BoxIterator(storage.getIterator, sidechainBoxesCompanion)
 
   def isEmpty: Boolean = storage.isEmpty
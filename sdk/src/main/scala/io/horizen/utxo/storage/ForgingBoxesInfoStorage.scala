@@ -2,7 +2,7 @@ package io.horizen.utxo.storage
 
 import io.horizen.SidechainTypes
 import io.horizen.consensus.ConsensusEpochNumber
-import io.horizen.storage.{SidechainStorageInfo, Storage}
+import io.horizen.storage.{BulkUpdatableStorage, SidechainStorageInfo, Storage}
 import io.horizen.utils.{ByteArrayWrapper, ForgerBoxMerklePathInfoSerializer, ForgingStakeMerklePathInfo, ListSerializer, Pair}
 import io.horizen.utxo.box.{ForgerBox, ForgerBoxSerializer}
 import sparkz.crypto.hash.Blake2b256
@@ -15,7 +15,7 @@ import scala.compat.java8.OptionConverters._
 import scala.util.{Failure, Random, Success, Try}
 
 
-class ForgingBoxesInfoStorage(storage: Storage) extends SidechainTypes with SidechainStorageInfo with SparkzLogging
+class ForgingBoxesInfoStorage(storage: Storage) extends SidechainTypes with SidechainStorageInfo with BulkUpdatableStorage with SparkzLogging
 {
   require(storage != null, "Storage must be NOT NULL.")
 
@@ -98,6 +98,10 @@ class ForgingBoxesInfoStorage(storage: Storage) extends SidechainTypes with Side
     }
   }
 
+  override def startBulkUpdate(): Unit = storage.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = storage.commitBulkUpdate()
+
   override def lastVersionId: Option[ByteArrayWrapper] = {
     storage.lastVersionID().asScala
   }
@@ -1,7 +1,7 @@
 package io.horizen.utxo.storage
 
 import io.horizen.SidechainTypes
-import io.horizen.storage.{SidechainStorageInfo, Storage}
+import io.horizen.storage.{BulkUpdatableStorage, SidechainStorageInfo, Storage}
 import io.horizen.utils.{ByteArrayWrapper, Utils, Pair => JPair}
 import io.horizen.utxo.box.{ForgerBox, ForgerBoxSerializer}
 import sparkz.util.SparkzLogging
@@ -14,6 +14,7 @@ import scala.util.{Failure, Success, Try}
 class SidechainStateForgerBoxStorage(storage: Storage)
     extends SparkzLogging
       with SidechainStorageInfo
+      with BulkUpdatableStorage
       with SidechainTypes
 {
   // Version - block Id
@@ -65,6 +66,10 @@ class SidechainStateForgerBoxStorage(storage: Storage)
     this
   }
 
+  override def startBulkUpdate(): Unit = storage.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = storage.commitBulkUpdate()
+
   override def lastVersionId: Option[ByteArrayWrapper] = {
     storage.lastVersionID().asScala
   }
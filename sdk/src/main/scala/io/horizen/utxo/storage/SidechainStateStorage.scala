@@ -7,7 +7,7 @@ import io.horizen.certificatesubmitter.keys._
 import io.horizen.consensus._
 import io.horizen.cryptolibprovider.CircuitTypes
 import io.horizen.params.NetworkParams
-import io.horizen.storage.{SidechainStorageInfo, Storage, StorageIterator, leveldb}
+import io.horizen.storage.{BulkUpdatableStorage, SidechainStorageInfo, Storage, StorageIterator, leveldb}
 import io.horizen.utils.{ByteArrayWrapper, ListSerializer, WithdrawalEpochInfo, WithdrawalEpochInfoSerializer, Pair => JPair, _}
 import io.horizen.utxo.backup.BoxIterator
 import io.horizen.utxo.box.{WithdrawalRequestBox, WithdrawalRequestBoxSerializer}
@@ -26,6 +26,7 @@ import scala.util._
 class SidechainStateStorage(storage: Storage, sidechainBoxesCompanion: SidechainBoxesCompanion, params: NetworkParams)
   extends SparkzLogging
     with SidechainStorageInfo
+    with BulkUpdatableStorage
     with SidechainTypes
 {
   // Version - block Id
@@ -96,6 +97,23 @@ class SidechainStateStorage(storage: Storage, sidechainBoxesCompanion: Sidechain
     }
   }
 
+  // Reads the given boxes with a single storage multi-get. Boxes not found are not included in the result.
+  def getBoxes(boxIds: Seq[Array[Byte]]): Seq[SidechainTypes#SCB] = {
+    if (boxIds.isEmpty)
+      Seq()
+    else
+      storage.get(boxIds.map(boxId => Utils.calculateKey(boxId)).asJava).asScala.flatMap(pair =>
+        pair.getValue.asScala.flatMap(value =>
+          sidechainBoxesCompanion.parseBytesTry(value.data) match {
+            case Success(box) => Some(box)
+            case Failure(exception) =>
+              log.error("Error while WalletBox parsing.", exception)
+              None
+          }
+        )
+      )
+  }
+
   def getWithdrawalEpochInfo: Option[WithdrawalEpochInfo] = {
     storage.get(withdrawalEpochInformationKey).asScala match {
       case Some(baw) =>
@@ -449,6 +467,10 @@ class SidechainStateStorage(storage: Storage, sidechainBoxesCompanion: Sidechain
     this
   }
 
+  override def startBulkUpdate(): Unit = storage.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = storage.commitBulkUpdate()
+
   override def lastVersionId: Option[ByteArrayWrapper] = {
     storage.lastVersionID().asScala
   }
@@ -483,24 +505,31 @@ class SidechainStateStorage(storage: Storage, sidechainBoxesCompanion: Sidechain
     val updateList = new JArrayList[JPair[ByteArrayWrapper, ByteArrayWrapper]]()
     val lastVersionWrapper = new ByteArrayWrapper(lastVersion)
 
+    var restoredBoxes: Long = 0
+
     var optionalBox = backupStorageBoxIterator.nextBox
     while (optionalBox.isPresent) {
-      val box = optionalBox.get.getBox
-      updateList.add(new JPair[ByteArrayWrapper, ByteArrayWrapper](Utils.calculateKey(box.id()),
-        new ByteArrayWrapper(sidechainBoxesCompanion.toBytes(box))))
-      log.info("Restore Box id " + box.boxTypeId())
+      // the backup entries are already verified to be a box stored at its key
+      val backupBox = optionalBox.get
+      updateList.add(new JPair[ByteArrayWrapper, ByteArrayWrapper](new ByteArrayWrapper(backupBox.getBoxKey),
+        new ByteArrayWrapper(backupBox.getBoxValue)))
+      log.debug("Restore Box id " + backupBox.getBoxTypeId)
       optionalBox = backupStorageBoxIterator.nextBox
       if (updateList.size() == leveldb.Constants.BatchSize) {
         if (optionalBox.isPresent)
           storage.update(new ByteArrayWrapper(Utils.nextVersion), updateList, removeList)
         else
           storage.update(lastVersionWrapper, updateList, removeList)
+        restoredBoxes += updateList.size()
         updateList.clear()
+        log.info(s"SidechainStateStorage restore in progress: $restoredBoxes boxes restored")
       }
     }
 
-    if (updateList.size() != 0)
+    if (updateList.size() != 0) {
       storage.update(lastVersionWrapper, updateList, removeList)
-    log.info("SidechainStateStorage restore completed successfully!")
+      restoredBoxes += updateList.size()
+    }
+    log.info(s"SidechainStateStorage restore completed successfully! $restoredBoxes boxes restored")
   }
 }
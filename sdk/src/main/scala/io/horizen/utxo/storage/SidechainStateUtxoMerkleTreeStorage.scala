@@ -4,7 +4,7 @@ import io.horizen.SidechainTypes
 import io.horizen.cryptolibprovider.CryptoLibProvider
 import io.horizen.cryptolibprovider.utils.InMemorySparseMerkleTreeWrapper
 import com.horizen.librustsidechains.FieldElement
-import io.horizen.storage.{SidechainStorageInfo, Storage}
+import io.horizen.storage.{BulkUpdatableStorage, SidechainStorageInfo, Storage}
 import io.horizen.utils.{ByteArrayWrapper, Utils, Pair => JPair}
 import io.horizen.utxo.utils.{UtxoMerkleTreeLeafInfo, UtxoMerkleTreeLeafInfoSerializer}
 import sparkz.util.SparkzLogging
@@ -15,7 +15,7 @@ import scala.compat.java8.OptionConverters._
 import scala.util.{Failure, Success, Try}
 
 class SidechainStateUtxoMerkleTreeStorage(storage: Storage)
-  extends SparkzLogging with SidechainStorageInfo with SidechainTypes {
+  extends SparkzLogging with SidechainStorageInfo with BulkUpdatableStorage with SidechainTypes {
 
   var merkleTreeWrapper: InMemorySparseMerkleTreeWrapper = loadMerkleTree()
 
@@ -119,6 +119,10 @@ class SidechainStateUtxoMerkleTreeStorage(storage: Storage)
       Failure(exception)
   }
 
+  override def startBulkUpdate(): Unit = storage.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = storage.commitBulkUpdate()
+
   override def lastVersionId: Option[ByteArrayWrapper] = {
     storage.lastVersionID().asScala
   }
@@ -2,7 +2,7 @@ package io.horizen.utxo.storage
 
 import io.horizen.SidechainTypes
 import io.horizen.proposition.Proposition
-import io.horizen.storage.{SidechainStorageInfo, Storage, StorageIterator}
+import io.horizen.storage.{BulkUpdatableStorage, SidechainStorageInfo, Storage, StorageIterator}
 import io.horizen.utils.{ByteArrayWrapper, Utils, Pair => JPair}
 import io.horizen.utxo.box.Box
 import io.horizen.utxo.companion.SidechainBoxesCompanion
@@ -18,6 +18,7 @@ import scala.util.Try
 class SidechainWalletBoxStorage (storage : Storage, sidechainBoxesCompanion: SidechainBoxesCompanion)
   extends SidechainTypes
     with SidechainStorageInfo
+    with BulkUpdatableStorage
     with SparkzLogging
 {
   // Version - block Id
@@ -142,6 +143,10 @@ class SidechainWalletBoxStorage (storage : Storage, sidechainBoxesCompanion: Sid
     this
   }
 
+  override def startBulkUpdate(): Unit = storage.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = storage.commitBulkUpdate()
+
   override def lastVersionId : Option[ByteArrayWrapper] = {
     storage.lastVersionID().asScala
   }
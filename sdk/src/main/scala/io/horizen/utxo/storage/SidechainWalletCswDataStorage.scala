@@ -2,7 +2,7 @@ package io.horizen.utxo.storage
 
 import com.google.common.primitives.{Bytes, Ints}
 import io.horizen.SidechainTypes
-import io.horizen.storage.{SidechainStorageInfo, Storage}
+import io.horizen.storage.{BulkUpdatableStorage, SidechainStorageInfo, Storage}
 import io.horizen.utils.{ByteArrayWrapper, ListSerializer, Utils, Pair => JPair}
 import io.horizen.utxo.utils.{CswData, CswDataSerializer}
 import sparkz.util.SparkzLogging
@@ -14,7 +14,7 @@ import scala.collection.mutable.ListBuffer
 import scala.compat.java8.OptionConverters._
 import scala.util.{Failure, Success, Try}
 
-class SidechainWalletCswDataStorage(storage: Storage) extends SparkzLogging with SidechainStorageInfo with SidechainTypes {
+class SidechainWalletCswDataStorage(storage: Storage) extends SparkzLogging with SidechainStorageInfo with BulkUpdatableStorage with SidechainTypes {
   require(storage != null, "Storage must be NOT NULL.")
 
   private val cswDataListSerializer = new ListSerializer[CswData](CswDataSerializer)
@@ -113,6 +113,10 @@ class SidechainWalletCswDataStorage(storage: Storage) extends SparkzLogging with
     this
   }
 
+  override def startBulkUpdate(): Unit = storage.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = storage.commitBulkUpdate()
+
   override def lastVersionId: Option[ByteArrayWrapper] = {
     storage.lastVersionID().asScala
   }
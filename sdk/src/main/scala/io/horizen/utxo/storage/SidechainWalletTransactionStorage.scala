@@ -1,7 +1,7 @@
 package io.horizen.utxo.storage
 
 import io.horizen.SidechainTypes
-import io.horizen.storage.{SidechainStorageInfo, Storage}
+import io.horizen.storage.{BulkUpdatableStorage, SidechainStorageInfo, Storage}
 import io.horizen.utils.{ByteArrayWrapper, Utils, Pair => JPair}
 import io.horizen.utxo.companion.SidechainTransactionsCompanion
 import sparkz.util.{ModifierId, SparkzLogging, idToBytes}
@@ -14,6 +14,7 @@ import scala.util.{Failure, Success, Try}
 class SidechainWalletTransactionStorage (storage : Storage, sidechainTransactionsCompanion: SidechainTransactionsCompanion)
 extends SidechainTypes
   with SidechainStorageInfo
+  with BulkUpdatableStorage
   with SparkzLogging
 {
   // Version - block Id
@@ -57,6 +58,10 @@ extends SidechainTypes
     this
   }
 
+  override def startBulkUpdate(): Unit = storage.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = storage.commitBulkUpdate()
+
   override def lastVersionId : Option[ByteArrayWrapper] = {
     storage.lastVersionID().asScala
   }
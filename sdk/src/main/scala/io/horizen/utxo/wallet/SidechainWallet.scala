@@ -81,8 +81,8 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
     //require(modifier != null, "SidechainBlock must be NOT NULL.")
     val version = BytesUtils.fromHexString(modifier.id)
     val changes = SidechainState.changes(modifier).get
-    val pubKeys = publicKeys()
-    val privKeys = secretStorage.getAll.asJava
+    // needed only by the propositions that are not single secret ones
+    lazy val privKeys: JList[Secret] = secretStorage.getAll.asJava
 
     val txBoxes: Map[ByteArrayWrapper, SidechainTypes#SCBT] = modifier.transactions
       .foldLeft(Map.empty[ByteArrayWrapper, SidechainTypes#SCBT]) {
@@ -94,11 +94,12 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
     val newBoxes: Seq[SidechainTypes#SCB] = changes.toAppend.map(_.box) ++ feePaymentBoxes.map(_.asInstanceOf[SidechainTypes#SCB])
 
     val newWalletBoxes = newBoxes
-      .withFilter(box => {
-          ((box.proposition().isInstanceOf[ProofOfKnowledgeProposition[_ <: Secret]]) &&
-            (box.proposition().asInstanceOf[ProofOfKnowledgeProposition[_ <: Secret]].canBeProvedBy(privKeys).canBeProved))
-        }
-      )
+      .withFilter(box => box.proposition() match {
+        // single secret propositions are looked up by key instead of being checked against all the secrets
+        case proposition: SingleSecretProofOfKnowledgeProposition[_ <: Secret] => secretStorage.containsSecretFor(proposition)
+        case proposition: ProofOfKnowledgeProposition[_ <: Secret] => proposition.canBeProvedBy(privKeys).canBeProved
+        case _ => false
+      })
       .map(box => {
         if (txBoxes.contains(box.id())) {
           val boxTransaction = txBoxes(box.id())
@@ -109,7 +110,7 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
       })
 
     val newDelegatedForgerBoxes: Seq[ForgerBox] = newBoxes.withFilter(_.isInstanceOf[ForgerBox]).map(_.asInstanceOf[ForgerBox])
-      .filter(forgerBox => pubKeys.contains(forgerBox.blockSignProposition()))
+      .filter(forgerBox => secretStorage.containsSecretFor(forgerBox.blockSignProposition()))
 
     val boxIdsToRemove = changes.toRemove.map(_.boxId.array)
 
@@ -144,21 +145,23 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
    * @param sidechainBoxesCompanion
    */
   def scanBackUp(backupStorageBoxIterator: BoxIterator, genesisBlockTimestamp: Timestamp): Try[SidechainWallet] = Try{
-    val pubKeys = publicKeys()
     val walletBoxes = new JArrayList[WalletBox]()
     val removeList = new JArrayList[Array[Byte]]()
     var nBoxes = 0
+    var restoredBoxes: Long = 0
 
     var optionalBox = backupStorageBoxIterator.nextBox
     while(optionalBox.isPresent) {
       val box: SCB = optionalBox.get.getBox
-      if (pubKeys.contains(box.proposition())) {
+      if (secretStorage.containsSecretFor(box.proposition())) {
         walletBoxes.add(new WalletBox(box, genesisBlockTimestamp))
         nBoxes += 1
         if (nBoxes == leveldb.Constants.BatchSize) {
           walletBoxStorage.update(new ByteArrayWrapper(Utils.nextVersion), walletBoxes.asScala.toList, removeList.asScala.toList).get
           walletBoxes.clear()
+          restoredBoxes += nBoxes
           nBoxes = 0
+          log.info(s"Wallet backup scan in progress: $restoredBoxes boxes restored")
         }
       }
       optionalBox = backupStorageBoxIterator.nextBox
@@ -223,18 +226,15 @@ class SidechainWallet private[horizen] (seed: Array[Byte],
   }
 
   override def applyConsensusEpochInfo(epochInfo: ConsensusEpochInfo): SidechainWallet = {
-    val merkleTreeLeaves = epochInfo.forgingStakeInfoTree.leaves().asScala.map(leaf => new ByteArrayWrapper(leaf))
+    val forgingStakeInfoSeq = ForgingStakeInfo.fromForgerBoxes(forgingBoxesInfoStorage.getForgerBoxes.getOrElse(Seq()))
+    val merklePaths = epochInfo.forgingStakeInfoTree.getMerklePathsForLeaves(forgingStakeInfoSeq.map(_.hash).asJava)
 
     // Calculate merkle path for all delegated forgerBoxes
     val forgingStakeMerklePathInfoSeq: Seq[ForgingStakeMerklePathInfo] =
-      ForgingStakeInfo.fromForgerBoxes(forgingBoxesInfoStorage.getForgerBoxes.getOrElse(Seq())).flatMap(forgingStakeInfo => {
-        merkleTreeLeaves.indexOf(new ByteArrayWrapper(forgingStakeInfo.hash)) match {
-          case -1 => None // May occur in case if Wallet doesn't contain information about all boxes for given blockSignKey and vrfKey
-          case index => Some(ForgingStakeMerklePathInfo(
-            forgingStakeInfo,
-            epochInfo.forgingStakeInfoTree.getMerklePathForLeaf(index)
-          ))
-        }
+      forgingStakeInfoSeq.flatMap(forgingStakeInfo => {
+        // None may occur in case if Wallet doesn't contain information about all boxes for given blockSignKey and vrfKey
+        Option(merklePaths.get(new ByteArrayWrapper(forgingStakeInfo.hash)))
+          .map(merklePath => ForgingStakeMerklePathInfo(forgingStakeInfo, merklePath))
       })
 
     forgingBoxesInfoStorage.updateForgingStakeMerklePathInfo(epochInfo.epoch, forgingStakeMerklePathInfoSeq).get
@@ -4,7 +4,7 @@ import io.horizen.SidechainTypes
 import io.horizen.block.MainchainBlockReferenceData
 import io.horizen.params.NetworkParams
 import io.horizen.proposition.PublicKey25519Proposition
-import io.horizen.storage.SidechainStorageInfo
+import io.horizen.storage.{BulkUpdatableStorage, SidechainStorageInfo}
 import io.horizen.transaction.mainchain.{ForwardTransfer, SidechainCreation}
 import io.horizen.utils.ByteArrayWrapper
 import io.horizen.utxo.block.SidechainBlock
@@ -17,7 +17,7 @@ import scala.collection.JavaConverters._
 import scala.collection.mutable.ListBuffer
 import scala.util.Try
 
-trait SidechainWalletCswDataProvider extends SidechainStorageInfo {
+trait SidechainWalletCswDataProvider extends SidechainStorageInfo with BulkUpdatableStorage {
 
   def rollback(version: ByteArrayWrapper): Try[SidechainWalletCswDataProvider]
 
@@ -35,6 +35,10 @@ trait SidechainWalletCswDataProvider extends SidechainStorageInfo {
 
 case class SidechainWalletCswDataProviderCSWEnabled(private val sidechainWalletCswDataStorage: SidechainWalletCswDataStorage) extends  SidechainWalletCswDataProvider {
 
+  override def startBulkUpdate(): Unit = sidechainWalletCswDataStorage.startBulkUpdate()
+
+  override def commitBulkUpdate(): Unit = sidechainWalletCswDataStorage.commitBulkUpdate()
+
   override def lastVersionId: Option[ByteArrayWrapper] = {
     sidechainWalletCswDataStorage.lastVersionId
   }
@@ -113,6 +117,10 @@ case class SidechainWalletCswDataProviderCSWEnabled(private val sidechainWalletC
 
 case class SidechainWalletCswDataProviderCSWDisabled() extends  SidechainWalletCswDataProvider {
 
+  override def startBulkUpdate(): Unit = {}
+
+  override def commitBulkUpdate(): Unit = {}
+
   override def lastVersionId: Option[ByteArrayWrapper] = None
 
   override def rollback(version: ByteArrayWrapper): Try[SidechainWalletCswDataProvider] = Try {
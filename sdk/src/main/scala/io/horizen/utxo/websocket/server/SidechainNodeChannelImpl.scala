@@ -3,7 +3,7 @@ package io.horizen.utxo.websocket.server
 import akka.pattern.ask
 import akka.util.Timeout
 import com.fasterxml.jackson.databind.ObjectMapper
-import com.fasterxml.jackson.databind.node.ObjectNode
+import com.fasterxml.jackson.databind.node.{ArrayNode, ObjectNode}
 import com.fasterxml.jackson.module.scala.DefaultScalaModule
 import io.horizen.SidechainSyncInfo
 import io.horizen.json.SerializationUtil
@@ -18,7 +18,6 @@ import sparkz.core.NodeViewHolder.CurrentView
 import sparkz.core.NodeViewHolder.ReceivableMessages.GetDataFromCurrentView
 import sparkz.util.{ModifierId, SparkzLogging}
 
-import java.util
 import scala.concurrent.duration._
 import scala.concurrent.{Await, ExecutionContext, Future}
 import scala.language.postfixOps
@@ -120,21 +119,12 @@ class SidechainNodeChannelImpl() extends SidechainNodeChannel with SparkzLogging
     responsePayload
   }
 
-  override def getRawMempool(): Try[ObjectNode] = Try {
-    val responsePayload = mapper.createObjectNode()
+  override def getRawMempool(): Try[ObjectNode] = getMempoolTxIds().map(SidechainNodeChannelImpl.rawMempoolPayload)
 
-    val txids = applyOnNodeView { sidechainNodeView =>
-      val txs: util.ArrayList[String] = new util.ArrayList[String]()
-      sidechainNodeView.pool.take(sidechainNodeView.pool.size).foreach(tx => txs.add(tx.id()))
-      txs
+  def getMempoolTxIds(): Try[Seq[String]] = Try {
+    applyOnNodeView { sidechainNodeView =>
+      SidechainNodeChannelImpl.mempoolTxIds(sidechainNodeView.pool)
     }
-
-    val json = mapper.readTree(SerializationUtil.serialize(txids.toArray()))
-
-    responsePayload.set("transactions", json)
-    responsePayload.put("size", txids.size())
-
-    responsePayload
   }
 
   override def getBestBlockInfo(): Try[ObjectNode] = Try {
@@ -176,3 +166,32 @@ class SidechainNodeChannelImpl() extends SidechainNodeChannel with SparkzLogging
     eventPayload
   }
 }
+
+object SidechainNodeChannelImpl {
+  private val mapper = new ObjectMapper().registerModule(DefaultScalaModule)
+
+  // ids of the transactions in mempool, sorted by fee rate
+  def mempoolTxIds(pool: SidechainMemoryPool): Seq[String] = pool.take(pool.size).map(tx => tx.id()).toSeq
+
+  // the ids are set directly into the json tree, without any serialization round trip
+  def rawMempoolPayload(txids: Seq[String]): ObjectNode = {
+    val responsePayload = mapper.createObjectNode()
+    responsePayload.set[ObjectNode]("transactions", txIdsArray(txids))
+    responsePayload.put("size", txids.size)
+    responsePayload
+  }
+
+  def mempoolDeltaPayload(addedTxids: Seq[String], removedTxids: Seq[String], size: Int): ObjectNode = {
+    val eventPayload = mapper.createObjectNode()
+    eventPayload.set[ObjectNode]("added", txIdsArray(addedTxids))
+    eventPayload.set[ObjectNode]("removed", txIdsArray(removedTxids))
+    eventPayload.put("size", size)
+    eventPayload
+  }
+
+  private def txIdsArray(txids: Seq[String]): ArrayNode = {
+    val json = mapper.createArrayNode()
+    txids.foreach(txid => json.add(txid))
+    json
+  }
+}
@@ -2,6 +2,7 @@ package io.horizen.utxo.websocket.server
 
 import akka.actor.{Actor, ActorRef, ActorSystem, Props}
 import io.horizen.utxo.block.SidechainBlock
+import io.horizen.utxo.mempool.SidechainMemoryPool
 import sparkz.core.network.NodeViewSynchronizer.ReceivableMessages.{ChangedMempool, SemanticallySuccessfulModifier}
 import sparkz.util.SparkzLogging
 
@@ -37,6 +38,9 @@ class WebSocketServer(wsPort: Int)
   }
 
   protected def checkMessage: Receive = {
+    case ChangedMempool(pool: SidechainMemoryPool) => {
+      websocket.onMempoolChanged(pool)
+    }
     case ChangedMempool(_) => {
       websocket.onMempoolChanged()
     }
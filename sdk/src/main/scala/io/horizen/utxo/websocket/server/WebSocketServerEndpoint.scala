@@ -4,18 +4,23 @@ import com.fasterxml.jackson.databind.node.ObjectNode
 import com.fasterxml.jackson.databind.{JsonNode, ObjectMapper}
 import com.fasterxml.jackson.module.scala.DefaultScalaModule
 import io.horizen.utxo.block.SidechainBlock
+import io.horizen.utxo.mempool.SidechainMemoryPool
 import jakarta.websocket.{OnClose, OnError, OnMessage, OnOpen, SendHandler, SendResult, Session}
 import jakarta.websocket.server.ServerEndpoint
 import sparkz.util.SparkzLogging
 
 import java.util
-import scala.util.{Failure, Success}
+import java.util.concurrent.CopyOnWriteArrayList
+import scala.util.{Failure, Success, Try}
 
 abstract class RequestType(val code:Int)
 case object GET_SINGLE_BLOCK_REQUEST_TYPE extends RequestType(0)
 case object GET_NEW_BLOCK_HASHES_REQUEST_TYPE extends RequestType(2)
 case object GET_MEMPOOL_TXS extends RequestType(4)
 case object GET_RAW_MEMPOOL extends RequestType(5)
+// Opt-in for the mempool delta events: the response contains the raw mempool, then the session receives the added and
+// removed transaction ids on every mempool change instead of the whole raw mempool.
+case object SUBSCRIBE_MEMPOOL_DELTAS extends RequestType(6)
 
 abstract class MsgType(val code:Int)
 case object EVENT_MESSAGE extends MsgType(0)
@@ -176,6 +181,16 @@ class WebSocketServerEndpoint() extends SparkzLogging {
           }
         }
 
+      case SUBSCRIBE_MEMPOOL_DELTAS.code => // Subscribe to (or unsubscribe from) mempool delta events
+        val enabled = requestPayload == null || !requestPayload.has("enabled") || requestPayload.get("enabled").asBoolean()
+        WebSocketServerEndpoint.subscribeMempoolDeltas(session, enabled, sidechainNodeChannel) match {
+          case Success(responsePayload) =>
+            WebSocketServerEndpoint.sendMessage(RESPONSE_MESSAGE.code, requestId, requestType, responsePayload, session)
+          case Failure(ex) =>
+            log.debug("Error inside SUBSCRIBE_MEMPOOL_DELTAS websocket request: "+ex.toString)
+            WebSocketServerEndpoint.sendError(requestId, requestType, 4, "Couldn't query mempool", session)
+        }
+
       case msgType =>
         System.out.println("Unknown message received with type = " + msgType)
     }
@@ -197,10 +212,17 @@ class WebSocketServerEndpoint() extends SparkzLogging {
 }
 
 private object WebSocketServerEndpoint extends SparkzLogging {
-  var sessions: util.ArrayList[Session] = new util.ArrayList[Session]()
+  // events are sent while sessions are opened and closed
+  val sessions: util.List[Session] = new CopyOnWriteArrayList[Session]()
   val sidechainNodeChannelImpl = new SidechainNodeChannelImpl();
   private val mapper = new ObjectMapper().registerModule(DefaultScalaModule)
 
+  // the mempool transaction ids the session received last, as the SUBSCRIBE_MEMPOOL_DELTAS response or as an event:
+  // the delta events of the session are computed against it. Absent if the session didn't opt in for the delta events.
+  private val MempoolTxIdsSnapshotProperty = "mempoolTxIdsSnapshot"
+  // transaction ids of the last mempool event, to share the delta message among the sessions that received it
+  private var lastMempoolTxIds: Set[String] = Set()
+
   def addSession (session: Session): Unit = {
     this.sessions.add(session)
   }
@@ -208,6 +230,47 @@ private object WebSocketServerEndpoint extends SparkzLogging {
     this.sessions.remove(session)
   }
 
+  // The snapshot is taken and recorded under the same lock of notifyMempoolChanged, so a mempool event either reaches
+  // the session before the subscription or is computed against the snapshot returned by it.
+  def subscribeMempoolDeltas(session: Session, enabled: Boolean, channel: SidechainNodeChannelImpl): Try[ObjectNode] = synchronized {
+    channel.getMempoolTxIds().map { txids =>
+      if (enabled)
+        session.getUserProperties.put(MempoolTxIdsSnapshotProperty, txids.toSet)
+      else
+        session.getUserProperties.remove(MempoolTxIdsSnapshotProperty)
+      SidechainNodeChannelImpl.rawMempoolPayload(txids)
+    }
+  }
+
+  private def mempoolTxIdsSnapshot(session: Session): Option[Set[String]] =
+    Option(session.getUserProperties.get(MempoolTxIdsSnapshotProperty)).map(_.asInstanceOf[Set[String]])
+
+  // The event payloads are computed once from the mempool of the event, without querying the node view holder,
+  // and each message is serialized once and shared by all the sessions with the same previous mempool.
+  def notifyMempoolChanged(pool: SidechainMemoryPool): Unit = synchronized {
+    Try(SidechainNodeChannelImpl.mempoolTxIds(pool)) match {
+      case Success(txids) =>
+        val txidsSet = txids.toSet
+        def deltaMessage(previousTxIds: Set[String]): String =
+          eventMessage(SUBSCRIBE_MEMPOOL_DELTAS.code, SidechainNodeChannelImpl.mempoolDeltaPayload(
+            txids.filterNot(previousTxIds.contains), previousTxIds.filterNot(txidsSet.contains).toSeq, txids.size))
+        lazy val rawMempoolMessage = eventMessage(2, SidechainNodeChannelImpl.rawMempoolPayload(txids))
+        lazy val lastDeltaMessage = deltaMessage(lastMempoolTxIds)
+
+        this.sessions.forEach(session => {
+          mempoolTxIdsSnapshot(session) match {
+            case Some(previousTxIds) =>
+              sendText(if (previousTxIds eq lastMempoolTxIds) lastDeltaMessage else deltaMessage(previousTxIds), session)
+              session.getUserProperties.put(MempoolTxIdsSnapshotProperty, txidsSet)
+            case None =>
+              sendText(rawMempoolMessage, session)
+          }
+        })
+        lastMempoolTxIds = txidsSet
+      case Failure(ex) => log.error("Error on notifyMempoolChanged!: "+ex.toString)
+    }
+  }
+
   def notifyMempoolChanged(): Unit = {
     val eventPayload = sidechainNodeChannelImpl.getRawMempool() match {
       case Success(eventPayload) =>
@@ -233,20 +296,33 @@ private object WebSocketServerEndpoint extends SparkzLogging {
   // which type of response is included in the message
   def sendMessage(msgType: Int,  requestId: Int, answerType: Int, payload: ObjectNode, client: Session): Unit = {
     try {
-      val json = mapper.createObjectNode()
-      if (msgType == 0) { //send event message
-        json.put("msgType", msgType)
-        json.put("answerType", answerType)
-        json.put("eventPayload", payload)
+      val message = if (msgType == 0) { //send event message
+        eventMessage(answerType, payload)
       } else { //send response message
+        val json = mapper.createObjectNode()
         json.put("msgType", msgType)
         json.put("requestId", requestId)
         json.put("answerType", answerType)
         json.put("responsePayload", payload)
+        json.toString
       }
 
-      val message = json.toString
+      sendText(message, client)
+    } catch {
+      case e: Throwable => log.info("ERROR on sending message")
+    }
+  }
 
+  private def eventMessage(answerType: Int, payload: ObjectNode): String = {
+    val json = mapper.createObjectNode()
+    json.put("msgType", EVENT_MESSAGE.code)
+    json.put("answerType", answerType)
+    json.put("eventPayload", payload)
+    json.toString
+  }
+
+  private def sendText(message: String, client: Session): Unit = {
+    try {
       client.getAsyncRemote().sendText(message, new SendHandler {
         override def onResult(sendResult: SendResult): Unit = {
           if (!sendResult.isOK) {
@@ -1,6 +1,7 @@
 package io.horizen.utxo.websocket.server
 
 import io.horizen.utxo.block.SidechainBlock
+import io.horizen.utxo.mempool.SidechainMemoryPool
 import io.horizen.websocket.server.WebSocketServerBaseImpl
 import jakarta.websocket.ClientEndpoint
 
@@ -11,6 +12,10 @@ class WebSocketServerImpl(bindPort: Int, configuration: Class[_]) extends WebSoc
     WebSocketServerEndpoint.notifyMempoolChanged()
   }
 
+  def onMempoolChanged(pool: SidechainMemoryPool): Unit = {
+    WebSocketServerEndpoint.notifyMempoolChanged(pool)
+  }
+
   def onSemanticallySuccessfulModifier(block: SidechainBlock): Unit = {
     WebSocketServerEndpoint.notifySemanticallySuccessfulModifier(block)
   }
@@ -2,6 +2,7 @@ package io.horizen.websocket.client
 import io.horizen.block.{MainchainBlockReference, MainchainHeader}
 import io.horizen.mainchain.api.MainchainNodeCertificateApi
 
+import scala.concurrent.Future
 import scala.util.Try
 
 case class SidechainVersionsInfo(scId: String, version: Int)
@@ -17,12 +18,18 @@ trait MainchainNodeChannel extends MainchainNodeCertificateApi {
   // Get reference for given hash in MC node block storage (any chain)
   def getBlockByHash(hash: String): Try[MainchainBlockReference]
 
+  // Asynchronous getBlockByHash: the requests of many references can be in flight at the same time.
+  def getBlockByHashAsync(hash: String): Future[MainchainBlockReference]
+
   // Get up to `limit` block hashes from MC node active chain after given height.
   def getBlockHashesAfterHeight(height: Int, limit: Int): Try[Seq[String]]
 
   // Get up to `limit` block hashes from MC node active chain after given hash.
   def getBlockHashesAfterHash(hash: String, limit: Int): Try[Seq[String]]
 
+  // Asynchronous getBlockHashesAfterHash.
+  def getBlockHashesAfterHashAsync(hash: String, limit: Int): Future[Seq[String]]
+
   // For given locator find the best known block in MC active chain - common point.
   // Then return common point height and seq of block hashes up to `limit` elements starting from common point.
   def getNewBlockHashes(locatorHashes: Seq[String], limit: Int): Try[(Int, Seq[String])]
@@ -34,6 +41,9 @@ trait MainchainNodeChannel extends MainchainNodeCertificateApi {
   // Get block headers for given set of hashes in MC node block storage (any chain)
   def getBlockHeaders(hashes: Seq[String]): Try[Seq[MainchainHeader]]
 
+  // Asynchronous getBlockHeaders.
+  def getBlockHeadersAsync(hashes: Seq[String]): Future[Seq[MainchainHeader]]
+
   // Subscribe to receive block info of a new tip in MC node.
   def subscribeOnUpdateTipEvent(handler: OnUpdateTipEventHandler): Try[Unit]
 
@@ -1,16 +1,27 @@
 package io.horizen.websocket.client
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import io.horizen.block.SidechainCreationVersions.SidechainCreationVersion
 import io.horizen.block.{MainchainBlockReference, MainchainHeader, SidechainCreationVersions, SidechainsVersionsManager}
 import io.horizen.mainchain.api.{SendCertificateRequest, SendCertificateResponse}
+import io.horizen.metrics.MetricsManager
 import io.horizen.params.NetworkParams
 import io.horizen.utils.{ByteArrayWrapper, BytesUtils}
-import io.horizen.websocket.client.MainchainNodeChannelImpl.MAX_SIDECHAINS_REQUEST
-
-import scala.concurrent.{Await, Future}
+import io.horizen.websocket.client.MainchainNodeChannelImpl.{MAX_SIDECHAINS_REQUEST, responseProcessingContext, sameThreadContext, timeoutScheduler}
+
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.{Executors, ScheduledExecutorService, TimeUnit, TimeoutException}
+import scala.collection.mutable
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, ExecutionContext, Future, Promise}
+import scala.util.control.NonFatal
 import scala.util.{Failure, Success, Try}
 
 class CertificateAlreadyPresentException() extends Exception()
 
+// Thrown while parsing a block that refers to sidechains which versions are not cached yet.
+private[client] class UnknownSidechainVersionsException(val sidechainIds: Seq[ByteArrayWrapper])
+  extends Exception(s"Unknown versions of ${sidechainIds.size} sidechains")
+
 case class GetBlockByHeightRequestPayload(height: Int) extends RequestPayload
 case class GetBlockByHashRequestPayload(hash: String) extends RequestPayload
 case class GetBlocksAfterHeightRequestPayload(afterHeight: Int, limit: Int) extends RequestPayload
@@ -55,53 +66,81 @@ case object GET_MULTIPLE_HEADERS_REQUEST_TYPE extends RequestType(4)
 case object GET_TOP_QUALITY_CERTIFICATES_TYPE extends RequestType(5)
 case object GET_SIDECHAIN_VERSIONS_TYPE extends RequestType(6)
 
-class MainchainNodeChannelImpl(client: CommunicationClient, params: NetworkParams) extends MainchainNodeChannel with SidechainsVersionsManager { // to do: define EC inside?
+class MainchainNodeChannelImpl(client: CommunicationClient,
+                               params: NetworkParams,
+                               maxInFlightRequests: Int = MainchainNodeChannelImpl.MAX_IN_FLIGHT_REQUESTS)
+  extends MainchainNodeChannel with SidechainsVersionsManager {
+  require(maxInFlightRequests > 0, "Max number of in flight requests must be positive")
+
   // key - sidechain id, value - version
+  @volatile
   var sidechainsVersionsCache: Map[ByteArrayWrapper, SidechainCreationVersion] = Map()
 
-  override def getBlockByHeight(height: Int): Try[MainchainBlockReference] = Try {
-    val future: Future[BlockResponsePayload] =
-      client.sendRequest(GET_SINGLE_BLOCK_REQUEST_TYPE, GetBlockByHeightRequestPayload(height), classOf[BlockResponsePayload])
+  private val metricsManager = MetricsManager.getInstance()
 
-    processBlockResponsePayload(future).get
+  // Requests sent and waiting for their response, and requests waiting for a free slot to be sent, in order.
+  private val requestsLock = new Object
+  private var inFlightRequests: Int = 0
+  private val pendingRequests = mutable.Queue[() => Unit]()
+
+  override def getBlockByHeight(height: Int): Try[MainchainBlockReference] = awaitResult(getBlockByHeightAsync(height))
+
+  def getBlockByHeightAsync(height: Int): Future[MainchainBlockReference] = {
+    sendRequest(GET_SINGLE_BLOCK_REQUEST_TYPE, GetBlockByHeightRequestPayload(height), classOf[BlockResponsePayload])
+      .flatMap(processBlockResponsePayload)(sameThreadContext)
   }
 
-  override def getBlockByHash(hash: String): Try[MainchainBlockReference] = Try {
-    val future: Future[BlockResponsePayload] =
-      client.sendRequest(GET_SINGLE_BLOCK_REQUEST_TYPE, GetBlockByHashRequestPayload(hash), classOf[BlockResponsePayload])
+  override def getBlockByHash(hash: String): Try[MainchainBlockReference] = awaitResult(getBlockByHashAsync(hash))
 
-    processBlockResponsePayload(future).get
+  override def getBlockByHashAsync(hash: String): Future[MainchainBlockReference] = {
+    sendRequest(GET_SINGLE_BLOCK_REQUEST_TYPE, GetBlockByHashRequestPayload(hash), classOf[BlockResponsePayload])
+      .flatMap(processBlockResponsePayload)(sameThreadContext)
   }
 
-  private def processBlockResponsePayload(future: Future[BlockResponsePayload]): Try[MainchainBlockReference] = Try {
-    val response: BlockResponsePayload = Await.result(future, client.requestTimeoutDuration())
+  // Parsing runs on the response processing pool, which is fixed sized, so it must never wait for another request.
+  // If the block refers to sidechains which versions are not cached yet, the versions are requested asynchronously
+  // and the block is parsed again once they arrive.
+  private def processBlockResponsePayload(response: BlockResponsePayload): Future[MainchainBlockReference] = {
     val blockBytes = BytesUtils.fromHexString(response.block)
-    MainchainBlockReference.create(blockBytes, params, this).get
+    def parse(): Future[MainchainBlockReference] =
+      Future(MainchainBlockReference.create(blockBytes, params, cachedVersionsManager).get)(responseProcessingContext)
+
+    parse().recoverWith {
+      case e: UnknownSidechainVersionsException =>
+        requestSidechainVersions(e.sidechainIds).flatMap(_ => parse())(sameThreadContext)
+    }(sameThreadContext)
   }
 
-  def getBlockHashesAfterHeight(height: Int, limit: Int): Try[Seq[String]] = Try {
-    val future: Future[BlocksResponsePayload] =
-      client.sendRequest(GET_MULTIPLE_BLOCK_HASHES_REQUEST_TYPE, GetBlocksAfterHeightRequestPayload(height, limit), classOf[BlocksResponsePayload])
+  // Versions manager that never sends a request: it fails with UnknownSidechainVersionsException instead.
+  private val cachedVersionsManager: SidechainsVersionsManager = new SidechainsVersionsManager {
+    override def getVersion(sidechainId: ByteArrayWrapper): SidechainCreationVersion = {
+      getVersions(Seq(sidechainId)).head._2
+    }
 
-    val response: BlocksResponsePayload = Await.result(future, client.requestTimeoutDuration())
-    response.hashes
+    override def getVersions(sidechainIds: Seq[ByteArrayWrapper]): Map[ByteArrayWrapper, SidechainCreationVersion] = {
+      val versions = sidechainsVersionsCache
+      val unknown = sidechainIds.filterNot(versions.contains)
+      if (unknown.nonEmpty)
+        throw new UnknownSidechainVersionsException(unknown)
+      sidechainIds.map(id => id -> versions(id)).toMap
+    }
   }
 
-  def getBlockHashesAfterHash(hash: String, limit: Int): Try[Seq[String]] = Try {
-    val future: Future[BlocksResponsePayload] =
-      client.sendRequest(GET_MULTIPLE_BLOCK_HASHES_REQUEST_TYPE, GetBlocksAfterHashRequestPayload(hash, limit), classOf[BlocksResponsePayload])
-
-    val response: BlocksResponsePayload = Await.result(future, client.requestTimeoutDuration())
-    response.hashes
+  def getBlockHashesAfterHeight(height: Int, limit: Int): Try[Seq[String]] = awaitResult {
+    sendRequest(GET_MULTIPLE_BLOCK_HASHES_REQUEST_TYPE, GetBlocksAfterHeightRequestPayload(height, limit), classOf[BlocksResponsePayload])
+      .map(_.hashes)(sameThreadContext)
   }
 
+  def getBlockHashesAfterHash(hash: String, limit: Int): Try[Seq[String]] = awaitResult(getBlockHashesAfterHashAsync(hash, limit))
 
-  override def getNewBlockHashes(locatorHashes: Seq[String], limit: Int): Try[(Int, Seq[String])] = Try {
-    val future: Future[NewBlocksResponsePayload] =
-      client.sendRequest(GET_NEW_BLOCK_HASHES_REQUEST_TYPE, GetNewBlocksRequestPayload(locatorHashes, limit), classOf[NewBlocksResponsePayload])
+  override def getBlockHashesAfterHashAsync(hash: String, limit: Int): Future[Seq[String]] = {
+    sendRequest(GET_MULTIPLE_BLOCK_HASHES_REQUEST_TYPE, GetBlocksAfterHashRequestPayload(hash, limit), classOf[BlocksResponsePayload])
+      .map(_.hashes)(sameThreadContext)
+  }
 
-    val response: NewBlocksResponsePayload = Await.result(future, client.requestTimeoutDuration())
-    (response.height, response.hashes)
+  override def getNewBlockHashes(locatorHashes: Seq[String], limit: Int): Try[(Int, Seq[String])] = awaitResult {
+    sendRequest(GET_NEW_BLOCK_HASHES_REQUEST_TYPE, GetNewBlocksRequestPayload(locatorHashes, limit), classOf[NewBlocksResponsePayload])
+      .map(response => (response.height, response.hashes))(sameThreadContext)
   }
 
   override def getBestCommonPoint(locatorHashes: Seq[String]): Try[(Int, String)] = {
@@ -111,16 +150,14 @@ class MainchainNodeChannelImpl(client: CommunicationClient, params: NetworkParam
     }
   }
 
-  override def getBlockHeaders(hashes: Seq[String]): Try[Seq[MainchainHeader]] = Try {
-    val future: Future[BlockHeadersResponsePayload] =
-      client.sendRequest(GET_MULTIPLE_HEADERS_REQUEST_TYPE, GetBlockHeadersRequestPayload(hashes), classOf[BlockHeadersResponsePayload])
+  override def getBlockHeaders(hashes: Seq[String]): Try[Seq[MainchainHeader]] = awaitResult(getBlockHeadersAsync(hashes))
 
-    processBlockHeadersResponsePayload(future).get
+  override def getBlockHeadersAsync(hashes: Seq[String]): Future[Seq[MainchainHeader]] = {
+    sendRequest(GET_MULTIPLE_HEADERS_REQUEST_TYPE, GetBlockHeadersRequestPayload(hashes), classOf[BlockHeadersResponsePayload])
+      .map(processBlockHeadersResponsePayload)(responseProcessingContext)
   }
 
-  private def processBlockHeadersResponsePayload(future: Future[BlockHeadersResponsePayload]): Try[Seq[MainchainHeader]] = Try {
-    val response: BlockHeadersResponsePayload = Await.result(future, client.requestTimeoutDuration())
-
+  private def processBlockHeadersResponsePayload(response: BlockHeadersResponsePayload): Seq[MainchainHeader] = {
     val strHeaders: Seq[String] = response.headers
     val headers: Seq[MainchainHeader] = strHeaders.map(str => MainchainHeader.create(BytesUtils.fromHexString(str), 0).get)
 
@@ -135,16 +172,20 @@ class MainchainNodeChannelImpl(client: CommunicationClient, params: NetworkParam
     client.unregisterEventHandler(0, handler)
   }
 
-  override def sendCertificate(certificateRequest: SendCertificateRequest): Try[SendCertificateResponse] = Try {
-    val backwardTransfers: Seq[BackwardTransfer] = certificateRequest.backwardTransfers.map(bt =>
-      BackwardTransfer(bt.address, bt.amount))
+  override def sendCertificate(certificateRequest: SendCertificateRequest): Try[SendCertificateResponse] =
+    awaitResult(sendCertificateAsync(certificateRequest))
 
-    val fee: String = certificateRequest.fee match {
-      case Some(fee) => fee
-      case None => "-1"
-    }
+  override def sendCertificateAsync(certificateRequest: SendCertificateRequest): Future[SendCertificateResponse] = {
+    val requestPayload = Try {
+      val backwardTransfers: Seq[BackwardTransfer] = certificateRequest.backwardTransfers.map(bt =>
+        BackwardTransfer(bt.address, bt.amount))
+
+      val fee: String = certificateRequest.fee match {
+        case Some(fee) => fee
+        case None => "-1"
+      }
 
-    val requestPayload:SendCertificateRequestPayload = SendCertificateRequestPayload(
+      SendCertificateRequestPayload(
         BytesUtils.toHexString(certificateRequest.sidechainId),
         certificateRequest.epochNumber,
         certificateRequest.quality,
@@ -156,23 +197,19 @@ class MainchainNodeChannelImpl(client: CommunicationClient, params: NetworkParam
         fee,
         certificateRequest.fieldElementCertificateFields.map(BytesUtils.toHexString),
         certificateRequest.bitVectorCertificateFields.map(BytesUtils.toHexString))
+    }
 
-    val future: Future[CertificateResponsePayload] = client.sendRequest(SEND_CERTIFICATE_REQUEST_TYPE, requestPayload, classOf[CertificateResponsePayload])
-
-    processCertificateResponsePayload(future)
-  }
-
-  private def processCertificateResponsePayload(future: Future[CertificateResponsePayload]): SendCertificateResponse = {
-    val response: CertificateResponsePayload = Await.result(future, client.requestTimeoutDuration())
-    SendCertificateResponse(BytesUtils.fromHexString(response.certificateHash))
+    Future.fromTry(requestPayload)
+      .flatMap(payload => sendRequest(SEND_CERTIFICATE_REQUEST_TYPE, payload, classOf[CertificateResponsePayload]))(sameThreadContext)
+      .map(response => SendCertificateResponse(BytesUtils.fromHexString(response.certificateHash)))(sameThreadContext)
   }
 
-  override def getTopQualityCertificates(scId: String): Try[TopQualityCertificates] = Try {
-    val future: Future[TopQualityCertificateResponsePayload] =
-      client.sendRequest(GET_TOP_QUALITY_CERTIFICATES_TYPE, TopQualityCertificatePayload(scId), classOf[TopQualityCertificateResponsePayload])
+  override def getTopQualityCertificates(scId: String): Try[TopQualityCertificates] =
+    awaitResult(getTopQualityCertificatesAsync(scId))
 
-    val response: TopQualityCertificateResponsePayload = Await.result(future, client.requestTimeoutDuration())
-    TopQualityCertificates(response.mempoolTopQualityCert, response.chainTopQualityCert)
+  override def getTopQualityCertificatesAsync(scId: String): Future[TopQualityCertificates] = {
+    sendRequest(GET_TOP_QUALITY_CERTIFICATES_TYPE, TopQualityCertificatePayload(scId), classOf[TopQualityCertificateResponsePayload])
+      .map(response => TopQualityCertificates(response.mempoolTopQualityCert, response.chainTopQualityCert))(sameThreadContext)
   }
 
   override def getVersion(sidechainId: ByteArrayWrapper): SidechainCreationVersion = {
@@ -180,31 +217,124 @@ class MainchainNodeChannelImpl(client: CommunicationClient, params: NetworkParam
   }
 
   override def getVersions(sidechainIds: Seq[ByteArrayWrapper]): Map[ByteArrayWrapper, SidechainCreationVersion] = {
-    val unknown = sidechainIds.filterNot(id => sidechainsVersionsCache.contains(id))
-    for(group <- unknown.grouped(MAX_SIDECHAINS_REQUEST)) {
+    awaitResult(requestSidechainVersions(sidechainIds.filterNot(id => sidechainsVersionsCache.contains(id)))) match {
+      case Success(_) =>
+        val versions = sidechainsVersionsCache
+        sidechainIds.map(id => id -> versions(id)).toMap
+      case Failure(exception) =>
+        throw new RuntimeException("Can't retrieve sidechain versions.", exception)
+    }
+  }
+
+  // Request the versions of the given sidechains and add them to the cache.
+  private def requestSidechainVersions(sidechainIds: Seq[ByteArrayWrapper]): Future[Unit] = {
+    val requests = sidechainIds.distinct.grouped(MAX_SIDECHAINS_REQUEST).map(group =>
       // Server expects sidechain ids to be a hex of BigEndian bytes
-      getSidechainVersions(group.map(id => BytesUtils.toHexString(BytesUtils.reverseBytes(id.data())))) match {
-        case Success(res) =>
-          for(info: SidechainVersionsInfo <- res) {
-            // Convert sidechain ids back to LittleEndian bytes
-            sidechainsVersionsCache += new ByteArrayWrapper(BytesUtils.reverseBytes(BytesUtils.fromHexString(info.scId))) -> SidechainCreationVersions.getVersion(info.version)
-          }
-        case Failure(exception) =>
-          throw new RuntimeException("Can't retrieve sidechain versions.", exception)
+      getSidechainVersionsAsync(group.map(id => BytesUtils.toHexString(BytesUtils.reverseBytes(id.data()))))
+        .map(cacheSidechainVersions)(sameThreadContext)
+    ).toList
+    // All the requests are already sent, just wait for every one of them
+    requests.foldLeft(Future.unit)((all, request) => all.flatMap(_ => request)(sameThreadContext))
+  }
+
+  private def cacheSidechainVersions(res: Seq[SidechainVersionsInfo]): Unit = {
+    // Block references may be parsed concurrently
+    synchronized {
+      for (info: SidechainVersionsInfo <- res) {
+        // Convert sidechain ids back to LittleEndian bytes
+        sidechainsVersionsCache += new ByteArrayWrapper(BytesUtils.reverseBytes(BytesUtils.fromHexString(info.scId))) -> SidechainCreationVersions.getVersion(info.version)
       }
     }
-    sidechainIds.map(id => id -> sidechainsVersionsCache(id)).toMap
   }
 
-  override def getSidechainVersions(scIds: Seq[String]): Try[Seq[SidechainVersionsInfo]] = Try {
-    val future: Future[GetSidechainVersionsResponsePayload] =
-      client.sendRequest(GET_SIDECHAIN_VERSIONS_TYPE, GetSidechainVersionsRequestPayload(scIds), classOf[GetSidechainVersionsResponsePayload])
+  override def getSidechainVersions(scIds: Seq[String]): Try[Seq[SidechainVersionsInfo]] = awaitResult(getSidechainVersionsAsync(scIds))
+
+  def getSidechainVersionsAsync(scIds: Seq[String]): Future[Seq[SidechainVersionsInfo]] = {
+    sendRequest(GET_SIDECHAIN_VERSIONS_TYPE, GetSidechainVersionsRequestPayload(scIds), classOf[GetSidechainVersionsResponsePayload])
+      .map(_.sidechainVersions)(sameThreadContext)
+  }
+
+  // Every request fails by itself if its response doesn't arrive in time, so there is no need of a timeout here.
+  private def awaitResult[T](future: Future[T]): Try[T] = Try {
+    Await.result(future, Duration.Inf)
+  }
+
+  /**
+   * Send the request as soon as less than maxInFlightRequests requests are waiting for their response.
+   * Responses are correlated to their requests by the request id, so the requests of different callers (e.g. the
+   * forger and the certificate submitter), or many requests of the same caller, overlap each other.
+   * A request fails if its response doesn't arrive in client.requestTimeoutDuration() from when it has been sent.
+   */
+  private def sendRequest[Req <: RequestPayload, Resp <: ResponsePayload](requestType: RequestType,
+                                                                           request: Req,
+                                                                           responseClazz: Class[Resp]): Future[Resp] = {
+    val promise = Promise[Resp]()
+    requestsLock.synchronized {
+      pendingRequests.enqueue(() => {
+        val completed = new AtomicBoolean(false)
+        val startTime = System.currentTimeMillis()
+        def complete(result: Try[Resp]): Unit = {
+          if (completed.compareAndSet(false, true)) {
+            metricsManager.mainchainRequestCompleted(requestType.toString, System.currentTimeMillis() - startTime)
+            requestsLock.synchronized {
+              inFlightRequests -= 1
+            }
+            sendPendingRequests()
+            promise.complete(result)
+          }
+        }
+
+        try {
+          val timeout = timeoutScheduler.schedule(new Runnable {
+            override def run(): Unit = complete(Failure(new TimeoutException(
+              s"Mainchain node response for request $requestType not received in ${client.requestTimeoutDuration()}")))
+          }, client.requestTimeoutDuration().toMillis, TimeUnit.MILLISECONDS)
+
+          client.sendRequest(requestType, request, responseClazz).onComplete(result => {
+            timeout.cancel(false)
+            complete(result)
+          })(sameThreadContext)
+        } catch {
+          case NonFatal(e) => complete(Failure(e))
+        }
+      })
+    }
+    sendPendingRequests()
+    promise.future
+  }
 
-    val response: GetSidechainVersionsResponsePayload = Await.result(future, client.requestTimeoutDuration())
-    response.sidechainVersions
+  private def sendPendingRequests(): Unit = {
+    val toSend = requestsLock.synchronized {
+      val requests = mutable.ArrayBuffer[() => Unit]()
+      while (inFlightRequests < maxInFlightRequests && pendingRequests.nonEmpty) {
+        inFlightRequests += 1
+        requests += pendingRequests.dequeue()
+      }
+      metricsManager.mainchainRequestsInFlight(inFlightRequests)
+      requests
+    }
+    toSend.foreach(send => send())
   }
 }
 
 object MainchainNodeChannelImpl {
   val MAX_SIDECHAINS_REQUEST: Int = 50
-}
\ No newline at end of file
+
+  // Max number of requests sent to the Mainchain node and waiting for their response.
+  val MAX_IN_FLIGHT_REQUESTS: Int = 16
+
+  // Used for the light transformations of the responses, run in the thread that completed the request.
+  private val sameThreadContext: ExecutionContext = new ExecutionContext {
+    override def execute(runnable: Runnable): Unit = runnable.run()
+
+    override def reportFailure(cause: Throwable): Unit = {}
+  }
+
+  // Used to parse the block references and headers out of the web socket client threads.
+  private lazy val responseProcessingContext: ExecutionContext = ExecutionContext.fromExecutorService(
+    Executors.newFixedThreadPool(Runtime.getRuntime.availableProcessors(),
+      new ThreadFactoryBuilder().setNameFormat("sc-mainchain-response-processing-%d").setDaemon(true).build()))
+
+  private lazy val timeoutScheduler: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+    new ThreadFactoryBuilder().setNameFormat("sc-mainchain-request-timeout-%d").setDaemon(true).build())
+}
@@ -188,4 +188,124 @@ public class StorageTest {
         assertEquals("Storage must have two versions", 2, s2.rollbackVersions().size());
         assertTrue("Storage must have specified versions", s2.rollbackVersions().containsAll(Arrays.asList(version0, version1)));
     }
+
+    @Test
+    public void bulkUpdate() {
+        File storagePath = storageFixture.tempFile();
+        VersionedLevelDbStorageAdapter s = storageFixture.getStorage(storagePath);
+
+        ByteArrayWrapper version0 = storageFixture.getVersion();
+        List<Pair<ByteArrayWrapper,ByteArrayWrapper>> u0 = storageFixture.getKeyValueList(3);
+        s.update(version0, u0, new ArrayList<>());
+
+        s.startBulkUpdate();
+
+        // updates applied during the bulk update must be visible to the readers
+        ByteArrayWrapper version1 = storageFixture.getVersion();
+        List<Pair<ByteArrayWrapper,ByteArrayWrapper>> u1 = storageFixture.getKeyValueList(2);
+        s.update(version1, u1, Collections.singletonList(u0.get(0).getKey()));
+
+        ByteArrayWrapper version2 = storageFixture.getVersion();
+        Pair<ByteArrayWrapper,ByteArrayWrapper> alteredValue = new Pair<>(u0.get(1).getKey(), storageFixture.getValue());
+        s.update(version2, Collections.singletonList(alteredValue), new ArrayList<>());
+
+        assertEquals("Storage must have specified last version.", version2, s.lastVersionID().get());
+        assertEquals("Storage must have three versions", 3, s.rollbackVersions().size());
+        assertFalse("Storage must not contain removed key.", s.get(u0.get(0).getKey()).isPresent());
+        assertEquals("Storage must contain altered value.", alteredValue.getValue(), s.get(alteredValue.getKey()).get());
+        assertEquals("Storage must contain inserted value.", u1.get(0).getValue(), s.get(u1.get(0).getKey()).get());
+        assertEquals("Storage must contain 4 items.", 4, s.getAll().size());
+        assertTrue("Storage must contain altered value.", s.getAll().contains(alteredValue));
+
+        // closing the storage writes the pending versions
+        s.close();
+        s = storageFixture.getStorage(storagePath);
+        assertEquals("Storage must have specified last version.", version2, s.lastVersionID().get());
+
+        s.startBulkUpdate();
+        ByteArrayWrapper version3 = storageFixture.getVersion();
+        s.update(version3, storageFixture.getKeyValueList(1), Collections.singletonList(u1.get(1).getKey()));
+        s.commitBulkUpdate();
+
+        assertEquals("Storage must have specified last version.", version3, s.lastVersionID().get());
+        assertEquals("Storage must have four versions", 4, s.rollbackVersions().size());
+        assertEquals("Storage must contain 4 items.", 4, s.getAll().size());
+
+        // rollback and iteration are not allowed until the bulk update is committed
+        s.startBulkUpdate();
+        s.update(storageFixture.getVersion(), storageFixture.getKeyValueList(1), new ArrayList<>());
+        try {
+            s.rollback(version0);
+            fail("Rollback must not be allowed during the bulk update.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            s.getIterator();
+            fail("Iteration must not be allowed during the bulk update.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals("Storage must have five versions", 5, s.rollbackVersions().size());
+
+        // rollback works through the versions written by the bulk update
+        s.commitBulkUpdate();
+        s.rollback(version0);
+
+        assertEquals("Storage must have specified last version.", version0, s.lastVersionID().get());
+        assertEquals("Storage must have one version", 1, s.rollbackVersions().size());
+        assertTrue("Storage must contain same elements as sample.", u0.containsAll(s.getAll()));
+        assertEquals("Storage must contain 3 items.", 3, s.getAll().size());
+    }
+    private List<Pair<ByteArrayWrapper, ByteArrayWrapper>> readAll(StorageIterator iterator) {
+        List<Pair<ByteArrayWrapper, ByteArrayWrapper>> entries = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Map.Entry<byte[], byte[]> entry = iterator.next();
+            entries.add(new Pair<>(new ByteArrayWrapper(entry.getKey()), new ByteArrayWrapper(entry.getValue())));
+        }
+        return entries;
+    }
+
+    @Test
+    public void iteratorAtVersion() throws Exception {
+        VersionedLevelDbStorageAdapter s = storageFixture.getStorage();
+
+        ByteArrayWrapper version0 = storageFixture.getVersion();
+        List<Pair<ByteArrayWrapper,ByteArrayWrapper>> u0 = storageFixture.getKeyValueList(10);
+        s.update(version0, u0, new ArrayList<>());
+
+        ByteArrayWrapper version1 = storageFixture.getVersion();
+        s.update(version1, storageFixture.getKeyValueList(5), Arrays.asList(u0.get(0).getKey(), u0.get(1).getKey()));
+
+        ByteArrayWrapper version2 = storageFixture.getVersion();
+        Pair<ByteArrayWrapper,ByteArrayWrapper> alteredValue = new Pair<>(u0.get(2).getKey(), storageFixture.getValue());
+        s.update(version2, Collections.singletonList(alteredValue), Collections.singletonList(u0.get(3).getKey()));
+
+        List<Pair<ByteArrayWrapper, ByteArrayWrapper>> entriesAtVersion0;
+        List<Pair<ByteArrayWrapper, ByteArrayWrapper>> entriesAfterSeek;
+        byte[] seekKey = u0.get(5).getKey().data();
+        try (StorageIterator iterator = s.getIteratorAt(version0)) {
+            entriesAtVersion0 = readAll(iterator);
+            iterator.seek(seekKey);
+            entriesAfterSeek = readAll(iterator);
+        }
+        assertTrue("Iterator must return the values at the given version.", entriesAtVersion0.containsAll(u0));
+        assertEquals("Storage must not be modified.", version2, s.lastVersionID().get());
+        assertEquals("Storage must have three versions", 3, s.rollbackVersions().size());
+
+        // same content of the storage rolled back to the version
+        s.rollback(version0);
+        try (StorageIterator iterator = s.getIterator()) {
+            assertEquals("Iterator must return the storage content at the given version.", readAll(iterator), entriesAtVersion0);
+            iterator.seek(seekKey);
+            assertEquals("Seek must be consistent with the storage content.", readAll(iterator), entriesAfterSeek);
+        }
+
+        try {
+            s.getIteratorAt(version2);
+            fail("Iterator at a not existing version must not be created.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
 }
\ No newline at end of file
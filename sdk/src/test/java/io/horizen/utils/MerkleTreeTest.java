@@ -3,7 +3,10 @@ package io.horizen.utils;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -70,4 +73,83 @@ public class MerkleTreeTest {
             assertEquals("Merkle path validation failed.", true, merkleTree.validateMerklePath(merkleTree.leaves().get(i), path));
         }
     }
+
+    // Straightforward level by level calculation of the merkle root.
+    private byte[] calculateRootHash(List<byte[]> leaves) {
+        List<byte[]> level = leaves;
+        while(level.size() > 1) {
+            List<byte[]> nextLevel = new ArrayList<>();
+            for(int left = 0; left < level.size(); left += 2) {
+                int right = Math.min(left + 1, level.size() - 1);
+                nextLevel.add(BytesUtils.reverseBytes(Utils.doubleSHA256HashOfConcatenation(
+                        BytesUtils.reverseBytes(level.get(left)), BytesUtils.reverseBytes(level.get(right)))));
+            }
+            level = nextLevel;
+        }
+        return level.get(0);
+    }
+
+    private List<byte[]> generateLeaves(int number, long seed) {
+        Random rnd = new Random(seed);
+        List<byte[]> leaves = new ArrayList<>();
+        for(int i = 0; i < number; i++) {
+            byte[] leaf = new byte[32];
+            rnd.nextBytes(leaf);
+            leaves.add(leaf);
+        }
+        return leaves;
+    }
+
+    @Test
+    public void MerkleTreeTest_largeTree() {
+        // enough leaves to have some levels hashed in parallel
+        List<byte[]> leaves = generateLeaves(MerkleTree.PARALLEL_HASHING_THRESHOLD * 4 + 3, 42L);
+        MerkleTree merkleTree = MerkleTree.createMerkleTree(leaves);
+
+        assertArrayEquals("Calculated Merkle root should be the same as expected one", calculateRootHash(leaves), merkleTree.rootHash());
+        assertFalse("Merkle tree expected to be not mutated", merkleTree.isMutated());
+        for(int i : new int[]{0, 1, leaves.size() / 2, leaves.size() - 1}) {
+            assertTrue("Merkle path validation failed.", merkleTree.validateMerklePath(leaves.get(i), merkleTree.getMerklePathForLeaf(i)));
+        }
+    }
+
+    @Test
+    public void MerkleTreeTest_mutatedTree() {
+        List<byte[]> leaves = generateLeaves(6, 1L);
+        List<byte[]> mutatedLeaves = new ArrayList<>(leaves);
+        mutatedLeaves.add(leaves.get(4));
+        mutatedLeaves.add(leaves.get(5));
+
+        MerkleTree merkleTree = MerkleTree.createMerkleTree(leaves);
+        MerkleTree mutatedMerkleTree = MerkleTree.createMerkleTree(mutatedLeaves);
+
+        assertFalse("Merkle tree expected to be not mutated", merkleTree.isMutated());
+        assertTrue("Merkle tree expected to be mutated", mutatedMerkleTree.isMutated());
+        assertArrayEquals("Merkle roots expected to be the same", merkleTree.rootHash(), mutatedMerkleTree.rootHash());
+    }
+
+    @Test
+    public void MerkleTreeTest_merklePathsForLeaves() {
+        List<byte[]> leaves = generateLeaves(11, 2L);
+        MerkleTree merkleTree = MerkleTree.createMerkleTree(leaves);
+
+        byte[] missingLeaf = generateLeaves(1, 3L).get(0);
+        List<byte[]> requestedLeaves = Arrays.asList(leaves.get(10), missingLeaf, leaves.get(3), leaves.get(0));
+        Map<ByteArrayWrapper, MerklePath> paths = merkleTree.getMerklePathsForLeaves(requestedLeaves);
+
+        assertEquals("Paths expected only for the leaves in the tree", 3, paths.size());
+        assertNull("No path expected for missing leaf", paths.get(new ByteArrayWrapper(missingLeaf)));
+        for(int i : new int[]{0, 3, 10}) {
+            assertEquals("Leaf index expected to be found", i, merkleTree.getLeafIndex(leaves.get(i)));
+            MerklePath path = paths.get(new ByteArrayWrapper(leaves.get(i)));
+            assertArrayEquals("Merkle path expected to be the same", merkleTree.getMerklePathForLeaf(i).bytes(), path.bytes());
+            assertTrue("Merkle path validation failed.", merkleTree.validateMerklePath(leaves.get(i), path));
+        }
+        assertEquals("Missing leaf index expected", -1, merkleTree.getLeafIndex(missingLeaf));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void MerkleTreeTest_invalidLeafLength() {
+        MerkleTree.createMerkleTree(Arrays.asList(new byte[32], new byte[31]));
+    }
 }
\ No newline at end of file
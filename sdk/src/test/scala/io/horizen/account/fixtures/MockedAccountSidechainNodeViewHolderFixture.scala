@@ -72,6 +72,10 @@ trait MockedAccountSidechainNodeViewHolderFixture extends MockitoSugar {
       .thenAnswer(_ => {
         EvmStateDump(false)
       })
+    Mockito.when(sidechainSettings.bulkSync)
+      .thenAnswer(_ => {
+        BulkSyncSettings()
+      })
 
     actorSystem.actorOf(Props(new MockedAccountSidechainNodeViewHolder(sidechainSettings, history, state, wallet, mempool)))
   }
@@ -3,12 +3,12 @@ package io.horizen.account.state
 import io.horizen.account.AccountFixture
 import io.horizen.account.fixtures.ForgerAccountFixture.getPrivateKeySecp256k1
 import io.horizen.account.fork.Version1_2_0Fork
-import io.horizen.account.storage.AccountStateMetadataStorageView
+import io.horizen.account.storage.{AccountStateMetadataStorageView, MsgProcessorMetadataStorageReader}
 import io.horizen.account.utils.WellKnownAddresses.FORGER_POOL_RECIPIENT_ADDRESS
 import io.horizen.account.utils.ZenWeiConverter.MAX_MONEY_IN_WEI
 import io.horizen.account.utils.{ForgerIdentifier, WellKnownAddresses, ZenWeiConverter}
 import io.horizen.consensus.intToConsensusEpochNumber
-import io.horizen.evm.{Address, StateDB}
+import io.horizen.evm.{Address, Hash, MemoryDatabase, StateDB}
 import io.horizen.fixtures.StoreFixture
 import io.horizen.fork.{ForkManagerUtil, OptionalSidechainFork, SidechainForkConsensusEpoch, SimpleForkConfigurator}
 import io.horizen.params.NetworkParams
@@ -18,7 +18,8 @@ import io.horizen.utils.ByteArrayWrapper
 import io.horizen.utils.WithdrawalEpochUtils.MaxWithdrawalReqsNumPerEpoch
 import org.junit.Assert._
 import org.junit._
-import org.mockito.Mockito.when
+import org.mockito.ArgumentMatchers.{any, anyInt}
+import org.mockito.Mockito.{clearInvocations, never, spy, times, verify, when}
 import org.scalatestplus.junit.JUnitSuite
 import org.scalatestplus.mockito._
 import sparkz.core.bytesToVersion
@@ -26,6 +27,7 @@ import sparkz.crypto.hash.Keccak256
 
 import java.math.BigInteger
 import java.util
+import java.util.Optional
 import scala.jdk.CollectionConverters.seqAsJavaListConverter
 
 class AccountStateViewTest extends JUnitSuite with MockitoSugar with MessageProcessorFixture with StoreFixture
@@ -122,6 +124,122 @@ class AccountStateViewTest extends JUnitSuite with MockitoSugar with MessageProc
     }
   }
 
+  @Test
+  def testChunkedStorageCache(): Unit = {
+    val key = Keccak256.hash("key")
+    // 4 chunks
+    val value = Array.fill[Byte](100)(7)
+    // 2 chunks
+    val newValue = Array.fill[Byte](40)(9)
+
+    using(new MemoryDatabase()) { db =>
+      val stateDb = spy(new StateDB(db, Hash.ZERO))
+      using(new StateDbAccountStateView(stateDb, Seq.empty)) { view =>
+        // prevent the account from being "empty"
+        view.increaseNonce(contractAddress)
+        view.updateAccountStorageBytes(contractAddress, key, value)
+
+        // written values are read without native calls
+        clearInvocations(stateDb)
+        assertArrayEquals(value, view.getAccountStorageBytes(contractAddress, key))
+        verify(stateDb, never()).getStorage(any(), any())
+
+        // returned values can be modified by the caller
+        view.getAccountStorageBytes(contractAddress, key)(0) = 0
+        assertArrayEquals(value, view.getAccountStorageBytes(contractAddress, key))
+
+        // gas tracked views read the cached values too, charging them as the StateDB reads they replace
+        def chargedRead(view: StateDbAccountStateView): BigInteger = {
+          val gas = new GasPool(BigInteger.valueOf(1000000))
+          assertArrayEquals(newValue, view.getGasTrackedView(gas).getAccountStorageBytes(contractAddress, key))
+          gas.getUsedGas
+        }
+        view.getGasTrackedView(new GasPool(BigInteger.valueOf(1000000)))
+          .updateAccountStorageBytes(contractAddress, key, newValue)
+        clearInvocations(stateDb)
+        val cachedReadGas = chargedRead(view)
+        verify(stateDb, never()).getStorage(any(), any())
+        verify(stateDb, never()).accessSlot(any(), any())
+        // 3 warm slots: the length and 2 chunks
+        assertEquals(GasUtil.WarmStorageReadCostEIP2929.multiply(BigInteger.valueOf(3)), cachedReadGas)
+        assertEquals(cachedReadGas, chargedRead(new StateDbAccountStateView(stateDb, Seq.empty)))
+
+        // after a new access list is set up, the slots of the cached values are accessed again but not read
+        view.chunkedStorageCache.setCold()
+        clearInvocations(stateDb)
+        assertEquals(cachedReadGas, chargedRead(view))
+        verify(stateDb, never()).getStorage(any(), any())
+        verify(stateDb, times(3)).accessSlot(any(), any())
+
+        // a value read once is then cached
+        view.chunkedStorageCache.clear()
+        clearInvocations(stateDb)
+        assertArrayEquals(newValue, view.getAccountStorageBytes(contractAddress, key))
+        assertArrayEquals(newValue, view.getAccountStorageBytes(contractAddress, key))
+        verify(stateDb, times(3)).getStorage(any(), any())
+
+        // reverts drop the cached values
+        val revision = view.snapshot
+        view.updateAccountStorageBytes(contractAddress, key, value)
+        view.revertToSnapshot(revision)
+        assertArrayEquals(newValue, view.getAccountStorageBytes(contractAddress, key))
+
+        // single slot writes to the same key drop the cached value
+        view.updateAccountStorage(contractAddress, key, Hash.ZERO.toBytes)
+        assertArrayEquals(Array.emptyByteArray, view.getAccountStorageBytes(contractAddress, key))
+      }
+    }
+  }
+
+  @Test
+  def testChunkedStorageCacheEvmRevert(): Unit = {
+    val key = Keccak256.hash("key")
+    val value = Array.fill[Byte](100)(7)
+    val newValue = Array.fill[Byte](40)(9)
+
+    // native contract writing its input, or returning the stored value if the input is empty
+    val nativeProcessor = mock[MessageProcessor]
+    when(nativeProcessor.processedAddress()).thenReturn(Optional.of(contractAddress))
+    when(nativeProcessor.canProcess(any(), any(), anyInt())).thenReturn(true)
+    when(nativeProcessor.process(any(), any(), any(), any())).thenAnswer(args => {
+      val invocation = args.getArgument[Invocation](0)
+      val view = args.getArgument[BaseAccountStateView](1)
+      if (invocation.input.isEmpty) {
+        view.getAccountStorageBytes(contractAddress, key)
+      } else {
+        view.updateAccountStorageBytes(contractAddress, key, invocation.input)
+        Array.emptyByteArray
+      }
+    })
+
+    using(new MemoryDatabase()) { db =>
+      val stateDb = new StateDB(db, Hash.ZERO)
+      using(new StateDbAccountStateView(stateDb, Seq.empty)) { view =>
+        view.increaseNonce(contractAddress)
+        view.updateAccountStorageBytes(contractAddress, key, value)
+
+        // the EVM calls the native contract to write the new value, reverts the call in its own journal, then calls
+        // the native contract to read the value
+        val evmProcessor = mock[EvmMessageProcessor]
+        when(evmProcessor.canProcess(any(), any(), anyInt())).thenReturn(true)
+        when(evmProcessor.process(any(), any(), any(), any())).thenAnswer(args => {
+          val invocation = args.getArgument[Invocation](0)
+          val context = args.getArgument[ExecutionContext](3)
+          val revision = stateDb.snapshot()
+          context.execute(invocation.call(contractAddress, BigInteger.ZERO, newValue, BigInteger.valueOf(100000)))
+          stateDb.revertToSnapshot(revision)
+          context.execute(invocation.call(contractAddress, BigInteger.ZERO, Array.emptyByteArray, BigInteger.valueOf(100000)))
+        })
+
+        val msg = getMessage(randomAddress)
+        val gas = new GasPool(BigInteger.valueOf(1000000))
+        val transition = new StateTransition(view, Seq(nativeProcessor, evmProcessor), gas, defaultBlockContext, msg, mock[MsgProcessorMetadataStorageReader])
+        assertArrayEquals(value, transition.execute(Invocation.fromMessage(msg, gas)))
+        assertArrayEquals(value, view.getAccountStorageBytes(contractAddress, key))
+      }
+    }
+  }
+
   @Test
   def testGetNativeSmartContractAddressList(): Unit = {
     var messageProcessors = Seq.empty[MessageProcessor]
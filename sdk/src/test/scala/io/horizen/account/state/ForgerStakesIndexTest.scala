@@ -0,0 +1,224 @@
+package io.horizen.account.state
+
+import io.horizen.account.proposition.AddressProposition
+import io.horizen.account.state.nativescdata.forgerstakev2.StakeStorage
+import io.horizen.account.utils.ZenWeiConverter
+import io.horizen.account.utils.WellKnownAddresses.{FORGER_STAKE_SMART_CONTRACT_ADDRESS, FORGER_STAKE_V2_SMART_CONTRACT_ADDRESS}
+import io.horizen.evm.{Address, Hash, MemoryDatabase, StateDB}
+import io.horizen.proposition.{PublicKey25519Proposition, VrfPublicKey}
+import io.horizen.utils.{BytesUtils, Utils}
+import org.junit.Assert._
+import org.junit._
+import org.scalatestplus.junit.JUnitSuite
+import sparkz.crypto.hash.Keccak256
+
+import java.math.BigInteger
+
+class ForgerStakesIndexTest extends JUnitSuite with MessageProcessorFixture {
+
+  private def stateRoot(seed: String): Array[Byte] = Keccak256.hash(seed)
+
+  private val stakes = (1 to 4).map(i => AccountForgingStakeInfo(
+    Keccak256.hash(s"stake$i"),
+    ForgerStakeData(
+      ForgerPublicKeys(new PublicKey25519Proposition(Keccak256.hash(s"sign$i")), new VrfPublicKey(Keccak256.hash(s"vrf$i") :+ 0.toByte)),
+      new AddressProposition(new Address(Keccak256.hash(s"owner$i").take(Address.LENGTH))),
+      BigInteger.TEN)
+  ))
+
+  private def stake(i: Int): AccountForgingStakeInfo = stakes(i - 1)
+
+  private def notRead[T]: T = throw new AssertionError("Stakes must be in the entry")
+
+  @Before
+  def setUp(): Unit = ForgerStakesIndex.clear()
+
+  @Test
+  def testEntryPerStateRoot(): Unit = {
+    val root1 = stateRoot("root1")
+    val root2 = stateRoot("root2")
+
+    val entry1 = ForgerStakesIndex.entry(root1)
+    assertSame("Same state root must give the same entry", entry1, ForgerStakesIndex.entry(root1.clone()))
+    assertNotSame("Different state roots must give different entries", entry1, ForgerStakesIndex.entry(root2))
+
+    var reads = 0
+    val first = entry1.getOrElseUpdate(ForgerStakesIndex.ListOfForgersStakesV2) { reads += 1; Seq(1, 2, 3) }
+    val second = entry1.getOrElseUpdate(ForgerStakesIndex.ListOfForgersStakesV2) { reads += 1; Seq(4, 5, 6) }
+    assertEquals("Result must be read once", 1, reads)
+    assertSame(first, second)
+
+    entry1.getOrElseUpdate(ForgerStakesIndex.OrderedForgingStakes(10)) { reads += 1; Seq.empty }
+    entry1.getOrElseUpdate(ForgerStakesIndex.OrderedForgingStakes(11)) { reads += 1; Seq.empty }
+    assertEquals("Different queries must be read separately", 3, reads)
+  }
+
+  @Test
+  def testInherit(): Unit = {
+    val parentRoot = stateRoot("parent")
+    val childRoot = stateRoot("child")
+    val unknownRoot = stateRoot("unknown")
+
+    val parentEntry = ForgerStakesIndex.entry(parentRoot)
+    ForgerStakesIndex.inherit(parentRoot, childRoot)
+    assertSame("Child state root must share the parent entry", parentEntry, ForgerStakesIndex.entry(childRoot))
+
+    // nothing to inherit from a state root not in the index
+    ForgerStakesIndex.inherit(unknownRoot, parentRoot)
+    assertSame(parentEntry, ForgerStakesIndex.entry(parentRoot))
+
+    // the changes are applied to a new entry
+    val changedRoot = stateRoot("changed")
+    parentEntry.getStakes(ForgerStakesIndex.StakesOfStorage(ForgerStakeStorageVersion.VERSION_2))(Vector(stake(1)))
+    ForgerStakesIndex.inherit(parentRoot, changedRoot, Seq(ForgerStakesIndex.StakeAdded(ForgerStakeStorageVersion.VERSION_2, stake(2))))
+    val changedEntry = ForgerStakesIndex.entry(changedRoot)
+    assertNotSame(parentEntry, changedEntry)
+    assertEquals(Vector(stake(1), stake(2)),
+      changedEntry.getStakes(ForgerStakesIndex.StakesOfStorage(ForgerStakeStorageVersion.VERSION_2))(notRead))
+  }
+
+  @Test
+  def testApplyChanges(): Unit = {
+    val V1 = ForgerStakesIndex.StakesOfStorage(ForgerStakeStorageVersion.VERSION_1)
+    val V2 = ForgerStakesIndex.StakesOfStorage(ForgerStakeStorageVersion.VERSION_2)
+    val entry = ForgerStakesIndex.entry(stateRoot("root"))
+    entry.getStakes(V1)(Vector(stake(1), stake(2), stake(3)))
+    entry.getStakes(V2)(Vector(stake(1), stake(2), stake(3)))
+    entry.getOrElseUpdate(ForgerStakesIndex.ListOfForgersStakesV2)(Seq.empty)
+
+    val changedEntry = entry.applyChanges(Seq(
+      ForgerStakesIndex.StakeRemoved(ForgerStakeStorageVersion.VERSION_1, stake(1).stakeId.clone()),
+      ForgerStakesIndex.StakeRemoved(ForgerStakeStorageVersion.VERSION_2, stake(1).stakeId.clone()),
+      ForgerStakesIndex.StakeAdded(ForgerStakeStorageVersion.VERSION_2, stake(4))
+    ))
+
+    // the linked list keeps the order, the array moves the last stake in place of the removed one
+    assertEquals(Vector(stake(2), stake(3)), changedEntry.getStakes(V1)(notRead))
+    assertEquals(Vector(stake(3), stake(2), stake(4)), changedEntry.getStakes(V2)(notRead))
+    assertEquals("Stakes of the parent entry must not change",
+      Vector(stake(1), stake(2), stake(3)), entry.getStakes(V2)(notRead))
+
+    var computed = false
+    changedEntry.getOrElseUpdate(ForgerStakesIndex.ListOfForgersStakesV2) { computed = true; Seq.empty }
+    assertTrue("Results must be computed again", computed)
+    assertSame("No changes must keep the entry", entry, entry.applyChanges(Seq.empty))
+  }
+
+  @Test
+  def testRecordedChanges(): Unit = {
+    val forger1 = ForgerPublicKeys(
+      new PublicKey25519Proposition(BytesUtils.fromHexString("1122334455667788112233445566778811223344556677881122334455667788")),
+      new VrfPublicKey(BytesUtils.fromHexString("d6b775fd4cefc7446236683fdde9d0464bba43cc565fa066b0b3ed1b888b9d1180")))
+    val forger2 = ForgerPublicKeys(
+      new PublicKey25519Proposition(BytesUtils.fromHexString("4455334455667788112233445566778811223344556677881122334455667788")),
+      new VrfPublicKey(BytesUtils.fromHexString("445575fd4cefc7446236683fdde9d0464bba43cc565fa066b0b3ed1b888b9d1180")))
+    val delegator1 = new Address("0xaaa00001230000000000deadbeefaaaa2222de01")
+    val delegator2 = new Address("0xaaa00001230000000000aaaaaaabbbbb2222de02")
+    val amount = ZenWeiConverter.convertZenniesToWei(10)
+    val epoch = 10
+
+    using(new MemoryDatabase()) { db =>
+      val stateDb = new StateDB(db, Hash.ZERO)
+      val setupView = new AccountStateView(metadataStorageView, stateDb, Seq(ForgerStakeV2MsgProcessor), None)
+      createSenderAccount(setupView, BigInteger.TEN, FORGER_STAKE_SMART_CONTRACT_ADDRESS)
+      createSenderAccount(setupView, BigInteger.TEN, FORGER_STAKE_V2_SMART_CONTRACT_ADDRESS)
+      StakeStorage.setActive(setupView)
+
+      val ref = new ForgerStakesIndexRef(Hash.ZERO.toBytes)
+      using(new AccountStateView(metadataStorageView, stateDb, Seq(ForgerStakeV2MsgProcessor), Some(ref))) { view =>
+        // read the stakes in the entry of the state root
+        val rootEntry = ref.entry.get
+        rootEntry.getStakes(ForgerStakesIndex.StakesV2)(StakeStorage.getIndexedForgerStakes(view))
+        rootEntry.getStakes(ForgerStakesIndex.StakesOfStorage(ForgerStakeStorageVersion.VERSION_2))(Vector.empty[AccountForgingStakeInfo])
+
+        def indexedStakesV2: IndexedForgerStakesV2 =
+          ref.entry.get.getStakes(ForgerStakesIndex.StakesV2)(notRead)
+        def indexedStakes: Seq[(String, ForgerStakeData)] =
+          ref.entry.get.getStakes[Vector[AccountForgingStakeInfo]](ForgerStakesIndex.StakesOfStorage(ForgerStakeStorageVersion.VERSION_2))(notRead)
+            .map(stake => (BytesUtils.toHexString(stake.stakeId), stake.forgerStakeData))
+        def storedStakes: Seq[(String, ForgerStakeData)] =
+          ForgerStakeStorageV2.getListOfForgersStakes(view).map(stake => (BytesUtils.toHexString(stake.stakeId), stake.forgerStakeData))
+
+        StakeStorage.addForger(view, forger1.blockSignPublicKey, forger1.vrfPublicKey, 0, Address.ZERO, epoch, delegator1, amount)
+        StakeStorage.addForger(view, forger2.blockSignPublicKey, forger2.vrfPublicKey, 0, Address.ZERO, epoch, delegator2, amount)
+        StakeStorage.addStake(view, forger1.blockSignPublicKey, forger1.vrfPublicKey, epoch, delegator2, amount)
+        StakeStorage.updateForger(view, forger2.blockSignPublicKey, forger2.vrfPublicKey, 10, delegator2)
+        (1 to 3).foreach(i => ForgerStakeStorageV2.addForgerStake(view, stake(i).stakeId, forger1.blockSignPublicKey, forger1.vrfPublicKey, delegator1, amount))
+
+        val revision = view.snapshot
+        StakeStorage.removeStake(view, forger1.blockSignPublicKey, forger1.vrfPublicKey, epoch, delegator1, amount)
+        ForgerStakeStorageV2.removeForgerStake(view, stake(1).stakeId,
+          ForgerStakeStorageV2.findForgerStakeStorageElem(view, stake(1).stakeId).get)
+
+        assertFalse("Recorded changes must not invalidate the index", ref.stakesModified)
+        assertEquals(9, ref.stakesChanges.size)
+        assertEquals(StakeStorage.getIndexedForgerStakes(view), indexedStakesV2)
+        assertEquals(storedStakes, indexedStakes)
+
+        // the stakes served by the index are the ones in the StateDB
+        Seq(1, 2).foreach { pageSize =>
+          Seq(forger1, forger2).foreach(forger => assertEquals(
+            StakeStorage.getPagedForgersStakesByForger(view, forger, 0, pageSize),
+            view.getPagedForgersStakesByForger(forger, 0, pageSize)))
+          Seq(delegator1, delegator2).foreach(delegator => assertEquals(
+            StakeStorage.getPagedForgersStakesByDelegator(view, delegator, 0, pageSize),
+            view.getPagedForgersStakesByDelegator(delegator, 0, pageSize)))
+        }
+        assertEquals(StakeStorage.getForgingStakes(view), indexedStakesV2.getForgingStakes)
+        assertEquals(StakeStorage.getAllForgerStakes(view), indexedStakesV2.getAllForgerStakes)
+        assertEquals(storedStakes.slice(1, 2), view.getPagedListOfForgersStakes(1, 1)._2
+          .map(stake => (BytesUtils.toHexString(stake.stakeId), stake.forgerStakeData)))
+
+        // reverted changes are dropped
+        view.revertToSnapshot(revision)
+        assertFalse(ref.stakesModified)
+        assertEquals(7, ref.stakesChanges.size)
+        assertEquals(StakeStorage.getIndexedForgerStakes(view), indexedStakesV2)
+        assertEquals(storedStakes, indexedStakes)
+
+        // the stakes of the root entry are not changed
+        assertEquals(Vector.empty, rootEntry.getStakes[Vector[AccountForgingStakeInfo]](ForgerStakesIndex.StakesOfStorage(ForgerStakeStorageVersion.VERSION_2))(notRead))
+
+        // reverting to a snapshot not taken by the view invalidates the index
+        view.revertToSnapshot(stateDb.snapshot())
+        assertTrue(ref.stakesModified)
+        assertTrue(ref.entry.isEmpty)
+      }
+    }
+  }
+
+  @Test
+  def testMaxStateRoots(): Unit = {
+    val firstRoot = stateRoot("0")
+    val firstEntry = ForgerStakesIndex.entry(firstRoot)
+    (1 to ForgerStakesIndex.MaxStateRoots).foreach(i => ForgerStakesIndex.entry(stateRoot(i.toString)))
+    assertNotSame("Oldest state root must be evicted", firstEntry, ForgerStakesIndex.entry(firstRoot))
+  }
+
+  @Test
+  def testStakesModified(): Unit = {
+    val key = new Hash(Utils.doubleSHA256Hash("key".getBytes)).toBytes
+    val value = new Hash(Utils.doubleSHA256Hash("value".getBytes)).toBytes
+
+    Seq(FORGER_STAKE_SMART_CONTRACT_ADDRESS, FORGER_STAKE_V2_SMART_CONTRACT_ADDRESS).foreach { stakeAddress =>
+      using(new MemoryDatabase()) { db =>
+        val ref = new ForgerStakesIndexRef(Hash.ZERO.toBytes)
+        using(new AccountStateView(metadataStorageView, new StateDB(db, Hash.ZERO), Seq.empty, Some(ref))) { view =>
+          // prevent the accounts from being "empty"
+          view.increaseNonce(origin)
+          view.increaseNonce(stakeAddress)
+
+          view.updateAccountStorage(origin, key, value)
+          assertFalse("Writes to other accounts must not invalidate the index", ref.stakesModified)
+          assertTrue(ref.entry.isDefined)
+
+          // writes through gas tracked views must be tracked too
+          val gasView = view.getGasTrackedView(new GasPool(BigInteger.valueOf(1000000)))
+          gasView.updateAccountStorage(stakeAddress, key, value)
+          assertTrue("Writes to stake contract must invalidate the index", ref.stakesModified)
+          assertTrue(ref.entry.isEmpty)
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package io.horizen.account.state
+
+import io.horizen.evm.Address
+import org.junit.Assert._
+import org.junit.Test
+import org.mockito.ArgumentMatchers.{any, anyInt}
+import org.mockito.Mockito.{never, verify, when}
+import org.scalatestplus.junit.JUnitSuite
+import org.scalatestplus.mockito.MockitoSugar
+
+import java.math.BigInteger
+import java.util.Optional
+
+class MessageProcessorsTableTest extends JUnitSuite with MockitoSugar {
+
+  private val address1 = new Address("0x0000000000000000000011111111111111111111")
+  private val address2 = new Address("0x0000000000000000000022222222222222222222")
+  private val otherAddress = new Address("0x0000000000000000000033333333333333333333")
+
+  private def boundProcessor(address: Address): MessageProcessor = {
+    val processor = mock[MessageProcessor]
+    when(processor.processedAddress()).thenReturn(Optional.of(address))
+    when(processor.canProcess(any(), any(), anyInt())).thenAnswer(answer =>
+      answer.getArgument[Invocation](0).callee.contains(address))
+    processor
+  }
+
+  private def invocation(callee: Option[Address]): Invocation =
+    Invocation(Address.ZERO, callee, BigInteger.ZERO, Array.emptyByteArray, new GasPool(BigInteger.ONE), readOnly = false)
+
+  @Test
+  def testCandidates(): Unit = {
+    val bound1 = boundProcessor(address1)
+    val unbound1 = mock[MessageProcessor]
+    val bound2 = boundProcessor(address2)
+    val unbound2 = mock[MessageProcessor]
+    val table = new MessageProcessorsTable(Seq(bound1, unbound1, bound2, unbound2))
+
+    assertEquals(Seq(bound1, unbound1, unbound2), table.candidates(Some(address1)))
+    assertEquals(Seq(unbound1, bound2, unbound2), table.candidates(Some(address2)))
+    assertEquals(Seq(unbound1, unbound2), table.candidates(Some(otherAddress)))
+    // contract deployment
+    assertEquals(Seq(unbound1, unbound2), table.candidates(None))
+  }
+
+  @Test
+  def testFind(): Unit = {
+    val view = mock[BaseAccountStateView]
+    val bound1 = boundProcessor(address1)
+    val bound2 = boundProcessor(address2)
+    // e.g. the Eoa processor
+    val unbound = mock[MessageProcessor]
+    when(unbound.canProcess(any(), any(), anyInt())).thenReturn(true)
+    val table = new MessageProcessorsTable(Seq(bound1, bound2, unbound))
+
+    assertEquals(Some(bound2), table.find(invocation(Some(address2)), view, 0))
+    verify(bound1, never()).canProcess(any(), any(), anyInt())
+    verify(unbound, never()).canProcess(any(), any(), anyInt())
+
+    // processors not bound to an address are used as fallback
+    assertEquals(Some(unbound), table.find(invocation(Some(otherAddress)), view, 0))
+    verify(bound1, never()).canProcess(any(), any(), anyInt())
+
+    // same processor selected by a linear scan
+    Seq(Some(address1), Some(address2), Some(otherAddress), None).map(invocation).foreach(inv =>
+      assertEquals(Seq(bound1, bound2, unbound).find(_.canProcess(inv, view, 0)), table.find(inv, view, 0))
+    )
+  }
+}
@@ -3,6 +3,7 @@ package io.horizen.account.storage
 import com.google.common.primitives.Ints
 import io.horizen.SidechainTypes
 import io.horizen.account.proposition.AddressProposition
+import io.horizen.account.state.ForgerBlockCountersSerializer
 import io.horizen.account.state.receipt.{EthereumReceipt, ReceiptFixture}
 import io.horizen.account.storage.AccountStateMetadataStorageView.DEFAULT_ACCOUNT_STATE_ROOT
 import io.horizen.account.utils.{AccountBlockFeeInfo, ForgerIdentifier}
@@ -10,16 +11,18 @@ import io.horizen.block.{WithdrawalEpochCertificate, WithdrawalEpochCertificateF
 import io.horizen.consensus.{ConsensusEpochNumber, intToConsensusEpochNumber}
 import io.horizen.fixtures.{SecretFixture, StoreFixture, TransactionFixture}
 import io.horizen.storage.Storage
-import io.horizen.utils.{ByteArrayWrapper, BytesUtils, WithdrawalEpochInfo}
+import io.horizen.utils.{ByteArrayWrapper, BytesUtils, WithdrawalEpochInfo, Pair => JPair}
 import org.junit.Assert._
 import org.junit._
 import org.mockito.Mockito.when
+import org.mockito.{ArgumentCaptor, ArgumentMatchers, Mockito}
 import org.scalatestplus.junit.JUnitSuite
 import org.scalatestplus.mockito.MockitoSugar
 import sparkz.core._
 
 import java.math.BigInteger
-import java.util.Optional
+import java.util.{Optional, ArrayList => JArrayList, List => JList}
+import scala.collection.JavaConverters._
 import scala.collection.mutable.{ArrayBuffer, ListBuffer}
 import scala.io.Source
 import scala.util.Random
@@ -205,6 +208,77 @@ class AccountStateMetadataStorageViewTest
     assertTrue(oldCertToBeRemoved.nonEmpty)
   }
 
+  @Test
+  def testForgerBlockCounters(): Unit = {
+    val storage = Mockito.spy(getStorage())
+    val metadataStorage = new AccountStateMetadataStorage(storage)
+    val forgers = (0 until 300).map(index =>
+      new ForgerIdentifier(new AddressProposition(BytesUtils.fromHexString(f"$index%040x"))))
+
+    val firstView = metadataStorage.getView
+    forgers.foreach(firstView.updateForgerBlockCounter)
+    firstView.updateForgerBlockCounter(forgers.head)
+    firstView.updateAccountStateRoot(getRandomAccountStateRoot)
+    firstView.commit(bytesToVersion(getVersion.data()))
+
+    val expectedCounters = forgers.map(_ -> 1L).toMap.updated(forgers.head, 2L)
+    assertEquals("Wrong forger block counters in storage", expectedCounters, metadataStorage.getForgerBlockCounters)
+
+    // A block writes only the counter of its forger
+    Mockito.clearInvocations(storage)
+    val view = metadataStorage.getView
+    view.updateForgerBlockCounter(forgers(1))
+    view.updateAccountStateRoot(getRandomAccountStateRoot)
+    view.commit(bytesToVersion(getVersion.data()))
+
+    val updateCaptor: ArgumentCaptor[JList[JPair[ByteArrayWrapper, ByteArrayWrapper]]] =
+      ArgumentCaptor.forClass(classOf[JList[JPair[ByteArrayWrapper, ByteArrayWrapper]]])
+    Mockito.verify(storage).update(ArgumentMatchers.any[ByteArrayWrapper](), updateCaptor.capture(), ArgumentMatchers.any())
+    val counterKeys = forgers.map(view.getForgerBlockCounterKey).toSet ++
+      (0 until forgers.size).map(view.getForgerBlockCountersIndexKey) + view.getForgerBlockCountersSizeKey
+    val countersUpdate = updateCaptor.getValue.asScala.filter(entry => counterKeys.contains(entry.getKey))
+    assertEquals("Only the counter of the block forger expected to be written", 1, countersUpdate.size)
+    val writtenBytes = countersUpdate.map(entry => entry.getKey.data.length + entry.getValue.data.length).sum
+    val singleMapBytes = ForgerBlockCountersSerializer.toBytes(metadataStorage.getForgerBlockCounters).length
+    assertTrue(s"Written counters bytes $writtenBytes expected to be much less than the whole counters map $singleMapBytes",
+      writtenBytes * 100 < singleMapBytes)
+    assertEquals("Wrong forger block counter in storage", 2L, metadataStorage.getForgerBlockCounters(forgers(1)))
+
+    // Reset and new counters in the same block
+    val resetView = metadataStorage.getView
+    resetView.resetForgerBlockCounters()
+    resetView.updateForgerBlockCounter(forgers(2))
+    assertEquals("Wrong forger block counters in view", Map(forgers(2) -> 1L), resetView.getForgerBlockCounters)
+    resetView.updateAccountStateRoot(getRandomAccountStateRoot)
+    resetView.commit(bytesToVersion(getVersion.data()))
+    assertEquals("Wrong forger block counters in storage after reset", Map(forgers(2) -> 1L), metadataStorage.getForgerBlockCounters)
+    assertFalse("Reset counter expected to be removed", storage.get(resetView.getForgerBlockCounterKey(forgers(1))).isPresent)
+  }
+
+  @Test
+  def testLegacyForgerBlockCounters(): Unit = {
+    val storage = getStorage()
+    val metadataStorage = new AccountStateMetadataStorage(storage)
+    val forgers = (0 until 3).map(index =>
+      new ForgerIdentifier(new AddressProposition(BytesUtils.fromHexString(f"$index%040x"))))
+    val legacyCounters = forgers.map(_ -> 3L).toMap
+
+    // Counters stored as a single map by older versions
+    val legacyKey = metadataStorage.getView.getForgerBlockCountersKey
+    val legacyUpdate = new JArrayList[JPair[ByteArrayWrapper, ByteArrayWrapper]]()
+    legacyUpdate.add(new JPair(legacyKey, new ByteArrayWrapper(ForgerBlockCountersSerializer.toBytes(legacyCounters))))
+    storage.update(getVersion, legacyUpdate, new JArrayList[ByteArrayWrapper]())
+    assertEquals("Wrong legacy forger block counters", legacyCounters, metadataStorage.getForgerBlockCounters)
+
+    val view = metadataStorage.getView
+    view.updateForgerBlockCounter(forgers.head)
+    view.updateAccountStateRoot(getRandomAccountStateRoot)
+    view.commit(bytesToVersion(getVersion.data()))
+
+    assertEquals("Wrong forger block counters after migration", legacyCounters.updated(forgers.head, 4L), metadataStorage.getForgerBlockCounters)
+    assertFalse("Legacy forger block counters expected to be removed", storage.get(legacyKey).isPresent)
+  }
+
   def generateCertificateWithEpochNumber(epochNum: Int): WithdrawalEpochCertificate = {
     val sourceCertHex: String = Source.fromResource("cert_no_bts").getLines().next()
     val newCertBytes: ArrayBuffer[Byte] = ArrayBuffer[Byte]()
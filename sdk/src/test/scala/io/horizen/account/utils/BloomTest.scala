@@ -106,4 +106,51 @@ class BloomTest
 
     assertArrayEquals(data, bloomLogs.getBytes)
   }
+
+  @Test
+  def bloomFilterMaskTest(): Unit = {
+    val values = (0 until 100).map(i => s"xxxxxxxxxx data $i yyyyyyyyyyyyyy".getBytes(StandardCharsets.UTF_8))
+    val bloomLog = new Bloom()
+    values.take(50).foreach(value => bloomLog.add(BloomMask(value)))
+
+    val bloomLog2 = new Bloom()
+    values.take(50).foreach(bloomLog2.add)
+    assertEquals("adding masks should match adding data", bloomLog2, bloomLog)
+
+    values.foreach(value =>
+      assertEquals("testing a mask should match testing data", bloomLog.test(value), bloomLog.test(BloomMask(value))))
+    values.take(50).foreach(value => assertTrue(bloomLog.test(BloomMask(value))))
+  }
+
+  @Test
+  def bloomFilterAllBitsTest(): Unit = {
+    val data = BytesUtils.fromHexString("ddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef")
+    // only one of the three bits of data, see bloomFilterTest
+    val bytes = Array.fill[Byte](Bloom.BLOOM_BYTE_LENGTH)(0)
+    bytes(75) = 0x8
+    val bloomLog = new Bloom(bytes)
+
+    assertFalse("data should be present only if all its bits are set", bloomLog.test(data))
+    bytes(195) = 0x2
+    bytes(123) = 0x10
+    assertTrue(new Bloom(bytes).test(data))
+  }
+
+  @Test
+  def bloomFilterOrTest(): Unit = {
+    val bloomLog1 = new Bloom()
+    bloomLog1.add("test".getBytes(StandardCharsets.UTF_8))
+    val bloomLog2 = new Bloom()
+    bloomLog2.add("hallo".getBytes(StandardCharsets.UTF_8))
+    val bytes1 = bloomLog1.getBytes
+
+    val union = bloomLog1.or(bloomLog2)
+    assertArrayEquals("or should not modify the filter", bytes1, bloomLog1.getBytes)
+
+    bloomLog1.merge(bloomLog2)
+    assertEquals("or should match merge", bloomLog1, union)
+    assertEquals(bloomLog1.hashCode(), union.hashCode())
+    assertTrue(union.test("test".getBytes(StandardCharsets.UTF_8)))
+    assertTrue(union.test("hallo".getBytes(StandardCharsets.UTF_8)))
+  }
 }
@@ -6,6 +6,7 @@ import io.horizen.utils.BytesUtils
 import org.bouncycastle.crypto.digests.Blake2bDigest
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.{assertFalse, assertSame, assertTrue}
 import org.junit.Test
 import org.scalatestplus.junit.JUnitSuite
 
@@ -359,4 +360,49 @@ class EquihashTest extends JUnitSuite {
     solution = Equihash.getMinimalFromIndices(indices, biLen)
     assertEquals("Solution expected to be Invalid.", false, equihash.checkEquihashSolution(wrongDigest, solution))
   }
+
+  @Test
+  def EquihashTest_CheckEquihashSolutionForMsgRange(): Unit = {
+    val N: Int = 96
+    val K: Int = 5
+    val msg: Array[Byte] = "Equihash is an asymmetric PoW based on the Generalised Birthday problem.".getBytes(StandardCharsets.UTF_8)
+    val nonce: Array[Byte] = new Array[Byte](32)
+    nonce(0) = 1
+    val equihash: Equihash = Equihash(N, K)
+
+    val indices: Array[Int] = Array(2261, 15185, 36112, 104243, 23779, 118390, 118332, 130041, 32642, 69878,
+      76925, 80080, 45858, 116805, 92842, 111026, 15972, 115059, 85191, 90330, 68190, 122819,
+      81830, 91132, 23460, 49807, 52426, 80391, 69567, 114474, 104973, 122568)
+    val solution: Array[Byte] = Equihash.getMinimalFromIndices(indices, N / (K + 1))
+
+    // Test 1: msg with nonce is a part of a bigger array
+    val bytes: Array[Byte] = Bytes.concat(BytesUtils.fromHexString("aabbcc"), msg, nonce, BytesUtils.fromHexString("ddeeff"))
+    assertTrue("Solution expected to be Valid.", equihash.checkEquihashSolution(bytes, 3, msg.length + nonce.length, solution))
+    assertTrue("Solution expected to be Valid.", equihash.checkEquihashSolution(Bytes.concat(msg, nonce), solution))
+
+    // Test 2: range doesn't cover the nonce
+    assertFalse("Solution expected to be Invalid.", equihash.checkEquihashSolution(bytes, 3, msg.length, solution))
+
+    // Test 3: verifier is reused and gives the same results after invalid solution check
+    assertTrue("Solution expected to be Valid.", equihash.checkEquihashSolution(bytes, 3, msg.length + nonce.length, solution))
+  }
+
+  @Test
+  def EquihashTest_VerifiedSolutionsCache(): Unit = {
+    val equihash: Equihash = Equihash(48, 5)
+    assertSame("The same Equihash instance expected for the same params.", equihash, Equihash(48, 5))
+
+    val id: Array[Byte] = BytesUtils.fromHexString("0000000058f40e90e203ceae655ae4d8a5c27d72732698e0c7959700c2787a01")
+    assertFalse("Solution expected to be not verified.", equihash.isSolutionVerified(id))
+
+    equihash.markSolutionVerified(id)
+    assertTrue("Solution expected to be verified.", equihash.isSolutionVerified(id))
+    assertFalse("Solution expected to be not verified for another params.", Equihash(200, 9).isSolutionVerified(id))
+
+    // Cache is bounded: the oldest entry must be evicted
+    for (i <- 0 until Equihash.VerifiedSolutionsCacheSize)
+      equihash.markSolutionVerified(Ints.toByteArray(i))
+    assertFalse("Solution expected to be evicted.", equihash.isSolutionVerified(id))
+    assertTrue("Solution expected to be verified.", equihash.isSolutionVerified(Ints.toByteArray(Equihash.VerifiedSolutionsCacheSize - 1)))
+  }
 }
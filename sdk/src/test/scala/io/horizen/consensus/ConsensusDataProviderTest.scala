@@ -348,4 +348,122 @@ class ConsensusDataProviderTest extends CompanionsFixture{
     assertNotEquals(consensusInfoForEndTenEpoch.nonceConsensusEpochInfo, consensusInfoForEndTenEpoch2.nonceConsensusEpochInfo)
   }
 
+  @Test
+  def testNonceAccumulator(): Unit = {
+    val slotsPresentation: List[List[Int]] = List(
+      List(1, 1, 0, 1, 1, 1, 0, 1, 1, 1), //2 epoch
+    )
+
+    val genesisBlockId = bytesToId(Utils.doubleSHA256Hash("genesis".getBytes(StandardCharsets.UTF_8)))
+    val genesisBlockTimestamp = 1000000
+    val networkParams = new TestNetParams(
+      sidechainGenesisBlockId = genesisBlockId,
+      sidechainGenesisBlockTimestamp = genesisBlockTimestamp,
+    ) {override val sidechainGenesisBlockParentId: ModifierId = bytesToId(Utils.doubleSHA256Hash("genesisParent".getBytes(StandardCharsets.UTF_8)))}
+
+    ConsensusParamsUtil.setConsensusParamsForkActivation(Seq(
+      ConsensusParamsForkInfo(startFork0, new ConsensusParamsFork(slotsInEpoch, secondsInSlot))
+    ))
+    ConsensusParamsUtil.setConsensusParamsForkTimestampActivation(Seq(
+      TimeToEpochUtils.virtualGenesisBlockTimeStamp(networkParams.sidechainGenesisBlockTimestamp)
+    ))
+
+    // accumulators of the first provider are calculated at the epoch switch, the second one folds the blocks as appended
+    val coldDataProvider = new TestedConsensusDataProvider(slotsPresentation, networkParams)
+    val warmDataProvider = new TestedConsensusDataProvider(slotsPresentation, networkParams)
+    warmDataProvider.blockIdAndInfosPerEpoch.tail.flatten.foreach { case (id, info) => warmDataProvider.appendToNonceAccumulator(id, info) }
+
+    warmDataProvider.blockIdAndInfosPerEpoch.tail.foreach { epochBlocks =>
+      val (lastBlockId, lastBlockInfo) = epochBlocks.last
+      // all the blocks of the epoch, newest first
+      assertEquals(epochBlocks.reverse.map(_._2.vrfOutputOpt), warmDataProvider.getNonceAccumulator(lastBlockId, lastBlockInfo).vrfOutputs.map(_._1))
+      assertEquals(coldDataProvider.getNonceAccumulator(lastBlockId, lastBlockInfo), warmDataProvider.getNonceAccumulator(lastBlockId, lastBlockInfo))
+
+      val epochId = blockIdToEpochId(lastBlockId)
+      assertEquals(coldDataProvider.calculateNonceForEpoch(epochId), warmDataProvider.calculateNonceForEpoch(epochId))
+    }
+
+    // the accumulator of a block in the middle of the epoch doesn't contain the following blocks
+    val (middleBlockId, middleBlockInfo) = coldDataProvider.blockIdAndInfosPerEpoch(1)(3)
+    assertEquals(4, coldDataProvider.getNonceAccumulator(middleBlockId, middleBlockInfo).vrfOutputs.size)
+  }
+
+  @Test
+  def testNonceAccumulatorOnForks(): Unit = {
+    val slotsPresentation: List[List[Int]] = List(
+      List(1, 1, 1, 1, 0, 0, 0, 0, 0, 0), //2 epoch
+    )
+
+    val genesisBlockId = bytesToId(Utils.doubleSHA256Hash("genesis".getBytes(StandardCharsets.UTF_8)))
+    val genesisBlockTimestamp = 1000000
+    val networkParams = new TestNetParams(
+      sidechainGenesisBlockId = genesisBlockId,
+      sidechainGenesisBlockTimestamp = genesisBlockTimestamp,
+    ) {override val sidechainGenesisBlockParentId: ModifierId = bytesToId(Utils.doubleSHA256Hash("genesisParent".getBytes(StandardCharsets.UTF_8)))}
+
+    ConsensusParamsUtil.setConsensusParamsForkActivation(Seq(
+      ConsensusParamsForkInfo(startFork0, new ConsensusParamsFork(slotsInEpoch, secondsInSlot))
+    ))
+    ConsensusParamsUtil.setConsensusParamsForkTimestampActivation(Seq(
+      TimeToEpochUtils.virtualGenesisBlockTimeStamp(networkParams.sidechainGenesisBlockTimestamp)
+    ))
+
+    val dataProvider = new TestedConsensusDataProvider(slotsPresentation, networkParams)
+    val mainBranch = dataProvider.blockIdAndInfosPerEpoch(1)
+    val lastBlockInPreviousEpoch = mainBranch.head._2.lastBlockInPreviousConsensusEpoch
+
+    // blocks of the epoch with their own vrf output, to tell the branches apart
+    def generateBranch(parentId: ModifierId, slots: Seq[Int], name: String): Seq[(ModifierId, SidechainBlockInfo)] = {
+      slots.scanLeft((parentId, null: SidechainBlockInfo)) { case ((parent, _), slot) =>
+        val id = bytesToId(Utils.doubleSHA256Hash(s"$name$slot".getBytes(StandardCharsets.UTF_8)))
+        val timestamp = TimeToEpochUtils.getTimeStampForEpochAndSlot(genesisBlockTimestamp, intToConsensusEpochNumber(2), intToConsensusSlotNumber(slot))
+        val vrfOutput = new VrfOutput(Utils.doubleSHA256Hash(s"${name}Vrf$slot".getBytes(StandardCharsets.UTF_8)))
+        (id, new SidechainBlockInfo(0, 0, parent, timestamp, ModifierSemanticValidity.Valid, Seq(), Seq(), dummyWithdrawalEpochInfo, Option(vrfOutput), lastBlockInPreviousEpoch))
+      }.tail
+    }
+    // fork from the second block of the main branch
+    val forkBranch = generateBranch(mainBranch(1)._1, Seq(5, 6, 8), "fork")
+    // continuation of the main branch, applied after the fork is rolled back
+    val mainBranchContinuation = generateBranch(mainBranch.last._1, Seq(7, 9), "main")
+
+    def addBlocks(provider: TestedConsensusDataProvider, blocks: Seq[(ModifierId, SidechainBlockInfo)]): Unit =
+      blocks.foreach { case (id, info) => provider.storage.addBlockInfo(id, info) }
+
+    // blocks appended to history in the order they come: main branch, then the fork becomes the active chain,
+    // then the fork is rolled back and the main branch is continued
+    def applyBlocks(blocks: Seq[(ModifierId, SidechainBlockInfo)]): Unit = {
+      addBlocks(dataProvider, blocks)
+      blocks.foreach { case (id, info) => dataProvider.appendToNonceAccumulator(id, info) }
+    }
+    applyBlocks(mainBranch)
+    applyBlocks(forkBranch)
+    val forkTip = forkBranch.last
+    val forkAccumulator = dataProvider.getNonceAccumulator(forkTip._1, forkTip._2)
+    applyBlocks(mainBranchContinuation)
+
+    // expected accumulator recalculated from scratch, walking the block infos back to the first block of the epoch
+    def recalculatedAccumulator(blockId: ModifierId): NonceAccumulator = {
+      val outputs = Iterator.iterate(blockId)(id => dataProvider.storage.blockInfoById(id).parentId)
+        .takeWhile(_ != lastBlockInPreviousEpoch)
+        .map { id =>
+          val info = dataProvider.storage.blockInfoById(id)
+          (info.vrfOutputOpt, TimeToEpochUtils.timeStampToSlotNumber(genesisBlockTimestamp, info.timestamp))
+        }
+      NonceAccumulator(outputs.toList)
+    }
+
+    Seq(forkTip, mainBranchContinuation.last).foreach { case (tipId, tipInfo) =>
+      val accumulator = dataProvider.getNonceAccumulator(tipId, tipInfo)
+      assertEquals(recalculatedAccumulator(tipId), accumulator)
+
+      // same nonce of a provider that never saw the other branch nor the rollback
+      val coldDataProvider = new TestedConsensusDataProvider(slotsPresentation, networkParams)
+      addBlocks(coldDataProvider, forkBranch ++ mainBranchContinuation)
+      val epochId = blockIdToEpochId(tipId)
+      assertEquals(coldDataProvider.calculateNonceForEpoch(epochId), dataProvider.calculateNonceForEpoch(epochId))
+    }
+    assertEquals("Fork accumulator must not change after the rollback.", forkAccumulator, dataProvider.getNonceAccumulator(forkTip._1, forkTip._2))
+    assertEquals(Seq(8, 6, 5, 2, 1), forkAccumulator.vrfOutputs.map(_._2))
+    assertEquals(Seq(9, 7, 4, 3, 2, 1), dataProvider.getNonceAccumulator(mainBranchContinuation.last._1, mainBranchContinuation.last._2).vrfOutputs.map(_._2))
+  }
 }
@@ -0,0 +1,69 @@
+package io.horizen.consensus
+
+import io.horizen.fork.{ForkManagerUtil, SimpleForkConfigurator}
+import io.horizen.utils.{ByteArrayWrapper, Utils}
+import io.horizen.vrf.VrfGeneratedDataProvider
+import org.junit.Assert._
+import org.junit.{Before, Test}
+import org.scalatestplus.junit.JUnitSuite
+
+import java.nio.charset.StandardCharsets
+
+class VrfOutputCacheTest extends JUnitSuite {
+
+  @Before
+  def init(): Unit = {
+    ForkManagerUtil.initializeForkManager(new SimpleForkConfigurator(), "regtest")
+  }
+
+  private def key(seed: Int): ByteArrayWrapper =
+    new ByteArrayWrapper(Utils.doubleSHA256Hash(seed.toString.getBytes(StandardCharsets.UTF_8)))
+
+  @Test
+  def testRetainedEpochs(): Unit = {
+    val cache = new VrfOutputCache
+    val vrfOutput = VrfGeneratedDataProvider.getVrfOutput(234)
+
+    cache.put(intToConsensusEpochNumber(10), key(1), vrfOutput, 2)
+    cache.put(intToConsensusEpochNumber(10), key(2), vrfOutput, 2)
+    cache.put(intToConsensusEpochNumber(11), key(3), vrfOutput, 2)
+    assertEquals(2, cache.epochsCount)
+    assertEquals(Some(vrfOutput), cache.get(intToConsensusEpochNumber(10), key(1)))
+    assertEquals(None, cache.get(intToConsensusEpochNumber(11), key(1)))
+
+    // epoch 10 leaves the window
+    cache.put(intToConsensusEpochNumber(12), key(4), vrfOutput, 2)
+    assertEquals(2, cache.epochsCount)
+    assertEquals(None, cache.get(intToConsensusEpochNumber(10), key(1)))
+    assertEquals(Some(vrfOutput), cache.get(intToConsensusEpochNumber(11), key(3)))
+
+    // epochs older than the window are not cached at all
+    cache.put(intToConsensusEpochNumber(5), key(5), vrfOutput, 2)
+    assertEquals(None, cache.get(intToConsensusEpochNumber(5), key(5)))
+    assertEquals(2, cache.size)
+  }
+
+  @Test
+  def testEpochCapacity(): Unit = {
+    val cache = new VrfOutputCache
+    val vrfOutput = VrfGeneratedDataProvider.getVrfOutput(234)
+    val slotsInEpoch = ConsensusParamsUtil.getConsensusSlotsPerEpoch(10)
+
+    // a whole epoch of blocks fits
+    (1 to slotsInEpoch).foreach(slot => cache.put(intToConsensusEpochNumber(10), key(slot), vrfOutput, 2))
+    assertEquals(slotsInEpoch, cache.size)
+    assertTrue((1 to slotsInEpoch).forall(slot => cache.get(intToConsensusEpochNumber(10), key(slot)).isDefined))
+
+    cache.put(intToConsensusEpochNumber(10), key(slotsInEpoch + 1), vrfOutput, 2)
+    assertEquals(slotsInEpoch, cache.size)
+    assertEquals(None, cache.get(intToConsensusEpochNumber(10), key(1)))
+  }
+
+  @Test
+  def testRetainedEpochsFromParams(): Unit = {
+    assertEquals(2, VrfOutputCache.retainedEpochs(100, 720))
+    assertEquals(2, VrfOutputCache.retainedEpochs(720, 720))
+    assertEquals(3, VrfOutputCache.retainedEpochs(721, 720))
+    assertEquals(11, VrfOutputCache.retainedEpochs(100, 10))
+  }
+}
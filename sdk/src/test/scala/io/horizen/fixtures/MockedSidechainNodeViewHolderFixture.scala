@@ -3,6 +3,7 @@ package io.horizen.fixtures
 import akka.actor.{ActorRef, ActorSystem, Props}
 import akka.testkit.TestActorRef
 import io.horizen._
+import io.horizen.params.NetworkParams
 import io.horizen.utxo.SidechainNodeViewHolder
 import io.horizen.utxo.block.SidechainBlock
 import io.horizen.utxo.history.SidechainHistory
@@ -18,8 +19,9 @@ class MockedSidechainNodeViewHolder(sidechainSettings: SidechainSettings,
                                     history: SidechainHistory,
                                     state: SidechainState,
                                     wallet: SidechainWallet,
-                                    var mempool: SidechainMemoryPool)
-  extends SidechainNodeViewHolder(sidechainSettings, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null ) {
+                                    var mempool: SidechainMemoryPool,
+                                    params: NetworkParams = null)
+  extends SidechainNodeViewHolder(sidechainSettings, null, null, null, null, null, null, null, null, null, null, null, params, null, null, null, null ) {
 
   override def dumpStorages: Unit = {}
 
@@ -68,6 +70,10 @@ trait MockedSidechainNodeViewHolderFixture extends MockitoSugar {
       .thenAnswer(_ => {
         EvmStateDump(false)
       })
+    Mockito.when(sidechainSettings.bulkSync)
+      .thenAnswer(_ => {
+        BulkSyncSettings()
+      })
     actorSystem.actorOf(Props(new MockedSidechainNodeViewHolder(sidechainSettings, history, state, wallet, mempool)))
   }
 
@@ -97,6 +103,10 @@ trait MockedSidechainNodeViewHolderFixture extends MockitoSugar {
       .thenAnswer(answer => {
         10000000L
       })
+    Mockito.when(sidechainSettings.bulkSync)
+      .thenAnswer(_ => {
+        BulkSyncSettings()
+      })
     TestActorRef(Props(new MockedSidechainNodeViewHolder(sidechainSettings, history, state, wallet, mempool)))
   }
 }
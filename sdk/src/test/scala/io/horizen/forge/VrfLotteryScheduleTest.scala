@@ -0,0 +1,82 @@
+package io.horizen.forge
+
+import io.horizen.consensus.{NonceConsensusEpochInfo, buildVrfMessage, byteArrayToConsensusNonce, intToConsensusEpochNumber, intToConsensusSlotNumber}
+import io.horizen.secret.{VrfKeyGenerator, VrfSecretKey}
+import org.junit.Assert._
+import org.junit.Test
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.{never, spy, times, verify}
+import org.scalatestplus.junit.JUnitSuite
+import org.scalatestplus.mockito.MockitoSugar
+
+import java.nio.charset.StandardCharsets
+import scala.concurrent.ExecutionContext
+
+class VrfLotteryScheduleTest extends JUnitSuite with MockitoSugar {
+
+  // runs the proving jobs in the calling thread
+  private val syncContext: ExecutionContext = ExecutionContext.fromExecutor((command: Runnable) => command.run())
+
+  private val slotsInEpoch = 5
+
+  private def vrfSecret(seed: String): VrfSecretKey =
+    spy(VrfKeyGenerator.getInstance().generateSecret(seed.getBytes(StandardCharsets.UTF_8)))
+
+  private def nonce(seed: Byte): NonceConsensusEpochInfo =
+    NonceConsensusEpochInfo(byteArrayToConsensusNonce(Array.fill(8)(seed)))
+
+  @Test
+  def testScheduledSlotsAreNotProvedAgain(): Unit = {
+    val schedule = new VrfLotterySchedule(syncContext)
+    val secret1 = vrfSecret("secret1")
+    val secret2 = vrfSecret("secret2")
+    val epochNonce = nonce(1)
+
+    schedule.schedule(intToConsensusEpochNumber(10), intToConsensusSlotNumber(2), slotsInEpoch, epochNonce, Seq(secret1, secret2, secret1))
+    // slots from 3 to 5, the same key is proved once
+    assertEquals(6, schedule.size)
+    verify(secret1, times(3)).prove(any())
+
+    // scheduling the same epoch again does nothing
+    schedule.schedule(intToConsensusEpochNumber(10), intToConsensusSlotNumber(3), slotsInEpoch, epochNonce, Seq(secret1))
+    verify(secret1, times(3)).prove(any())
+
+    val vrfMessage = buildVrfMessage(intToConsensusSlotNumber(4), epochNonce)
+    val scheduled = schedule.prove(secret2, vrfMessage)
+    verify(secret2, times(3)).prove(any())
+    assertTrue("Scheduled proof must be valid", scheduled.getKey.isValid(secret2.publicImage(), vrfMessage))
+    assertEquals(secret2.prove(vrfMessage).getValue, scheduled.getValue)
+  }
+
+  @Test
+  def testNotScheduledSlot(): Unit = {
+    val schedule = new VrfLotterySchedule(syncContext)
+    val secret = vrfSecret("secret")
+
+    schedule.schedule(intToConsensusEpochNumber(10), intToConsensusSlotNumber(slotsInEpoch), slotsInEpoch, nonce(1), Seq(secret))
+    verify(secret, never()).prove(any())
+
+    // current slot proved on demand, once
+    val vrfMessage = buildVrfMessage(intToConsensusSlotNumber(slotsInEpoch), nonce(1))
+    schedule.prove(secret, vrfMessage)
+    schedule.prove(secret, vrfMessage)
+    verify(secret, times(1)).prove(any())
+  }
+
+  @Test
+  def testNextEpochDropsPreviousProofs(): Unit = {
+    val schedule = new VrfLotterySchedule(syncContext)
+    val secret = vrfSecret("secret")
+
+    schedule.schedule(intToConsensusEpochNumber(10), intToConsensusSlotNumber(1), slotsInEpoch, nonce(1), Seq(secret))
+    assertEquals(4, schedule.size)
+
+    schedule.schedule(intToConsensusEpochNumber(11), intToConsensusSlotNumber(3), slotsInEpoch, nonce(2), Seq(secret))
+    assertEquals(2, schedule.size)
+
+    // a different nonce for the same epoch (e.g. forging on another branch) is scheduled again
+    schedule.schedule(intToConsensusEpochNumber(11), intToConsensusSlotNumber(3), slotsInEpoch, nonce(3), Seq(secret))
+    assertEquals(2, schedule.size)
+    verify(secret, times(8)).prove(any())
+  }
+}
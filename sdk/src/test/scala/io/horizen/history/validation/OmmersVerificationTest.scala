@@ -0,0 +1,72 @@
+package io.horizen.history.validation
+
+import io.horizen.block.Ommer
+import io.horizen.fixtures.SidechainBlockFixture
+import io.horizen.params.{MainNetParams, NetworkParams, RegTestParams}
+import io.horizen.utxo.block.SidechainBlockHeader
+import org.junit.Assert.{assertEquals, assertFalse, assertTrue}
+import org.junit.Test
+import org.mockito.{ArgumentMatchers, Mockito}
+import org.scalatestplus.junit.JUnitSuite
+import org.scalatestplus.mockito.MockitoSugar
+
+import scala.util.{Failure, Random, Success, Try}
+
+class OmmersVerificationTest extends JUnitSuite with MockitoSugar with SidechainBlockFixture {
+
+  private val random = new Random(42)
+
+  private def getMockedOmmer(verification: Try[Unit]): Ommer[SidechainBlockHeader] = {
+    val header = mock[SidechainBlockHeader]
+    val headerId = getRandomBlockId(random.nextLong())
+    Mockito.when(header.id).thenReturn(headerId)
+    val ommer = mock[Ommer[SidechainBlockHeader]]
+    Mockito.when(ommer.header).thenReturn(header)
+    Mockito.when(ommer.verifyData(ArgumentMatchers.any[NetworkParams]())).thenReturn(verification)
+    ommer
+  }
+
+  @Test
+  def runAllResultsOrder(): Unit = {
+    val exception = new IllegalStateException("task failed")
+    val tasks: Seq[() => Int] = (0 until 10).map(i => () => if (i == 5) throw exception else i)
+
+    val results = OmmersVerification.runAll(tasks)
+    assertEquals("Different number of results expected", tasks.size, results.size)
+    results.zipWithIndex.foreach {
+      case (Failure(e), 5) => assertEquals("Different failure expected", exception, e)
+      case (result, i) => assertEquals("Different result expected", Success(i), result)
+    }
+  }
+
+  @Test
+  def verifiedOmmersAreNotVerifiedAgain(): Unit = {
+    val params = RegTestParams()
+    val ommers = Seq(getMockedOmmer(Success(())), getMockedOmmer(Success(())))
+
+    OmmersVerification.verifyData(ommers, params)
+    ommers.foreach(ommer => assertTrue("Ommer expected to be verified", OmmersVerification.isVerified(ommer.header.id, params)))
+
+    OmmersVerification.verifyData(ommers, params)
+    ommers.foreach(ommer => Mockito.verify(ommer, Mockito.times(1)).verifyData(params))
+
+    // Verified ommers are remembered per network params
+    assertFalse("Ommer expected not to be verified", OmmersVerification.isVerified(ommers.head.header.id, MainNetParams()))
+  }
+
+  @Test
+  def firstInvalidOmmerFailure(): Unit = {
+    val params = RegTestParams()
+    val firstException = new InvalidOmmerDataException("first ommer is invalid")
+    val secondException = new InvalidOmmerDataException("second ommer is invalid")
+    val validOmmer = getMockedOmmer(Success(()))
+    val ommers = Seq(validOmmer, getMockedOmmer(Failure(firstException)), getMockedOmmer(Failure(secondException)))
+
+    Try(OmmersVerification.verifyData(ommers, params)) match {
+      case Failure(e) => assertEquals("Different exception expected", firstException, e)
+      case Success(_) => throw new AssertionError("Ommers verification expected to fail")
+    }
+    assertTrue("Valid ommer expected to be verified", OmmersVerification.isVerified(validOmmer.header.id, params))
+    ommers.tail.foreach(ommer => assertFalse("Invalid ommer expected not to be verified", OmmersVerification.isVerified(ommer.header.id, params)))
+  }
+}
@@ -99,6 +99,29 @@ class SidechainSecretStorageTest
       secretStorage.get(List(secretList.head.publicImage(), nonExistingSecret.publicImage())))
   }
 
+  @Test
+  def testContainsSecretFor(): Unit = {
+    val secretStorage = new SidechainSecretStorage(mockedStorage, sidechainSecretsCompanion)
+
+    // Test 1: the keyed lookup must give the same result of the proof of knowledge check against all the secrets
+    for (secret <- secretList) {
+      val proposition = secret.publicImage()
+      assertTrue("Storage must contain the Secret for the proposition.", secretStorage.containsSecretFor(proposition))
+      assertEquals(proposition.canBeProvedBy(secretStorage.getAll.asJava).canBeProved, secretStorage.containsSecretFor(proposition))
+    }
+
+    // Test 2: non-existing secret
+    val nonExistingSecret = getPrivateKey25519("test non-existing".getBytes(StandardCharsets.UTF_8))
+    assertFalse("Storage should NOT contain the Secret for the proposition.", secretStorage.containsSecretFor(nonExistingSecret.publicImage()))
+
+    // Test 3: removed secret
+    Mockito.when(mockedStorage.update(ArgumentMatchers.any[ByteArrayWrapper](),
+      ArgumentMatchers.anyList[Pair[ByteArrayWrapper, ByteArrayWrapper]](),
+      ArgumentMatchers.anyList[ByteArrayWrapper]())).thenAnswer(_ => ())
+    secretStorage.remove(secretList.head.publicImage()).get
+    assertFalse("Storage should NOT contain the Secret of a removed proposition.", secretStorage.containsSecretFor(secretList.head.publicImage()))
+  }
+
   @Test
   def testAdd(): Unit = {
     val secretStorage = new SidechainSecretStorage(mockedStorage, sidechainSecretsCompanion)
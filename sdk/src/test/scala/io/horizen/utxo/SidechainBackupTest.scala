@@ -165,6 +165,47 @@ class SidechainBackupTest
     assertEquals(stateStorage.lastVersionID().get().data().deep, secondModifier.data().deep)
   }
 
+  @Test
+  def testCreateBackupWithBatchedWrites(): Unit = {
+    //Create temporary SidechainStateStorage
+    val stateStorageFile = temporaryFolder.newFolder("sidechainStateStorage")
+    var stateStorage = new VersionedLevelDbStorageAdapter(stateStorageFile)
+
+    //Create temporary BackupStorage
+    val backupStorageFile = temporaryFolder.newFolder("backupStorage")
+    val backupStorage = new VersionedLevelDbStorageAdapter(backupStorageFile)
+
+    stateStorage.update(firstModifier, storedBoxListFirstModifier.asJava, new JArrayList[ByteArrayWrapper]())
+    stateStorage.update(secondModifier, storedBoxListSecondModifier.asJava, new JArrayList[ByteArrayWrapper]())
+    stateStorage.close()
+
+    //Backupper adding the boxes one by one, without flushing the last batch
+    val batchedBackupper: BoxBackupInterface = new BoxBackupInterface {
+      override def backup(source: BoxIterator, db: BackupStorage): Unit = {
+        var optionalBox = source.nextBox(true)
+        while(optionalBox.isPresent) {
+          db.add(optionalBox.get).get
+          optionalBox = source.nextBox(true)
+        }
+      }
+    }
+
+    val sidechainBackup = new SidechainBackup(customBoxSerializers = customBoxesSerializers, backUpStorage = backupStorage, backUpper = batchedBackupper, params = params)
+    sidechainBackup.createBackup(stateStorageFile.getPath, BytesUtils.toHexString(firstModifier.data()), true)
+
+    //The pending boxes are written at the end of the backup
+    val storedBoxes = readStorage(new BoxIterator(backupStorage.getIterator(), sidechainBoxesCompanion))
+    assertEquals("BackupStorage should contains only the firstModifierBoxLength CustomBoxes of the storedBoxListFirstModifier!", firstModifierBoxLength, storedBoxes.size())
+    storedBoxes.forEach(box => {
+      val storageElement = new JPair[ByteArrayWrapper, ByteArrayWrapper](new ByteArrayWrapper(box.getBoxKey), new ByteArrayWrapper(sidechainBoxesCompanion.toBytes(box.getBox)))
+      assertTrue("Restored boxes should be inside storedBoxListFirstModifier", storedBoxListFirstModifier.contains(storageElement))
+    })
+
+    stateStorage = new VersionedLevelDbStorageAdapter(stateStorageFile)
+    //Verify that the StateStorage was not modified
+    assertEquals(stateStorage.lastVersionID().get().data().deep, secondModifier.data().deep)
+  }
+
   def readStorage(sidechainStateStorageBoxIterator: BoxIterator): JArrayList[BackupBox] = {
     val storedBoxes = new JArrayList[BackupBox]()
 
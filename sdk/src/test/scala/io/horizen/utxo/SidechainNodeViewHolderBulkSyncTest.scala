@@ -0,0 +1,278 @@
+package io.horizen.utxo
+
+import akka.actor.ActorSystem
+import akka.testkit.TestActorRef
+import io.horizen.chain.SidechainBlockInfo
+import io.horizen.fixtures._
+import io.horizen.metrics.MetricsManager
+import io.horizen.network.SyncStatus
+import io.horizen.network.SyncStatusActor.{NotifySyncStart, NotifySyncStop}
+import io.horizen.params.{NetworkParams, RegTestParams}
+import io.horizen.storage.{BulkSyncJournal, BulkUpdatableStorage, Storage}
+import io.horizen.utils.{ByteArrayWrapper, WithdrawalEpochInfo}
+import io.horizen.utxo.block.SidechainBlock
+import io.horizen.utxo.companion.SidechainTransactionsCompanion
+import io.horizen.utxo.history.SidechainHistory
+import io.horizen.utxo.mempool.SidechainMemoryPool
+import io.horizen.utxo.state.SidechainState
+import io.horizen.utxo.wallet.SidechainWallet
+import io.horizen.{BulkSyncSettings, EvmStateDump, MempoolSettings, SidechainSettings, WalletSettings}
+import org.junit.Assert.{assertEquals, assertFalse, assertTrue}
+import org.junit.{Before, Test}
+import org.mockito.Mockito.times
+import org.mockito.{ArgumentMatchers, Mockito}
+import org.scalatestplus.junit.JUnitSuite
+import org.scalatestplus.mockito.MockitoSugar.mock
+import sparkz.core.NodeViewHolder.ReceivableMessages.LocallyGeneratedModifier
+import sparkz.core.consensus.History.ProgressInfo
+import sparkz.core.settings.{NetworkSettings, SparkzSettings}
+import sparkz.core.utils.NetworkTimeProvider
+import sparkz.core.{VersionTag, bytesToVersion, idToVersion, versionToBytes}
+import sparkz.util.{ModifierId, bytesToId, idToBytes}
+
+import java.io.File
+import java.nio.file.{Files, Path, StandardCopyOption}
+import java.util.{ArrayList => JArrayList}
+import scala.collection.JavaConverters._
+import scala.util.Success
+
+class BulkSyncSidechainNodeViewHolder(sidechainSettings: SidechainSettings,
+                                      history: SidechainHistory,
+                                      state: SidechainState,
+                                      wallet: SidechainWallet,
+                                      mempool: SidechainMemoryPool,
+                                      params: NetworkParams,
+                                      stateAndWalletStorages: Seq[BulkUpdatableStorage],
+                                      historyStorages: Seq[BulkUpdatableStorage])
+  extends MockedSidechainNodeViewHolder(sidechainSettings, history, state, wallet, mempool, params) {
+
+  override protected lazy val bulkSyncStateAndWalletStorages: Seq[BulkUpdatableStorage] = stateAndWalletStorages
+
+  override protected lazy val bulkSyncHistoryStorages: Seq[BulkUpdatableStorage] = historyStorages
+}
+
+class SidechainNodeViewHolderBulkSyncTest extends JUnitSuite
+  with SidechainBlockFixture
+  with CompanionsFixture
+  with StoreFixture
+{
+  var history: SidechainHistory = _
+  var state: SidechainState = _
+  var wallet: SidechainWallet = _
+  var mempool: SidechainMemoryPool = _
+
+  implicit val actorSystem: ActorSystem = ActorSystem("sc_nvh_bulk_sync")
+
+  val sidechainTransactionsCompanion: SidechainTransactionsCompanion = getDefaultTransactionsCompanion
+
+  val genesisBlock: SidechainBlock = SidechainBlockFixture.generateSidechainBlock(sidechainTransactionsCompanion)
+  val params: NetworkParams = RegTestParams(initialCumulativeCommTreeHash = FieldElementFixture.generateFieldElement())
+  val maxBlocksPerBatch = 2
+
+  @Before
+  def setUp(): Unit = {
+    MetricsManager.init(mock[NetworkTimeProvider])
+    history = mock[SidechainHistory]
+    state = mock[SidechainState]
+    wallet = mock[SidechainWallet]
+    val mempoolSettings = mock[MempoolSettings]
+    Mockito.when(mempoolSettings.maxSize).thenReturn(300)
+    Mockito.when(mempoolSettings.minFeeRate).thenReturn(0)
+    mempool = SidechainMemoryPool.createEmptyMempool(mempoolSettings)
+  }
+
+  private def getSidechainSettings(dataDir: File): SidechainSettings = {
+    val sidechainSettings = mock[SidechainSettings]
+    val sparkzSettings = mock[SparkzSettings]
+    val networkSettings = mock[NetworkSettings]
+    val walletSettings = mock[WalletSettings]
+    Mockito.when(sidechainSettings.sparkzSettings).thenReturn(sparkzSettings)
+    Mockito.when(sparkzSettings.dataDir).thenReturn(dataDir)
+    Mockito.when(sparkzSettings.network).thenReturn(networkSettings)
+    Mockito.when(networkSettings.maxModifiersCacheSize).thenReturn(100)
+    Mockito.when(sidechainSettings.wallet).thenReturn(walletSettings)
+    Mockito.when(walletSettings.maxTxFee).thenReturn(10000000L)
+    Mockito.when(sidechainSettings.evmStateDump).thenReturn(EvmStateDump(false))
+    Mockito.when(sidechainSettings.bulkSync).thenReturn(BulkSyncSettings(enabled = true, maxBlocksPerBatch = maxBlocksPerBatch))
+    sidechainSettings
+  }
+
+  private def getNodeViewHolderRef(dataDir: File,
+                                   stateAndWalletStorages: Seq[BulkUpdatableStorage],
+                                   historyStorages: Seq[BulkUpdatableStorage]): TestActorRef[BulkSyncSidechainNodeViewHolder] = {
+    val sidechainSettings = getSidechainSettings(dataDir)
+    TestActorRef(new BulkSyncSidechainNodeViewHolder(
+      sidechainSettings, history, state, wallet, mempool, params, stateAndWalletStorages, historyStorages))
+  }
+
+  private def bulkUpdatable(storage: Storage): BulkUpdatableStorage = new BulkUpdatableStorage {
+    override def startBulkUpdate(): Unit = storage.startBulkUpdate()
+
+    override def commitBulkUpdate(): Unit = storage.commitBulkUpdate()
+  }
+
+  private def generateBlocks(count: Int): Seq[SidechainBlock] =
+    (1 to count).scanLeft(genesisBlock)((parent, _) => generateNextSidechainBlock(parent, sidechainTransactionsCompanion, params)).tail
+
+  private def blockVersion(block: SidechainBlock): ByteArrayWrapper = new ByteArrayWrapper(idToBytes(block.id))
+
+  // mocks the application of any block to the active chain:
+  // state, wallet and history apply it in the same order of the real node view, calling the given functions
+  private def mockBlockApplication(onState: SidechainBlock => Unit = _ => (),
+                                   onWallet: SidechainBlock => Unit = _ => (),
+                                   onHistory: SidechainBlock => Unit = _ => ()): Unit = {
+    Mockito.when(state.version).thenReturn(idToVersion(genesisBlock.id))
+    Mockito.when(history.append(ArgumentMatchers.any[SidechainBlock])).thenAnswer(answer => {
+      val block: SidechainBlock = answer.getArgument(0).asInstanceOf[SidechainBlock]
+      Success(history -> ProgressInfo[SidechainBlock](None, Seq(), Seq(block)))
+    })
+    Mockito.when(state.applyModifier(ArgumentMatchers.any[SidechainBlock])).thenAnswer(answer => {
+      onState(answer.getArgument(0).asInstanceOf[SidechainBlock])
+      Success(state)
+    })
+    Mockito.when(state.getWithdrawalEpochInfo).thenReturn(WithdrawalEpochInfo(0, 1))
+    Mockito.when(state.isWithdrawalEpochLastIndex).thenReturn(false)
+    Mockito.when(state.isSwitchingConsensusEpoch(ArgumentMatchers.any[Long])).thenReturn(false)
+    Mockito.when(wallet.scanPersistent(ArgumentMatchers.any[SidechainBlock],
+      ArgumentMatchers.any[Int](),
+      ArgumentMatchers.any(),
+      ArgumentMatchers.any())).thenAnswer(answer => {
+      onWallet(answer.getArgument(0).asInstanceOf[SidechainBlock])
+      wallet
+    })
+    // history best block is updated as very last step
+    Mockito.when(history.reportModifierIsValid(ArgumentMatchers.any[SidechainBlock])).thenAnswer(answer => {
+      onHistory(answer.getArgument(0).asInstanceOf[SidechainBlock])
+      Success(history)
+    })
+  }
+
+  @Test
+  def bulkSyncGroups(): Unit = {
+    // Test: Verify that while the node is syncing the blocks are applied in groups of maxBlocksPerBatch,
+    // and that the storages of every group are flushed in order: state and wallet while the journal exists,
+    // history after the journal is removed.
+    val dataDir = tempDir()
+    val journalFile = new File(dataDir, BulkSyncJournal.FileName)
+    val stateStorage = mock[BulkUpdatableStorage]
+    val walletStorage = mock[BulkUpdatableStorage]
+    val historyStorage = mock[BulkUpdatableStorage]
+    Mockito.doAnswer(_ => assertTrue("Journal must exist while state is flushed.", journalFile.exists())).when(stateStorage).commitBulkUpdate()
+    Mockito.doAnswer(_ => assertTrue("Journal must exist while wallet is flushed.", journalFile.exists())).when(walletStorage).commitBulkUpdate()
+    Mockito.doAnswer(_ => assertFalse("Journal must be removed before history is flushed.", journalFile.exists())).when(historyStorage).commitBulkUpdate()
+
+    mockBlockApplication()
+    val nodeViewHolderRef = getNodeViewHolderRef(dataDir, Seq(stateStorage, walletStorage), Seq(historyStorage))
+    val blocks = generateBlocks(6)
+
+    // blocks applied before the sync starts are not grouped
+    nodeViewHolderRef ! LocallyGeneratedModifier(blocks.head)
+    Mockito.verify(stateStorage, times(0)).startBulkUpdate()
+    assertFalse("Journal must not exist out of the bulk sync.", journalFile.exists())
+
+    nodeViewHolderRef ! NotifySyncStart(new SyncStatus(true))
+    blocks.slice(1, 6).foreach(block => nodeViewHolderRef ! LocallyGeneratedModifier(block))
+
+    // 5 blocks applied: 2 full groups flushed, the third one still open
+    Seq(stateStorage, walletStorage, historyStorage).foreach { storage =>
+      Mockito.verify(storage, times(3)).startBulkUpdate()
+      Mockito.verify(storage, times(2)).commitBulkUpdate()
+    }
+    assertTrue("Journal must exist while a group is open.", journalFile.exists())
+    assertEquals("Journal must contain the version before the group.",
+      new ByteArrayWrapper(idToBytes(genesisBlock.id)), new BulkSyncJournal(journalFile).groupStartVersion.get)
+
+    // the open group is flushed when the sync stops
+    nodeViewHolderRef ! NotifySyncStop
+    Seq(stateStorage, walletStorage, historyStorage).foreach { storage =>
+      Mockito.verify(storage, times(3)).startBulkUpdate()
+      Mockito.verify(storage, times(3)).commitBulkUpdate()
+    }
+    assertFalse("Journal must be removed after the sync.", journalFile.exists())
+
+    val inOrder = Mockito.inOrder(stateStorage, walletStorage, historyStorage)
+    (1 to 3).foreach { _ =>
+      inOrder.verify(stateStorage).commitBulkUpdate()
+      inOrder.verify(walletStorage).commitBulkUpdate()
+      inOrder.verify(historyStorage).commitBulkUpdate()
+    }
+  }
+
+  @Test
+  def bulkSyncRecoveryAfterCrash(): Unit = {
+    // Test: Verify that if the node is killed while a group is flushed, after the journal was written and only part of
+    // the storages were committed, at the restart state and wallet are rolled back to the version history points to.
+    val dataDir = tempDir()
+    val genesisVersion = blockVersion(genesisBlock)
+    val storageNames = Seq("state", "wallet", "history")
+    val Seq(stateStorage, walletStorage, historyStorage) = storageNames.map { name =>
+      val storage = getStorage(new File(dataDir, name))
+      storage.update(genesisVersion, getKeyValueList(3), new JArrayList())
+      storage
+    }
+
+    mockBlockApplication(
+      onState = block => stateStorage.update(blockVersion(block), getKeyValueList(1), new JArrayList()),
+      onWallet = block => walletStorage.update(blockVersion(block), getKeyValueList(1), new JArrayList()),
+      onHistory = block => historyStorage.update(blockVersion(block), getKeyValueList(1), new JArrayList())
+    )
+    val nodeViewHolderRef = getNodeViewHolderRef(dataDir,
+      Seq(bulkUpdatable(stateStorage), bulkUpdatable(walletStorage)), Seq(bulkUpdatable(historyStorage)))
+
+    nodeViewHolderRef ! NotifySyncStart(new SyncStatus(true))
+    val blocks = generateBlocks(maxBlocksPerBatch - 1)
+    blocks.foreach(block => nodeViewHolderRef ! LocallyGeneratedModifier(block))
+    assertTrue("Journal must exist while a group is open.", new File(dataDir, BulkSyncJournal.FileName).exists())
+
+    // the node is killed while flushing the group, just after the first storage was committed:
+    // the content of the data dir at that moment is what is found at the restart
+    stateStorage.commitBulkUpdate()
+    val restartDataDir = tempDir()
+    copyDir(dataDir.toPath, restartDataDir.toPath)
+
+    val Seq(restartedStateStorage, restartedWalletStorage, restartedHistoryStorage) =
+      storageNames.map(name => getStorage(new File(restartDataDir, name)))
+    assertEquals("State storage must contain the flushed group.", blockVersion(blocks.last), restartedStateStorage.lastVersionID.get)
+    assertEquals("Wallet storage must not contain the group.", genesisVersion, restartedWalletStorage.lastVersionID.get)
+    assertEquals("History storage must not contain the group.", genesisVersion, restartedHistoryStorage.lastVersionID.get)
+
+    // restored node view on top of the restarted storages
+    val restoredHistory = mock[SidechainHistory]
+    val restoredState = mock[SidechainState]
+    val restoredWallet = mock[SidechainWallet]
+    def storageVersion(storage: Storage): VersionTag = bytesToVersion(storage.lastVersionID.get.data)
+    Mockito.when(restoredHistory.bestBlockId).thenAnswer(_ => bytesToId(restartedHistoryStorage.lastVersionID.get.data))
+    Mockito.when(restoredHistory.blockInfoById(ArgumentMatchers.any[ModifierId])).thenReturn(mock[SidechainBlockInfo])
+    Mockito.when(restoredState.version).thenAnswer(_ => storageVersion(restartedStateStorage))
+    Mockito.when(restoredState.rollbackTo(ArgumentMatchers.any[VersionTag])).thenAnswer(answer => {
+      restartedStateStorage.rollback(new ByteArrayWrapper(versionToBytes(answer.getArgument(0).asInstanceOf[VersionTag])))
+      Success(restoredState)
+    })
+    Mockito.when(restoredState.ensureStorageConsistencyAfterRestore).thenReturn(Success(restoredState))
+    Mockito.when(restoredWallet.version).thenAnswer(_ => storageVersion(restartedWalletStorage))
+    Mockito.when(restoredWallet.rollback(ArgumentMatchers.any[VersionTag])).thenAnswer(answer => {
+      restartedWalletStorage.rollback(new ByteArrayWrapper(versionToBytes(answer.getArgument(0).asInstanceOf[VersionTag])))
+      Success(restoredWallet)
+    })
+    Mockito.when(restoredWallet.ensureStorageConsistencyAfterRestore).thenReturn(Success(restoredWallet))
+
+    val restartedNodeViewHolderRef = getNodeViewHolderRef(restartDataDir, Seq(), Seq())
+    val recovered = restartedNodeViewHolderRef.underlyingActor.checkAndRecoverStorages(
+      Some((restoredHistory, restoredState, restoredWallet, mempool)))
+
+    assertTrue("Storages must be recovered.", recovered.isDefined)
+    assertFalse("Journal must be removed after the recovery.", new File(restartDataDir, BulkSyncJournal.FileName).exists())
+    Seq(restartedStateStorage, restartedWalletStorage, restartedHistoryStorage).foreach(storage =>
+      assertEquals("Storages must be recovered to the version before the group.", genesisVersion, storage.lastVersionID.get))
+  }
+
+  private def copyDir(from: Path, to: Path): Unit = {
+    Files.walk(from).iterator().asScala.foreach { path =>
+      val target = to.resolve(from.relativize(path))
+      if (Files.isDirectory(path))
+        Files.createDirectories(target)
+      else
+        Files.copy(path, target, StandardCopyOption.REPLACE_EXISTING)
+    }
+  }
+}
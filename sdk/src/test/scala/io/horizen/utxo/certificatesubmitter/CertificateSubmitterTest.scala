@@ -13,18 +13,19 @@ import io.horizen.certificatesubmitter.AbstractCertificateSubmitter.Timers.Certi
 import io.horizen.certificatesubmitter.AbstractCertificateSubmitter._
 import io.horizen.certificatesubmitter.dataproof.{CertificateData, CertificateDataWithoutKeyRotation}
 import io.horizen.certificatesubmitter.keys.CertifiersKeys
-import io.horizen.certificatesubmitter.strategies.{CeasingSidechain, CertificateSubmissionStrategy, CircuitStrategy, WithoutKeyRotationCircuitStrategy}
+import io.horizen.certificatesubmitter.strategies.{CeasingSidechain, CertificateSubmissionStrategy, CircuitStrategy, SubmissionWindowStatus, WithoutKeyRotationCircuitStrategy}
 import io.horizen.chain.{MainchainBlockReferenceInfo, MainchainHeaderInfo, SidechainBlockInfo}
 import io.horizen.consensus.ConsensusParamsUtil
 import io.horizen.cryptolibprovider.CryptoLibProvider
 import io.horizen.fixtures.FieldElementFixture
 import io.horizen.fork.{ConsensusParamsFork, ConsensusParamsForkInfo, ForkManagerUtil, SimpleForkConfigurator}
+import io.horizen.metrics.MetricsManager
 import io.horizen.params.{CommonParams, NetworkParams, RegTestParams}
 import io.horizen.proposition.{Proposition, SchnorrProposition}
 import io.horizen.secret.{SchnorrKeyGenerator, SchnorrSecret}
 import io.horizen.transaction.MC2SCAggregatedTransaction
 import io.horizen.transaction.mainchain.{SidechainCreation, SidechainRelatedMainchainOutput}
-import io.horizen.utils.{BytesUtils, TimeToEpochUtils, WithdrawalEpochInfo, ZenCoinsUtils}
+import io.horizen.utils.{BytesUtils, Pair, TimeToEpochUtils, WithdrawalEpochInfo, ZenCoinsUtils}
 import io.horizen.utxo.block.{SidechainBlock, SidechainBlockHeader}
 import io.horizen.utxo.box.Box
 import io.horizen.utxo.history.SidechainHistory
@@ -37,16 +38,18 @@ import org.junit.Assert._
 import org.junit.{Assert, Before, Test}
 import org.mockito.ArgumentMatchers
 import org.mockito.ArgumentMatchers.any
-import org.mockito.Mockito.{reset, when}
+import org.mockito.Mockito.{never, reset, verify, when}
 import org.scalatestplus.junit.JUnitSuite
 import org.scalatestplus.mockito.MockitoSugar
 import sparkz.core.NodeViewHolder.CurrentView
 import sparkz.core.NodeViewHolder.ReceivableMessages.GetDataFromCurrentView
 import sparkz.core.network.NodeViewSynchronizer.ReceivableMessages.SemanticallySuccessfulModifier
 import sparkz.core.settings.{RESTApiSettings, SparkzSettings}
+import sparkz.core.utils.NetworkTimeProvider
 import sparkz.util.ModifierId
 
 import java.nio.charset.StandardCharsets
+import java.util.concurrent.{CountDownLatch, TimeUnit}
 import scala.collection.JavaConverters._
 import scala.collection.mutable.{ArrayBuffer, ListBuffer}
 import scala.compat.java8.OptionConverters._
@@ -66,6 +69,7 @@ class CertificateSubmitterTest extends JUnitSuite with MockitoSugar {
     val forkConfigurator = new SimpleForkConfigurator()
     consensusEpochAtWhichForkIsApplied = forkConfigurator.forkActivation.regtest
     ForkManagerUtil.initializeForkManager(new SimpleForkConfigurator(), "regtest")
+    MetricsManager.init(mock[NetworkTimeProvider])
   }
 
   private def getMockedSettings(timeoutDuration: FiniteDuration, submitterIsEnabled: Boolean, signerIsEnabled: Boolean): SidechainSettings = {
@@ -1022,6 +1026,64 @@ class CertificateSubmitterTest extends JUnitSuite with MockitoSugar {
     certSubmissionEventListener.fishForMessage(timeout.duration) { case m => m == CertificateSubmissionStopped }
   }
 
+  @Test
+  def cancelObsoleteCertificateProofGeneration(): Unit = {
+    val mockedSettings: SidechainSettings = getMockedSettings(timeout.duration * 100, submitterIsEnabled = true, signerIsEnabled = false)
+    val params: RegTestParams = RegTestParams()
+    val mockedMainchainChannel: MainchainNodeChannel = mock[MainchainNodeChannel]
+
+    val history: SidechainHistory = mock[SidechainHistory]
+    val state: SidechainState = mock[SidechainState]
+    val wallet: SidechainWallet = mock[SidechainWallet]
+
+    val mockedSidechainNodeViewHolder = TestProbe()
+    mockedSidechainNodeViewHolder.setAutoPilot((sender: ActorRef, msg: Any) => {
+      msg match {
+        case GetDataFromCurrentView(f) =>
+          sender ! f(CurrentView(history, state, wallet, mock[SidechainMemoryPool]))
+      }
+      TestActor.KeepRunning
+    })
+    val mockedSidechainNodeViewHolderRef: ActorRef = mockedSidechainNodeViewHolder.ref
+
+    // Proof generation blocks until released
+    val proofGenerationStarted = new CountDownLatch(1)
+    val proofGenerationReleased = new CountDownLatch(1)
+    val keyRotationStrategy = mock[CircuitStrategy[SidechainTypes#SCBT, SidechainBlockHeader, SidechainBlock, SidechainHistory, SidechainState, CertificateDataWithoutKeyRotation]]
+    when(keyRotationStrategy.buildCertificateData(any(), any(), any())).thenReturn(mock[CertificateDataWithoutKeyRotation])
+    when(keyRotationStrategy.generateProof(any(), any())).thenAnswer(_ => {
+      proofGenerationStarted.countDown()
+      proofGenerationReleased.await()
+      new Pair[Array[Byte], java.lang.Long](Array[Byte](), java.lang.Long.valueOf(0))
+    })
+
+    val mockedSubmissionStrategy: CertificateSubmissionStrategy = mock[CertificateSubmissionStrategy]
+    when(mockedSubmissionStrategy.checkQuality(any())).thenReturn(true)
+    when(mockedSubmissionStrategy.getStatus(any(), any(), any())).thenReturn(SubmissionWindowStatus(100, isInWindow = false))
+
+    val certificateSubmitterRef: TestActorRef[CertificateSubmitter[CertificateDataWithoutKeyRotation]] = TestActorRef(
+      Props(new CertificateSubmitter(mockedSettings, mockedSidechainNodeViewHolderRef, mock[SecureEnclaveApiClient], params, mockedMainchainChannel, mockedSubmissionStrategy, keyRotationStrategy)))
+    val submitter: CertificateSubmitter[CertificateDataWithoutKeyRotation] = certificateSubmitterRef.underlyingActor
+
+    val certSubmissionEventListener = TestProbe()
+    actorSystem.eventStream.subscribe(certSubmissionEventListener.ref, CertificateSubmissionStopped.getClass)
+
+    // Skip initialization
+    submitter.context.become(submitter.workingCycle)
+    submitter.signaturesStatus = Some(SignaturesStatus(100, FieldElementFixture.generateFieldElement(), ArrayBuffer(), Seq()))
+
+    certificateSubmitterRef ! TryToGenerateCertificate
+    assertTrue("Certificate proof generation expected to be started.", proofGenerationStarted.await(timeout.duration.toMillis * 50, TimeUnit.MILLISECONDS))
+
+    // Submission window ends during the proof generation: the certificate must not be sent
+    certificateSubmitterRef ! SemanticallySuccessfulModifier(mock[SidechainBlock])
+    assertEquals("Signature status expected to be not defined.", None, submitter.signaturesStatus)
+    proofGenerationReleased.countDown()
+
+    certSubmissionEventListener.fishForMessage(timeout.duration * 50) { case m => m == CertificateSubmissionStopped }
+    verify(mockedMainchainChannel, never()).sendCertificate(any())
+  }
+
   @Test
   def switchSubmitterStatus(): Unit = {
     val mockedSettings: SidechainSettings = getMockedSettings(timeout.duration * 100, submitterIsEnabled = true, signerIsEnabled = true)
@@ -64,7 +64,7 @@ class CswManagerTest extends JUnitSuite with MockitoSugar with CswDataFixture
     new ByteArrayWrapper(ftData2.boxId) -> ftData2
   )
 
-  private def getMockedSettings(timeoutDuration: FiniteDuration): SidechainSettings = {
+  private def getMockedSettings(timeoutDuration: FiniteDuration, maxConcurrentProofs: Int = 1): SidechainSettings = {
     val mockedRESTSettings: RESTApiSettings = mock[RESTApiSettings]
     Mockito.when(mockedRESTSettings.timeout).thenReturn(timeoutDuration)
 
@@ -74,6 +74,7 @@ class CswManagerTest extends JUnitSuite with MockitoSugar with CswDataFixture
       Mockito.when(mockedSparkzSettings.restApi).thenAnswer(_ => mockedRESTSettings)
       mockedSparkzSettings
     })
+    Mockito.when(mockedSidechainSettings.csw).thenReturn(CeasedSidechainWithdrawalSettings("", "", maxConcurrentProofs))
 
     mockedSidechainSettings
   }
@@ -464,7 +465,7 @@ class CswManagerTest extends JUnitSuite with MockitoSugar with CswDataFixture
 
     // Test 6: Add proof info to in process
     cswManager.proofsInQueue.clear()
-    cswManager.proofInProcessOpt = Some(ProofInProcess(new ByteArrayWrapper(utxoData1.boxId), receiverAddress))
+    cswManager.proofsInProcess(new ByteArrayWrapper(utxoData1.boxId)) = ProofInProcess(new ByteArrayWrapper(utxoData1.boxId), receiverAddress)
 
     cswInfoTry = Await.result(cswManagerRef ? GetCswInfo(utxoData1.boxId), timeout.duration).asInstanceOf[Try[CswInfo]]
     cswInfoTry match {
@@ -476,7 +477,7 @@ class CswManagerTest extends JUnitSuite with MockitoSugar with CswDataFixture
 
 
     // Test 7: Add generated proof
-    cswManager.proofInProcessOpt = None
+    cswManager.proofsInProcess.clear()
     val expectedProofInfo = CswProofInfo(Generated, Some(new Array[Byte](100)), Some(receiverAddress))
     cswManager.generatedProofsMap(new ByteArrayWrapper(utxoData1.boxId)) = expectedProofInfo
 
@@ -534,14 +535,14 @@ class CswManagerTest extends JUnitSuite with MockitoSugar with CswDataFixture
 
     // Test 5: proof in process
     cswManager.proofsInQueue.clear()
-    cswManager.proofInProcessOpt = Some(ProofInProcess(new ByteArrayWrapper(utxoData1.boxId), receiverAddress))
+    cswManager.proofsInProcess(new ByteArrayWrapper(utxoData1.boxId)) = ProofInProcess(new ByteArrayWrapper(utxoData1.boxId), receiverAddress)
 
     status = Await.result(cswManagerRef ? GenerateCswProof(utxoData1.boxId, receiverAddress), timeout.duration).asInstanceOf[GenerateCswProofStatus]
     assertEquals("Different status expected.", ProofGenerationInProcess, status)
 
 
     // Test 6: generated proof
-    cswManager.proofInProcessOpt = None
+    cswManager.proofsInProcess.clear()
     cswManager.generatedProofsMap(new ByteArrayWrapper(utxoData1.boxId)) = CswProofInfo(Generated, Some(new Array[Byte](100)), Some(receiverAddress))
 
     status = Await.result(cswManagerRef ? GenerateCswProof(utxoData1.boxId, receiverAddress), timeout.duration).asInstanceOf[GenerateCswProofStatus]
@@ -551,7 +552,7 @@ class CswManagerTest extends JUnitSuite with MockitoSugar with CswDataFixture
     // Test 7: start add new proof to queue:
     cswManager.generatedProofsMap.clear()
     // set something in process to prevent new proof generation attempt
-    cswManager.proofInProcessOpt = Some(ProofInProcess(new ByteArrayWrapper(utxoData2.boxId), receiverAddress))
+    cswManager.proofsInProcess(new ByteArrayWrapper(utxoData2.boxId)) = ProofInProcess(new ByteArrayWrapper(utxoData2.boxId), receiverAddress)
 
     status = Await.result(cswManagerRef ? GenerateCswProof(utxoData1.boxId, receiverAddress), timeout.duration).asInstanceOf[GenerateCswProofStatus]
     assertEquals("Different status expected.", ProofGenerationStarted, status)
@@ -584,13 +585,56 @@ class CswManagerTest extends JUnitSuite with MockitoSugar with CswDataFixture
     // Test 10: proof was in process with different receiverAddress
     cswManager.proofsInQueue.clear()
     cswManager.generatedProofsMap.clear()
-    cswManager.proofInProcessOpt = Some(ProofInProcess(new ByteArrayWrapper(utxoData1.boxId), otherReceiverAddress))
+    cswManager.proofsInProcess.clear()
+    cswManager.proofsInProcess(new ByteArrayWrapper(utxoData1.boxId)) = ProofInProcess(new ByteArrayWrapper(utxoData1.boxId), otherReceiverAddress)
 
     status = Await.result(cswManagerRef ? GenerateCswProof(utxoData1.boxId, receiverAddress), timeout.duration).asInstanceOf[GenerateCswProofStatus]
     assertEquals("Different status expected.", ProofGenerationStarted, status)
     assertEquals("Different proof queue size.", 1, cswManager.proofsInQueue.size)
     assertEquals("Different proof in queue entry found.", ProofInQueue(new ByteArrayWrapper(utxoData1.boxId), receiverAddress), cswManager.proofsInQueue.head)
-    assertTrue("Previous proof should be marked as cancelled.", cswManager.proofInProcessOpt.get.isCancelled)
+    assertTrue("Previous proof should be marked as cancelled.", cswManager.proofsInProcess(new ByteArrayWrapper(utxoData1.boxId)).isCancelled)
+  }
+
+  @Test
+  def generateCswProofConcurrently(): Unit = {
+    val mockedSettings: SidechainSettings = getMockedSettings(timeout.duration, maxConcurrentProofs = 2)
+    val params: MainNetParams = MainNetParams()
+
+    val mockedSidechainNodeViewHolder = TestProbe()
+    val mockedSidechainNodeViewHolderRef: ActorRef = mockedSidechainNodeViewHolder.ref
+
+    val cswManagerRef: TestActorRef[CswManager] = TestActorRef(
+      Props(new CswManager(mockedSettings, params, mockedSidechainNodeViewHolderRef)))
+    val cswManager: CswManager = cswManagerRef.underlyingActor
+    assertEquals("Different max concurrent proofs.", Math.min(2, Runtime.getRuntime.availableProcessors()), cswManager.maxConcurrentProofs)
+
+    // skip initialization
+    cswManager.context.become(cswManager.workingCycle)
+
+    // Make sidechain ceased and define witnesses
+    cswManager.hasSidechainCeased = true
+    cswManager.cswWitnessHolderOpt = Some(CswWitnessHolder(utxoMap, ftMap, None, new Array[Byte](32), Seq(), new Array[Byte](32)))
+
+    // Test 1: proof requested again with a different receiverAddress waits for the cancelled one, even with a free worker
+    val otherReceiverAddress: String = "other"
+    cswManager.proofsInProcess(new ByteArrayWrapper(utxoData1.boxId)) = ProofInProcess(new ByteArrayWrapper(utxoData1.boxId), otherReceiverAddress)
+
+    var status = Await.result(cswManagerRef ? GenerateCswProof(utxoData1.boxId, receiverAddress), timeout.duration).asInstanceOf[GenerateCswProofStatus]
+    assertEquals("Different status expected.", ProofGenerationStarted, status)
+    assertEquals("Different proof queue size.", 1, cswManager.proofsInQueue.size)
+    assertTrue("Previous proof should be marked as cancelled.", cswManager.proofsInProcess(new ByteArrayWrapper(utxoData1.boxId)).isCancelled)
+
+    // Test 2: identical request is not queued twice
+    status = Await.result(cswManagerRef ? GenerateCswProof(utxoData1.boxId, receiverAddress), timeout.duration).asInstanceOf[GenerateCswProofStatus]
+    assertEquals("Different status expected.", ProofGenerationInProcess, status)
+    assertEquals("Different proof queue size.", 1, cswManager.proofsInQueue.size)
+
+    // Test 3: all proofs in process are cancelled when the sidechain is alive again
+    val state: SidechainState = mock[SidechainState]
+    Mockito.when(state.hasCeased).thenReturn(false)
+    cswManagerRef ! ChangedState(state)
+    assertTrue("Proof queue expected to be empty.", cswManager.proofsInQueue.isEmpty)
+    assertTrue("Proofs in process should be marked as cancelled.", cswManager.proofsInProcess.values.forall(_.isCancelled))
   }
 
 
@@ -641,7 +685,7 @@ class CswManagerTest extends JUnitSuite with MockitoSugar with CswDataFixture
     // Check that proof is not in the queue anymore
     assertEquals("Different proof queue size.", 0, cswManager.proofsInQueue.size)
     // Proof expected to be failed because of the invalid data.
-    assertFalse("No proof is process expected.", cswManager.proofInProcessOpt.isDefined)
+    assertTrue("No proof is process expected.", cswManager.proofsInProcess.isEmpty)
     assertTrue("No generated proofs expected.", cswManager.generatedProofsMap.isEmpty)
   }
 }
@@ -100,6 +100,45 @@ class MempoolMapTest extends JUnitSuite
     assertEquals(2, ret.size)
   }
 
+  @Test
+  def spentBoxesIndex(): Unit = {
+    val map = new MempoolMap(List(SidechainMemoryPoolEntry(tx1)))
+    map.add(SidechainMemoryPoolEntry(tx2))
+
+    tx1.boxIdsToOpen().forEach(boxId => assertEquals(Some(tx1.id), map.getTransactionSpendingBox(boxId).map(_.id)))
+    tx2.boxIdsToOpen().forEach(boxId => assertEquals(Some(tx2.id), map.getTransactionSpendingBox(boxId).map(_.id)))
+    tx3.boxIdsToOpen().forEach(boxId => assertTrue(map.getTransactionSpendingBox(boxId).isEmpty))
+
+    // conflicts are detected through the index by the default incompatibility checker
+    val view = map.transactionsView
+    assertFalse(tx1.incompatibilityChecker().isTransactionCompatible(tx1, view))
+    assertTrue(tx3.incompatibilityChecker().isTransactionCompatible(tx3, view))
+    assertEquals(2, view.size())
 
+    map.remove(tx1.id)
+    tx1.boxIdsToOpen().forEach(boxId => assertTrue(map.getTransactionSpendingBox(boxId).isEmpty))
+    assertTrue(tx1.incompatibilityChecker().isTransactionCompatible(tx1, map.transactionsView))
+  }
+
+  @Test
+  def orderedIndexes(): Unit = {
+    val map = new MempoolMap(List(SidechainMemoryPoolEntry(tx1)))
+    map.add(SidechainMemoryPoolEntry(tx2))
+    map.add(SidechainMemoryPoolEntry(tx3))
+
+    assertEquals(Seq(tx1.id, tx3.id, tx2.id), map.lowestFeeRateIterator.map(_.getUnconfirmedTx().id).toSeq)
+    assertEquals(Seq(tx2.id, tx3.id, tx1.id), map.highestFeeRateIterator.map(_.getUnconfirmedTx().id).toSeq)
+    assertEquals(Seq(tx2.id, tx3.id, tx1.id), map.highestFeeIterator.map(_.getUnconfirmedTx().id).toSeq)
+
+    // removed entries must leave both indexes
+    map.remove(tx3.id)
+    assertEquals(Seq(tx1.id, tx2.id), map.lowestFeeRateIterator.map(_.getUnconfirmedTx().id).toSeq)
+    assertEquals(Seq(tx2.id, tx1.id), map.highestFeeIterator.map(_.getUnconfirmedTx().id).toSeq)
+
+    // iterators are lazy: entries removed while iterating are skipped
+    val iterator = map.highestFeeRateIterator
+    map.remove(tx2.id)
+    assertEquals(Seq(tx1.id), iterator.map(_.getUnconfirmedTx().id).toSeq)
+  }
 
 }
@@ -27,6 +27,7 @@ import org.mockito.ArgumentMatchers.any
 import org.mockito.{ArgumentMatchers, Mockito}
 import org.scalatestplus.junit.JUnitSuite
 import org.scalatestplus.mockito.MockitoSugar
+import sparkz.core.transaction.state.Removal
 import sparkz.core.{bytesToId, bytesToVersion}
 import sparkz.util.ModifierId
 
@@ -183,6 +184,12 @@ class SidechainStateTest
         boxList.find(_.id().sameElements(boxId))
       })
 
+    Mockito.when(mockedStateStorage.getBoxes(ArgumentMatchers.any[Seq[Array[Byte]]]()))
+      .thenAnswer(answer => {
+        val boxIds = answer.getArgument(0).asInstanceOf[Seq[Array[Byte]]]
+        boxList.filter(box => boxIds.exists(_.sameElements(box.id())))
+      })
+
     Mockito.when(mockedStateStorage.getWithdrawalEpochInfo).thenReturn(None)
 
     Mockito.when(mockedStateStorage.getWithdrawalRequests(ArgumentMatchers.any[Int]())).thenReturn(Seq())
@@ -355,6 +362,12 @@ class SidechainStateTest
         boxList.find(_.id().sameElements(boxId))
       })
 
+    Mockito.when(mockedStateStorage.getBoxes(ArgumentMatchers.any[Seq[Array[Byte]]]()))
+      .thenAnswer(answer => {
+        val boxIds = answer.getArgument(0).asInstanceOf[Seq[Array[Byte]]]
+        boxList.filter(box => boxIds.exists(_.sameElements(box.id())))
+      })
+
     Mockito.when(mockedStateStorage.update(ArgumentMatchers.any[ByteArrayWrapper](),
       ArgumentMatchers.any[WithdrawalEpochInfo](),
       ArgumentMatchers.any[Set[SidechainTypes#SCB]](),
@@ -1006,6 +1019,12 @@ class SidechainStateTest
         boxList.find(_.id().sameElements(boxId))
       })
 
+    Mockito.when(mockedStateStorage.getBoxes(ArgumentMatchers.any[Seq[Array[Byte]]]()))
+      .thenAnswer(answer => {
+        val boxIds = answer.getArgument(0).asInstanceOf[Seq[Array[Byte]]]
+        boxList.filter(box => boxIds.exists(_.sameElements(box.id())))
+      })
+
     Mockito.when(mockedStateStorage.getWithdrawalEpochInfo).thenReturn(None)
 
     Mockito.when(mockedStateStorage.getWithdrawalRequests(ArgumentMatchers.any[Int]())).thenReturn(Seq())
@@ -1354,4 +1373,56 @@ class SidechainStateTest
     tryValidate = sidechainState.validate(keyRotationTransaction.asInstanceOf[SidechainTypes#SCBT])
     assertTrue("Transaction validation must be successful!", tryValidate.isSuccess)
   }
+
+  @Test
+  def changesOfBigBlock(): Unit = {
+    val transactionsCount = 100
+    val boxesPerTransaction = 100
+    val boxesCount = transactionsCount * boxesPerTransaction
+    val secrets = getPrivateKey25519List(boxesPerTransaction).asScala
+    val propositions = secrets.map(_.publicImage())
+    val transactions: Seq[SidechainTypes#SCBT] = (1 to transactionsCount).map(_ =>
+      getRegularTransaction(secrets, propositions).asInstanceOf[SidechainTypes#SCBT])
+
+    val block = mock[SidechainBlock]
+    Mockito.when(block.id).thenReturn(ModifierId @@ "bigBlock")
+    Mockito.when(block.transactions).thenReturn(transactions)
+
+    val changes = SidechainState.changes(block).get
+    assertEquals("Different number of removed boxes found.", boxesCount, changes.toRemove.size)
+    assertEquals("Different number of appended boxes found.", boxesCount, changes.toAppend.size)
+
+    // removals come first, both in transactions order
+    assertTrue("Removals must precede insertions.", changes.operations.take(boxesCount).forall(_.isInstanceOf[Removal[_, _]]))
+    assertEquals(transactions.flatMap(_.unlockers().asScala.map(u => new ByteArrayWrapper(u.closedBoxId()))),
+      changes.toRemove.map(r => new ByteArrayWrapper(r.boxId)))
+    assertEquals(transactions.flatMap(_.newBoxes().asScala.map(b => new ByteArrayWrapper(b.id()))),
+      changes.toAppend.map(i => new ByteArrayWrapper(i.box.id())))
+
+    assertSame("Changes must be computed once per block.", changes, SidechainState.changes(block).get)
+
+    // changes must follow the block transactions
+    Mockito.when(block.transactions).thenReturn(transactions.take(1))
+    assertEquals(boxesPerTransaction, SidechainState.changes(block).get.toRemove.size)
+  }
+
+  @Test
+  def verifyProofs(): Unit = {
+    val verificationsCount = SidechainState.ProofsVerificationChunkSize * 10 + 1
+    val verifications: Seq[() => Boolean] = (0 until verificationsCount).map(i => () => {
+      if (i == 7) throw new IllegalArgumentException("Proof can't be parsed.")
+      i % 3 != 0
+    })
+
+    val results = SidechainState.verifyProofs(verifications)
+    assertEquals("Different number of results found.", verificationsCount, results.size)
+    results.zipWithIndex.foreach { case (result, i) =>
+      if (i == 7)
+        assertTrue("Verification exception expected.", result.isFailure)
+      else
+        assertEquals(s"Different result of verification $i found.", i % 3 != 0, result.get)
+    }
+
+    assertTrue(SidechainState.verifyProofs(Seq()).isEmpty)
+  }
 }
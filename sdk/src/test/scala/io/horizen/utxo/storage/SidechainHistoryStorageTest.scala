@@ -569,6 +569,43 @@ class SidechainHistoryStorageTest extends JUnitSuite with MockitoSugar with Side
     assertEquals("HistoryStorage different exception expected during update.", expectedException, tryRes.failed.get)
   }
 
+  @Test
+  def testReadCaches(): Unit = {
+    val historyStorage = new SidechainHistoryStorage(mockedStorage, sidechainTransactionsCompanion, params)
+    Mockito.when(mockedStorage.update(
+      ArgumentMatchers.any[ByteArrayWrapper](),
+      ArgumentMatchers.anyList[Pair[ByteArrayWrapper, ByteArrayWrapper]](),
+      ArgumentMatchers.anyList[ByteArrayWrapper]()))
+      .thenAnswer(_ => Unit)
+    Mockito.clearInvocations(mockedStorage)
+
+    val forkBlock = forkChainBlockList.last
+    val blockKey = new ByteArrayWrapper(idToBytes(forkBlock.id))
+    val blockInfoKey = new ByteArrayWrapper(Blake2b256(s"blockInfo${forkBlock.id}"))
+
+    // Test 1: blocks and block infos out of the active chain are read and parsed once
+    assertEquals("Storage returned wrong block", forkBlock.id, historyStorage.blockById(forkBlock.id).get.id)
+    assertEquals("Storage returned wrong block", forkBlock.id, historyStorage.blockById(forkBlock.id).get.id)
+    assertEquals("Storage returned wrong block info", forkChainBlockInfoList.last, historyStorage.blockInfoById(forkBlock.id))
+    assertEquals("Storage returned wrong block info", forkChainBlockInfoList.last, historyStorage.blockInfoById(forkBlock.id))
+    Mockito.verify(mockedStorage, Mockito.times(1)).get(blockKey)
+    Mockito.verify(mockedStorage, Mockito.times(1)).get(blockInfoKey)
+    assertEquals("Wrong block cache hit rate", 0.5, historyStorage.blockCacheHitRate, 0.0)
+    assertEquals("Wrong block info cache hit rate", 0.5, historyStorage.blockInfoCacheHitRate, 0.0)
+
+    // Test 2: unknown blocks are not cached
+    val unknownBlockId = getRandomModifier()
+    assertTrue("Storage expected not to find unknown block", historyStorage.blockById(unknownBlockId).isEmpty)
+    assertTrue("Storage expected not to find unknown block", historyStorage.blockById(unknownBlockId).isEmpty)
+    Mockito.verify(mockedStorage, Mockito.times(2)).get(new ByteArrayWrapper(idToBytes(unknownBlockId)))
+
+    // Test 3: updated block info is read again
+    assertTrue("HistoryStorage successful semantic validity update expected",
+      historyStorage.updateSemanticValidity(forkBlock, ModifierSemanticValidity.Invalid).isSuccess)
+    historyStorage.blockInfoById(forkBlock.id)
+    Mockito.verify(mockedStorage, Mockito.times(2)).get(blockInfoKey)
+  }
+
   @Test
   def testExceptions() : Unit = {
     var exceptionThrown = false
@@ -248,6 +248,8 @@ class SidechainWalletTest
 
     // Prepare mockedSecretStorage1 Secrets
     Mockito.when(mockedSecretStorage.getAll).thenReturn(secretList.toList)
+    Mockito.when(mockedSecretStorage.containsSecretFor(ArgumentMatchers.any[SidechainTypes#SCP]()))
+      .thenAnswer(answer => secretList.exists(_.publicImage().equals(answer.getArgument(0))))
 
     // Define fee payment boxes to be added during scan persistent:
     // 1 box related to Wallet, 2 boxes - not.
@@ -438,6 +440,8 @@ class SidechainWalletTest
     val mockedVersion: VersionTag = bytesToVersion(Array[Byte](32))
 
     Mockito.when(mockedSecretStorage.getAll).thenAnswer(_=>customSecretList.toList)
+    Mockito.when(mockedSecretStorage.containsSecretFor(ArgumentMatchers.any[SidechainTypes#SCP]()))
+      .thenAnswer(answer => customSecretList.exists(_.publicImage().equals(answer.getArgument(0))))
 
     //Create temporary WalletBoxStorage
     val walletBoxStorageFile = temporaryFolder.newFolder("walletBoxStorage")
@@ -483,6 +487,8 @@ class SidechainWalletTest
     val mockedApplicationWallet: ApplicationWallet = mock[ApplicationWallet]
     val mockedVersion: VersionTag = bytesToVersion(Array[Byte](32))
     Mockito.when(mockedSecretStorage.getAll).thenAnswer(_=>secretList.toList)
+    Mockito.when(mockedSecretStorage.containsSecretFor(ArgumentMatchers.any[SidechainTypes#SCP]()))
+      .thenAnswer(answer => secretList.exists(_.publicImage().equals(answer.getArgument(0))))
 
     //Create temporary WalletBoxStorage
     val walletBoxStorageFile = temporaryFolder.newFolder("walletBoxStorage")
@@ -424,6 +424,50 @@ class WebSocketServerEndpointTest extends JUnitSuite with MockitoSugar with Befo
     session.close()
   }
 
+  @Test
+  def mempoolDeltaEventsTest(): Unit = {
+    // Test the opt-in mempool delta events
+    val cec = ClientEndpointConfig.Builder.create.build
+    val client = ClientManager.createClient
+
+    val countDownController: CountDownLatchController = new CountDownLatchController(1)
+    val endpoint = new WsEndpoint(countDownController)
+    val session: Session = startSession(client, cec, endpoint)
+
+    // Subscribe: the response contains the raw mempool
+    val subscribeRequest = mapper.createObjectNode()
+      .put("msgType", REQUEST_MESSAGE.code)
+      .put("requestId", 0)
+      .put("requestType", SUBSCRIBE_MEMPOOL_DELTAS.code)
+    subscribeRequest.putObject("requestPayload").put("enabled", true)
+    session.getBasicRemote.sendText(subscribeRequest.toString)
+    assertTrue("No message received.", countDownController.await(5000))
+
+    val json = mapper.readTree(endpoint.receivedMessage.get(0))
+    checkStaticResponseFields(json, RESPONSE_MESSAGE.code, 0, SUBSCRIBE_MEMPOOL_DELTAS.code)
+    assertEquals(mempoolTxs.size, json.get("responsePayload").get("size").asInt())
+
+    // Mempool events carry only the added and removed transaction ids, computed against the mempool the session
+    // received: the mempool didn't change since the subscription, so every event has no changes
+    countDownController.reset(2)
+    publishMempoolEvent()
+    publishMempoolEvent()
+    assertTrue("No event message received.", countDownController.await(5000))
+    assertEquals(3, endpoint.receivedMessage.size())
+
+    for (i <- 1 to 2) {
+      val deltaJson = mapper.readTree(endpoint.receivedMessage.get(i))
+      checkStaticResponseFields(deltaJson, EVENT_MESSAGE.code, -1, SUBSCRIBE_MEMPOOL_DELTAS.code)
+      val eventPayload = deltaJson.get("eventPayload")
+      assertFalse(eventPayload.has("transactions"))
+      assertEquals(mempoolTxs.size, eventPayload.get("size").asInt())
+      assertTrue("Unchanged mempool must have no added transactions.", eventPayload.get("added").isArray && eventPayload.get("added").size() == 0)
+      assertTrue("Unchanged mempool must have no removed transactions.", eventPayload.get("removed").isArray && eventPayload.get("removed").size() == 0)
+    }
+
+    session.close()
+  }
+
   @Test
   def sessionTest(): Unit = {
     // Test the handle of multiple client connections
@@ -532,7 +576,7 @@ class WebSocketServerEndpointTest extends JUnitSuite with MockitoSugar with Befo
   }
 
   def publishMempoolEvent(): Unit = {
-    actorSystem.eventStream.publish(ChangedMempool[SidechainMemoryPool](mock[SidechainMemoryPool]))
+    actorSystem.eventStream.publish(ChangedMempool[SidechainMemoryPool](utilMocks.getNodeMemoryPoolMock(sidechainApiMockConfiguration)))
   }
 
   private def checkStaticResponseFields(json: JsonNode, msgType: Int, requestId: Int, answerType: Int): Unit = {
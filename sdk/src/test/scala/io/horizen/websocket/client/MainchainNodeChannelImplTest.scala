@@ -4,23 +4,48 @@ import com.fasterxml.jackson.databind.ObjectMapper
 import com.fasterxml.jackson.module.scala.DefaultScalaModule
 import io.horizen.block.MainchainHeader
 import io.horizen.mainchain.api.{BackwardTransferEntry, SendCertificateRequest}
-import io.horizen.params.MainNetParams
-import io.horizen.utils.BytesUtils
+import io.horizen.metrics.MetricsManager
+import io.horizen.params.{MainNetParams, RegTestParams}
+import io.horizen.utils.{ByteArrayWrapper, BytesUtils}
 import org.junit.Assert._
-import org.junit.Test
+import org.junit.{Before, Test}
 import org.mockito.{ArgumentMatchers, Mockito}
 import org.scalatestplus.junit.JUnitSuite
 import org.scalatestplus.mockito.MockitoSugar
+import sparkz.core.utils.NetworkTimeProvider
 
-import scala.concurrent.Promise
+import java.util.concurrent.{CopyOnWriteArrayList, TimeoutException}
 import scala.concurrent.duration.{FiniteDuration, _}
+import scala.concurrent.{Await, Future, Promise}
 import scala.io.Source
-import scala.util.Success
+import scala.util.{Success, Try}
 
 class MainchainNodeChannelImplTest extends JUnitSuite with MockitoSugar {
 
   private val mapper = new ObjectMapper().registerModule(DefaultScalaModule)
 
+  // In process client: requests are kept with their response promise, until the test completes them.
+  private class CommunicationClientStub(timeoutDuration: FiniteDuration) extends CommunicationClient {
+    val requests = new CopyOnWriteArrayList[(RequestPayload, Promise[ResponsePayload])]()
+
+    override def sendRequest[Req <: RequestPayload, Resp <: ResponsePayload](requestType: RequestType, request: Req, responseClazz: Class[Resp]): Future[Resp] = {
+      val promise = Promise[ResponsePayload]()
+      requests.add((request, promise))
+      promise.future.asInstanceOf[Future[Resp]]
+    }
+
+    override def registerEventHandler[E <: EventPayload](eventType: Int, handler: EventHandler[E], eventClazz: Class[E]): Try[Unit] = Success(())
+
+    override def unregisterEventHandler[E <: EventPayload](eventType: Int, handler: EventHandler[E]): Unit = {}
+
+    override def requestTimeoutDuration(): FiniteDuration = timeoutDuration
+  }
+
+  @Before
+  def setUp(): Unit = {
+    MetricsManager.init(mock[NetworkTimeProvider])
+  }
+
   @Test
   def getBlockByHeight(): Unit = {
     val mockedCommunicationClient: CommunicationClient = mock[CommunicationClient]
@@ -683,4 +708,86 @@ class MainchainNodeChannelImplTest extends JUnitSuite with MockitoSugar {
     assertTrue("Mempool top certificate information is expected to be empty.", mcRefTry.get.mempoolCertInfo.isEmpty)
     assertTrue("Chain top certificate information is expected to be empty.", mcRefTry.get.chainCertInfo.isEmpty)
   }
+
+  @Test
+  def getBlockWithUnknownSidechainVersions(): Unit = {
+    val client = new CommunicationClientStub(new FiniteDuration(5, SECONDS))
+    val params = RegTestParams()
+    val mcnode = new MainchainNodeChannelImpl(client, params)
+
+    // Block with the certificate of another sidechain, which version is not known yet
+    val mcBlockHex = Source.fromResource("new_mc_blocks/mc_block_with_certificate_without_bts").getLines().next()
+    val certScIdHex = "043a46e2831bdf80657f39e6031c62e56b5d0b9399cc2f33ccc7b514ce8a7237" // BE
+
+    def waitForRequests(count: Int): Unit = {
+      val deadline = 5.seconds.fromNow
+      while (client.requests.size < count && deadline.hasTimeLeft())
+        Thread.sleep(10)
+      assertEquals("Unexpected number of requests sent.", count, client.requests.size)
+    }
+
+    val first = mcnode.getBlockByHashAsync("aa")
+    client.requests.get(0)._2.success(BlockResponsePayload(1, "aa", mcBlockHex))
+
+    // Versions are requested while parsing, without waiting on the response processing pool
+    waitForRequests(2)
+    assertEquals("Sidechain versions request expected.", GetSidechainVersionsRequestPayload(Seq(certScIdHex)), client.requests.get(1)._1)
+    assertFalse("Block must not be ready before the sidechain versions.", first.isCompleted)
+    client.requests.get(1)._2.success(GetSidechainVersionsResponsePayload(Seq(SidechainVersionsInfo(certScIdHex, 0))))
+
+    val mcblock = Await.result(first, 5.seconds)
+    assertTrue("Block must not contain certificate of the current sidechain.", mcblock.data.topQualityCertificate.isEmpty)
+    assertTrue("Sidechain version expected to be cached.",
+      mcnode.sidechainsVersionsCache.contains(new ByteArrayWrapper(BytesUtils.reverseBytes(BytesUtils.fromHexString(certScIdHex)))))
+
+    // Cached versions are not requested again
+    val second = mcnode.getBlockByHashAsync("aa")
+    waitForRequests(3)
+    client.requests.get(2)._2.success(BlockResponsePayload(1, "aa", mcBlockHex))
+    assertEquals("Same block expected.", mcblock.header.hashHex, Await.result(second, 5.seconds).header.hashHex)
+    assertEquals("No more requests expected.", 3, client.requests.size)
+  }
+
+  @Test
+  def pipelinedRequests(): Unit = {
+    val client = new CommunicationClientStub(new FiniteDuration(5, SECONDS))
+    val mcnode = new MainchainNodeChannelImpl(client, MainNetParams(), maxInFlightRequests = 2)
+
+    val hashes = Seq("aa", "bb", "cc", "dd")
+    val results = hashes.map(hash => mcnode.getBlockHashesAfterHashAsync(hash, 1))
+    assertEquals("Only max in flight requests expected to be sent.", 2, client.requests.size)
+
+    // Responses are correlated to their requests, whatever order they arrive in
+    client.requests.get(1)._2.success(BlocksResponsePayload(2, Seq("bb1")))
+    assertEquals("Next request expected to be sent when a response arrives.", 3, client.requests.size)
+    assertEquals("Request expected to be sent in order.", GetBlocksAfterHashRequestPayload("cc", 1), client.requests.get(2)._1)
+    client.requests.get(0)._2.success(BlocksResponsePayload(1, Seq("aa1")))
+    client.requests.get(2)._2.success(BlocksResponsePayload(3, Seq("cc1")))
+    assertEquals("All requests expected to be sent.", 4, client.requests.size)
+    client.requests.get(3)._2.failure(new WebsocketErrorResponseException("error"))
+
+    assertEquals(Seq("bb1"), Await.result(results(1), 1.second))
+    assertEquals(Seq("aa1"), Await.result(results(0), 1.second))
+    assertEquals(Seq("cc1"), Await.result(results(2), 1.second))
+    assertTrue("Failed request expected to fail.",
+      Try(Await.result(results(3), 1.second)).failed.get.isInstanceOf[WebsocketErrorResponseException])
+  }
+
+  @Test
+  def requestTimeout(): Unit = {
+    val client = new CommunicationClientStub(new FiniteDuration(100, MILLISECONDS))
+    val mcnode = new MainchainNodeChannelImpl(client, MainNetParams(), maxInFlightRequests = 1)
+
+    // Response never arrives
+    val first = mcnode.getBlockHashesAfterHashAsync("aa", 1)
+    val second = mcnode.getBlockHashesAfterHashAsync("bb", 1)
+    assertEquals("Only one request expected to be sent.", 1, client.requests.size)
+
+    assertTrue("Request expected to time out.", Try(Await.result(first, 1.second)).failed.get.isInstanceOf[TimeoutException])
+
+    // Timed out request frees its slot
+    assertEquals("Next request expected to be sent.", GetBlocksAfterHashRequestPayload("bb", 1), client.requests.get(1)._1)
+    client.requests.get(1)._2.success(BlocksResponsePayload(2, Seq("bb1")))
+    assertEquals(Seq("bb1"), Await.result(second, 1.second))
+  }
 }